@@ -0,0 +1,113 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.blob;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Syncs files of concurrently committed blobs in batches.
+ *
+ * The first thread which requests a sync becomes the leader of a batch. Once the previous batch
+ * is synced, it syncs all files which have joined its batch in the meantime, while the other
+ * threads of the batch wait for it. This way the syncs of a batch are issued back to back and
+ * the file system can combine their journal commits instead of interleaving them with writes.
+ */
+class BatchedFileSync {
+
+    private Batch current = new Batch();
+    private boolean syncing = false;
+
+    /**
+     * forces the content of the channel to disk, blocks until it is synced
+     */
+    void sync(FileChannel channel) throws IOException {
+        Batch batch;
+        boolean leader;
+        synchronized (this) {
+            batch = current;
+            batch.channels.add(channel);
+            leader = batch.channels.size() == 1;
+        }
+        if (leader) {
+            boolean interrupted = false;
+            synchronized (this) {
+                while (syncing) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // the other threads of the batch are waiting for us
+                        interrupted = true;
+                    }
+                }
+                syncing = true;
+                current = new Batch();
+            }
+            try {
+                batch.sync();
+            } finally {
+                synchronized (this) {
+                    syncing = false;
+                    notifyAll();
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } else {
+            Uninterruptibles.awaitUninterruptibly(batch.done);
+        }
+        IOException failure = batch.failures.get(channel);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static class Batch {
+
+        private final List<FileChannel> channels = new ArrayList<>();
+        private final Map<FileChannel, IOException> failures = new HashMap<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        void sync() {
+            try {
+                for (FileChannel channel : channels) {
+                    try {
+                        channel.force(false);
+                    } catch (IOException e) {
+                        failures.put(channel, e);
+                    }
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+}
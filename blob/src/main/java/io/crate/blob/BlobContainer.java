@@ -23,13 +23,16 @@ package io.crate.blob;
 
 import io.crate.blob.exceptions.DigestNotFoundException;
 import io.crate.common.Hex;
+import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchIllegalStateException;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 
 import java.io.*;
-import java.util.ArrayList;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.UUID;
 
@@ -53,15 +56,35 @@ public class BlobContainer {
     private final File baseDirectory;
     private final File tmpDirectory;
     private final File varDirectory;
+    private final BlobDigestIndex digestIndex;
+    private final BatchedFileSync fileSync = new BatchedFileSync();
+    private final BlobPack pack;
+    private final long packMaxBlobSize;
 
     public BlobContainer(File baseDirectory) {
+        this(baseDirectory, 0L);
+    }
+
+    /**
+     * @param packMaxBlobSize blobs up to this size are stored inside the {@link BlobPack} of the container,
+     *                        0 to store every blob in its own file
+     */
+    public BlobContainer(File baseDirectory, long packMaxBlobSize) {
         this.baseDirectory = baseDirectory;
         this.tmpDirectory = new File(baseDirectory, "tmp");
         this.varDirectory = new File(baseDirectory, "var");
+        this.packMaxBlobSize = packMaxBlobSize;
         FileSystemUtils.mkdirs(this.varDirectory);
         FileSystemUtils.mkdirs(this.tmpDirectory);
 
         createSubDirectories(this.varDirectory);
+        // blobs which have been packed before are served even if packing has been disabled since
+        try {
+            this.pack = new BlobPack(new File(baseDirectory, "packs"), fileSync);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Could not open blob pack at " + baseDirectory, e);
+        }
+        this.digestIndex = BlobDigestIndex.open(new File(baseDirectory, "index"), this);
     }
 
     /**
@@ -102,20 +125,26 @@ public class BlobContainer {
      * get all digests in a subfolder
      * the digests are returned as byte[][] instead as String[] to save overhead in the BlobRecovery
      *
-     * incomplete files leftover from a previous recovery are deleted.
+     * The digests are read from the {@link BlobDigestIndex}, incomplete files leftover from an
+     * interrupted recovery are deleted when the index is rebuilt.
      *
      * @param prefix the subfolder for which to get the digests
      * @return byte array containing the digests (digest = byte[20])
      */
     public byte[][] cleanAndReturnDigests(byte prefix) {
-        int index = prefix & 0xFF;  // byte is signed and may be negative, convert to int to get correct index
-        String[] names = cleanDigests(subDirs[index].list(), index);
-        byte[][] digests = new byte[names.length][];
-        for(int i = 0; i < names.length; i ++){
+        List<BlobDigestIndex.Entry> entries;
+        try {
+            entries = digestIndex.entries(prefix);
+        } catch (IOException e) {
+            throw new ElasticsearchIllegalStateException("Can't read the digests of prefix " + prefix, e);
+        }
+        byte[][] digests = new byte[entries.size()][];
+        for (int i = 0; i < entries.size(); i++) {
+            String digest = entries.get(i).digest();
             try {
-                digests[i] = Hex.decodeHex(names[i]);
+                digests[i] = Hex.decodeHex(digest);
             } catch (ElasticsearchIllegalStateException ex) {
-                logger.error("Can't convert string {} to byte array", names[i]);
+                logger.error("Can't convert string {} to byte array", digest);
                 throw ex;
             }
         }
@@ -123,25 +152,39 @@ public class BlobContainer {
     }
 
     /**
-     * delete all digests that have a .X suffix.
-     * they are leftover files from a previous recovery that was interrupted
+     * the index of all blobs in this container, it must be updated if blobs are added or deleted
      */
-    private String[] cleanDigests(String[] names, int index) {
-        if (names == null) {
-            return null;
-        }
-        List<String> newNames = new ArrayList<>(names.length);
-        for (String name : names) {
-            if (name.contains(".")) {
-                if (!new File(subDirs[index], name).delete()) {
-                    logger.error("Could not delete {}/{}", subDirs[index], name);
-                }
-            } else {
-                newNames.add(name);
-            }
-        }
+    public BlobDigestIndex digestIndex() {
+        return digestIndex;
+    }
+
+    /**
+     * used to sync the files of concurrently committed blobs together
+     */
+    BatchedFileSync fileSync() {
+        return fileSync;
+    }
+
+    /**
+     * the pack holding the small blobs of this container
+     */
+    public BlobPack pack() {
+        return pack;
+    }
 
-        return newNames.toArray(new String[newNames.size()]);
+    /**
+     * @return true if a new blob of the given size should be stored inside the pack
+     */
+    boolean packable(long size) {
+        return packMaxBlobSize > 0 && size <= packMaxBlobSize;
+    }
+
+    public void close() throws IOException {
+        try {
+            pack.close();
+        } finally {
+            digestIndex.close();
+        }
     }
 
     public File getBaseDirectory() {
@@ -165,11 +208,58 @@ public class BlobContainer {
         return new DigestBlob(this, digest, transferId);
     }
 
-    public RandomAccessFile getRandomAccessFile(String digest) {
+    /**
+     * @return true if the blob is stored either as a file or inside the pack
+     */
+    public boolean exists(String digest) {
+        return pack.location(digest) != null || getFile(digest).exists();
+    }
+
+    /**
+     * @return the size of the blob in bytes or -1 if it doesn't exist
+     */
+    public long blobLength(String digest) {
+        BlobPack.Location location = pack.location(digest);
+        if (location != null) {
+            return location.length();
+        }
+        File file = getFile(digest);
+        return file.exists() ? file.length() : -1L;
+    }
+
+    /**
+     * opens the content of the blob for reading, the returned slice must be closed
+     *
+     * @throws DigestNotFoundException if the blob doesn't exist
+     */
+    public BlobSlice openBlob(String digest) throws IOException {
+        BlobSlice slice = pack.open(digest);
+        if (slice != null) {
+            return slice;
+        }
         try {
-            return new RandomAccessFile(getFile(digest), "r");
-        } catch (FileNotFoundException e) {
+            FileChannel channel = FileChannel.open(getFile(digest).toPath(), StandardOpenOption.READ);
+            return new BlobSlice(channel, 0L, channel.size());
+        } catch (NoSuchFileException e) {
             throw new DigestNotFoundException(digest);
         }
     }
+
+    /**
+     * deletes the blob, the digest index isn't updated. Use {@link BlobDigestIndex#delete(String)} to do both.
+     *
+     * @return the size of the deleted blob or -1 if it didn't exist
+     */
+    public long delete(String digest) throws IOException {
+        BlobPack.Location location = pack.remove(digest);
+        if (location != null) {
+            return location.length();
+        }
+        File file = getFile(digest);
+        long size = file.length();
+        if (!file.delete()) {
+            return -1L;
+        }
+        return size;
+    }
 }
@@ -0,0 +1,449 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.blob;
+
+import io.crate.common.Hex;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.io.FileSystemUtils;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent index of the blobs stored in a {@link BlobContainer}.
+ *
+ * For every prefix directory an append-only file is kept which contains a record
+ * (digest, size, last modified) for each added or removed blob. The number of blobs and their
+ * total size are kept in memory, so that neither the stats nor a listing of the blobs of a
+ * prefix have to touch the blob files themselves.
+ *
+ * The counters are written to a state file on {@link #close()}. The state file is removed while
+ * the index is in use, so if it is missing on startup (first start, unclean shutdown) the index
+ * is rebuilt from the blob files and the {@link BlobPack} of the container.
+ */
+public class BlobDigestIndex implements Closeable {
+
+    private static final ESLogger logger = Loggers.getLogger(BlobDigestIndex.class);
+
+    static final String STATE_FILE = "state";
+    private static final int STATE_VERSION = 1;
+
+    private static final byte ADDED = 1;
+    private static final byte REMOVED = 2;
+    private static final int DIGEST_LENGTH = 20;
+    private static final int RECORD_SIZE = 1 + DIGEST_LENGTH + 8 + 8;
+
+    private final File directory;
+    private final BlobContainer container;
+    private final File[] prefixFiles = new File[BlobContainer.SUB_DIRS.length];
+    private final Object[] locks = new Object[BlobContainer.SUB_DIRS.length];
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalSize = new AtomicLong();
+    private volatile boolean closed = false;
+
+    public static class Entry {
+
+        private final String digest;
+        private final long size;
+        private final long lastModified;
+
+        Entry(String digest, long size, long lastModified) {
+            this.digest = digest;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public String digest() {
+            return digest;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        public long lastModified() {
+            return lastModified;
+        }
+    }
+
+    public interface EntryVisitor {
+
+        public boolean visit(Entry entry) throws IOException;
+
+    }
+
+    /**
+     * open the index inside the given directory, rebuilding it from the blobs of the container if necessary
+     */
+    static BlobDigestIndex open(File directory, BlobContainer container) {
+        BlobDigestIndex index = new BlobDigestIndex(directory, container);
+        if (!index.readState()) {
+            index.rebuild();
+        }
+        return index;
+    }
+
+    private BlobDigestIndex(File directory, BlobContainer container) {
+        this.directory = directory;
+        this.container = container;
+        FileSystemUtils.mkdirs(directory);
+        for (int i = 0; i < prefixFiles.length; i++) {
+            prefixFiles[i] = new File(directory, BlobContainer.SUB_DIRS[i]);
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * @return the number of blobs
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * @return the size of all blobs in bytes
+     */
+    public long totalSize() {
+        return totalSize.get();
+    }
+
+    /**
+     * moves a blob into its final location and records it, unless a blob with the same digest exists already.
+     * Both are done while holding the lock of the prefix, so concurrent commits of the same digest are
+     * recorded only once.
+     *
+     * @param source the verified content of the blob, it is removed if the blob exists already
+     * @param blob the final location of the blob, named by its digest
+     * @return true if the blob has been added, false if it existed already
+     */
+    public boolean move(File source, File blob) throws IOException {
+        String digest = blob.getName();
+        synchronized (locks[prefixIndex(digest)]) {
+            if (blob.exists() || container.pack().location(digest) != null) {
+                if (!source.delete()) {
+                    logger.warn("Could not delete {}", source);
+                }
+                return false;
+            }
+            if (!source.renameTo(blob)) {
+                throw new IOException("Could not move " + source + " to " + blob);
+            }
+            record(ADDED, digest, blob.length(), blob.lastModified());
+            return true;
+        }
+    }
+
+    /**
+     * adds a blob to the {@link BlobPack} of the container and records it, unless a blob with the same
+     * digest exists already. Both are done while holding the lock of the prefix.
+     *
+     * @param source the verified content of the blob, it is not removed
+     * @return true if the blob has been added, false if it existed already
+     */
+    public boolean pack(String digest, File source) throws IOException {
+        synchronized (locks[prefixIndex(digest)]) {
+            if (container.getFile(digest).exists()) {
+                return false;
+            }
+            BlobPack.Location location = container.pack().add(digest, source);
+            if (location == null) {
+                return false;
+            }
+            record(ADDED, digest, location.length(), location.lastModified());
+            return true;
+        }
+    }
+
+    /**
+     * deletes a blob and records its removal while holding the lock of the prefix, so that a concurrent
+     * {@link #move(File, File)} of the same digest is recorded either before or after the removal.
+     *
+     * @return false if the blob didn't exist
+     */
+    public boolean delete(String digest) throws IOException {
+        synchronized (locks[prefixIndex(digest)]) {
+            long size = container.delete(digest);
+            if (size < 0) {
+                return false;
+            }
+            record(REMOVED, digest, size, 0L);
+            return true;
+        }
+    }
+
+    /**
+     * record a blob which has been moved into its final location
+     */
+    public void added(File blob) throws IOException {
+        added(blob.getName(), blob.length(), blob.lastModified());
+    }
+
+    /**
+     * record a blob, nothing is changed if the blob is recorded already
+     */
+    public void added(String digest, long size, long lastModified) throws IOException {
+        int index = prefixIndex(digest);
+        synchronized (locks[index]) {
+            if (recordedEntry(index, digest) == null) {
+                record(ADDED, digest, size, lastModified);
+            }
+        }
+    }
+
+    /**
+     * record a blob which has been deleted, nothing is changed if the blob isn't recorded
+     */
+    public void removed(String digest) throws IOException {
+        int index = prefixIndex(digest);
+        synchronized (locks[index]) {
+            Entry entry = recordedEntry(index, digest);
+            if (entry != null) {
+                record(REMOVED, digest, entry.size, 0L);
+            }
+        }
+    }
+
+    /**
+     * Must be called while holding the lock of the prefix.
+     */
+    @Nullable
+    private Entry recordedEntry(int index, String digest) throws IOException {
+        for (Entry entry : readPrefix(index)) {
+            if (entry.digest.equals(digest)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * appends the record and updates the counters.
+     * Must be called while holding the lock of the prefix and only if the record changes the state of the digest.
+     */
+    private void record(byte type, String digest, long size, long lastModified) throws IOException {
+        append(type, digest, size, lastModified);
+        if (type == ADDED) {
+            count.incrementAndGet();
+            totalSize.addAndGet(size);
+        } else {
+            count.decrementAndGet();
+            totalSize.addAndGet(-size);
+        }
+    }
+
+    private void append(byte type, String digest, long size, long lastModified) throws IOException {
+        if (closed) {
+            // the state written on close doesn't reflect this change anymore, force a rebuild on the next start
+            invalidateState();
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.put(type).put(Hex.decodeHex(digest)).putLong(size).putLong(lastModified);
+        int index = prefixIndex(digest);
+        synchronized (locks[index]) {
+            try (FileOutputStream out = new FileOutputStream(prefixFiles[index], true)) {
+                out.write(record.array());
+            }
+        }
+    }
+
+    /**
+     * @return the blobs of the given prefix
+     */
+    public List<Entry> entries(byte prefix) throws IOException {
+        int index = prefix & 0xFF;  // byte is signed and may be negative, convert to int to get correct index
+        synchronized (locks[index]) {
+            return readPrefix(index);
+        }
+    }
+
+    /**
+     * visit all blobs, prefix by prefix. Stops if the visitor returns false.
+     */
+    public void walk(EntryVisitor visitor) throws IOException {
+        for (byte prefix : BlobContainer.PREFIXES) {
+            for (Entry entry : entries(prefix)) {
+                if (!visitor.visit(entry)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * replays the records of a prefix file, the file is compacted if it consists mostly of removed entries.
+     * Must be called while holding the lock of the prefix.
+     */
+    private List<Entry> readPrefix(int index) throws IOException {
+        File file = prefixFiles[index];
+        if (!file.exists()) {
+            return new ArrayList<>(0);
+        }
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        int numRecords = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] digest = new byte[DIGEST_LENGTH];
+            long numCompleteRecords = file.length() / RECORD_SIZE;
+            for (long i = 0; i < numCompleteRecords; i++) {
+                byte type = in.readByte();
+                in.readFully(digest);
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                String hexDigest = Hex.encodeHexString(digest);
+                if (type == ADDED) {
+                    entries.put(hexDigest, new Entry(hexDigest, size, lastModified));
+                } else {
+                    entries.remove(hexDigest);
+                }
+                numRecords++;
+            }
+        }
+        List<Entry> result = new ArrayList<>(entries.values());
+        if (numRecords >= 2 * result.size() && numRecords > 0) {
+            writePrefix(index, result);
+        }
+        return result;
+    }
+
+    private void writePrefix(int index, List<Entry> entries) throws IOException {
+        File tmpFile = new File(directory, BlobContainer.SUB_DIRS[index] + ".tmp");
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpFile))) {
+            for (Entry entry : entries) {
+                record.clear();
+                record.put(ADDED).put(Hex.decodeHex(entry.digest)).putLong(entry.size).putLong(entry.lastModified);
+                out.write(record.array());
+            }
+        }
+        if (!tmpFile.renameTo(prefixFiles[index])) {
+            throw new IOException("Could not replace blob index file " + prefixFiles[index]);
+        }
+    }
+
+    private void rebuild() {
+        logger.info("rebuilding blob digest index at {}", directory);
+        long numBlobs = 0;
+        long size = 0;
+        List<List<Entry>> packedEntries = new ArrayList<>(prefixFiles.length);
+        for (int i = 0; i < prefixFiles.length; i++) {
+            packedEntries.add(new ArrayList<Entry>());
+        }
+        for (BlobPack.Location location : container.pack().locations()) {
+            packedEntries.get(prefixIndex(location.digest())).add(
+                    new Entry(location.digest(), location.length(), location.lastModified()));
+        }
+        for (int i = 0; i < prefixFiles.length; i++) {
+            File subDir = new File(container.getVarDirectory(), BlobContainer.SUB_DIRS[i]);
+            File[] files = subDir.listFiles();
+            List<Entry> entries = new ArrayList<>(files == null ? 0 : files.length);
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().contains(".")) {
+                        // leftover of an interrupted recovery
+                        if (!file.delete()) {
+                            logger.error("Could not delete {}", file);
+                        }
+                        continue;
+                    }
+                    entries.add(new Entry(file.getName(), file.length(), file.lastModified()));
+                    size += file.length();
+                }
+            }
+            for (Entry entry : packedEntries.get(i)) {
+                entries.add(entry);
+                size += entry.size;
+            }
+            numBlobs += entries.size();
+            synchronized (locks[i]) {
+                try {
+                    writePrefix(i, entries);
+                } catch (IOException e) {
+                    throw new ElasticsearchException("Could not rebuild blob digest index at " + directory, e);
+                }
+            }
+        }
+        count.set(numBlobs);
+        totalSize.set(size);
+    }
+
+    /**
+     * @return true if the counters could be read from the state file
+     */
+    private boolean readState() {
+        File stateFile = new File(directory, STATE_FILE);
+        if (!stateFile.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(stateFile))) {
+            if (in.readInt() != STATE_VERSION) {
+                return false;
+            }
+            count.set(in.readLong());
+            totalSize.set(in.readLong());
+        } catch (IOException e) {
+            logger.warn("Could not read blob digest index state {}", e, stateFile);
+            return false;
+        } finally {
+            invalidateState();
+        }
+        return true;
+    }
+
+    private void invalidateState() {
+        File stateFile = new File(directory, STATE_FILE);
+        if (stateFile.exists() && !stateFile.delete()) {
+            logger.error("Could not delete blob digest index state {}", stateFile);
+        }
+    }
+
+    /**
+     * writes the counters to the state file so that the index doesn't have to be rebuilt on the next start
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        File tmpFile = new File(directory, STATE_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmpFile))) {
+            out.writeInt(STATE_VERSION);
+            out.writeLong(count.get());
+            out.writeLong(totalSize.get());
+        }
+        if (!tmpFile.renameTo(new File(directory, STATE_FILE))) {
+            throw new IOException("Could not write blob digest index state to " + directory);
+        }
+    }
+
+    private static int prefixIndex(String digest) {
+        return Integer.parseInt(digest.substring(0, 2), 16);
+    }
+}
@@ -0,0 +1,501 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.blob;
+
+import io.crate.common.Hex;
+import org.elasticsearch.common.io.FileSystemUtils;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Stores small blobs inside append-only segment files instead of one file per blob.
+ *
+ * Every segment consists of records with a header (type, digest, length, last modified) which is
+ * followed by the content of the blob. Removing a blob appends a tombstone which refers to the
+ * segment of the removed blob. The location of every blob is kept in memory and rebuilt by
+ * replaying the segments in order when the pack is opened, so the segments are the only
+ * persistent state.
+ *
+ * Once a segment reaches {@link #DEFAULT_MAX_SEGMENT_SIZE} a new one is started. Segments which
+ * consist mostly of removed blobs are rewritten by {@link #compact()}: the remaining blobs are
+ * appended to the active segment and the old segment is deleted. Readers which have opened the
+ * old segment keep reading from it, new readers are directed to the new location.
+ */
+public class BlobPack implements Closeable {
+
+    private static final ESLogger logger = Loggers.getLogger(BlobPack.class);
+
+    static final String SEGMENT_PREFIX = "segment-";
+    static final long DEFAULT_MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+    static final double COMPACTION_THRESHOLD = 0.5;
+
+    private static final byte ADDED = 1;
+    private static final byte REMOVED = 2;
+    private static final int DIGEST_LENGTH = 20;
+    // type, digest, length of the blob or the segment of a removed blob, last modified
+    static final int HEADER_SIZE = 1 + DIGEST_LENGTH + 8 + 8;
+
+    private final File directory;
+    private final long maxSegmentSize;
+    private final BatchedFileSync fileSync;
+    private final ConcurrentMap<String, Location> locations = ConcurrentCollections.newConcurrentMap();
+
+    // guarded by this
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment active;
+    private FileChannel activeChannel;
+    private boolean closed = false;
+
+    public static class Location {
+
+        private final String digest;
+        private final long segment;
+        private final long offset;
+        private final long length;
+        private final long lastModified;
+
+        Location(String digest, long segment, long offset, long length, long lastModified) {
+            this.digest = digest;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        public String digest() {
+            return digest;
+        }
+
+        /**
+         * the id of the segment the blob is stored in
+         */
+        public long segment() {
+            return segment;
+        }
+
+        /**
+         * the position of the content of the blob inside the segment
+         */
+        public long offset() {
+            return offset;
+        }
+
+        public long length() {
+            return length;
+        }
+
+        public long lastModified() {
+            return lastModified;
+        }
+    }
+
+    private static class Segment {
+
+        private final long id;
+        private final File file;
+        private long size = 0;
+        private long removedBytes = 0;
+
+        Segment(long id, File file) {
+            this.id = id;
+            this.file = file;
+        }
+    }
+
+    BlobPack(File directory, BatchedFileSync fileSync) throws IOException {
+        this(directory, DEFAULT_MAX_SEGMENT_SIZE, fileSync);
+    }
+
+    BlobPack(File directory, long maxSegmentSize, BatchedFileSync fileSync) throws IOException {
+        this.directory = directory;
+        this.maxSegmentSize = maxSegmentSize;
+        this.fileSync = fileSync;
+        load();
+    }
+
+    private synchronized void load() throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.startsWith(SEGMENT_PREFIX)) {
+                continue;
+            }
+            try {
+                long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length()));
+                segments.put(id, new Segment(id, file));
+            } catch (NumberFormatException e) {
+                logger.warn("ignoring unknown file {} inside the blob pack", file);
+            }
+        }
+        for (Segment segment : segments.values()) {
+            replay(segment);
+        }
+        if (!segments.isEmpty()) {
+            active = segments.lastEntry().getValue();
+        }
+    }
+
+    private void replay(Segment segment) throws IOException {
+        long fileLength = segment.file.length();
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.file)))) {
+            byte[] digestBytes = new byte[DIGEST_LENGTH];
+            while (position + HEADER_SIZE <= fileLength) {
+                byte type = in.readByte();
+                in.readFully(digestBytes);
+                long value = in.readLong();
+                long lastModified = in.readLong();
+                String digest = Hex.encodeHexString(digestBytes);
+                if (type == ADDED) {
+                    if (position + HEADER_SIZE + value > fileLength) {
+                        break;
+                    }
+                    Location previous = locations.put(digest,
+                            new Location(digest, segment.id, position + HEADER_SIZE, value, lastModified));
+                    if (previous != null) {
+                        // the blob has been copied by an interrupted compaction
+                        markRemoved(previous);
+                    }
+                    skipFully(in, value);
+                    position += HEADER_SIZE + value;
+                } else if (type == REMOVED) {
+                    Location location = locations.get(digest);
+                    if (location != null && location.segment == value) {
+                        locations.remove(digest);
+                        markRemoved(location);
+                    }
+                    position += HEADER_SIZE;
+                } else {
+                    break;
+                }
+            }
+        }
+        if (position < fileLength) {
+            // a record which has been written partially before the node stopped
+            logger.warn("truncating incomplete record at {} of blob pack segment {}", position, segment.file);
+            try (FileChannel channel = FileChannel.open(segment.file.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(position);
+            }
+        }
+        segment.size = position;
+    }
+
+    private static void skipFully(DataInputStream in, long bytes) throws IOException {
+        long skipped = 0;
+        while (skipped < bytes) {
+            long n = in.skip(bytes - skipped);
+            if (n <= 0) {
+                throw new EOFException();
+            }
+            skipped += n;
+        }
+    }
+
+    /**
+     * @return the location of the blob or null if it isn't stored inside the pack
+     */
+    @Nullable
+    public Location location(String digest) {
+        return locations.get(digest);
+    }
+
+    /**
+     * the locations of all blobs inside the pack
+     */
+    public Collection<Location> locations() {
+        return Collections.unmodifiableCollection(locations.values());
+    }
+
+    /**
+     * opens the content of the blob for reading, the returned slice must be closed
+     *
+     * @return the content or null if the blob isn't stored inside the pack
+     */
+    @Nullable
+    public BlobSlice open(String digest) throws IOException {
+        while (true) {
+            Location location = locations.get(digest);
+            if (location == null) {
+                return null;
+            }
+            try {
+                FileChannel channel = FileChannel.open(segmentFile(location.segment).toPath(), StandardOpenOption.READ);
+                return new BlobSlice(channel, location.offset, location.length);
+            } catch (NoSuchFileException e) {
+                if (locations.get(digest) == location) {
+                    throw e;
+                }
+                // the segment has been compacted in the meantime, retry at the new location
+            }
+        }
+    }
+
+    /**
+     * appends the content of the file to the active segment and syncs it
+     *
+     * @return the location of the added blob or null if the pack already contains the blob
+     */
+    @Nullable
+    public Location add(String digest, File file) throws IOException {
+        Location location;
+        FileChannel channel;
+        try (FileChannel source = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            synchronized (this) {
+                if (locations.containsKey(digest)) {
+                    return null;
+                }
+                location = append(source, 0, digest, source.size(), System.currentTimeMillis());
+                locations.put(digest, location);
+                channel = activeChannel;
+            }
+        }
+        sync(channel);
+        return location;
+    }
+
+    /**
+     * removes the blob by appending a tombstone, the space is reclaimed once the segment of the
+     * blob gets compacted
+     *
+     * @return the location the blob had or null if it isn't stored inside the pack
+     */
+    @Nullable
+    public synchronized Location remove(String digest) throws IOException {
+        Location location = locations.get(digest);
+        if (location == null) {
+            return null;
+        }
+        appendTombstone(digest, location.segment);
+        locations.remove(digest);
+        markRemoved(location);
+        return location;
+    }
+
+    /**
+     * @return true if there are segments which would be rewritten by {@link #compact()}
+     */
+    public synchronized boolean needsCompaction() {
+        return !segmentsToCompact().isEmpty();
+    }
+
+    /**
+     * rewrites all segments except the active one which consist mostly of removed blobs
+     */
+    public void compact() throws IOException {
+        List<Segment> toCompact;
+        synchronized (this) {
+            toCompact = segmentsToCompact();
+        }
+        for (Segment segment : toCompact) {
+            compact(segment);
+        }
+    }
+
+    private List<Segment> segmentsToCompact() {
+        List<Segment> result = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            if (segment != active && segment.removedBytes > segment.size * COMPACTION_THRESHOLD) {
+                result.add(segment);
+            }
+        }
+        return result;
+    }
+
+    private void compact(Segment segment) throws IOException {
+        logger.debug("compacting blob pack segment {}, {} of {} bytes removed",
+                segment.file, segment.removedBytes, segment.size);
+        // the segment isn't active anymore, so nothing is appended to it while it is copied
+        try (FileChannel source = FileChannel.open(segment.file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            byte[] digestBytes = new byte[DIGEST_LENGTH];
+            long position = 0;
+            while (position < segment.size) {
+                header.clear();
+                readFully(source, header, position);
+                header.flip();
+                byte type = header.get();
+                header.get(digestBytes);
+                long value = header.getLong();
+                long lastModified = header.getLong();
+                String digest = Hex.encodeHexString(digestBytes);
+                if (type == ADDED) {
+                    copyIfLive(segment, source, position, digest, value, lastModified);
+                    position += HEADER_SIZE + value;
+                } else {
+                    copyTombstoneIfNeeded(segment, digest, value);
+                    position += HEADER_SIZE;
+                }
+            }
+        }
+        synchronized (this) {
+            if (activeChannel != null) {
+                // the copies must be persisted before the originals are gone
+                activeChannel.force(false);
+            }
+            segments.remove(segment.id);
+        }
+        if (!segment.file.delete()) {
+            logger.error("Could not delete compacted blob pack segment {}", segment.file);
+        }
+    }
+
+    private synchronized void copyIfLive(Segment segment, FileChannel source, long position,
+                                         String digest, long length, long lastModified) throws IOException {
+        Location location = locations.get(digest);
+        if (location == null || location.segment != segment.id || location.offset != position + HEADER_SIZE) {
+            return;
+        }
+        Location newLocation = append(source, position + HEADER_SIZE, digest, length, lastModified);
+        segment.removedBytes += HEADER_SIZE + length;
+        locations.put(digest, newLocation);
+    }
+
+    /**
+     * a tombstone must be kept as long as the segment containing the removed blob exists,
+     * otherwise the blob would be restored when the segments are replayed
+     */
+    private synchronized void copyTombstoneIfNeeded(Segment segment, String digest, long removedFrom)
+            throws IOException {
+        if (removedFrom != segment.id && segments.containsKey(removedFrom)) {
+            appendTombstone(digest, removedFrom);
+        }
+    }
+
+    /**
+     * appends a blob record with the content of the source at the given position,
+     * the location isn't published. Must be called while holding the lock.
+     */
+    private Location append(FileChannel source, long sourcePosition, String digest, long length, long lastModified)
+            throws IOException {
+        FileChannel channel = activeChannel(HEADER_SIZE + length);
+        long position = active.size;
+        writeHeader(channel, position, ADDED, digest, length, lastModified);
+        channel.position(position + HEADER_SIZE);
+        long transferred = 0;
+        while (transferred < length) {
+            long n = source.transferTo(sourcePosition + transferred, length - transferred, channel);
+            if (n <= 0) {
+                throw new EOFException("Unexpected end of blob " + digest + " at " + transferred);
+            }
+            transferred += n;
+        }
+        active.size = position + HEADER_SIZE + length;
+        return new Location(digest, active.id, position + HEADER_SIZE, length, lastModified);
+    }
+
+    private void appendTombstone(String digest, long removedFrom) throws IOException {
+        FileChannel channel = activeChannel(HEADER_SIZE);
+        writeHeader(channel, active.size, REMOVED, digest, removedFrom, 0L);
+        active.size += HEADER_SIZE;
+    }
+
+    private static void writeHeader(FileChannel channel, long position, byte type, String digest,
+                                    long value, long lastModified) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(type).put(Hex.decodeHex(digest)).putLong(value).putLong(lastModified);
+        header.flip();
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of blob pack segment at " + position);
+            }
+            position += read;
+        }
+    }
+
+    private void markRemoved(Location location) {
+        Segment segment = segments.get(location.segment);
+        if (segment != null) {
+            segment.removedBytes += HEADER_SIZE + location.length;
+        }
+    }
+
+    /**
+     * returns the channel of the active segment, starting a new segment if the record doesn't fit.
+     * Must be called while holding the lock.
+     */
+    private FileChannel activeChannel(long recordSize) throws IOException {
+        if (closed) {
+            throw new IOException("blob pack " + directory + " is closed");
+        }
+        if (active == null || (active.size > 0 && active.size + recordSize > maxSegmentSize)) {
+            if (activeChannel != null) {
+                activeChannel.force(false);
+                activeChannel.close();
+                activeChannel = null;
+            }
+            long id = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+            FileSystemUtils.mkdirs(directory);
+            active = new Segment(id, segmentFile(id));
+            activeChannel = FileChannel.open(active.file.toPath(),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segments.put(id, active);
+        } else if (activeChannel == null) {
+            activeChannel = FileChannel.open(active.file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return activeChannel;
+    }
+
+    private void sync(FileChannel channel) throws IOException {
+        try {
+            // concurrent commits of the container are synced together
+            fileSync.sync(channel);
+        } catch (ClosedChannelException e) {
+            // a new segment has been started, the old one is synced before it is closed
+        }
+    }
+
+    private File segmentFile(long id) {
+        return new File(directory, SEGMENT_PREFIX + id);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (activeChannel != null) {
+            activeChannel.force(false);
+            activeChannel.close();
+            activeChannel = null;
+        }
+    }
+}
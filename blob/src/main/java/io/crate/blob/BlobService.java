@@ -46,11 +46,18 @@ import java.util.Set;
 
 public class BlobService extends AbstractLifecycleComponent<BlobService> {
 
+    /**
+     * number of chunks of an upload which may be written concurrently, 1 disables pipelining
+     */
+    public static final String SETTING_UPLOAD_MAX_INFLIGHT_CHUNKS = "blobs.upload.max_inflight_chunks";
+    public static final int DEFAULT_UPLOAD_MAX_INFLIGHT_CHUNKS = 1;
+
     private final Injector injector;
     private final BlobHeadRequestHandler blobHeadRequestHandler;
 
     private final ClusterService clusterService;
     private final BlobEnvironment blobEnvironment;
+    private final int maxInflightChunks;
 
     @Inject
     public BlobService(Settings settings,
@@ -62,10 +69,12 @@ public class BlobService extends AbstractLifecycleComponent<BlobService> {
         this.injector = injector;
         this.blobHeadRequestHandler = blobHeadRequestHandler;
         this.blobEnvironment = blobEnvironment;
+        this.maxInflightChunks = Math.max(1, settings.getAsInt(
+                SETTING_UPLOAD_MAX_INFLIGHT_CHUNKS, DEFAULT_UPLOAD_MAX_INFLIGHT_CHUNKS));
     }
 
     public RemoteDigestBlob newBlob(String index, String digest) {
-        return new RemoteDigestBlob(this, index, digest);
+        return new RemoteDigestBlob(this, index, digest, maxInflightChunks);
     }
 
     public Injector getInjector() {
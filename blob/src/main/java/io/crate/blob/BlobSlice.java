@@ -0,0 +1,92 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.blob;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The content of a blob inside a file, either a whole blob file or a part of a {@link BlobPack} segment.
+ * The slice owns the channel, it must be closed by the user of the slice.
+ */
+public class BlobSlice implements Closeable {
+
+    private final FileChannel channel;
+    private final long offset;
+    private final long length;
+
+    public BlobSlice(FileChannel channel, long offset, long length) {
+        this.channel = channel;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public FileChannel channel() {
+        return channel;
+    }
+
+    /**
+     * the position of the first byte of the blob inside the file
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * the size of the blob in bytes
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * reads from the given position of the blob until the buffer is full or the end of the blob is reached
+     *
+     * @return the number of bytes read
+     */
+    public int read(ByteBuffer buffer, long position) throws IOException {
+        long remaining = length - position;
+        if (remaining <= 0) {
+            return 0;
+        }
+        if (buffer.remaining() > remaining) {
+            buffer.limit(buffer.position() + (int) remaining);
+        }
+        int bytesRead = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + position + bytesRead);
+            if (read < 0) {
+                break;
+            }
+            bytesRead += read;
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -29,6 +29,7 @@ import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.jboss.netty.buffer.ChannelBuffer;
 
+import javax.annotation.Nullable;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
@@ -38,19 +39,32 @@ import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * A blob which is written to a tmp file and moved into the blob container on {@link #commit()}.
+ *
+ * The content is written directly from the (possibly composite) netty buffers using gathering writes.
+ * The SHA-1 digest is updated incrementally while the content arrives in order. If the transfer has been
+ * resumed, the head is digested as it arrives and the content received in the meantime is digested once
+ * after the head has caught up, so the file doesn't have to be read again on commit.
+ */
 public class DigestBlob {
 
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
     private final String digest;
     private final BlobContainer container;
     private final UUID transferId;
     protected File file;
     private FileChannel fileChannel;
     private FileChannel headFileChannel;
-    private int size;
+    private long size;
     private long headLength;
     private AtomicLong headSize;
     private MessageDigest md;
+    // number of bytes, starting at the beginning of the blob, which have been added to the digest
+    private long digestedBytes = 0;
     private long chunks;
+    private boolean outOfOrder = false;
     private CountDownLatch headCatchedUpLatch;
     private static final ESLogger logger = Loggers.getLogger(DigestBlob.class);
 
@@ -65,7 +79,7 @@ public class DigestBlob {
         return digest;
     }
 
-    public int size() {
+    public long size() {
         return size;
     }
 
@@ -84,7 +98,7 @@ public class DigestBlob {
         return tmpFile;
     }
 
-    private void updateDigest(ByteBuffer bbf) throws IOException {
+    private MessageDigest messageDigest() throws IOException {
         if (md == null){
             try {
                 md = MessageDigest.getInstance("SHA-1");
@@ -92,41 +106,58 @@ public class DigestBlob {
                 throw new IOException(e);
             }
         }
-        md.update(bbf.slice());
+        return md;
+    }
+
+    private void updateDigest(ByteBuffer[] buffers, int length) throws IOException {
+        MessageDigest messageDigest = messageDigest();
+        for (ByteBuffer buffer : buffers) {
+            messageDigest.update(buffer.duplicate());
+        }
+        digestedBytes += length;
     }
 
-    private void addContent(ChannelBuffer buffer, boolean last) throws IOException {
+    /**
+     * writes all buffers to the current position of the channel
+     */
+    private static void write(FileChannel channel, ByteBuffer[] buffers, int length) throws IOException {
+        long written = 0;
+        while (written < length) {
+            written += channel.write(buffers);
+        }
+    }
+
+    /**
+     * writes the buffer at the given position of the file.
+     *
+     * Chunks of pipelined uploads may arrive out of order, in that case the digest can't be
+     * updated incrementally and is calculated from the whole file on {@link #commit()}
+     */
+    private void addContent(ChannelBuffer buffer, long position, boolean last) throws IOException {
         if (buffer != null) {
             int readableBytes = buffer.readableBytes();
-            ByteBuffer byteBuffer = buffer.toByteBuffer();
-            if (file == null) {
-                file = createTmpFile();
+            ByteBuffer[] byteBuffers = buffer.toByteBuffers();
+            openFileChannel();
+
+            if (position != headLength + size) {
+                outOfOrder = true;
             }
-            if (fileChannel == null) {
-                FileOutputStream outputStream = new FileOutputStream(file);
-                fileChannel = outputStream.getChannel();
+            if (!outOfOrder && position == digestedBytes) {
+                updateDigest(byteBuffers, readableBytes);
             }
-
-            int written = 0;
-            do {
-                if (headLength == 0) {
-                    updateDigest(byteBuffer);
-                }
-                written += fileChannel.write(byteBuffer);
-            } while (written < readableBytes);
+            fileChannel.position(position);
+            write(fileChannel, byteBuffers, readableBytes);
             size += readableBytes;
-            buffer.readerIndex(buffer.readerIndex() + written);
+            buffer.readerIndex(buffer.readerIndex() + readableBytes);
             chunks ++;
         }
         if (last) {
-            if (file == null) {
-                file = createTmpFile();
-            }
-            if (fileChannel == null) {
-                FileOutputStream outputStream = new FileOutputStream(file);
-                fileChannel = outputStream.getChannel();
+            openFileChannel();
+            if (!container.packable(fileChannel.size())) {
+                // concurrent commits of the container are synced together,
+                // blobs which are going to be packed are synced as part of the pack
+                container.fileSync().sync(fileChannel);
             }
-            fileChannel.force(false);
             fileChannel.close();
             fileChannel = null;
         } else {
@@ -136,68 +167,136 @@ public class DigestBlob {
         }
     }
 
-    private void calculateDigest() {
-        assert headSize.get() == headLength : "Head hasn't catched up, can't calculate digest";
-        try {
-            FileInputStream stream = new FileInputStream(file);
-            stream.skip(headLength);
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            while ((bytesRead = stream.read(buffer, 0, 4096)) > 0) {
-                md.update(buffer, 0, bytesRead);
-            }
-            stream.close();
-        } catch (IOException ex) {
-            logger.error("error accessing file to calculate digest", ex);
+    private void openFileChannel() throws IOException {
+        if (file == null) {
+            file = createTmpFile();
+        }
+        if (fileChannel == null) {
+            fileChannel = new RandomAccessFile(file, "rw").getChannel();
         }
     }
 
-    public File commit() throws DigestMismatchException {
-        if (headLength > 0) {
-            calculateDigest();
+    /**
+     * adds the content of the file between the already digested bytes and <code>end</code> to the digest
+     */
+    private void digestFile(long end) throws IOException {
+        if (digestedBytes >= end) {
+            return;
+        }
+        MessageDigest messageDigest = messageDigest();
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(DIGEST_BUFFER_SIZE, end - digestedBytes));
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            while (digestedBytes < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - digestedBytes));
+                int bytesRead = channel.read(buffer, digestedBytes);
+                if (bytesRead < 0) {
+                    throw new EOFException("Unexpected end of file " + file + " at " + digestedBytes);
+                }
+                buffer.flip();
+                messageDigest.update(buffer);
+                digestedBytes += bytesRead;
+            }
         }
+    }
 
-        assert md != null;
+    /**
+     * verifies the digest and moves the blob into the container
+     *
+     * @return the file of the blob or null if it has been stored inside the pack of the container
+     */
+    @Nullable
+    public synchronized File commit() throws DigestMismatchException {
+        assert headLength == 0 || headSize.get() == headLength : "Head hasn't catched up, can't calculate digest";
         try {
-            String contentDigest = Hex.encodeHexString(md.digest());
+            if (outOfOrder) {
+                // the chunks haven't been digested in order, start over using the content of the file
+                md = null;
+                digestedBytes = 0;
+                digestFile(file.length());
+            } else {
+                digestFile(headLength + size);
+            }
+            String contentDigest = Hex.encodeHexString(messageDigest().digest());
             if (!contentDigest.equals(digest)) {
                 file.delete();
                 throw new DigestMismatchException(digest, contentDigest);
             }
+        } catch (IOException e) {
+            throw new BlobWriteException(digest, size, e);
         } finally {
             IOUtils.closeWhileHandlingException(headFileChannel);
             headFileChannel = null;
         }
+        if (container.pack().location(digest) != null) {
+            // already stored inside the pack
+            file.delete();
+            return null;
+        }
         File newFile = container.getFile(digest);
-        file.renameTo(newFile);
+        long length = file.length();
+        if (!newFile.exists() && container.packable(length)) {
+            pack(length);
+            return null;
+        }
+        try {
+            container.digestIndex().move(file, newFile);
+        } catch (IOException e) {
+            throw new BlobWriteException(digest, length, e);
+        }
         return newFile;
     }
 
-    public void addContent(BytesReference content, boolean last){
+    private void pack(long length) {
         try {
-            addContent(content.toChannelBuffer(), last);
+            container.digestIndex().pack(digest, file);
+        } catch (IOException e) {
+            throw new BlobWriteException(digest, length, e);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * appends the content to the blob
+     */
+    public synchronized void addContent(BytesReference content, boolean last){
+        addContent(content, headLength + size, last);
+    }
+
+    /**
+     * writes the content at the given position of the blob
+     */
+    public synchronized void addContent(BytesReference content, long position, boolean last){
+        try {
+            addContent(content.toChannelBuffer(), position, last);
         } catch (IOException e) {
             throw new BlobWriteException(digest, size, e);
         }
     }
 
-    public void addToHead(BytesReference content) throws IOException {
+    /**
+     * adds content to the head of a resumed transfer, the head is always received in order
+     */
+    public synchronized void addToHead(BytesReference content) throws IOException {
         if (content == null) {
             return;
         }
 
-        int written = 0;
         ChannelBuffer channelBuffer = content.toChannelBuffer();
         int readableBytes = channelBuffer.readableBytes();
         assert readableBytes + headSize.get() <= headLength : "Got too many bytes in addToHead()";
 
-        ByteBuffer byteBuffer = channelBuffer.toByteBuffer();
-        while (written < readableBytes) {
-            updateDigest(byteBuffer);
-            written += headFileChannel.write(byteBuffer);
-        }
-        headSize.addAndGet(written);
+        ByteBuffer[] byteBuffers = channelBuffer.toByteBuffers();
+        updateDigest(byteBuffers, readableBytes);
+        write(headFileChannel, byteBuffers, readableBytes);
+        headSize.addAndGet(readableBytes);
         if (headSize.get() == headLength) {
+            if (!outOfOrder) {
+                // digest the content received while the head was catching up,
+                // the following content is digested as it arrives
+                digestFile(headLength + size);
+            }
             headCatchedUpLatch.countDown();
         }
     }
@@ -228,8 +327,7 @@ public class DigestBlob {
             raf.setLength(currentPos);
             raf.close();
 
-            FileOutputStream outputStream = new FileOutputStream(digestBlob.file, true);
-            digestBlob.fileChannel = outputStream.getChannel();
+            digestBlob.fileChannel = new RandomAccessFile(digestBlob.file, "rw").getChannel();
         } catch (IOException ex) {
             logger.error("error resuming transfer of {}, id: {}", ex, digest, transferId);
             return null;
@@ -30,4 +30,9 @@ public interface IPutChunkRequest {
     public BytesReference content();
     public UUID transferId();
     public boolean isLast();
+
+    /**
+     * the position of the content inside the blob
+     */
+    public long currentPos();
 }
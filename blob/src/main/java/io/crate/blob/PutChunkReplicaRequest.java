@@ -52,7 +52,7 @@ public class PutChunkReplicaRequest extends ShardReplicationOperationRequest<Put
         super.readFrom(in);
         sourceNodeId = in.readString();
         transferId = new UUID(in.readLong(), in.readLong());
-        currentPos = in.readVInt();
+        currentPos = in.readVLong();
         content = in.readBytesReference();
         isLast = in.readBoolean();
     }
@@ -79,4 +79,8 @@ public class PutChunkReplicaRequest extends ShardReplicationOperationRequest<Put
     public boolean isLast() {
         return isLast;
     }
+
+    public long currentPos() {
+        return currentPos;
+    }
 }
@@ -48,6 +48,7 @@ public class PutChunkRequest extends BlobTransferRequest<PutChunkRequest> implem
         return Hex.encodeHexString(digest);
     }
 
+    @Override
     public long currentPos() {
         return currentPos;
     }
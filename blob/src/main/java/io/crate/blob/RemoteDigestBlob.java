@@ -23,12 +23,14 @@ package io.crate.blob;
 
 import io.crate.common.Hex;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.action.ActionFuture;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.jboss.netty.buffer.ChannelBuffer;
 
+import java.util.ArrayDeque;
 import java.util.UUID;
 
 public class RemoteDigestBlob {
@@ -79,16 +81,28 @@ public class RemoteDigestBlob {
 
     private final String digest;
     private final Client client;
+    private final int maxInflightChunks;
+    private final ArrayDeque<ActionFuture<PutChunkResponse>> inflightChunks = new ArrayDeque<>();
     private long size;
     private StartBlobResponse startResponse;
     private UUID transferId;
 
 
     public RemoteDigestBlob(BlobService blobService, String index, String digest) {
+        this(blobService, index, digest, 1);
+    }
+
+    /**
+     * @param maxInflightChunks the number of chunks which are sent without waiting for their response.
+     *                          If greater than 1, chunks are written at their position and may arrive
+     *                          out of order, the digest is verified once all chunks have been written.
+     */
+    public RemoteDigestBlob(BlobService blobService, String index, String digest, int maxInflightChunks) {
         this.digest = digest;
         this.client = blobService.getInjector().getInstance(Client.class);
         this.size = 0;
         this.index = index;
+        this.maxInflightChunks = maxInflightChunks;
     }
 
     public Status status(){
@@ -134,10 +148,61 @@ public class RemoteDigestBlob {
             last
         );
         size += buffer.readableBytes();
+        if (maxInflightChunks > 1) {
+            return pipelinedChunk(request, last);
+        }
         PutChunkResponse putChunkResponse = client.execute(PutChunkAction.INSTANCE, request).actionGet();
         return putChunkResponse.status();
     }
 
+    /**
+     * sends the chunk without waiting for its response unless the maximum number of chunks are in flight.
+     * The last chunk is only sent once all other chunks have been written, as it commits the blob
+     */
+    private Status pipelinedChunk(PutChunkRequest request, boolean last) {
+        Status status = awaitInflightChunks(last ? 0 : maxInflightChunks - 1);
+        if (status != Status.PARTIAL) {
+            return status;
+        }
+        if (last) {
+            return client.execute(PutChunkAction.INSTANCE, request).actionGet().status();
+        }
+        inflightChunks.add(client.execute(PutChunkAction.INSTANCE, request));
+        return Status.PARTIAL;
+    }
+
+    /**
+     * waits until at most <code>maxRemaining</code> chunks are in flight.
+     * If a chunk fails, all other chunks in flight are awaited before the first failure is reported
+     */
+    private Status awaitInflightChunks(int maxRemaining) {
+        while (inflightChunks.size() > maxRemaining) {
+            Status status;
+            try {
+                status = inflightChunks.poll().actionGet().status();
+            } catch (Throwable t) {
+                drainInflightChunks();
+                throw t;
+            }
+            if (status != Status.PARTIAL) {
+                drainInflightChunks();
+                return status;
+            }
+        }
+        return Status.PARTIAL;
+    }
+
+    private void drainInflightChunks() {
+        ActionFuture<PutChunkResponse> future;
+        while ((future = inflightChunks.poll()) != null) {
+            try {
+                future.actionGet();
+            } catch (Throwable t) {
+                logger.trace("chunk of blob {} failed after a previous chunk failed", t, digest);
+            }
+        }
+    }
+
     public Status addContent(ChannelBuffer buffer, boolean last) {
         if (startResponse == null) {
             // this is the first call to addContent
@@ -45,6 +45,11 @@ public class StartBlobRequest extends BlobTransferRequest<StartBlobRequest> {
         return Hex.encodeHexString(digest);
     }
 
+    @Override
+    public long currentPos() {
+        return 0;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -22,33 +22,44 @@
 package io.crate.blob.recovery;
 
 import io.crate.blob.BlobContainer;
+import io.crate.blob.BlobSlice;
 import io.crate.blob.BlobTransferTarget;
 import io.crate.blob.v2.BlobIndices;
 import io.crate.blob.v2.BlobShard;
 import io.crate.common.Hex;
+import org.apache.lucene.store.RateLimiter;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardClosedException;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.indices.recovery.*;
 import org.elasticsearch.transport.*;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class BlobRecoveryHandler {
 
     private static final ESLogger logger = Loggers.getLogger(BlobRecoveryHandler.class);
+
+    /**
+     * buffers used to read the blobs, shared by all recoveries of this node.
+     * Buffers beyond this number are dropped once the transfer has finished.
+     */
+    private static final RecoveryBufferPool BUFFER_POOL = new RecoveryBufferPool(16);
+
     private final StartRecoveryRequest request;
     private final TransportService transportService;
     private final BlobShard blobShard;
@@ -57,6 +68,12 @@ public class BlobRecoveryHandler {
     private final BlobTransferTarget blobTransferTarget;
     private final int GET_HEAD_TIMEOUT;
 
+    // How many bytes we've copied since we last called RateLimiter.pause
+    private final AtomicLong bytesSinceLastPause = new AtomicLong();
+    private final AtomicLong transferredBlobs = new AtomicLong();
+    private final AtomicLong transferredBytes = new AtomicLong();
+    private final AtomicLong throttleTime = new AtomicLong();
+
     public BlobRecoveryHandler(TransportService transportService,
                                RecoverySettings recoverySettings,
                                BlobTransferTarget blobTransferTarget,
@@ -144,46 +161,59 @@ public class BlobRecoveryHandler {
 
         blobTransferTarget.stopRecovery();
         stopWatch.stop();
-        logger.debug("[{}][{}] recovery [phase1] to {}: took [{}]",
+        long millis = Math.max(1L, stopWatch.totalTime().millis());
+        logger.info("[{}][{}] recovery [phase1] to {}: transferred [{}] blobs with [{}] in [{}] ({}/s), throttled for [{}]",
             request.shardId().index().name(), request.shardId().id(), request.targetNode().getName(),
-            stopWatch.totalTime());
+            transferredBlobs.get(), new ByteSizeValue(transferredBytes.get()), stopWatch.totalTime(),
+            new ByteSizeValue(transferredBytes.get() * 1000 / millis),
+            TimeValue.timeValueNanos(throttleTime.get()));
     }
 
     public void phase2() throws ElasticsearchException {
     }
 
     private void syncVarFiles(AtomicReference<Exception> lastException) throws InterruptedException {
+        ThreadPoolExecutor pool = recoverySettings.concurrentStreamPool();
+        // the prefixes aren't awaited one by one, instead the number of files in flight is limited so that
+        // the transfers of the next prefix start while the last (large) files of a prefix are still sent
+        ConcurrentTransfers transfers = new ConcurrentTransfers(pool, Math.max(1, pool.getMaximumPoolSize()));
 
-        for (byte prefix : BlobContainer.PREFIXES) {
-            // byte[1] and byte[1] have different hashCodes
-            // so setA.removeAll(setB) wouldn't work with byte[], that's why BytesArray is used here
-            Set<BytesArray> remoteDigests = getExistingDigestsFromTarget(prefix);
-            Set<BytesArray> localDigests = new HashSet<BytesArray>();
-            for (byte[] digest : blobShard.currentDigests(prefix)) {
-                localDigests.add(new BytesArray(digest));
-            }
+        try {
+            for (byte prefix : BlobContainer.PREFIXES) {
+                if (lastException.get() != null) {
+                    break;
+                }
+                // byte[1] and byte[1] have different hashCodes
+                // so setA.removeAll(setB) wouldn't work with byte[], that's why BytesArray is used here
+                Set<BytesArray> remoteDigests = getExistingDigestsFromTarget(prefix);
+                Set<BytesArray> localDigests = new HashSet<BytesArray>();
+                for (byte[] digest : blobShard.currentDigests(prefix)) {
+                    localDigests.add(new BytesArray(digest));
+                }
 
-            Set<BytesArray> localButNotRemoteDigests = new HashSet<BytesArray>(localDigests);
-            localButNotRemoteDigests.removeAll(remoteDigests);
+                Set<BytesArray> localButNotRemoteDigests = new HashSet<BytesArray>(localDigests);
+                localButNotRemoteDigests.removeAll(remoteDigests);
 
-            final CountDownLatch latch = new CountDownLatch(localButNotRemoteDigests.size());
-            for (BytesArray digestBytes : localButNotRemoteDigests) {
-                final String digest = Hex.encodeHexString(digestBytes.toBytes());
-                logger.trace("[{}][{}] start to transfer file var/{} to {}",
-                    request.shardId().index().name(), request.shardId().id(), digest,
-                    request.targetNode().getName());
+                remoteDigests.removeAll(localDigests);
+                if (!remoteDigests.isEmpty()) {
+                    deleteFilesRequest(remoteDigests.toArray(new BytesArray[remoteDigests.size()]));
+                }
 
-                recoverySettings.concurrentStreamPool().execute(
-                    new TransferFileRunnable(blobShard.blobContainer().getFile(digest),
-                        lastException, latch)
-                );
-            }
-            latch.await();
+                for (BytesArray digestBytes : localButNotRemoteDigests) {
+                    if (lastException.get() != null) {
+                        break;
+                    }
+                    final String digest = Hex.encodeHexString(digestBytes.toBytes());
+                    logger.trace("[{}][{}] start to transfer file var/{} to {}",
+                        request.shardId().index().name(), request.shardId().id(), digest,
+                        request.targetNode().getName());
 
-            remoteDigests.removeAll(localDigests);
-            if (!remoteDigests.isEmpty()) {
-                deleteFilesRequest(remoteDigests.toArray(new BytesArray[remoteDigests.size()]));
+                    transfers.start(new TransferFileRunnable(digest, lastException));
+                }
             }
+        } finally {
+            // wait until all transfers are done
+            transfers.awaitAll();
         }
     }
 
@@ -215,47 +245,63 @@ public class BlobRecoveryHandler {
         ).txGet();
     }
 
+    /**
+     * pause using the rate limiter of the recovery settings, if desired, to throttle the recovery
+     */
+    private void maybePause(int bytes) throws IOException {
+        RateLimiter rateLimiter = recoverySettings.rateLimiter();
+        if (rateLimiter == null) {
+            return;
+        }
+        long bytesSincePause = bytesSinceLastPause.addAndGet(bytes);
+        if (bytesSincePause > rateLimiter.getMinPauseCheckBytes()) {
+            bytesSinceLastPause.addAndGet(-bytesSincePause);
+            long throttleTimeInNanos = rateLimiter.pause(bytesSincePause);
+            shard.recoveryStats().addThrottleTime(throttleTimeInNanos);
+            throttleTime.addAndGet(throttleTimeInNanos);
+        }
+    }
+
     private class TransferFileRunnable implements Runnable {
         private final AtomicReference<Exception> lastException;
         private final String baseDir;
-        private final File file;
-        private final CountDownLatch latch;
+        private final String digest;
 
-        public TransferFileRunnable(File filePath, AtomicReference<Exception> lastException,
-                                    CountDownLatch latch) {
-            this.file = filePath;
+        public TransferFileRunnable(String digest, AtomicReference<Exception> lastException) {
+            this.digest = digest;
             this.lastException = lastException;
-            this.latch = latch;
             this.baseDir = blobShard.blobContainer().getBaseDirectory().getAbsolutePath();
         }
 
         @Override
         public void run() {
-
+            ByteBuffer buffer = null;
             try {
-                final int BUFFER_SIZE = 4 * 4096;
-
-                long fileSize = file.length();
-
-                if (fileSize == 0) {
-                    logger.warn("[{}][{}] empty file: {}",
-                        request.shardId().index().name(), request.shardId().id(), file.getName());
-                }
-
-                try (FileInputStream fileStream = new FileInputStream(file)) {
-                    String filePath = file.getAbsolutePath();
+                buffer = BUFFER_POOL.acquire((int) recoverySettings.fileChunkSize().bytes());
+                TransportRequestOptions requestOptions = TransportRequestOptions.options()
+                    .withType(TransportRequestOptions.Type.RECOVERY)
+                    .withTimeout(recoverySettings.internalActionTimeout());
+
+                // packed blobs are read from their pack segment and stored as file on the target
+                try (BlobSlice slice = blobShard.blobContainer().openBlob(digest)) {
+                    long fileSize = slice.length();
+                    if (fileSize == 0) {
+                        logger.warn("[{}][{}] empty file: {}",
+                            request.shardId().index().name(), request.shardId().id(), digest);
+                    }
+                    String filePath = blobShard.blobContainer().getFile(digest).getAbsolutePath();
                     String relPath = filePath.substring(baseDir.length(), filePath.length());
-                    byte[] buf = new byte[BUFFER_SIZE];
-                    int bytesRead = fileStream.read(buf, 0, BUFFER_SIZE);
+                    int bytesRead = slice.read(buffer, 0);
                     long bytesReadTotal = 0;
-                    BytesArray content = new BytesArray(buf, 0, bytesRead);
-                    BlobRecoveryStartTransferRequest startTransferRequest =
-                        new BlobRecoveryStartTransferRequest(request.recoveryId(), relPath, content,
-                            fileSize
-                        );
 
                     if (bytesRead > 0) {
                         bytesReadTotal += bytesRead;
+                        maybePause(bytesRead);
+                        buffer.flip();
+                        BlobRecoveryStartTransferRequest startTransferRequest =
+                            new BlobRecoveryStartTransferRequest(request.recoveryId(), relPath,
+                                new BytesArray(buffer.array(), 0, buffer.limit()), fileSize
+                            );
 
                         logger.trace("[{}][{}] send BlobRecoveryStartTransferRequest to {} for file {} with size {}",
                             request.shardId().index().name(), request.shardId().id(),
@@ -263,17 +309,20 @@ public class BlobRecoveryHandler {
                             relPath,
                             fileSize
                         );
+                        // the request is serialized when it is submitted, so the buffer can be
+                        // reused for the next chunk once the target has acknowledged it
                         transportService.submitRequest(
                             request.targetNode(),
                             BlobRecoveryTarget.Actions.START_TRANSFER,
                             startTransferRequest,
-                            TransportRequestOptions.options(),
+                            requestOptions,
                             EmptyTransportResponseHandler.INSTANCE_SAME
                         ).txGet();
 
                         boolean isLast = false;
                         boolean sentChunks = false;
-                        while ((bytesRead = fileStream.read(buf, 0, BUFFER_SIZE)) > 0) {
+                        buffer.clear();
+                        while ((bytesRead = slice.read(buffer, bytesReadTotal)) > 0) {
 
                             sentChunks = true;
                             bytesReadTotal += bytesRead;
@@ -284,15 +333,17 @@ public class BlobRecoveryHandler {
                             if (bytesReadTotal == fileSize) {
                                 isLast = true;
                             }
-                            content = new BytesArray(buf, 0, bytesRead);
+                            maybePause(bytesRead);
+                            buffer.flip();
 
                             transportService.submitRequest(request.targetNode(),
                                 BlobRecoveryTarget.Actions.TRANSFER_CHUNK,
                                 new BlobRecoveryChunkRequest(request.recoveryId(),
-                                    startTransferRequest.transferId(), content, isLast),
-                                TransportRequestOptions.options(),
+                                    startTransferRequest.transferId(), new BytesArray(buffer.array(), 0, buffer.limit()), isLast),
+                                requestOptions,
                                 EmptyTransportResponseHandler.INSTANCE_SAME
                             ).txGet();
+                            buffer.clear();
                         }
 
                         if (!isLast && sentChunks) {
@@ -301,21 +352,25 @@ public class BlobRecoveryHandler {
                                 BlobRecoveryTarget.Actions.TRANSFER_CHUNK,
                                 new BlobRecoveryChunkRequest(request.recoveryId(),
                                     startTransferRequest.transferId(), BytesArray.EMPTY, true),
-                                TransportRequestOptions.options(),
+                                requestOptions,
                                 EmptyTransportResponseHandler.INSTANCE_SAME
                             ).txGet();
                         }
+                        transferredBlobs.incrementAndGet();
+                        transferredBytes.addAndGet(bytesReadTotal);
                     }
 
                     logger.trace("[{}][{}] completed to transfer file {} to {}",
-                        request.shardId().index().name(), request.shardId().id(), file.getName(),
+                        request.shardId().index().name(), request.shardId().id(), digest,
                         request.targetNode().getName());
                 }
-            } catch (IOException ex) {
+            } catch (Exception ex) {
                 logger.error("exception while file transfer", ex);
                 lastException.set(ex);
             } finally {
-                latch.countDown();
+                if (buffer != null) {
+                    BUFFER_POOL.release(buffer);
+                }
             }
         }
     }
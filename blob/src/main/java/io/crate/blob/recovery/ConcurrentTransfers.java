@@ -0,0 +1,78 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+
+package io.crate.blob.recovery;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs the blob transfers of a recovery on an executor while limiting the number of transfers in flight.
+ *
+ * A permit is acquired before a transfer is submitted and released once it has finished,
+ * or right away if the executor doesn't accept it.
+ */
+class ConcurrentTransfers {
+
+    private final Executor executor;
+    private final int maxConcurrentTransfers;
+    private final Semaphore permits;
+
+    ConcurrentTransfers(Executor executor, int maxConcurrentTransfers) {
+        this.executor = executor;
+        this.maxConcurrentTransfers = maxConcurrentTransfers;
+        this.permits = new Semaphore(maxConcurrentTransfers);
+    }
+
+    /**
+     * blocks until a permit is available and submits the transfer to the executor
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the executor rejected the transfer
+     */
+    void start(final Runnable transfer) throws InterruptedException {
+        permits.acquire();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        transfer.run();
+                    } finally {
+                        permits.release();
+                    }
+                }
+            });
+        } catch (Throwable t) {
+            permits.release();
+            throw t;
+        }
+    }
+
+    /**
+     * waits until all started transfers have finished
+     */
+    void awaitAll() throws InterruptedException {
+        permits.acquire(maxConcurrentTransfers);
+        permits.release(maxConcurrentTransfers);
+    }
+}
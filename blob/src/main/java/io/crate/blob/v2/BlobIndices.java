@@ -52,16 +52,20 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexShardMissingException;
+import org.elasticsearch.index.settings.IndexSettings;
+import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesLifecycle;
 import org.elasticsearch.indices.IndicesService;
 
+import javax.annotation.Nullable;
 import java.io.File;
 
 public class BlobIndices extends AbstractComponent implements ClusterStateListener {
 
     public static final String SETTING_INDEX_BLOBS_ENABLED = "index.blobs.enabled";
     public static final String SETTING_INDEX_BLOBS_PATH = "index.blobs.path";
+    public static final String SETTING_INDEX_BLOBS_PACK_MAX_BLOB_SIZE = "index.blobs.pack.max_blob_size";
     public static final String INDEX_PREFIX = ".blob_";
 
     private final Provider<TransportUpdateSettingsAction> transportUpdateSettingsActionProvider;
@@ -101,6 +105,18 @@ public class BlobIndices extends AbstractComponent implements ClusterStateListen
         this.indicesService = indicesService;
         this.indicesLifecycle = indicesLifecycle;
         this.blobEnvironment = blobEnvironment;
+        indicesLifecycle.addListener(new IndicesLifecycle.Listener() {
+            @Override
+            public void beforeIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard,
+                                               @IndexSettings Settings indexSettings) {
+                if (indexSettings.getAsBoolean(SETTING_INDEX_BLOBS_ENABLED, false)) {
+                    BlobShard blobShard = blobShard(shardId.getIndex(), shardId.id());
+                    if (blobShard != null) {
+                        blobShard.close();
+                    }
+                }
+            }
+        });
         clusterService.addFirst(this);
         logger.setLevel("debug");
     }
@@ -21,35 +21,43 @@
 
 package io.crate.blob.v2;
 
-import com.google.common.base.Throwables;
 import io.crate.blob.BlobContainer;
 import io.crate.blob.BlobEnvironment;
 import io.crate.blob.stats.BlobStats;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class BlobShard extends AbstractIndexShardComponent {
 
     private final BlobContainer blobContainer;
     private final IndexShard indexShard;
+    private final ThreadPool threadPool;
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
 
     @Inject
     protected BlobShard(ShardId shardId, @IndexSettings Settings indexSettings,
                         BlobEnvironment blobEnvironment,
-                        IndexShard indexShard) {
+                        IndexShard indexShard,
+                        ThreadPool threadPool) {
         super(shardId, indexSettings);
         this.indexShard = indexShard;
+        this.threadPool = threadPool;
         File blobDir = blobDir(blobEnvironment);
+        long packMaxBlobSize = indexSettings.getAsBytesSize(
+                BlobIndices.SETTING_INDEX_BLOBS_PACK_MAX_BLOB_SIZE, new ByteSizeValue(0)).bytes();
         logger.info("creating BlobContainer at {}", blobDir);
-        this.blobContainer = new BlobContainer(blobDir);
+        this.blobContainer = new BlobContainer(blobDir, packMaxBlobSize);
     }
 
     public byte[][] currentDigests(byte prefix) {
@@ -57,7 +65,39 @@ public class BlobShard extends AbstractIndexShardComponent {
     }
 
     public boolean delete(String digest) {
-        return blobContainer.getFile(digest).delete();
+        boolean deleted;
+        try {
+            deleted = blobContainer.digestIndex().delete(digest);
+        } catch (IOException e) {
+            logger.error("could not delete {}", e, digest);
+            return false;
+        }
+        if (!deleted) {
+            return false;
+        }
+        maybeCompactPack();
+        return true;
+    }
+
+    /**
+     * compacts the blob pack in the background if its segments consist mostly of deleted blobs
+     */
+    private void maybeCompactPack() {
+        if (!blobContainer.pack().needsCompaction() || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        threadPool.executor(ThreadPool.Names.GENERIC).execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blobContainer.pack().compact();
+                } catch (IOException e) {
+                    logger.error("could not compact the blob pack of {}", e, blobContainer.getBaseDirectory());
+                } finally {
+                    compacting.set(false);
+                }
+            }
+        });
     }
 
     public BlobContainer blobContainer() {
@@ -73,20 +113,20 @@ public class BlobShard extends AbstractIndexShardComponent {
 
         stats.location(blobContainer().getBaseDirectory().getAbsolutePath());
         stats.availableSpace(blobContainer().getBaseDirectory().getFreeSpace());
+        stats.totalUsage(blobContainer().digestIndex().totalSize());
+        stats.count(blobContainer().digestIndex().count());
+        return stats;
+    }
+
+    /**
+     * called before the shard is closed, persists the state of the digest index
+     */
+    public void close() {
         try {
-            blobContainer().walkFiles(null, new BlobContainer.FileVisitor() {
-                @Override
-                public boolean visit(File file) {
-                    stats.totalUsage(stats.totalUsage() + file.length());
-                    stats.count(stats.count() + 1);
-                    return true;
-                }
-            });
+            blobContainer.close();
         } catch (IOException e) {
-            logger.error("error getting blob stats", e);
-            Throwables.propagate(e);
+            logger.error("error closing BlobContainer at {}", e, blobContainer.getBaseDirectory());
         }
-        return stats;
     }
 
     private File blobDir(BlobEnvironment blobEnvironment) {
@@ -22,6 +22,7 @@
 package io.crate.http.netty;
 
 import io.crate.blob.BlobService;
+import io.crate.blob.BlobSlice;
 import io.crate.blob.DigestBlob;
 import io.crate.blob.RemoteDigestBlob;
 import io.crate.blob.exceptions.DigestMismatchException;
@@ -41,7 +42,6 @@ import org.jboss.netty.handler.codec.http.*;
 import org.jboss.netty.util.CharsetUtil;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.channels.ClosedChannelException;
@@ -252,7 +252,7 @@ public class HttpBlobHandler extends SimpleChannelUpstreamHandler implements
         // should be a redirect upfront if data is not local
 
         BlobShard blobShard = localBlobShard(index, digest);
-        long length = blobShard.blobContainer().getFile(digest).length();
+        long length = blobShard.blobContainer().blobLength(digest);
         if (length < 1) {
             simpleResponse(HttpResponseStatus.NOT_FOUND, null);
             return;
@@ -291,34 +291,36 @@ public class HttpBlobHandler extends SimpleChannelUpstreamHandler implements
         }
         BlobShard blobShard = localBlobShard(index, digest);
 
-        final RandomAccessFile raf = blobShard.blobContainer().getRandomAccessFile(digest);
+        final BlobSlice slice = blobShard.blobContainer().openBlob(digest);
         long start;
         long end;
         try {
             start = Long.parseLong(matcher.group(1));
-            if (start > raf.length()) {
+            if (start > slice.length()) {
                 logger.warn("416 Requested Range not satisfiable");
                 simpleResponse(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE, null);
-                raf.close();
+                slice.close();
                 return;
             }
-            end = raf.length() - 1 ;
+            end = slice.length() - 1 ;
             if (!matcher.group(2).equals("")) {
                 end = Long.parseLong(matcher.group(2));
             }
         } catch (NumberFormatException ex) {
             logger.error("Couldn't parse Range Header", ex);
             start = 0;
-            end = raf.length();
+            end = slice.length();
         }
+        // packed blobs are followed by other blobs inside the segment, never send more than the blob
+        end = Math.min(end, slice.length() - 1);
 
         HttpResponse response = new DefaultHttpResponse(HTTP_1_1, PARTIAL_CONTENT);
         HttpHeaders.setContentLength(response, end - start + 1);
-        response.headers().set(CONTENT_RANGE, "bytes " + start + "-" + end + "/" + raf.length());
+        response.headers().set(CONTENT_RANGE, "bytes " + start + "-" + end + "/" + slice.length());
         setDefaultGetHeaders(response);
 
         ctx.getChannel().write(response);
-        ChannelFuture writeFuture = transferFile(digest, raf, start, end - start + 1);
+        ChannelFuture writeFuture = transferFile(digest, slice, start, end - start + 1);
         if (!HttpHeaders.isKeepAlive(request)) {
             writeFuture.addListener(ChannelFutureListener.CLOSE);
         }
@@ -326,22 +328,25 @@ public class HttpBlobHandler extends SimpleChannelUpstreamHandler implements
 
     private void fullContentResponse(HttpRequest request, String index, final String digest) throws  IOException {
         BlobShard blobShard = localBlobShard(index, digest);
-        final RandomAccessFile raf = blobShard.blobContainer().getRandomAccessFile(digest);
+        final BlobSlice slice = blobShard.blobContainer().openBlob(digest);
         HttpResponse response = new DefaultHttpResponse(HTTP_1_1, OK);
-        HttpHeaders.setContentLength(response, raf.length());
+        HttpHeaders.setContentLength(response, slice.length());
         setDefaultGetHeaders(response);
         logger.trace("HttpResponse: {}", response);
         ctx.getChannel().write(response);
-        ChannelFuture writeFuture = transferFile(digest, raf, 0, raf.length());
+        ChannelFuture writeFuture = transferFile(digest, slice, 0, slice.length());
         if (!HttpHeaders.isKeepAlive(request)) {
             writeFuture.addListener(ChannelFutureListener.CLOSE);
         }
     }
 
-    private ChannelFuture transferFile(final String digest, RandomAccessFile raf, long position, long count)
+    /**
+     * sends a part of the blob, packed blobs are sent as region of their pack segment
+     */
+    private ChannelFuture transferFile(final String digest, BlobSlice slice, long position, long count)
         throws IOException
     {
-        final FileRegion region = new DefaultFileRegion(raf.getChannel(), position, count);
+        final FileRegion region = new DefaultFileRegion(slice.channel(), slice.offset() + position, count);
         ChannelFuture writeFuture = ctx.getChannel().write(region);
         writeFuture.addListener(new ChannelFutureProgressListener() {
             @Override
@@ -40,6 +40,7 @@ import org.elasticsearch.transport.*;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 
 
 public class BlobRecoveryTarget extends AbstractComponent {
@@ -184,14 +185,15 @@ public class BlobRecoveryTarget extends AbstractComponent {
                     transferStatus.targetPath()
                 );
 
-                if (target.exists()) {
+                boolean added;
+                try {
+                    added = shard.blobContainer().digestIndex().move(source, target);
+                } catch (IOException e) {
+                    throw new BlobWriteException(target.getName(), source.length(), e);
+                }
+                if (!added) {
                     logger.info("target file {} exists already.", target.getName());
                     // this might happen on bad timing while recovering/relocating.
-                    // noop
-                } else {
-                    if (!source.renameTo(target)) {
-                        throw new BlobWriteException(target.getName(), target.length(), null);
-                    }
                 }
 
                 onGoingRecovery.onGoingTransfers().remove(request.transferId());
@@ -263,12 +265,12 @@ public class BlobRecoveryTarget extends AbstractComponent {
                 outputStream.close();
                 File source = new File(shard.blobContainer().getBaseDirectory(), tmpPath);
                 File target = new File(shard.blobContainer().getBaseDirectory(), request.path());
-                if (!target.exists()) {
-                    if (!source.renameTo(target)) {
-                        throw new IllegalBlobRecoveryStateException(
-                            "couldn't rename file to " + request.path()
-                        );
-                    }
+                try {
+                    shard.blobContainer().digestIndex().move(source, target);
+                } catch (IOException e) {
+                    throw new IllegalBlobRecoveryStateException(
+                        "couldn't rename file to " + request.path()
+                    );
                 }
             } else {
                 BlobRecoveryTransferStatus transferStatus= new BlobRecoveryTransferStatus(
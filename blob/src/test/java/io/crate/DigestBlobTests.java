@@ -22,7 +22,9 @@
 package io.crate;
 
 import io.crate.blob.BlobContainer;
+import io.crate.blob.BlobWriteException;
 import io.crate.blob.DigestBlob;
+import io.crate.blob.exceptions.DigestMismatchException;
 import io.crate.test.integration.CrateUnitTest;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.junit.After;
@@ -167,4 +169,56 @@ public class DigestBlobTests extends CrateUnitTest {
         assertTrue(file.delete());
     }
 
+    @Test
+    public void testAddContentOutOfOrder() throws IOException {
+        UUID transferId = UUID.randomUUID();
+        BlobContainer container = new BlobContainer(tmpDir.toFile());
+        DigestBlob digestBlob = container.createBlob("417de3231e23dcd6d224ff60918024bc6c59aa58", transferId);
+
+        digestBlob.addContent(new BytesArray("ABCDE".getBytes()), 0L, false);
+        digestBlob.addContent(new BytesArray("KLMN".getBytes()), 10L, false);
+        digestBlob.addContent(new BytesArray("FGHIJ".getBytes()), 5L, false);
+        digestBlob.addContent(new BytesArray("O".getBytes()), 14L, true);
+        assertEquals(15L, digestBlob.size());
+
+        File file = digestBlob.commit();
+
+        byte[] buffer = new byte[15];
+        FileInputStream stream = new FileInputStream(file);
+        stream.read(buffer, 0, 15);
+        stream.close();
+        assertEquals("ABCDEFGHIJKLMNO", new BytesArray(buffer).toUtf8().trim());
+        assertTrue(file.delete());
+    }
+
+    @Test
+    public void testAddContentOutOfOrderDigestMismatch() throws IOException {
+        UUID transferId = UUID.randomUUID();
+        BlobContainer container = new BlobContainer(tmpDir.toFile());
+        DigestBlob digestBlob = container.createBlob("417de3231e23dcd6d224ff60918024bc6c59aa58", transferId);
+
+        digestBlob.addContent(new BytesArray("FGHIJKLMNO".getBytes()), 5L, false);
+        digestBlob.addContent(new BytesArray("XXXXX".getBytes()), 0L, true);
+
+        expectedException.expect(DigestMismatchException.class);
+        digestBlob.commit();
+    }
+
+    @Test
+    public void testReadErrorOnCommitIsNotReportedAsDigestMismatch() throws IOException {
+        UUID transferId = UUID.randomUUID();
+        BlobContainer container = new BlobContainer(tmpDir.toFile());
+        DigestBlob digestBlob = container.createBlob("417de3231e23dcd6d224ff60918024bc6c59aa58", transferId);
+
+        digestBlob.addContent(new BytesArray("FGHIJKLMNO".getBytes()), 5L, false);
+        digestBlob.addContent(new BytesArray("ABCDE".getBytes()), 0L, true);
+
+        // the content of the temporary file can't be read anymore
+        File file = digestBlob.file();
+        assertTrue(file.delete());
+        assertTrue(file.mkdir());
+
+        expectedException.expect(BlobWriteException.class);
+        digestBlob.commit();
+    }
 }
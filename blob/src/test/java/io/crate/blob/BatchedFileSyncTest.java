@@ -0,0 +1,95 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.blob;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.io.FileSystemUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.Matchers.is;
+
+public class BatchedFileSyncTest extends CrateUnitTest {
+
+    private File tmpDir;
+
+    @Before
+    public void prepare() throws Exception {
+        tmpDir = Files.createTempDirectory(getClass().getName()).toFile();
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        if (tmpDir != null) {
+            FileSystemUtils.deleteRecursively(tmpDir);
+        }
+    }
+
+    @Test
+    public void testConcurrentSyncs() throws Exception {
+        final BatchedFileSync fileSync = new BatchedFileSync();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                final File file = new File(tmpDir, "file" + i);
+                futures.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        try (FileChannel channel = new RandomAccessFile(file, "rw").getChannel()) {
+                            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+                            fileSync.sync(channel);
+                            return channel.size();
+                        }
+                    }
+                }));
+            }
+            for (Future<Long> future : futures) {
+                assertThat(future.get(10, TimeUnit.SECONDS), is(3L));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailureOfClosedChannel() throws Exception {
+        BatchedFileSync fileSync = new BatchedFileSync();
+        FileChannel channel = new RandomAccessFile(new File(tmpDir, "closed"), "rw").getChannel();
+        channel.close();
+
+        expectedException.expect(ClosedChannelException.class);
+        fileSync.sync(channel);
+    }
+}
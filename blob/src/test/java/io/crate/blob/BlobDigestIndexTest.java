@@ -0,0 +1,236 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.blob;
+
+import io.crate.common.Hex;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.io.FileSystemUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+
+public class BlobDigestIndexTest extends CrateUnitTest {
+
+    private static final String DIGEST_1 = "01" + "7de3231e23dcd6d224ff60918024bc6c59aa58";
+    private static final String DIGEST_2 = "01" + "8de3231e23dcd6d224ff60918024bc6c59aa58";
+    private static final String DIGEST_3 = "ff" + "7de3231e23dcd6d224ff60918024bc6c59aa58";
+
+    private File tmpDir;
+
+    @Before
+    public void prepare() throws Exception {
+        tmpDir = Files.createTempDirectory(getClass().getName()).toFile();
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        if (tmpDir != null) {
+            FileSystemUtils.deleteRecursively(tmpDir);
+        }
+    }
+
+    @Test
+    public void testAddAndRemove() throws Exception {
+        BlobContainer container = new BlobContainer(tmpDir);
+        BlobDigestIndex index = container.digestIndex();
+        index.added(DIGEST_1, 10L, 1L);
+        index.added(DIGEST_2, 20L, 2L);
+        index.added(DIGEST_3, 30L, 3L);
+        index.removed(DIGEST_2);
+
+        assertThat(index.count(), is(2L));
+        assertThat(index.totalSize(), is(40L));
+
+        List<BlobDigestIndex.Entry> entries = index.entries(Hex.decodeHex(DIGEST_1)[0]);
+        assertThat(entries.size(), is(1));
+        assertThat(entries.get(0).digest(), is(DIGEST_1));
+        assertThat(entries.get(0).size(), is(10L));
+        assertThat(entries.get(0).lastModified(), is(1L));
+
+        entries = index.entries(Hex.decodeHex(DIGEST_3)[0]);
+        assertThat(entries.size(), is(1));
+        assertThat(entries.get(0).digest(), is(DIGEST_3));
+
+        assertThat(index.entries((byte) 0x02).size(), is(0));
+    }
+
+    @Test
+    public void testCountersArePersistedOnClose() throws Exception {
+        BlobContainer container = new BlobContainer(tmpDir);
+        container.digestIndex().added(DIGEST_1, 10L, 1L);
+        container.digestIndex().added(DIGEST_3, 30L, 3L);
+        container.close();
+
+        // counters are read from the state file, the blob files themselves don't exist
+        container = new BlobContainer(tmpDir);
+        assertThat(container.digestIndex().count(), is(2L));
+        assertThat(container.digestIndex().totalSize(), is(40L));
+        assertThat(container.digestIndex().entries(Hex.decodeHex(DIGEST_1)[0]).size(), is(1));
+    }
+
+    @Test
+    public void testRebuildAfterUncleanShutdown() throws Exception {
+        BlobContainer container = new BlobContainer(tmpDir);
+        File blob = new File(container.getVarDirectory(), "01/" + DIGEST_1);
+        Files.write(blob.toPath(), new byte[]{1, 2, 3});
+        File leftover = new File(container.getVarDirectory(), "01/" + DIGEST_2 + ".2");
+        assertTrue(leftover.createNewFile());
+
+        // not closed, so the index must be rebuilt from the blob files
+        container = new BlobContainer(tmpDir);
+        assertThat(container.digestIndex().count(), is(1L));
+        assertThat(container.digestIndex().totalSize(), is(3L));
+        List<BlobDigestIndex.Entry> entries = container.digestIndex().entries(Hex.decodeHex(DIGEST_1)[0]);
+        assertThat(entries.size(), is(1));
+        assertThat(entries.get(0).digest(), is(DIGEST_1));
+        assertThat(leftover.exists(), is(false));
+    }
+
+    @Test
+    public void testConcurrentMovesOfTheSameDigestAreAddedOnce() throws Exception {
+        final BlobContainer container = new BlobContainer(tmpDir);
+        final File blob = container.getFile(DIGEST_1);
+        int numThreads = 4;
+        final File[] sources = new File[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            sources[i] = new File(container.getTmpDirectory(), DIGEST_1 + "." + i);
+            Files.write(sources[i].toPath(), new byte[]{1, 2, 3});
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger added = new AtomicInteger(0);
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            final File source = sources[i];
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        if (container.digestIndex().move(source, blob)) {
+                            added.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(added.get(), is(1));
+        assertThat(blob.exists(), is(true));
+        assertThat(container.digestIndex().count(), is(1L));
+        assertThat(container.digestIndex().totalSize(), is(3L));
+        assertThat(container.digestIndex().entries(Hex.decodeHex(DIGEST_1)[0]).size(), is(1));
+        for (File source : sources) {
+            assertThat(source.exists(), is(false));
+        }
+    }
+
+    @Test
+    public void testCountersOnlyChangeIfTheRecordedStateChanges() throws Exception {
+        BlobContainer container = new BlobContainer(tmpDir);
+        BlobDigestIndex index = container.digestIndex();
+        index.added(DIGEST_1, 10L, 1L);
+        index.added(DIGEST_1, 10L, 1L);
+        assertThat(index.count(), is(1L));
+        assertThat(index.totalSize(), is(10L));
+
+        index.removed(DIGEST_1);
+        index.removed(DIGEST_1);
+        assertThat(index.count(), is(0L));
+        assertThat(index.totalSize(), is(0L));
+
+        // packing a digest which is already stored as a file doesn't record it again
+        File source = new File(container.getTmpDirectory(), DIGEST_2 + ".0");
+        Files.write(source.toPath(), new byte[]{1, 2, 3});
+        File blob = container.getFile(DIGEST_2);
+        assertThat(index.move(source, blob), is(true));
+        Files.write(source.toPath(), new byte[]{1, 2, 3});
+        assertThat(index.pack(DIGEST_2, source), is(false));
+        assertThat(index.count(), is(1L));
+        assertThat(index.totalSize(), is(3L));
+
+        assertThat(index.delete(DIGEST_2), is(true));
+        assertThat(index.delete(DIGEST_2), is(false));
+        assertThat(index.count(), is(0L));
+        assertThat(index.totalSize(), is(0L));
+        assertThat(blob.exists(), is(false));
+    }
+
+    @Test
+    public void testConcurrentMoveAndDeleteOfTheSameDigest() throws Exception {
+        final BlobContainer container = new BlobContainer(tmpDir);
+        final File blob = container.getFile(DIGEST_1);
+        for (int i = 0; i < 50; i++) {
+            final File source = new File(container.getTmpDirectory(), DIGEST_1 + "." + i);
+            Files.write(source.toPath(), new byte[]{1, 2, 3});
+            final CountDownLatch start = new CountDownLatch(1);
+            Thread mover = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        container.digestIndex().move(source, blob);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            Thread deleter = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        container.digestIndex().delete(DIGEST_1);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            mover.start();
+            deleter.start();
+            start.countDown();
+            mover.join();
+            deleter.join();
+
+            // the index must reflect whichever operation ran last
+            int expected = blob.exists() ? 1 : 0;
+            assertThat(container.digestIndex().count(), is((long) expected));
+            assertThat(container.digestIndex().totalSize(), is(3L * expected));
+            assertThat(container.digestIndex().entries(Hex.decodeHex(DIGEST_1)[0]).size(), is(expected));
+        }
+    }
+}
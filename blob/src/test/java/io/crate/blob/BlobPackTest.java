@@ -0,0 +1,185 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.blob;
+
+import io.crate.common.Hex;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.io.FileSystemUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.hamcrest.Matchers.*;
+
+public class BlobPackTest extends CrateUnitTest {
+
+    private static final String DIGEST_1 = "01" + "7de3231e23dcd6d224ff60918024bc6c59aa58";
+    private static final String DIGEST_2 = "01" + "8de3231e23dcd6d224ff60918024bc6c59aa58";
+    private static final String DIGEST_3 = "ff" + "7de3231e23dcd6d224ff60918024bc6c59aa58";
+
+    private File tmpDir;
+    private File packDir;
+
+    @Before
+    public void prepare() throws Exception {
+        tmpDir = Files.createTempDirectory(getClass().getName()).toFile();
+        packDir = new File(tmpDir, "packs");
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        if (tmpDir != null) {
+            FileSystemUtils.deleteRecursively(tmpDir);
+        }
+    }
+
+    private File blobFile(String content) throws Exception {
+        File file = File.createTempFile("blob", null, tmpDir);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(BlobPack pack, String digest) throws Exception {
+        try (BlobSlice slice = pack.open(digest)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) slice.length());
+            assertThat(slice.read(buffer, 0), is((int) slice.length()));
+            return new String(buffer.array(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testAddAndOpen() throws Exception {
+        BlobPack pack = new BlobPack(packDir, new BatchedFileSync());
+        assertThat(pack.add(DIGEST_1, blobFile("foo")), notNullValue());
+        assertThat(pack.add(DIGEST_2, blobFile("barbaz")), notNullValue());
+        assertThat(pack.add(DIGEST_1, blobFile("foo")), nullValue());
+
+        assertThat(read(pack, DIGEST_1), is("foo"));
+        assertThat(read(pack, DIGEST_2), is("barbaz"));
+        assertThat(pack.open(DIGEST_3), nullValue());
+        assertThat(pack.location(DIGEST_2).length(), is(6L));
+        pack.close();
+    }
+
+    @Test
+    public void testLocationsAreReplayedOnOpen() throws Exception {
+        BlobPack pack = new BlobPack(packDir, new BatchedFileSync());
+        pack.add(DIGEST_1, blobFile("foo"));
+        pack.add(DIGEST_2, blobFile("bar"));
+        pack.add(DIGEST_3, blobFile("baz"));
+        assertThat(pack.remove(DIGEST_2).length(), is(3L));
+        assertThat(pack.remove(DIGEST_2), nullValue());
+        pack.close();
+
+        pack = new BlobPack(packDir, new BatchedFileSync());
+        assertThat(pack.locations().size(), is(2));
+        assertThat(read(pack, DIGEST_1), is("foo"));
+        assertThat(pack.location(DIGEST_2), nullValue());
+        assertThat(read(pack, DIGEST_3), is("baz"));
+        pack.close();
+    }
+
+    @Test
+    public void testIncompleteRecordIsTruncated() throws Exception {
+        BlobPack pack = new BlobPack(packDir, new BatchedFileSync());
+        pack.add(DIGEST_1, blobFile("foo"));
+        pack.add(DIGEST_2, blobFile("bar"));
+        pack.close();
+
+        File segment = new File(packDir, BlobPack.SEGMENT_PREFIX + "0");
+        long length = segment.length();
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.setLength(length - 1);
+        }
+
+        pack = new BlobPack(packDir, new BatchedFileSync());
+        assertThat(read(pack, DIGEST_1), is("foo"));
+        assertThat(pack.location(DIGEST_2), nullValue());
+        assertThat(segment.length(), is(BlobPack.HEADER_SIZE + 3L));
+
+        // the next record is appended after the last complete one
+        pack.add(DIGEST_3, blobFile("baz"));
+        assertThat(read(pack, DIGEST_3), is("baz"));
+        pack.close();
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        // every blob gets its own segment
+        BlobPack pack = new BlobPack(packDir, BlobPack.HEADER_SIZE + 3, new BatchedFileSync());
+        pack.add(DIGEST_1, blobFile("foo"));
+        pack.add(DIGEST_2, blobFile("bar"));
+        pack.add(DIGEST_3, blobFile("baz"));
+        assertThat(pack.needsCompaction(), is(false));
+
+        pack.remove(DIGEST_1);
+        // the first segment consists of the removed blob only
+        assertThat(pack.needsCompaction(), is(true));
+        BlobSlice openedBefore = pack.open(DIGEST_2);
+        pack.remove(DIGEST_2);
+        pack.compact();
+
+        assertThat(pack.needsCompaction(), is(false));
+        assertThat(new File(packDir, BlobPack.SEGMENT_PREFIX + "0").exists(), is(false));
+        assertThat(new File(packDir, BlobPack.SEGMENT_PREFIX + "1").exists(), is(false));
+        assertThat(read(pack, DIGEST_3), is("baz"));
+
+        // readers which opened a segment before it was compacted can still read from it
+        ByteBuffer buffer = ByteBuffer.allocate(3);
+        openedBefore.read(buffer, 0);
+        openedBefore.close();
+        assertThat(new String(buffer.array(), StandardCharsets.UTF_8), is("bar"));
+        pack.close();
+
+        pack = new BlobPack(packDir, new BatchedFileSync());
+        assertThat(pack.locations().size(), is(1));
+        assertThat(read(pack, DIGEST_3), is("baz"));
+        pack.close();
+    }
+
+    @Test
+    public void testPackedBlobsAreIncludedInDigestIndexRebuild() throws Exception {
+        BlobContainer container = new BlobContainer(tmpDir, 1024L);
+        container.pack().add(DIGEST_1, blobFile("foo"));
+        container.pack().close();
+
+        // not closed, so the index must be rebuilt
+        container = new BlobContainer(tmpDir, 1024L);
+        assertThat(container.digestIndex().count(), is(1L));
+        assertThat(container.digestIndex().totalSize(), is(3L));
+        assertThat(container.digestIndex().entries(Hex.decodeHex(DIGEST_1)[0]).get(0).digest(), is(DIGEST_1));
+        assertThat(container.blobLength(DIGEST_1), is(3L));
+        assertThat(container.exists(DIGEST_1), is(true));
+
+        assertThat(container.delete(DIGEST_1), is(3L));
+        assertThat(container.exists(DIGEST_1), is(false));
+        assertThat(container.blobLength(DIGEST_1), is(-1L));
+        container.close();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.blob;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.inject.Injector;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RemoteDigestBlobTest extends CrateUnitTest {
+
+    private static final String DIGEST = "01" + "7de3231e23dcd6d224ff60918024bc6c59aa58";
+
+    private Client client;
+    private BlobService blobService;
+
+    @Before
+    public void prepare() throws Exception {
+        client = mock(Client.class);
+        Injector injector = mock(Injector.class);
+        when(injector.getInstance(Client.class)).thenReturn(client);
+        blobService = mock(BlobService.class);
+        when(blobService.getInjector()).thenReturn(injector);
+
+        StartBlobResponse startResponse = new StartBlobResponse();
+        startResponse.status(RemoteDigestBlob.Status.PARTIAL);
+        ActionFuture<StartBlobResponse> startFuture = future();
+        when(startFuture.actionGet()).thenReturn(startResponse);
+        when(client.execute(eq(StartBlobAction.INSTANCE), any(StartBlobRequest.class))).thenReturn(startFuture);
+    }
+
+    @Test
+    public void testInflightChunksAreAwaitedIfAChunkFails() throws Exception {
+        ActionFuture<PutChunkResponse> chunk1 = chunkFuture(RemoteDigestBlob.Status.PARTIAL);
+        ActionFuture<PutChunkResponse> chunk2 = future();
+        when(chunk2.actionGet()).thenThrow(new ElasticsearchException("chunk 2 failed"));
+        ActionFuture<PutChunkResponse> chunk3 = future();
+        when(chunk3.actionGet()).thenThrow(new ElasticsearchException("chunk 3 failed"));
+        ActionFuture<PutChunkResponse> chunk4 = chunkFuture(RemoteDigestBlob.Status.PARTIAL);
+        when(client.execute(eq(PutChunkAction.INSTANCE), any(PutChunkRequest.class)))
+                .thenReturn(chunk1, chunk2, chunk3, chunk4);
+
+        RemoteDigestBlob blob = new RemoteDigestBlob(blobService, "test", DIGEST, 3);
+        assertThat(blob.addContent(buffer(), false), is(RemoteDigestBlob.Status.PARTIAL));
+        for (int i = 0; i < 4; i++) {
+            assertThat(blob.addContent(buffer(), false), is(RemoteDigestBlob.Status.PARTIAL));
+        }
+
+        // chunk 2 fails while chunk 3 and 4 are still in flight
+        try {
+            blob.addContent(buffer(), true);
+            fail("the failure of chunk 2 should have been reported");
+        } catch (ElasticsearchException e) {
+            assertThat(e.getMessage(), is("chunk 2 failed"));
+        }
+        verify(chunk3).actionGet();
+        verify(chunk4).actionGet();
+        // the last chunk commits the blob and must not be sent
+        verify(client, times(4)).execute(eq(PutChunkAction.INSTANCE), any(PutChunkRequest.class));
+    }
+
+    @Test
+    public void testInflightChunksAreAwaitedIfAChunkIsNotPartial() throws Exception {
+        ActionFuture<PutChunkResponse> chunk1 = chunkFuture(RemoteDigestBlob.Status.FAILED);
+        ActionFuture<PutChunkResponse> chunk2 = chunkFuture(RemoteDigestBlob.Status.PARTIAL);
+        when(client.execute(eq(PutChunkAction.INSTANCE), any(PutChunkRequest.class)))
+                .thenReturn(chunk1, chunk2);
+
+        RemoteDigestBlob blob = new RemoteDigestBlob(blobService, "test", DIGEST, 3);
+        blob.addContent(buffer(), false);
+        blob.addContent(buffer(), false);
+        blob.addContent(buffer(), false);
+
+        assertThat(blob.addContent(buffer(), true), is(RemoteDigestBlob.Status.FAILED));
+        verify(chunk2).actionGet();
+    }
+
+    private static ChannelBuffer buffer() {
+        return ChannelBuffers.wrappedBuffer(new byte[]{1, 2, 3});
+    }
+
+    private static ActionFuture<PutChunkResponse> chunkFuture(RemoteDigestBlob.Status status) {
+        PutChunkResponse response = new PutChunkResponse();
+        response.status(status);
+        ActionFuture<PutChunkResponse> future = future();
+        when(future.actionGet()).thenReturn(response);
+        return future;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ActionFuture<T> future() {
+        return mock(ActionFuture.class);
+    }
+}
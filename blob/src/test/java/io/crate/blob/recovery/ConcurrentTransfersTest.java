@@ -0,0 +1,99 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.blob.recovery;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ConcurrentTransfersTest extends CrateUnitTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void prepare() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testNumberOfTransfersInFlightIsLimited() throws Exception {
+        ConcurrentTransfers transfers = new ConcurrentTransfers(executor, 2);
+        final AtomicInteger inFlight = new AtomicInteger(0);
+        final AtomicInteger maxInFlight = new AtomicInteger(0);
+        final AtomicInteger finished = new AtomicInteger(0);
+        for (int i = 0; i < 20; i++) {
+            transfers.start(new Runnable() {
+                @Override
+                public void run() {
+                    int current = inFlight.incrementAndGet();
+                    int max;
+                    while ((max = maxInFlight.get()) < current && !maxInFlight.compareAndSet(max, current)) {
+                        // retry
+                    }
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    inFlight.decrementAndGet();
+                    finished.incrementAndGet();
+                }
+            });
+        }
+        transfers.awaitAll();
+
+        assertThat(finished.get(), is(20));
+        assertThat(maxInFlight.get(), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    public void testRejectedTransferReleasesPermit() throws Exception {
+        executor.shutdown();
+        ConcurrentTransfers transfers = new ConcurrentTransfers(executor, 1);
+        try {
+            transfers.start(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            fail("transfer should have been rejected");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        // would block forever if the permit had leaked
+        transfers.awaitAll();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.blob.recovery;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class RecoveryBufferPoolTest extends CrateUnitTest {
+
+    @Test
+    public void testReleasedBufferIsReused() throws Exception {
+        RecoveryBufferPool pool = new RecoveryBufferPool(2);
+        ByteBuffer buffer = pool.acquire(16);
+        buffer.put((byte) 1);
+        pool.release(buffer);
+
+        ByteBuffer reused = pool.acquire(16);
+        assertThat(reused, sameInstance(buffer));
+        assertThat(reused.position(), is(0));
+        assertThat(reused.limit(), is(16));
+    }
+
+    @Test
+    public void testBufferOfOtherSizeIsDropped() throws Exception {
+        RecoveryBufferPool pool = new RecoveryBufferPool(2);
+        ByteBuffer buffer = pool.acquire(16);
+        pool.release(buffer);
+
+        ByteBuffer other = pool.acquire(32);
+        assertThat(other.capacity(), is(32));
+        // the smaller buffer has been dropped from the pool
+        assertThat(pool.acquire(16), not(sameInstance(buffer)));
+    }
+
+    @Test
+    public void testNumberOfPooledBuffersIsLimited() throws Exception {
+        RecoveryBufferPool pool = new RecoveryBufferPool(1);
+        ByteBuffer buffer1 = pool.acquire(16);
+        ByteBuffer buffer2 = pool.acquire(16);
+        pool.release(buffer1);
+        pool.release(buffer2);
+
+        assertThat(pool.acquire(16), sameInstance(buffer1));
+        assertThat(pool.acquire(16), not(sameInstance(buffer2)));
+    }
+}
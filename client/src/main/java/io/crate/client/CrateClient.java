@@ -53,7 +53,14 @@ import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilde
 
 public class CrateClient {
 
+    /**
+     * if enabled (default) the rows of SELECT results are requested in the column oriented format,
+     * nodes which don't support it respond with the row oriented format.
+     */
+    public static final String COLUMNAR_RESULTS = "crate.client.columnar_results";
+
     private final Settings settings;
+    private final boolean columnarResults;
     private final InternalCrateClient internalClient;
     private final TransportService transportService;
     private ThreadPool threadPool;
@@ -81,6 +88,7 @@ public class CrateClient {
         // override classloader
         CrateClientClassLoader clientClassLoader = new CrateClientClassLoader(tuple.v1().getClassLoader());
         this.settings = ImmutableSettings.builder().put(tuple.v1()).classLoader(clientClassLoader).build();
+        this.columnarResults = this.settings.getAsBoolean(COLUMNAR_RESULTS, true);
         Version version = Version.CURRENT;
 
         CompressorFactory.configure(this.settings);
@@ -107,7 +115,11 @@ public class CrateClient {
     }
 
     public CrateClient(String... servers) {
-        this();
+        this(ImmutableSettings.Builder.EMPTY_SETTINGS, servers);
+    }
+
+    public CrateClient(Settings settings, String... servers) {
+        this(settings, true);
         for (String server : servers) {
             String[] parts = server.split(":");
             String host = parts[0];
@@ -124,6 +136,7 @@ public class CrateClient {
     }
 
     public ActionFuture<SQLResponse> sql(SQLRequest request) {
+        request.columnarResult(columnarResults);
         return internalClient.sql(request);
     }
 
@@ -132,6 +145,7 @@ public class CrateClient {
     }
 
     public void sql(SQLRequest request, ActionListener<SQLResponse> listener) {
+        request.columnarResult(columnarResults);
         internalClient.sql(request, listener);
     }
 
@@ -0,0 +1,109 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A cache for a single reference like {@link CachedRef}, but an expired value
+ * is refreshed in the background using the given executor.
+ * Until the refresh is done the stale value is returned, so callers never wait
+ * except for the very first access (or after a failed refresh).
+ *
+ * If {@link #cacheTime()} is 0 or less the value is refreshed on every access.
+ * @param <T>
+ */
+public abstract class AsyncCachedRef<T> {
+
+    private final Executor executor;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final Runnable refreshRunnable = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                T newValue = refresh();
+                cachedAt = System.currentTimeMillis();
+                value = newValue;
+            } catch (Throwable t) {
+                // next access will refresh synchronously and raise the error to the caller
+                value = null;
+            } finally {
+                refreshing.set(false);
+            }
+        }
+    };
+
+    private volatile long cachedAt = 0L;
+    private volatile T value = null;
+
+    public AsyncCachedRef(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * guaranteed to be not null if {@link #refresh()} does not return null.
+     * @return the cached value, a possibly stale one if a refresh is in progress
+     */
+    public T get() {
+        long cacheTime = cacheTime();
+        if (cacheTime <= 0) {
+            return refresh();
+        }
+        T current = value;
+        if (current == null) {
+            return load();
+        }
+        if (System.currentTimeMillis() - cachedAt > cacheTime && refreshing.compareAndSet(false, true)) {
+            try {
+                executor.execute(refreshRunnable);
+            } catch (RejectedExecutionException e) {
+                refreshing.set(false);
+            }
+        }
+        return current;
+    }
+
+    private synchronized T load() {
+        T current = value;
+        if (current == null) {
+            current = refresh();
+            cachedAt = System.currentTimeMillis();
+            value = current;
+        }
+        return current;
+    }
+
+    /**
+     * @return the time in milliseconds a value is considered fresh,
+     *         evaluated on every access so it may change at runtime
+     */
+    protected abstract long cacheTime();
+
+    /**
+     * create a new value
+     * @return the new value
+     */
+    protected abstract T refresh();
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.core.collections;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free, fixed size log that overwrites the oldest entry once it is full.
+ *
+ * All slots are allocated once on construction; adding an entry only claims the next
+ * sequence number and writes the slot, so concurrent writers never block each other.
+ *
+ * Iteration is weakly consistent: an iterator covers the entries that were added when it was
+ * created, from the oldest to the newest. Entries that are overwritten by concurrent writers
+ * while iterating are returned in their new version.
+ *
+ * A RingBuffer with a capacity of 0 discards all entries.
+ */
+public class RingBuffer<E> implements Iterable<E> {
+
+    private final int capacity;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLong sequence = new AtomicLong(0L);
+
+    public RingBuffer(int capacity) {
+        assert capacity >= 0 : "capacity must not be negative";
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(E element) {
+        if (capacity == 0) {
+            return;
+        }
+        long seq = sequence.getAndIncrement();
+        slots.set((int) (seq % capacity), element);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return (int) Math.min(sequence.get(), capacity);
+    }
+
+    /**
+     * returns a new RingBuffer with the given capacity containing the newest entries of this one.
+     */
+    public RingBuffer<E> resize(int newCapacity) {
+        RingBuffer<E> newBuffer = new RingBuffer<>(newCapacity);
+        if (newCapacity == 0) {
+            return newBuffer;
+        }
+        int toSkip = size() - newCapacity;
+        for (E element : this) {
+            if (toSkip-- > 0) {
+                continue;
+            }
+            newBuffer.add(element);
+        }
+        return newBuffer;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        long end = sequence.get();
+        return new RingBufferIterator(Math.max(0L, end - capacity), end);
+    }
+
+    private class RingBufferIterator implements Iterator<E> {
+
+        private final long end;
+        private long current;
+        private E next;
+
+        RingBufferIterator(long start, long end) {
+            this.current = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            // a slot might not be written yet if its sequence was claimed just now
+            while (next == null && current < end) {
+                next = slots.get((int) (current++ % capacity));
+            }
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("RingBuffer iterator is exhausted");
+            }
+            E element = next;
+            next = null;
+            return element;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove is not supported on a RingBuffer");
+        }
+    }
+}
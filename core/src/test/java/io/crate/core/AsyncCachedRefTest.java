@@ -0,0 +1,133 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.core;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.is;
+
+public class AsyncCachedRefTest extends CrateUnitTest {
+
+    private static class QueuedExecutor implements Executor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            List<Runnable> toRun = new ArrayList<>(tasks);
+            tasks.clear();
+            for (Runnable runnable : toRun) {
+                runnable.run();
+            }
+        }
+    }
+
+    private static class CountingRef extends AsyncCachedRef<Long> {
+
+        private final AtomicLong internalLong = new AtomicLong(0L);
+        private volatile long cacheTime;
+        private volatile boolean fail = false;
+
+        CountingRef(Executor executor, long cacheTime) {
+            super(executor);
+            this.cacheTime = cacheTime;
+        }
+
+        @Override
+        protected long cacheTime() {
+            return cacheTime;
+        }
+
+        @Override
+        protected Long refresh() {
+            if (fail) {
+                throw new IllegalStateException("refresh failed");
+            }
+            return internalLong.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void testZeroCacheAlwaysRefresh() throws Exception {
+        QueuedExecutor executor = new QueuedExecutor();
+        CountingRef ref = new CountingRef(executor, 0L);
+        assertThat(ref.get(), is(1L));
+        assertThat(ref.get(), is(2L));
+        assertThat(executor.tasks.size(), is(0));
+    }
+
+    @Test
+    public void testStaleValueIsReturnedWhileRefreshing() throws Exception {
+        QueuedExecutor executor = new QueuedExecutor();
+        CountingRef ref = new CountingRef(executor, 10L);
+
+        // first access loads synchronously
+        assertThat(ref.get(), is(1L));
+        assertThat(ref.get(), is(1L));
+        assertThat(executor.tasks.size(), is(0));
+
+        Thread.sleep(20);
+        assertThat(ref.get(), is(1L));
+        assertThat(ref.get(), is(1L));
+        // only one refresh is triggered
+        assertThat(executor.tasks.size(), is(1));
+
+        executor.runAll();
+        assertThat(ref.get(), is(2L));
+    }
+
+    @Test
+    public void testCacheTimeChange() throws Exception {
+        QueuedExecutor executor = new QueuedExecutor();
+        CountingRef ref = new CountingRef(executor, 60_000L);
+        assertThat(ref.get(), is(1L));
+
+        ref.cacheTime = 0L;
+        assertThat(ref.get(), is(2L));
+    }
+
+    @Test
+    public void testFailedRefreshLoadsSynchronously() throws Exception {
+        QueuedExecutor executor = new QueuedExecutor();
+        CountingRef ref = new CountingRef(executor, 10L);
+        assertThat(ref.get(), is(1L));
+
+        Thread.sleep(20);
+        ref.fail = true;
+        assertThat(ref.get(), is(1L));
+        executor.runAll();
+
+        expectedException.expect(IllegalStateException.class);
+        ref.get();
+    }
+}
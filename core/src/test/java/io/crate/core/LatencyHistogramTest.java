@@ -0,0 +1,84 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.core;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+
+public class LatencyHistogramTest extends CrateUnitTest {
+
+    @Test
+    public void testEmpty() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.count(), is(0L));
+        assertThat(histogram.min(), is(0L));
+        assertThat(histogram.max(), is(0L));
+        assertThat(histogram.mean(), is(0.0d));
+        assertThat(histogram.valueAtPercentile(99.0d), is(0L));
+    }
+
+    @Test
+    public void testBucketsAreContinuous() throws Exception {
+        int lastIndex = -1;
+        for (long value = 0; value < 10_000; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertThat(index, either(is(lastIndex)).or(is(lastIndex + 1)));
+            assertThat(LatencyHistogram.highestEquivalentValue(index), greaterThanOrEqualTo(value));
+            lastIndex = index;
+        }
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+        assertThat(histogram.count(), is(10_000L));
+        assertThat(histogram.min(), is(1L));
+        assertThat(histogram.max(), is(10_000L));
+        assertThat(histogram.mean(), is(5000.5d));
+
+        assertPercentile(histogram.valueAtPercentile(50.0d), 5000L);
+        assertPercentile(histogram.valueAtPercentile(90.0d), 9000L);
+        assertPercentile(histogram.valueAtPercentile(99.0d), 9900L);
+        assertThat(histogram.valueAtPercentile(100.0d), is(10_000L));
+    }
+
+    @Test
+    public void testValuesOutOfRange() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-10L);
+        histogram.record(Long.MAX_VALUE);
+        assertThat(histogram.min(), is(0L));
+        assertThat(histogram.max(), is(LatencyHistogram.MAX_VALUE));
+        assertThat(histogram.valueAtPercentile(100.0d), is(LatencyHistogram.MAX_VALUE));
+    }
+
+    private static void assertPercentile(long actual, long expected) {
+        assertThat(actual, greaterThanOrEqualTo(expected));
+        assertThat((double) actual, lessThanOrEqualTo(expected * 1.04d));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.core.collections;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.emptyIterable;
+import static org.hamcrest.core.Is.is;
+
+public class RingBufferTest extends CrateUnitTest {
+
+    @Test
+    public void testOverwritesOldest() throws Exception {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        assertThat(buffer, emptyIterable());
+        buffer.add(1);
+        buffer.add(2);
+        assertThat(buffer.size(), is(2));
+        assertThat(buffer, contains(1, 2));
+
+        buffer.add(3);
+        buffer.add(4);
+        buffer.add(5);
+        assertThat(buffer.size(), is(3));
+        assertThat(buffer, contains(3, 4, 5));
+    }
+
+    @Test
+    public void testZeroCapacityDiscards() throws Exception {
+        RingBuffer<Integer> buffer = new RingBuffer<>(0);
+        buffer.add(1);
+        assertThat(buffer.size(), is(0));
+        assertThat(buffer, emptyIterable());
+    }
+
+    @Test
+    public void testIteratorIsBoundToCreation() throws Exception {
+        RingBuffer<Integer> buffer = new RingBuffer<>(10);
+        buffer.add(1);
+        buffer.add(2);
+        Iterator<Integer> it = buffer.iterator();
+        buffer.add(3);
+
+        List<Integer> values = new ArrayList<>();
+        while (it.hasNext()) {
+            values.add(it.next());
+        }
+        assertThat(values, is((List<Integer>) ImmutableList.of(1, 2)));
+    }
+
+    @Test
+    public void testResizeKeepsNewest() throws Exception {
+        RingBuffer<Integer> buffer = new RingBuffer<>(5);
+        for (int i = 1; i <= 5; i++) {
+            buffer.add(i);
+        }
+        assertThat(buffer.resize(2), contains(4, 5));
+        assertThat(buffer.resize(10), contains(1, 2, 3, 4, 5));
+        assertThat(buffer.resize(10).capacity(), is(10));
+        assertThat(buffer.resize(0), emptyIterable());
+    }
+
+    @Test
+    public void testConcurrentAdd() throws Exception {
+        final RingBuffer<String> strings = new RingBuffer<>(15_000);
+
+        int THREADS = 20;
+        final CountDownLatch latch = new CountDownLatch(THREADS);
+        List<Thread> threads = new ArrayList<>(20);
+        for (int i = 0; i < THREADS; i++) {
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        strings.add("foo");
+                    }
+
+                    latch.countDown();
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+
+        latch.await();
+        assertThat(strings.size(), is(15_000));
+        int count = 0;
+        for (String string : strings) {
+            count++;
+        }
+        assertThat(count, is(15_000));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
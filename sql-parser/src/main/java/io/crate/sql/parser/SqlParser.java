@@ -28,7 +28,6 @@ import org.antlr.runtime.ANTLRStringStream;
 import org.antlr.runtime.CharStream;
 import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.RecognitionException;
-import org.antlr.runtime.TokenStream;
 import org.antlr.runtime.tree.BufferedTreeNodeStream;
 import org.antlr.runtime.tree.CommonTree;
 import org.antlr.runtime.tree.TreeNodeStream;
@@ -84,9 +83,14 @@ public final class SqlParser
 
     @VisibleForTesting
     static CommonTree parseStatement(String sql)
+    {
+        return parseStatement(tokenStream(sql));
+    }
+
+    static CommonTree parseStatement(CommonTokenStream tokenStream)
     {
         try {
-            return (CommonTree) getParser(sql).singleStatement().getTree();
+            return (CommonTree) new StatementParser(tokenStream).singleStatement().getTree();
         }
         catch (RecognitionException e) {
             throw new AssertionError(e); // RecognitionException is not thrown
@@ -104,10 +108,14 @@ public final class SqlParser
     }
 
     private static StatementParser getParser(String sql)
+    {
+        return new StatementParser(tokenStream(sql));
+    }
+
+    static CommonTokenStream tokenStream(String sql)
     {
         CharStream stream = new CaseInsensitiveStream(new ANTLRStringStream(sql));
         StatementLexer lexer = new StatementLexer(stream);
-        TokenStream tokenStream = new CommonTokenStream(lexer);
-        return new StatementParser(tokenStream);
+        return new CommonTokenStream(lexer);
     }
 }
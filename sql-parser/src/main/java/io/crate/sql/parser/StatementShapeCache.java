@@ -0,0 +1,189 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.sql.parser;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.crate.sql.tree.Statement;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.tree.CommonTree;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates statements using a cache of parse trees keyed by the shape of the statements.
+ *
+ * The shape of a statement consists of its tokens with the string and numeric literals
+ * replaced by placeholders, so <code>select * from t where id = 1</code> and
+ * <code>select * from t where id = 2</code> have the same shape. As the parser only decides on the
+ * type of the literal tokens, statements of the same shape result in the same parse tree apart
+ * from the literal leaves. For a known shape the literals of the statement are bound into a copy of
+ * the cached tree instead of parsing the statement again; only lexing and building the
+ * {@link Statement} from the tree are done for every statement.
+ *
+ * Because the literals are bound into the parse tree and not into the {@link Statement}, the
+ * resulting statement is exactly the one {@link SqlParser#createStatement(String)} would create.
+ */
+public class StatementShapeCache
+{
+    private final Cache<String, ShapeTree> cache;
+
+    public StatementShapeCache(int maximumSize)
+    {
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    public Statement createStatement(String sql)
+    {
+        try {
+            CommonTokenStream tokenStream = SqlParser.tokenStream(sql);
+            tokenStream.fill();
+            List<Token> literals = new ArrayList<>();
+            String shape = shape(tokenStream.getTokens(), literals);
+
+            CommonTree tree;
+            ShapeTree shapeTree = cache.getIfPresent(shape);
+            if (shapeTree == null) {
+                tokenStream.reset();
+                tree = SqlParser.parseStatement(tokenStream);
+                cache.put(shape, new ShapeTree(tree, literals));
+            }
+            else {
+                tree = shapeTree.bind(literals);
+            }
+            return SqlParser.createStatement(tree);
+        }
+        catch (StackOverflowError e) {
+            throw new ParsingException("statement is too large (stack overflow while parsing)");
+        }
+    }
+
+    /**
+     * @return the number of cached shapes
+     */
+    public long size()
+    {
+        return cache.size();
+    }
+
+    private static boolean isLiteral(int tokenType)
+    {
+        return tokenType == StatementLexer.STRING
+                || tokenType == StatementLexer.INTEGER_VALUE
+                || tokenType == StatementLexer.DECIMAL_VALUE;
+    }
+
+    /**
+     * builds the shape of the tokens on the default channel and collects the literal tokens
+     */
+    private static String shape(List<? extends Token> tokens, List<Token> literals)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Token token : tokens) {
+            if (token.getChannel() != Token.DEFAULT_CHANNEL) {
+                continue;
+            }
+            sb.append(token.getType());
+            if (isLiteral(token.getType())) {
+                literals.add(token);
+            }
+            else {
+                // the length prevents ambiguities if the text contains the separator
+                String text = token.getText();
+                sb.append(':').append(text.length()).append(':').append(text);
+            }
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * a parse tree whose literal leaves refer to the position of the literal inside the statement
+     */
+    private static class ShapeTree
+    {
+        private final CommonTree template;
+
+        ShapeTree(CommonTree tree, List<Token> literals)
+        {
+            Map<Integer, Integer> literalPositions = new HashMap<>(literals.size());
+            for (int i = 0; i < literals.size(); i++) {
+                literalPositions.put(literals.get(i).getTokenIndex(), i);
+            }
+            this.template = copy(tree, literalPositions);
+        }
+
+        private static CommonTree copy(CommonTree node, Map<Integer, Integer> literalPositions)
+        {
+            CommonTree copy;
+            Integer position = null;
+            if (node.getToken() != null && isLiteral(node.getType())) {
+                position = literalPositions.get(node.getToken().getTokenIndex());
+            }
+            copy = position == null ? new CommonTree(node) : new LiteralNode(node, position);
+            for (int i = 0; i < node.getChildCount(); i++) {
+                copy.addChild(copy((CommonTree) node.getChild(i), literalPositions));
+            }
+            return copy;
+        }
+
+        /**
+         * @return a new tree with the given literals at the literal leaves
+         */
+        CommonTree bind(List<Token> literals)
+        {
+            return bind(template, literals);
+        }
+
+        private static CommonTree bind(CommonTree node, List<Token> literals)
+        {
+            CommonTree copy;
+            if (node instanceof LiteralNode) {
+                copy = new CommonTree(literals.get(((LiteralNode) node).position));
+            }
+            else {
+                copy = new CommonTree(node);
+            }
+            for (int i = 0; i < node.getChildCount(); i++) {
+                copy.addChild(bind((CommonTree) node.getChild(i), literals));
+            }
+            return copy;
+        }
+    }
+
+    private static class LiteralNode
+            extends CommonTree
+    {
+        private final int position;
+
+        LiteralNode(CommonTree node, int position)
+        {
+            super(node);
+            this.position = position;
+        }
+    }
+}
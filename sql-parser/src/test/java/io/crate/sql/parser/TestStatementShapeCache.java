@@ -0,0 +1,109 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.sql.parser;
+
+import io.crate.sql.tree.Statement;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestStatementShapeCache
+{
+    private static void assertCached(StatementShapeCache cache, String sql)
+    {
+        Statement statement = cache.createStatement(sql);
+        assertEquals(statement, SqlParser.createStatement(sql));
+    }
+
+    @Test
+    public void testStatementsWithDifferentLiteralsShareTheShape()
+    {
+        StatementShapeCache cache = new StatementShapeCache(10);
+        assertCached(cache, "select name from users where id = 1 and name = 'foo' limit 10");
+        assertCached(cache, "select name from users where id = 2 and name = 'it''s' limit 100");
+        assertCached(cache, "select name from users\nwhere id = 3   and name = '' limit 1");
+        assertEquals(cache.size(), 1L);
+    }
+
+    @Test
+    public void testLiteralTypesArePartOfTheShape()
+    {
+        StatementShapeCache cache = new StatementShapeCache(10);
+        assertCached(cache, "select * from t where x = 1");
+        assertCached(cache, "select * from t where x = '1'");
+        assertCached(cache, "select * from t where x = 1.5");
+        assertCached(cache, "select * from t where x = 1e10");
+        assertEquals(cache.size(), 3L);
+    }
+
+    @Test
+    public void testIdentifiersAndKeywordsArePartOfTheShape()
+    {
+        StatementShapeCache cache = new StatementShapeCache(10);
+        assertCached(cache, "select * from t where x = 1");
+        assertCached(cache, "select * from t where y = 1");
+        assertCached(cache, "select * from t where x > 1");
+        assertCached(cache, "select * from t where \"x\" = 1");
+        assertEquals(cache.size(), 4L);
+    }
+
+    @Test
+    public void testBindLiterals()
+    {
+        StatementShapeCache cache = new StatementShapeCache(10);
+        String[] statements = new String[]{
+                "select a, b from t order by 1, 2 limit 5 offset 10",
+                "select a, b from t order by 2, 1 limit 1 offset 0",
+                "select x from t where x like 'foo%' and y in (1, 2, -3) and z = ?",
+                "select x from t where x like 'bar%' and y in (4, 5, -6) and z = ?",
+                "insert into t (a, b) values (1, 'one'), (2, 'two')",
+                "insert into t (a, b) values (3, 'three'), (4, 'four')",
+                "update t set a = substr(b, 1, 2) where c = 1.5",
+                "update t set a = substr(b, 2, 3) where c = 2.5",
+                "create table t (x int) clustered into 3 shards with (number_of_replicas = '0-all')",
+                "create table t (x int) clustered into 4 shards with (number_of_replicas = '1')",
+        };
+        for (String statement : statements) {
+            assertCached(cache, statement);
+        }
+        assertEquals(cache.size(), 5L);
+    }
+
+    @Test(expectedExceptions = ParsingException.class, expectedExceptionsMessageRegExp = "line 1:25: no viable alternative at character '@'")
+    public void testTokenizeError()
+    {
+        new StatementShapeCache(10).createStatement("select * from foo where @what");
+    }
+
+    @Test(expectedExceptions = ParsingException.class)
+    public void testParseErrorIsNotCached()
+    {
+        StatementShapeCache cache = new StatementShapeCache(10);
+        try {
+            cache.createStatement("select * from foo where x = 1 1");
+        }
+        finally {
+            assertEquals(cache.size(), 0L);
+        }
+    }
+}
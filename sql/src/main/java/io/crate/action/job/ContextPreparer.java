@@ -68,6 +68,7 @@ public class ContextPreparer {
     private final MapSideDataCollectOperation collectOperation;
     private ClusterService clusterService;
     private CountOperation countOperation;
+    private final CrateCircuitBreakerService breakerService;
     private final CircuitBreaker circuitBreaker;
     private final ThreadPool threadPool;
     private final PageDownstreamFactory pageDownstreamFactory;
@@ -85,6 +86,7 @@ public class ContextPreparer {
         this.collectOperation = collectOperation;
         this.clusterService = clusterService;
         this.countOperation = countOperation;
+        this.breakerService = breakerService;
         circuitBreaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER);
         this.threadPool = threadPool;
         this.pageDownstreamFactory = pageDownstreamFactory;
@@ -142,7 +144,7 @@ public class ContextPreparer {
 
         @Override
         public Void visitMergeNode(final MergeNode node, final PreparerContext context) {
-            RamAccountingContext ramAccountingContext = RamAccountingContext.forExecutionNode(circuitBreaker, node);
+            RamAccountingContext ramAccountingContext = RamAccountingContext.forExecutionNode(breakerService, circuitBreaker, node);
             ResultProvider downstream = resultProviderFactory.createDownstream(node, node.jobId());
             Tuple<PageDownstream, FlatProjectorChain> pageDownstreamProjectorChain =
                     pageDownstreamFactory.createMergeNodePageDownstream(
@@ -165,7 +167,7 @@ public class ContextPreparer {
 
         @Override
         public Void visitCollectNode(final CollectNode node, final PreparerContext context) {
-            RamAccountingContext ramAccountingContext = RamAccountingContext.forExecutionNode(circuitBreaker, node);
+            RamAccountingContext ramAccountingContext = RamAccountingContext.forExecutionNode(breakerService, circuitBreaker, node);
             ResultProvider downstream = collectOperation.createDownstream(node);
 
             if (ExecutionNodes.hasDirectResponseDownstream(node.downstreamNodes())) {
@@ -0,0 +1,278 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.action.sql;
+
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.executor.BytesRefUtils;
+import io.crate.types.*;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * Column oriented encoding of the rows of a {@link SQLResponse}.
+ *
+ * Every column is written as a whole, prefixed by a byte which describes how its values are encoded.
+ * Columns of primitive types are written as fixed width values without a type tag per value,
+ * string columns using the {@link io.crate.Streamer} of their type;
+ * null values are marked in a bitmap and are not written at all.
+ * Columns of other types or with values which don't match the column type are written
+ * using {@link StreamOutput#writeGenericValue(Object)}.
+ *
+ * The rows are written from the bucket in a single pass, each typed column is buffered until all rows are written.
+ */
+final class ColumnarRowsCodec {
+
+    private static final byte GENERIC = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte SHORT = 3;
+    private static final byte FLOAT = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte STRING = 7;
+
+    private ColumnarRowsCodec() {
+    }
+
+    static void write(StreamOutput out, DataType[] colTypes, Bucket rows, int numColumns) throws IOException {
+        int numRows = rows.size();
+        ColumnWriter[] columns = new ColumnWriter[numColumns];
+        for (int col = 0; col < numColumns; col++) {
+            columns[col] = new ColumnWriter(col < colTypes.length ? colTypes[col] : null, numRows);
+        }
+        int rowIdx = 0;
+        for (Row row : rows) {
+            for (int col = 0; col < numColumns; col++) {
+                columns[col].add(rowIdx, row.get(col));
+            }
+            rowIdx++;
+        }
+        for (int col = 0; col < numColumns; col++) {
+            ColumnWriter column = columns[col];
+            out.writeByte(column.encoding);
+            if (column.encoding == GENERIC) {
+                for (Row row : rows) {
+                    out.writeGenericValue(BytesRefUtils.ensureStringType(column.dataType, row.get(col)));
+                }
+                continue;
+            }
+            out.writeBoolean(column.nulls != null);
+            if (column.nulls != null) {
+                out.writeBytes(column.nulls);
+            }
+            column.values.bytes().writeTo(out);
+        }
+    }
+
+    static Object[][] read(StreamInput in, DataType[] colTypes, int numRows, int numColumns) throws IOException {
+        Object[][] rows = new Object[numRows][numColumns];
+        for (int col = 0; col < numColumns; col++) {
+            byte encoding = in.readByte();
+            if (encoding == GENERIC) {
+                for (int r = 0; r < numRows; r++) {
+                    rows[r][col] = in.readGenericValue();
+                }
+                continue;
+            }
+            byte[] nulls = readNullBitmap(in, numRows);
+            for (int r = 0; r < numRows; r++) {
+                if (nulls != null && isSet(nulls, r)) {
+                    continue;
+                }
+                switch (encoding) {
+                    case INT:
+                        rows[r][col] = in.readInt();
+                        break;
+                    case LONG:
+                        rows[r][col] = in.readLong();
+                        break;
+                    case SHORT:
+                        rows[r][col] = in.readShort();
+                        break;
+                    case FLOAT:
+                        rows[r][col] = in.readFloat();
+                        break;
+                    case DOUBLE:
+                        rows[r][col] = in.readDouble();
+                        break;
+                    case BOOLEAN:
+                        rows[r][col] = in.readBoolean();
+                        break;
+                    case STRING:
+                        rows[r][col] = ((BytesRef) colTypes[col].streamer().readValueFrom(in)).utf8ToString();
+                        break;
+                    default:
+                        throw new IOException("unknown column encoding " + encoding);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * buffers the values of a typed column, falls back to {@link #GENERIC} if a value doesn't match the encoding.
+     */
+    private static class ColumnWriter {
+
+        private final DataType dataType;
+        private final int numRows;
+        private byte encoding;
+        private BytesStreamOutput values;
+        private byte[] nulls;
+
+        ColumnWriter(@Nullable DataType dataType, int numRows) {
+            this.dataType = dataType;
+            this.numRows = numRows;
+            this.encoding = typedEncoding(dataType);
+            if (encoding != GENERIC) {
+                values = new BytesStreamOutput();
+            }
+        }
+
+        void add(int rowIdx, @Nullable Object value) throws IOException {
+            if (encoding == GENERIC) {
+                return;
+            }
+            if (value == null) {
+                if (nulls == null) {
+                    nulls = new byte[(numRows + 7) >>> 3];
+                }
+                nulls[rowIdx >>> 3] |= 1 << (rowIdx & 7);
+                return;
+            }
+            switch (encoding) {
+                case BOOLEAN:
+                    if (value instanceof Boolean) {
+                        values.writeBoolean((Boolean) value);
+                        return;
+                    }
+                    break;
+                case STRING:
+                    if (value instanceof BytesRef) {
+                        dataType.streamer().writeValueTo(values, value);
+                        return;
+                    }
+                    if (value instanceof String) {
+                        dataType.streamer().writeValueTo(values, new BytesRef((String) value));
+                        return;
+                    }
+                    break;
+                default:
+                    if (writeNumber(encoding, values, value)) {
+                        return;
+                    }
+            }
+            encoding = GENERIC;
+            values = null;
+            nulls = null;
+        }
+    }
+
+    /**
+     * writes the value if it is of the exact class of the encoding, other values would be truncated or widened
+     */
+    private static boolean writeNumber(byte encoding, StreamOutput out, Object value) throws IOException {
+        switch (encoding) {
+            case INT:
+                if (value instanceof Integer) {
+                    out.writeInt((Integer) value);
+                    return true;
+                }
+                return false;
+            case LONG:
+                if (value instanceof Long) {
+                    out.writeLong((Long) value);
+                    return true;
+                }
+                return false;
+            case SHORT:
+                if (value instanceof Short) {
+                    out.writeShort((Short) value);
+                    return true;
+                }
+                return false;
+            case FLOAT:
+                if (value instanceof Float) {
+                    out.writeFloat((Float) value);
+                    return true;
+                }
+                return false;
+            case DOUBLE:
+                if (value instanceof Double) {
+                    out.writeDouble((Double) value);
+                    return true;
+                }
+                return false;
+            default:
+                throw new IllegalStateException("unknown encoding " + encoding);
+        }
+    }
+
+    private static byte typedEncoding(DataType dataType) {
+        if (dataType == null) {
+            return GENERIC;
+        }
+        if (dataType.equals(DataTypes.IP)) {
+            return STRING;
+        }
+        switch (dataType.id()) {
+            case IntegerType.ID:
+                return INT;
+            case LongType.ID:
+            case TimestampType.ID:
+                return LONG;
+            case ShortType.ID:
+                return SHORT;
+            case FloatType.ID:
+                return FLOAT;
+            case DoubleType.ID:
+                return DOUBLE;
+            case BooleanType.ID:
+                return BOOLEAN;
+            case StringType.ID:
+                return STRING;
+            default:
+                return GENERIC;
+        }
+    }
+
+    @Nullable
+    private static byte[] readNullBitmap(StreamInput in, int numRows) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        byte[] nulls = new byte[(numRows + 7) >>> 3];
+        in.readBytes(nulls, 0, nulls.length);
+        return nulls;
+    }
+
+    private static boolean isSet(byte[] bitmap, int idx) {
+        return (bitmap[idx >>> 3] & (1 << (idx & 7))) != 0;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.action.sql;
+
+import io.crate.breaker.ConstSizeEstimator;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Row;
+import io.crate.executor.BytesRefUtils;
+import io.crate.jobs.ContextCallback;
+import io.crate.jobs.ExecutionSubContext;
+import io.crate.types.DataType;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds the remaining rows of a SELECT result between the fetch requests of a cursor.
+ *
+ * The context is registered with its own {@link io.crate.jobs.JobExecutionContext} so that
+ * cursors which aren't fetched anymore are closed by the keep alive reaper of the
+ * {@link io.crate.jobs.JobContextService}.
+ *
+ * The estimated size of the rows is accounted when the context is started and released once it is closed.
+ */
+public class CursorContext implements ExecutionSubContext {
+
+    public static final int SUB_CONTEXT_ID = 0;
+
+    /**
+     * accounted for values of types without a {@link SizeEstimator}, e.g. objects and arrays
+     */
+    private static final long UNKNOWN_VALUE_SIZE = 64L;
+
+    private final UUID cursorId;
+    private final String[] cols;
+    private final DataType[] colTypes;
+    private final boolean includeTypes;
+    private final int fetchSize;
+    private final RamAccountingContext ramAccountingContext;
+    private final Bucket bucket;
+    private final Iterator<Row> rows;
+    private final ArrayList<ContextCallback> callbacks = new ArrayList<>(1);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    public CursorContext(UUID cursorId,
+                         String[] cols,
+                         DataType[] colTypes,
+                         boolean includeTypes,
+                         int fetchSize,
+                         RamAccountingContext ramAccountingContext,
+                         Bucket rows) {
+        this.cursorId = cursorId;
+        this.cols = cols;
+        this.colTypes = colTypes;
+        this.includeTypes = includeTypes;
+        this.fetchSize = fetchSize;
+        this.ramAccountingContext = ramAccountingContext;
+        this.bucket = rows;
+        this.rows = rows.iterator();
+    }
+
+    public UUID cursorId() {
+        return cursorId;
+    }
+
+    /**
+     * the number of rows fetched if a fetch request doesn't specify it
+     */
+    public int fetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * returns a response containing up to <code>fetchSize</code> rows.
+     * If there are rows left the response contains the id of this cursor, otherwise the cursor is closed.
+     */
+    public synchronized SQLResponse nextPage(int fetchSize, long requestStartedTime) {
+        if (closed.get()) {
+            throw new IllegalStateException("cursor " + cursorId + " is closed");
+        }
+        ArrayList<Object[]> page = new ArrayList<>(Math.min(fetchSize, 1024));
+        while (page.size() < fetchSize && rows.hasNext()) {
+            Row row = rows.next();
+            Object[] cells = new Object[cols.length];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = row.get(i);
+            }
+            page.add(cells);
+        }
+        Object[][] pageRows = page.toArray(new Object[page.size()][]);
+        BytesRefUtils.ensureStringTypesAreStrings(colTypes, pageRows);
+        SQLResponse response = new SQLResponse(
+                cols, pageRows, colTypes, pageRows.length, requestStartedTime, includeTypes);
+        if (rows.hasNext()) {
+            response.cursor(cursorId.toString());
+        } else {
+            close();
+        }
+        return response;
+    }
+
+    @Override
+    public void addCallback(ContextCallback contextCallback) {
+        callbacks.add(contextCallback);
+    }
+
+    /**
+     * accounts the rows held by this cursor, the context is killed if the circuit breaker trips
+     */
+    @Override
+    public void start() {
+        try {
+            ramAccountingContext.addBytes(estimateSize(colTypes, cols.length, bucket));
+        } catch (Throwable t) {
+            doClose(t);
+            throw t;
+        }
+    }
+
+    @Override
+    public void close() {
+        doClose(null);
+    }
+
+    @Override
+    public void kill() {
+        doClose(new CancellationException());
+    }
+
+    @Override
+    public String name() {
+        return "cursor";
+    }
+
+    private void doClose(@Nullable Throwable throwable) {
+        if (!closed.getAndSet(true)) {
+            ramAccountingContext.close();
+            for (ContextCallback callback : callbacks) {
+                callback.onClose(throwable, -1L);
+            }
+        }
+    }
+
+    static long estimateSize(DataType[] colTypes, int numColumns, Bucket rows) {
+        SizeEstimator[] estimators = new SizeEstimator[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            estimators[i] = sizeEstimator(i < colTypes.length ? colTypes[i] : null);
+        }
+        long bytes = 0;
+        for (Row row : rows) {
+            bytes += RamAccountingContext.roundUp(16L + 8L * numColumns);
+            for (int i = 0; i < numColumns; i++) {
+                Object value = row.get(i);
+                if (value instanceof String) {
+                    // strings of an already materialized result
+                    bytes += 64L + 2L * ((String) value).length();
+                } else {
+                    //noinspection unchecked
+                    bytes += estimators[i].estimateSize(value);
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static SizeEstimator sizeEstimator(@Nullable DataType dataType) {
+        if (dataType != null) {
+            try {
+                return SizeEstimatorFactory.create(dataType);
+            } catch (UnsupportedOperationException e) {
+                // fall through
+            }
+        }
+        return new ConstSizeEstimator(UNKNOWN_VALUE_SIZE);
+    }
+}
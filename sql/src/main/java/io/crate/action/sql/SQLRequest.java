@@ -35,6 +35,7 @@ import java.util.Arrays;
 public class SQLRequest extends SQLBaseRequest {
 
     public final static Object[] EMPTY_ARGS = new Object[0];
+    private static final String COLUMNAR_RESULT_HEADER_KEY = "_cr";
     private Object[] args;
 
     public SQLRequest() {} // used for serialization
@@ -73,6 +74,24 @@ public class SQLRequest extends SQLBaseRequest {
         this.args = MoreObjects.firstNonNull(args, EMPTY_ARGS);
     }
 
+    /**
+     * request the rows of the response to be serialized column by column.
+     * This is sent as header so that nodes which don't know the columnar format ignore it
+     * and respond using the row oriented format which can still be read.
+     */
+    public void columnarResult(boolean columnarResult) {
+        if (columnarResult) {
+            putHeader(COLUMNAR_RESULT_HEADER_KEY, true);
+        } else if (hasHeader(COLUMNAR_RESULT_HEADER_KEY)) {
+            putHeader(COLUMNAR_RESULT_HEADER_KEY, false);
+        }
+    }
+
+    public boolean columnarResult() {
+        Boolean columnarResult = getHeader(COLUMNAR_RESULT_HEADER_KEY);
+        return columnarResult != null && columnarResult;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -21,12 +21,18 @@
 
 package io.crate.action.sql;
 
+import io.crate.core.collections.ArrayBucket;
+import io.crate.core.collections.Bucket;
+import io.crate.core.collections.Buckets;
+import io.crate.core.collections.Row;
+import io.crate.executor.BytesRefUtils;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Arrays;
 
@@ -34,8 +40,26 @@ public class SQLResponse extends SQLBaseResponse {
 
     public static final long NO_ROW_COUNT = -1L;
 
+    /**
+     * first byte of the serialized response. It used to be the (always false) "has headers" flag of the
+     * TransportResponse, so responses in the row oriented format still start with 0.
+     */
+    private static final byte ROW_FORMAT = 0;
+    private static final byte COLUMNAR_FORMAT = 2;
+
     private Object[][] rows;
+    /**
+     * result rows which haven't been materialized into {@link #rows} yet.
+     * They're written directly by {@link #toXContent} and {@link #writeTo} so that the
+     * rows don't have to be copied into an Object[][] if the response is only rendered or
+     * sent to another node.
+     */
+    @Nullable
+    private Bucket bucket;
     private long rowCount = NO_ROW_COUNT;
+    @Nullable
+    private String cursor;
+    private boolean columnarEncoding = false;
 
     public SQLResponse() {
     }
@@ -51,12 +75,35 @@ public class SQLResponse extends SQLBaseResponse {
         this.rowCount = rowCount;
     }
 
+    /**
+     * creates a response backed by the given bucket, the rows are only materialized if {@link #rows()} is called.
+     * The bucket must contain the raw values of the given types, strings are converted lazily.
+     */
+    public SQLResponse(String[] cols,
+                       Bucket rows,
+                       DataType[] dataTypes,
+                       long rowCount,
+                       long requestStartedTime,
+                       boolean includeTypes) {
+        super(cols, dataTypes, includeTypes, requestStartedTime);
+        this.bucket = rows;
+        this.rowCount = rowCount;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject();
         writeSharedAttributes(builder);
         builder.startArray(Fields.ROWS);
-        if (rows != null) {
+        if (rows == null && bucket != null) {
+            for (Row row : bucket) {
+                builder.startArray();
+                for (int j = 0; j < cols.length; j++) {
+                    builder.value(BytesRefUtils.ensureStringType(colType(j), row.get(j)));
+                }
+                builder.endArray();
+            }
+        } else if (rows != null) {
             for (int i = 0; i < rows.length; i++) {
                 builder.startArray();
                 for (int j = 0; j < cols.length; j++) {
@@ -67,14 +114,63 @@ public class SQLResponse extends SQLBaseResponse {
         }
         builder.endArray();
         builder.field(Fields.ROWCOUNT, rowCount());
+        if (cursor != null) {
+            builder.field(Fields.CURSOR, cursor);
+        }
         builder.endObject();
         return builder;
     }
 
     public Object[][] rows(){
+        if (rows == null && bucket != null) {
+            rows = Buckets.materialize(bucket);
+            if (colTypes != null) {
+                BytesRefUtils.ensureStringTypesAreStrings(colTypes, rows);
+            }
+            bucket = null;
+        }
         return rows;
     }
 
+    @Nullable
+    private DataType colType(int idx) {
+        if (colTypes == null || idx >= colTypes.length) {
+            return null;
+        }
+        return colTypes[idx];
+    }
+
+    /**
+     * the result rows, if the response has been created from a bucket this is a view on it.
+     */
+    public Bucket bucket() {
+        if (rows == null && bucket != null) {
+            return bucket;
+        }
+        return rows == null ? Bucket.EMPTY : new ArrayBucket(rows);
+    }
+
+    /**
+     * the id of the cursor which can be used to fetch the remaining rows,
+     * null if the response contains all rows. Only used for the HTTP endpoint, it isn't serialized.
+     */
+    @Nullable
+    public String cursor() {
+        return cursor;
+    }
+
+    public void cursor(@Nullable String cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * if set the rows are serialized column by column using the column types.
+     * Must only be used if the receiver supports it, see {@link SQLRequest#columnarResult()}
+     */
+    public void columnarEncoding(boolean columnarEncoding) {
+        this.columnarEncoding = columnarEncoding;
+    }
+
     public long rowCount() {
         return rowCount;
     }
@@ -89,12 +185,16 @@ public class SQLResponse extends SQLBaseResponse {
 
     public void rows(Object[][] rows) {
         this.rows = rows;
+        this.bucket = null;
     }
 
     @Override
     public void readFrom(StreamInput in) throws IOException {
         // don't user super.readFrom to stay binary backward compatible
-        in.readBoolean(); // headers in TransportResponse
+        if (in.readByte() == COLUMNAR_FORMAT) {
+            readColumnarFrom(in);
+            return;
+        }
 
         boolean negative = in.readBoolean();
         rowCount = in.readVLong();
@@ -122,18 +222,52 @@ public class SQLResponse extends SQLBaseResponse {
         }
     }
 
+    private void readColumnarFrom(StreamInput in) throws IOException {
+        boolean negative = in.readBoolean();
+        rowCount = in.readVLong();
+        if (negative) {
+            rowCount = -rowCount;
+        }
+        cols = in.readStringArray();
+        int numRows = in.readVInt();
+        int numColumnTypes = in.readVInt();
+        colTypes = new DataType[numColumnTypes];
+        for (int i = 0; i < numColumnTypes; i++) {
+            colTypes[i] = DataTypes.fromStream(in);
+        }
+        rows = ColumnarRowsCodec.read(in, colTypes, numRows, cols.length);
+        requestStartedTime = in.readVLong();
+        includeTypes = in.readBoolean();
+        if (!includeTypes) {
+            colTypes = EMPTY_TYPES;
+        }
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         // don't user super.writeTo to stay binary backward compatible
+        if (columnarEncoding) {
+            writeColumnarTo(out);
+            return;
+        }
 
-        out.writeBoolean(false); // headers in TransportResponse
+        out.writeByte(ROW_FORMAT); // used to be the headers flag of the TransportResponse
         out.writeBoolean(rowCount < 0);
         out.writeVLong(Math.abs(rowCount));
         out.writeStringArray(cols);
-        out.writeInt(rows.length);
-        for (int i = 0; i < rows.length ; i++) {
-            for (int j = 0; j < cols.length; j++) {
-                out.writeGenericValue(rows[i][j]);
+        if (rows == null && bucket != null) {
+            out.writeInt(bucket.size());
+            for (Row row : bucket) {
+                for (int j = 0; j < cols.length; j++) {
+                    out.writeGenericValue(BytesRefUtils.ensureStringType(colType(j), row.get(j)));
+                }
+            }
+        } else {
+            out.writeInt(rows.length);
+            for (int i = 0; i < rows.length ; i++) {
+                for (int j = 0; j < cols.length; j++) {
+                    out.writeGenericValue(rows[i][j]);
+                }
             }
         }
         out.writeVLong(requestStartedTime);
@@ -146,12 +280,30 @@ public class SQLResponse extends SQLBaseResponse {
         }
     }
 
+    private void writeColumnarTo(StreamOutput out) throws IOException {
+        Bucket rows = bucket();
+        DataType[] types = colTypes == null ? EMPTY_TYPES : colTypes;
+
+        out.writeByte(COLUMNAR_FORMAT);
+        out.writeBoolean(rowCount < 0);
+        out.writeVLong(Math.abs(rowCount));
+        out.writeStringArray(cols);
+        out.writeVInt(rows.size());
+        out.writeVInt(types.length);
+        for (DataType type : types) {
+            DataTypes.toStream(type, out);
+        }
+        ColumnarRowsCodec.write(out, types, rows, cols.length);
+        out.writeVLong(requestStartedTime);
+        out.writeBoolean(includeTypes);
+    }
+
     @Override
     public String toString() {
         return "SQLResponse{" +
                 "cols=" + ((cols!=null) ? Arrays.toString(cols): null) +
                 "colTypes=" + ((colTypes !=null) ? Arrays.toString(colTypes): null) +
-                ", rows=" + ((rows!=null) ? rows.length: -1)  +
+                ", rows=" + ((rows!=null) ? rows.length: ((bucket != null) ? bucket.size() : -1))  +
                 ", rowCount=" + rowCount  +
                 ", duration=" + duration()  +
                 '}';
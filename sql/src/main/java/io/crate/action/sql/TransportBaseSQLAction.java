@@ -36,13 +36,14 @@ import io.crate.executor.Job;
 import io.crate.executor.TaskResult;
 import io.crate.metadata.PartitionName;
 import io.crate.metadata.TableIdent;
+import io.crate.operation.collect.QueryLatencies;
 import io.crate.operation.collect.StatsTables;
 import io.crate.planner.Plan;
 import io.crate.planner.PlanPrinter;
 import io.crate.planner.Planner;
 import io.crate.planner.symbol.Field;
 import io.crate.sql.parser.ParsingException;
-import io.crate.sql.parser.SqlParser;
+import io.crate.sql.parser.StatementShapeCache;
 import io.crate.sql.tree.Statement;
 import io.crate.types.DataType;
 import org.elasticsearch.action.ActionListener;
@@ -81,13 +82,19 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
     private static final int MAX_SHARD_MISSING_RETRIES = 3;
 
 
+    /**
+     * statements which differ only in their literals share the parse tree of this cache,
+     * so clients which don't use parameters don't have to parse every statement again
+     */
+    private final StatementShapeCache statementShapeCache = new StatementShapeCache(100);
+
     private final LoadingCache<String, Statement> statementCache = CacheBuilder.newBuilder()
             .maximumSize(100)
             .build(
                     new CacheLoader<String, Statement>() {
                         @Override
                         public Statement load(@Nonnull String statement) throws Exception {
-                            return SqlParser.createStatement(statement);
+                            return statementShapeCache.createStatement(statement);
                         }
                     }
             );
@@ -190,9 +197,15 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
             return;
         }
         try {
+            long startedNanos = System.nanoTime();
             Statement statement = statementCache.get(request.stmt());
+            QueryLatencies.StatementType statementType = QueryLatencies.StatementType.of(statement);
+            long parsedNanos = System.nanoTime();
+            statsTables.recordLatency(statementType, QueryLatencies.Phase.PARSE, parsedNanos - startedNanos);
+
             Analysis analysis = getAnalysis(statement, request);
-            processAnalysis(analysis, request, listener, attempt, jobId);
+            statsTables.recordLatency(statementType, QueryLatencies.Phase.ANALYZE, System.nanoTime() - parsedNanos);
+            processAnalysis(analysis, request, listener, attempt, jobId, statementType, startedNanos);
         } catch (Throwable e) {
             logger.debug("Error executing SQLRequest", e);
             sendResponse(listener, buildSQLActionException(e));
@@ -209,17 +222,28 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
         statsTables.activeRequestsDec();
     }
 
-    private void processAnalysis(Analysis analysis, TRequest request, ActionListener<TResponse> listener, final int attempt, UUID jobId) {
+    private void processAnalysis(Analysis analysis,
+                                 TRequest request,
+                                 ActionListener<TResponse> listener,
+                                 final int attempt,
+                                 UUID jobId,
+                                 QueryLatencies.StatementType statementType,
+                                 long startedNanos) {
+        long planStartedNanos = System.nanoTime();
         final Plan plan = planner.plan(analysis, jobId);
+        statsTables.recordLatency(statementType, QueryLatencies.Phase.PLAN, System.nanoTime() - planStartedNanos);
         tracePlan(plan);
-        executePlan(analysis, plan, listener, request, attempt);
+        executePlan(analysis, plan, listener, request, attempt, statementType, startedNanos);
     }
 
     private void executePlan(final Analysis analysis,
                              final Plan plan,
                              final ActionListener<TResponse> listener,
                              final TRequest request,
-                             final int attempt) {
+                             final int attempt,
+                             final QueryLatencies.StatementType statementType,
+                             final long startedNanos) {
+        final long executeStartedNanos = System.nanoTime();
         Executor executor = executorProvider.get();
         Job job = executor.newJob(plan);
 
@@ -236,6 +260,7 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
                             return;
                         }
                         statsTables.jobFinished(plan.jobId(), null);
+                        recordExecuteLatency(statementType, executeStartedNanos, startedNanos);
                         sendResponse(listener, response);
                     }
 
@@ -254,6 +279,7 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
                             logger.debug("Error processing SQLRequest", t);
                         }
                         statsTables.jobFinished(plan.jobId(), message);
+                        recordExecuteLatency(statementType, executeStartedNanos, startedNanos);
                         sendResponse(listener, buildSQLActionException(t));
                     }
                 }
@@ -261,6 +287,14 @@ public abstract class TransportBaseSQLAction<TRequest extends SQLBaseRequest, TR
         );
     }
 
+    private void recordExecuteLatency(QueryLatencies.StatementType statementType,
+                                      long executeStartedNanos,
+                                      long startedNanos) {
+        long now = System.nanoTime();
+        statsTables.recordLatency(statementType, QueryLatencies.Phase.EXECUTE, now - executeStartedNanos);
+        statsTables.recordLatency(statementType, QueryLatencies.Phase.TOTAL, now - startedNanos);
+    }
+
     private void tracePlan(Plan plan) {
         if (logger.isTraceEnabled()) {
             PlanPrinter printer = new PlanPrinter();
@@ -25,9 +25,7 @@ import io.crate.analyze.Analysis;
 import io.crate.analyze.Analyzer;
 import io.crate.analyze.ParameterContext;
 import io.crate.core.collections.Bucket;
-import io.crate.core.collections.Buckets;
 import io.crate.core.collections.Row;
-import io.crate.executor.BytesRefUtils;
 import io.crate.executor.Executor;
 import io.crate.executor.TaskResult;
 import io.crate.executor.transport.ResponseForwarder;
@@ -96,29 +94,34 @@ public class TransportSQLAction extends TransportBaseSQLAction<SQLRequest, SQLRe
         TaskResult taskResult = result.get(0);
         Bucket rows = taskResult.rows();
 
-        Object[][] objs;
-        long rowCount = 0;
         if (expectsAffectedRows) {
+            long rowCount = 0;
             if (rows.size() >= 1){
                 Row first = rows.iterator().next();
                 if (first.size()>=1){
                     rowCount = ((Number) first.get(0)).longValue();
                 }
             }
-            objs = TaskResult.EMPTY_OBJS;
-        } else {
-            rowCount = rows.size();
-            objs = Buckets.materialize(rows);
+            return new SQLResponse(
+                    outputNames,
+                    TaskResult.EMPTY_OBJS,
+                    outputTypes,
+                    rowCount,
+                    request.creationTime(),
+                    request.includeTypesOnResponse()
+            );
         }
-        BytesRefUtils.ensureStringTypesAreStrings(outputTypes, objs);
-        return new SQLResponse(
+        // rows are written directly from the bucket, they're only materialized if they're accessed using rows()
+        SQLResponse response = new SQLResponse(
                 outputNames,
-                objs,
+                rows,
                 outputTypes,
-                rowCount,
+                rows.size(),
                 request.creationTime(),
                 request.includeTypesOnResponse()
         );
+        response.columnarEncoding(request.columnarResult());
+        return response;
     }
 
     private class TransportHandler extends BaseTransportRequestHandler<SQLRequest> {
@@ -102,6 +102,20 @@ public abstract class AbstractInsertAnalyzedStatement implements AnalyzedStateme
         }
     }
 
+    /**
+     * take over the columns and the primary key / partitioned by / routing information
+     * of another statement that has been analyzed against the same table.
+     *
+     * The column information is shared, so neither statement may add columns afterwards.
+     */
+    void copyColumnLayout(AbstractInsertAnalyzedStatement other) {
+        assert tableInfo == other.tableInfo : "column layout must be taken from the same table";
+        this.columns = other.columns;
+        this.primaryKeyColumnIndices = other.primaryKeyColumnIndices;
+        this.partitionedByColumnsIndices = other.partitionedByColumnsIndices;
+        this.routingColumnIndex = other.routingColumnIndex;
+    }
+
     public TableInfo tableInfo() {
         return tableInfo;
     }
@@ -21,6 +21,9 @@
 
 package io.crate.analyze;
 
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.crate.analyze.expressions.ExpressionAnalysisContext;
 import io.crate.analyze.expressions.ExpressionAnalyzer;
 import io.crate.analyze.relations.FieldProvider;
@@ -33,20 +36,25 @@ import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.TableIdent;
 import io.crate.metadata.table.TableInfo;
 import io.crate.operation.Input;
+import io.crate.planner.symbol.DynamicReference;
 import io.crate.planner.symbol.Field;
 import io.crate.planner.symbol.Literal;
 import io.crate.planner.symbol.Reference;
 import io.crate.planner.symbol.Symbol;
 import io.crate.sql.tree.Assignment;
 import io.crate.sql.tree.Expression;
+import io.crate.sql.tree.FunctionCall;
 import io.crate.sql.tree.InsertFromValues;
+import io.crate.sql.tree.ParameterExpression;
 import io.crate.sql.tree.ValuesList;
 import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.lucene.BytesRefs;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -83,6 +91,78 @@ public class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         }
     }
 
+    /**
+     * The argument independent analysis of an INSERT statement, see {@link #prepare(InsertFromValues, TableInfo, ParameterContext)}.
+     *
+     * Only valid as long as the table and the default schema don't change.
+     */
+    private static class PreparedInsert {
+
+        private final TableInfo tableInfo;
+        @Nullable
+        private final String defaultSchema;
+        private final TableRelation tableRelation;
+        private final InsertFromValuesAnalyzedStatement template;
+
+        // parameter index for every insert column or -1 if the (already normalized) value is in values
+        private final int[] valueParameters;
+        private final Object[] values;
+
+        private final Reference[] assignmentColumns;
+        private final String[] assignmentColumnNames;
+        // parameter index or -1
+        private final int[] assignmentParameters;
+        // index of the insert column for VALUES(column) or -1
+        private final int[] assignmentValues;
+        private final Symbol[] assignmentSymbols;
+
+        static PreparedInsert unsupported(TableInfo tableInfo, @Nullable String defaultSchema) {
+            return new PreparedInsert(tableInfo, defaultSchema, null, null, null, null, null, null, null, null, null);
+        }
+
+        PreparedInsert(TableInfo tableInfo,
+                       @Nullable String defaultSchema,
+                       TableRelation tableRelation,
+                       InsertFromValuesAnalyzedStatement template,
+                       int[] valueParameters,
+                       Object[] values,
+                       Reference[] assignmentColumns,
+                       String[] assignmentColumnNames,
+                       int[] assignmentParameters,
+                       int[] assignmentValues,
+                       Symbol[] assignmentSymbols) {
+            this.tableInfo = tableInfo;
+            this.defaultSchema = defaultSchema;
+            this.tableRelation = tableRelation;
+            this.template = template;
+            this.valueParameters = valueParameters;
+            this.values = values;
+            this.assignmentColumns = assignmentColumns;
+            this.assignmentColumnNames = assignmentColumnNames;
+            this.assignmentParameters = assignmentParameters;
+            this.assignmentValues = assignmentValues;
+            this.assignmentSymbols = assignmentSymbols;
+        }
+
+        boolean isSupported() {
+            return template != null;
+        }
+
+        boolean isValidFor(TableInfo tableInfo, @Nullable String defaultSchema) {
+            // table infos are cached and replaced on every schema change
+            return this.tableInfo == tableInfo && Objects.equal(this.defaultSchema, defaultSchema);
+        }
+    }
+
+    /**
+     * keyed by statement identity, the parsed statements are cached by the transport actions
+     * so repeated executions of the same statement string end up with the same instance.
+     */
+    private final Cache<InsertFromValues, PreparedInsert> preparedInserts = CacheBuilder.newBuilder()
+            .weakKeys()
+            .maximumSize(200)
+            .build();
+
     @Inject
     protected InsertFromValuesAnalyzer(AnalysisMetaData analysisMetaData) {
         super(analysisMetaData);
@@ -90,8 +170,19 @@ public class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
 
     @Override
     public AbstractInsertAnalyzedStatement visitInsertFromValues(InsertFromValues node, Analysis analysis) {
+        String defaultSchema = analysis.parameterContext().defaultSchema();
         TableInfo tableInfo = analysisMetaData.referenceInfos().getWritableTable(
-                TableIdent.of(node.table(), analysis.parameterContext().defaultSchema()));
+                TableIdent.of(node.table(), defaultSchema));
+
+        PreparedInsert preparedInsert = preparedInserts.getIfPresent(node);
+        if (preparedInsert == null || !preparedInsert.isValidFor(tableInfo, defaultSchema)) {
+            preparedInsert = prepare(node, tableInfo, analysis.parameterContext());
+            preparedInserts.put(node, preparedInsert);
+        }
+        if (preparedInsert.isSupported()) {
+            return bind(preparedInsert, analysis.parameterContext());
+        }
+
         TableRelation tableRelation = new TableRelation(tableInfo);
 
         FieldProvider fieldProvider = new NameFieldProvider(tableRelation);
@@ -123,6 +214,191 @@ public class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         return statement;
     }
 
+    /**
+     * Analyzes the parts of a single row INSERT that don't depend on the arguments of a request:
+     * the column layout, the literal values and the ON DUPLICATE KEY UPDATE assignments.
+     *
+     * Only statements whose values are parameters or primitive literals and whose assignments are
+     * parameters, literals or <code>VALUES(column)</code> of the assigned column itself are supported,
+     * everything else is analyzed from scratch on every execution.
+     */
+    private PreparedInsert prepare(InsertFromValues node, TableInfo tableInfo, ParameterContext parameterContext) {
+        String defaultSchema = parameterContext.defaultSchema();
+        if (node.valuesLists().size() != 1) {
+            return PreparedInsert.unsupported(tableInfo, defaultSchema);
+        }
+        ValuesList valuesList = node.valuesLists().get(0);
+        TableRelation tableRelation = new TableRelation(tableInfo);
+        ExpressionAnalyzer expressionAnalyzer =
+                new ExpressionAnalyzer(analysisMetaData, parameterContext, new NameFieldProvider(tableRelation));
+        ExpressionAnalysisContext expressionAnalysisContext = new ExpressionAnalysisContext();
+        expressionAnalyzer.resolveWritableFields(true);
+
+        InsertFromValuesAnalyzedStatement template = new InsertFromValuesAnalyzedStatement(tableInfo, false);
+        handleInsertColumns(node, node.maxValuesLength(), template);
+        if (valuesList.values().size() != template.columns().size()) {
+            return PreparedInsert.unsupported(tableInfo, defaultSchema);
+        }
+
+        int numColumns = template.columns().size();
+        int[] valueParameters = new int[numColumns];
+        Object[] values = new Object[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            Reference column = template.columns().get(i);
+            if (column instanceof DynamicReference) {
+                return PreparedInsert.unsupported(tableInfo, defaultSchema);
+            }
+            Expression expression = valuesList.values().get(i);
+            if (expression instanceof ParameterExpression) {
+                valueParameters[i] = ((ParameterExpression) expression).index();
+            } else if (expression instanceof io.crate.sql.tree.Literal
+                       && DataTypes.PRIMITIVE_TYPES.contains(column.valueType())) {
+                valueParameters[i] = -1;
+                values[i] = normalizeValue(expressionAnalyzer,
+                        expressionAnalyzer.convert(expression, expressionAnalysisContext),
+                        column,
+                        expressionAnalysisContext);
+            } else {
+                return PreparedInsert.unsupported(tableInfo, defaultSchema);
+            }
+        }
+
+        List<Assignment> assignments = node.onDuplicateKeyAssignments();
+        Reference[] assignmentColumns = new Reference[assignments.size()];
+        String[] assignmentColumnNames = new String[assignments.size()];
+        int[] assignmentParameters = new int[assignments.size()];
+        int[] assignmentValues = new int[assignments.size()];
+        Symbol[] assignmentSymbols = new Symbol[assignments.size()];
+        for (int i = 0; i < assignments.size(); i++) {
+            Assignment assignment = assignments.get(i);
+            Reference column = tableRelation.resolveField(
+                    (Field) expressionAnalyzer.convert(assignment.columnName(), expressionAnalysisContext));
+            if (column == null || column instanceof DynamicReference) {
+                return PreparedInsert.unsupported(tableInfo, defaultSchema);
+            }
+            assignmentColumns[i] = column;
+            assignmentColumnNames[i] = column.ident().columnIdent().fqn();
+            assignmentParameters[i] = -1;
+            assignmentValues[i] = -1;
+
+            Expression expression = assignment.expression();
+            if (expression instanceof ParameterExpression) {
+                assignmentParameters[i] = ((ParameterExpression) expression).index();
+            } else if (expression instanceof io.crate.sql.tree.Literal) {
+                assignmentSymbols[i] = expressionAnalyzer.normalizeInputForReference(
+                        expressionAnalyzer.convert(expression, expressionAnalysisContext),
+                        column,
+                        expressionAnalysisContext);
+            } else if (isValuesOf(expression, column, tableRelation, expressionAnalyzer, expressionAnalysisContext)
+                       && template.columns().contains(column)) {
+                assignmentValues[i] = template.columns().indexOf(column);
+            } else {
+                return PreparedInsert.unsupported(tableInfo, defaultSchema);
+            }
+        }
+        return new PreparedInsert(tableInfo, defaultSchema, tableRelation, template, valueParameters, values,
+                assignmentColumns, assignmentColumnNames, assignmentParameters, assignmentValues, assignmentSymbols);
+    }
+
+    /**
+     * @return true if the expression is <code>VALUES(column)</code>
+     */
+    private boolean isValuesOf(Expression expression,
+                               Reference column,
+                               TableRelation tableRelation,
+                               ExpressionAnalyzer expressionAnalyzer,
+                               ExpressionAnalysisContext expressionAnalysisContext) {
+        if (!(expression instanceof FunctionCall)) {
+            return false;
+        }
+        FunctionCall functionCall = (FunctionCall) expression;
+        if (!functionCall.getName().getParts().get(0).equals("values") || functionCall.getArguments().size() != 1) {
+            return false;
+        }
+        Symbol argumentColumn = expressionAnalyzer.convert(functionCall.getArguments().get(0), expressionAnalysisContext);
+        if (!(argumentColumn instanceof Field)) {
+            return false;
+        }
+        return column.equals(tableRelation.resolveField((Field) argumentColumn));
+    }
+
+    private InsertFromValuesAnalyzedStatement bind(PreparedInsert preparedInsert, ParameterContext parameterContext) {
+        InsertFromValuesAnalyzedStatement statement = new InsertFromValuesAnalyzedStatement(
+                preparedInsert.tableInfo, parameterContext.hasBulkParams());
+        statement.copyColumnLayout(preparedInsert.template);
+        ExpressionAnalyzer expressionAnalyzer = new ExpressionAnalyzer(
+                analysisMetaData, parameterContext, new NameFieldProvider(preparedInsert.tableRelation));
+        ExpressionAnalysisContext expressionAnalysisContext = new ExpressionAnalysisContext();
+
+        if (parameterContext.hasBulkParams()) {
+            for (int i = 0; i < parameterContext.bulkParameters.length; i++) {
+                parameterContext.setBulkIdx(i);
+                addPreparedValues(preparedInsert, statement, expressionAnalyzer, expressionAnalysisContext, parameterContext);
+            }
+        } else {
+            addPreparedValues(preparedInsert, statement, expressionAnalyzer, expressionAnalysisContext, parameterContext);
+        }
+        return statement;
+    }
+
+    private void addPreparedValues(PreparedInsert preparedInsert,
+                                   InsertFromValuesAnalyzedStatement context,
+                                   ExpressionAnalyzer expressionAnalyzer,
+                                   ExpressionAnalysisContext expressionAnalysisContext,
+                                   ParameterContext parameterContext) {
+        if (context.tableInfo().isPartitioned()) {
+            context.newPartitionMap();
+        }
+        List<BytesRef> primaryKeyValues = new ArrayList<>(context.tableInfo().primaryKey().size());
+        String routingValue = null;
+        Object[] insertValues = new Object[context.columns().size()];
+
+        for (int i = 0; i < insertValues.length; i++) {
+            Reference column = context.columns().get(i);
+            Object value;
+            if (preparedInsert.valueParameters[i] < 0) {
+                value = preparedInsert.values[i];
+            } else {
+                value = normalizeValue(expressionAnalyzer,
+                        parameterContext.getAsSymbol(preparedInsert.valueParameters[i]),
+                        column,
+                        expressionAnalysisContext);
+            }
+            routingValue = processValue(
+                    context, i, column.info().ident().columnIdent(), value, primaryKeyValues, insertValues, routingValue);
+        }
+
+        int numAssignments = preparedInsert.assignmentColumns.length;
+        if (numAssignments > 0) {
+            Symbol[] onDupKeyAssignments = new Symbol[numAssignments];
+            for (int i = 0; i < numAssignments; i++) {
+                Reference column = preparedInsert.assignmentColumns[i];
+                Symbol assignment;
+                if (preparedInsert.assignmentParameters[i] >= 0) {
+                    assignment = expressionAnalyzer.normalizeInputForReference(
+                            parameterContext.getAsSymbol(preparedInsert.assignmentParameters[i]),
+                            column,
+                            expressionAnalysisContext);
+                } else if (preparedInsert.assignmentValues[i] >= 0) {
+                    DataType returnType = column.valueType();
+                    assignment = expressionAnalyzer.normalizeInputForReference(
+                            Literal.newLiteral(returnType, returnType.value(insertValues[preparedInsert.assignmentValues[i]])),
+                            column,
+                            expressionAnalysisContext);
+                } else {
+                    assignment = preparedInsert.assignmentSymbols[i];
+                }
+                UpdateStatementAnalyzer.ensureUpdateIsAllowed(
+                        context.tableInfo(), column.ident().columnIdent(), assignment);
+                onDupKeyAssignments[i] = assignment;
+            }
+            context.addOnDuplicateKeyAssignments(onDupKeyAssignments);
+            context.addOnDuplicateKeyAssignmentsColumns(preparedInsert.assignmentColumnNames);
+        }
+        context.sourceMaps().add(insertValues);
+        context.addIdAndRouting(primaryKeyValues, routingValue);
+    }
+
     private void analyzeValues(TableRelation tableRelation,
                                ExpressionAnalyzer expressionAnalyzer,
                                ExpressionAnalysisContext expressionAnalysisContext,
@@ -186,7 +462,6 @@ public class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         }
         List<BytesRef> primaryKeyValues = new ArrayList<>(numPrimaryKeys);
         String routingValue = null;
-        List<ColumnIdent> primaryKey = context.tableInfo().primaryKey();
         Object[] insertValues = new Object[node.values().size()];
 
         for (int i = 0, valuesSize = node.values().size(); i < valuesSize; i++) {
@@ -195,50 +470,9 @@ public class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
 
             // implicit type conversion
             Reference column = context.columns().get(i);
-            final ColumnIdent columnIdent = column.info().ident().columnIdent();
-            Object value;
-            try {
-                valuesSymbol = expressionAnalyzer.normalizeInputForReference(valuesSymbol, column, expressionAnalysisContext);
-                value = ((Input) valuesSymbol).value();
-            } catch (IllegalArgumentException | UnsupportedOperationException e) {
-                throw new ColumnValidationException(columnIdent.sqlFqn(), e);
-            } catch (ClassCastException e) {
-                // symbol is no Input
-                throw new ColumnValidationException(columnIdent.name(),
-                        String.format("Invalid value of type '%s' in insert statement", valuesSymbol.symbolType().name()));
-            }
-
-            if (context.primaryKeyColumnIndices().contains(i)) {
-                if (value == null) {
-                    throw new IllegalArgumentException("Primary key value must not be NULL");
-                }
-                int idx = primaryKey.indexOf(columnIdent);
-                if (idx < 0) {
-                    // oh look, one or more nested primary keys!
-                    assert value instanceof Map;
-                    for (ColumnIdent pkIdent : primaryKey) {
-                        if (!pkIdent.getRoot().equals(columnIdent)) {
-                            continue;
-                        }
-                        int pkIdx = primaryKey.indexOf(pkIdent);
-                        Object nestedValue = StringObjectMaps.fromMapByPath((Map) value, pkIdent.path());
-                        addPrimaryKeyValue(pkIdx, nestedValue, primaryKeyValues);
-                    }
-                } else {
-                    addPrimaryKeyValue(idx, value, primaryKeyValues);
-                }
-            }
-            if (i == context.routingColumnIndex()) {
-                routingValue = extractRoutingValue(columnIdent, value, context);
-            }
-            if (context.partitionedByIndices().contains(i)) {
-                Object rest = processPartitionedByValues(columnIdent, value, context);
-                if (rest != null) {
-                    insertValues[i] = rest;
-                }
-            } else {
-                insertValues[i] = value;
-            }
+            Object value = normalizeValue(expressionAnalyzer, valuesSymbol, column, expressionAnalysisContext);
+            routingValue = processValue(
+                    context, i, column.info().ident().columnIdent(), value, primaryKeyValues, insertValues, routingValue);
         }
 
         if (!assignments.isEmpty()) {
@@ -273,6 +507,71 @@ public class InsertFromValuesAnalyzer extends AbstractInsertAnalyzer {
         context.addIdAndRouting(primaryKeyValues, routingValue);
     }
 
+    private Object normalizeValue(ExpressionAnalyzer expressionAnalyzer,
+                                  Symbol valuesSymbol,
+                                  Reference column,
+                                  ExpressionAnalysisContext expressionAnalysisContext) {
+        ColumnIdent columnIdent = column.info().ident().columnIdent();
+        try {
+            valuesSymbol = expressionAnalyzer.normalizeInputForReference(valuesSymbol, column, expressionAnalysisContext);
+            return ((Input) valuesSymbol).value();
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            throw new ColumnValidationException(columnIdent.sqlFqn(), e);
+        } catch (ClassCastException e) {
+            // symbol is no Input
+            throw new ColumnValidationException(columnIdent.name(),
+                    String.format("Invalid value of type '%s' in insert statement", valuesSymbol.symbolType().name()));
+        }
+    }
+
+    /**
+     * adds the value of the insert column at position <code>i</code> to the insertValues and
+     * extracts primary key, routing and partitioned by values from it.
+     *
+     * @return the routing value of the row, which is the given routingValue unless the column is the routing column
+     */
+    private String processValue(InsertFromValuesAnalyzedStatement context,
+                                int i,
+                                ColumnIdent columnIdent,
+                                Object value,
+                                List<BytesRef> primaryKeyValues,
+                                Object[] insertValues,
+                                @Nullable String routingValue) {
+        if (context.primaryKeyColumnIndices().contains(i)) {
+            if (value == null) {
+                throw new IllegalArgumentException("Primary key value must not be NULL");
+            }
+            List<ColumnIdent> primaryKey = context.tableInfo().primaryKey();
+            int idx = primaryKey.indexOf(columnIdent);
+            if (idx < 0) {
+                // oh look, one or more nested primary keys!
+                assert value instanceof Map;
+                for (ColumnIdent pkIdent : primaryKey) {
+                    if (!pkIdent.getRoot().equals(columnIdent)) {
+                        continue;
+                    }
+                    int pkIdx = primaryKey.indexOf(pkIdent);
+                    Object nestedValue = StringObjectMaps.fromMapByPath((Map) value, pkIdent.path());
+                    addPrimaryKeyValue(pkIdx, nestedValue, primaryKeyValues);
+                }
+            } else {
+                addPrimaryKeyValue(idx, value, primaryKeyValues);
+            }
+        }
+        if (i == context.routingColumnIndex()) {
+            routingValue = extractRoutingValue(columnIdent, value, context);
+        }
+        if (context.partitionedByIndices().contains(i)) {
+            Object rest = processPartitionedByValues(columnIdent, value, context);
+            if (rest != null) {
+                insertValues[i] = rest;
+            }
+        } else {
+            insertValues[i] = value;
+        }
+        return routingValue;
+    }
+
     private void addPrimaryKeyValue(int index, Object value, List<BytesRef> primaryKeyValues) {
         if (value == null) {
             throw new IllegalArgumentException("Primary key value must not be NULL");
@@ -0,0 +1,311 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze.where;
+
+import com.google.common.base.MoreObjects;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.PartitionIndex;
+import io.crate.metadata.PartitionName;
+import io.crate.metadata.ReferenceInfo;
+import io.crate.operation.operator.*;
+import io.crate.planner.symbol.*;
+import io.crate.types.DataType;
+import org.apache.lucene.util.BytesRef;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cheap pre-filter for partition pruning.
+ *
+ * Extracts lower/upper bounds of partitioned by columns from the top-level conjunction
+ * of a query (e.g. <code>day &gt;= '2015-01-01' and day &lt; '2015-02-01' and x = 1</code>)
+ * and checks the decoded values of a {@link PartitionName} against them.
+ *
+ * A partition rejected by this filter can never match the query, so the (expensive)
+ * per-partition normalization done in {@link WhereClauseAnalyzer} can be skipped for it.
+ * Accepted partitions must still be normalized as the filter ignores everything it
+ * doesn't understand.
+ */
+public class PartitionRangeFilter {
+
+    private static final PartitionRangeFilter MATCH_ALL = new PartitionRangeFilter(new HashMap<Integer, Range>());
+    private static final Extractor EXTRACTOR = new Extractor();
+
+    private final Map<Integer, Range> ranges;
+
+    private PartitionRangeFilter(Map<Integer, Range> ranges) {
+        this.ranges = ranges;
+    }
+
+    public static PartitionRangeFilter fromQuery(@Nullable Symbol query, List<ReferenceInfo> partitionColumns) {
+        if (query == null) {
+            return MATCH_ALL;
+        }
+        Context context = new Context(partitionColumns);
+        EXTRACTOR.process(query, context);
+        if (context.ranges.isEmpty()) {
+            return MATCH_ALL;
+        }
+        return new PartitionRangeFilter(context.ranges);
+    }
+
+    /**
+     * @return true if the filter contains at least one bound
+     */
+    public boolean hasBounds() {
+        return !ranges.isEmpty();
+    }
+
+    /**
+     * @return the bounds of the partition column at <code>valuesIndex</code> or null if there are none
+     */
+    @Nullable
+    public Range range(int valuesIndex) {
+        return ranges.get(valuesIndex);
+    }
+
+    /**
+     * returns the partitions of the index which are inside the bounds of the first partitioned by column.
+     * Uses a binary search, the bounds of the other columns must still be checked using {@link #canMatch(PartitionName)}
+     */
+    public List<PartitionName> candidates(PartitionIndex partitionIndex) {
+        Range range = ranges.get(0);
+        if (range == null) {
+            return partitionIndex.partitions();
+        }
+        return partitionIndex.range(range.lower, range.lowerInclusive, range.upper, range.upperInclusive);
+    }
+
+    public boolean canMatch(PartitionName partitionName) {
+        for (Map.Entry<Integer, Range> entry : ranges.entrySet()) {
+            BytesRef rawValue = partitionName.values().get(entry.getKey());
+            if (!entry.getValue().contains(rawValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).add("ranges", ranges).toString();
+    }
+
+    public static class Range {
+
+        private final DataType type;
+        private Object lower;
+        private boolean lowerInclusive;
+        private Object upper;
+        private boolean upperInclusive;
+
+        Range(DataType type) {
+            this.type = type;
+        }
+
+        @SuppressWarnings("unchecked")
+        void lower(Object value, boolean inclusive) {
+            if (lower == null) {
+                lower = value;
+                lowerInclusive = inclusive;
+                return;
+            }
+            int cmp = type.compareValueTo(value, lower);
+            if (cmp > 0 || (cmp == 0 && !inclusive)) {
+                lower = value;
+                lowerInclusive = inclusive;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void upper(Object value, boolean inclusive) {
+            if (upper == null) {
+                upper = value;
+                upperInclusive = inclusive;
+                return;
+            }
+            int cmp = type.compareValueTo(value, upper);
+            if (cmp < 0 || (cmp == 0 && !inclusive)) {
+                upper = value;
+                upperInclusive = inclusive;
+            }
+        }
+
+        @Nullable
+        public Object lower() {
+            return lower;
+        }
+
+        public boolean lowerInclusive() {
+            return lowerInclusive;
+        }
+
+        @Nullable
+        public Object upper() {
+            return upper;
+        }
+
+        public boolean upperInclusive() {
+            return upperInclusive;
+        }
+
+        public DataType type() {
+            return type;
+        }
+
+        /**
+         * @param rawValue the value as stored inside the partition ident
+         */
+        public boolean contains(@Nullable BytesRef rawValue) {
+            if (rawValue == null) {
+                // any comparison with null results in null which can't match inside a conjunction
+                return false;
+            }
+            return containsValue(type.value(rawValue));
+        }
+
+        @SuppressWarnings("unchecked")
+        public boolean containsValue(@Nullable Object value) {
+            if (value == null) {
+                return false;
+            }
+            if (lower != null) {
+                int cmp = type.compareValueTo(value, lower);
+                if (cmp < 0 || (cmp == 0 && !lowerInclusive)) {
+                    return false;
+                }
+            }
+            if (upper != null) {
+                int cmp = type.compareValueTo(value, upper);
+                if (cmp > 0 || (cmp == 0 && !upperInclusive)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return (lower == null ? "(*" : (lowerInclusive ? "[" : "(") + lower) + ", " +
+                   (upper == null ? "*)" : upper + (upperInclusive ? "]" : ")"));
+        }
+    }
+
+    private static class Context {
+
+        private final List<ReferenceInfo> partitionColumns;
+        private final Map<Integer, Range> ranges = new HashMap<>();
+
+        Context(List<ReferenceInfo> partitionColumns) {
+            this.partitionColumns = partitionColumns;
+        }
+
+        @Nullable
+        Range range(Reference reference) {
+            ColumnIdent columnIdent = reference.info().ident().columnIdent();
+            for (int i = 0; i < partitionColumns.size(); i++) {
+                ReferenceInfo partitionColumn = partitionColumns.get(i);
+                if (partitionColumn.ident().columnIdent().equals(columnIdent)) {
+                    Range range = ranges.get(i);
+                    if (range == null) {
+                        range = new Range(partitionColumn.type());
+                        ranges.put(i, range);
+                    }
+                    return range;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * only descends into AND functions, everything else (OR, NOT, ...) can't be used
+     * to narrow down the partitions without evaluating it.
+     */
+    private static class Extractor extends SymbolVisitor<Context, Void> {
+
+        @Override
+        public Void visitFunction(Function function, Context context) {
+            String name = function.info().ident().name();
+            if (name.equals(AndOperator.NAME)) {
+                for (Symbol argument : function.arguments()) {
+                    process(argument, context);
+                }
+                return null;
+            }
+            if (function.arguments().size() != 2) {
+                return null;
+            }
+            Symbol left = function.arguments().get(0);
+            Symbol right = function.arguments().get(1);
+            boolean swapped = false;
+            if (left.symbolType() == SymbolType.LITERAL && right.symbolType() == SymbolType.REFERENCE) {
+                Symbol tmp = left;
+                left = right;
+                right = tmp;
+                swapped = true;
+            }
+            if (left.symbolType() != SymbolType.REFERENCE || !right.symbolType().isValueSymbol()) {
+                return null;
+            }
+            Reference reference = (Reference) left;
+            Literal literal = (Literal) right;
+            if (literal.value() == null || !literal.valueType().equals(reference.valueType())) {
+                return null;
+            }
+            Range range;
+            switch (name) {
+                case EqOperator.NAME:
+                    range = context.range(reference);
+                    if (range != null) {
+                        range.lower(literal.value(), true);
+                        range.upper(literal.value(), true);
+                    }
+                    break;
+                case GtOperator.NAME:
+                case GteOperator.NAME:
+                case LtOperator.NAME:
+                case LteOperator.NAME:
+                    range = context.range(reference);
+                    if (range != null) {
+                        boolean inclusive = name.equals(GteOperator.NAME) || name.equals(LteOperator.NAME);
+                        boolean isLowerBound = name.equals(GtOperator.NAME) || name.equals(GteOperator.NAME);
+                        if (isLowerBound != swapped) {
+                            range.lower(literal.value(), inclusive);
+                        } else {
+                            range.upper(literal.value(), inclusive);
+                        }
+                    }
+                    break;
+            }
+            return null;
+        }
+
+        @Override
+        protected Void visitSymbol(Symbol symbol, Context context) {
+            return null;
+        }
+    }
+}
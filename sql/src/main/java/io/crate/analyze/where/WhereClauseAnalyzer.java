@@ -159,8 +159,14 @@ public class WhereClauseAnalyzer {
 
         Symbol normalized = null;
         Map<Symbol, List<Literal>> queryPartitionMap = new HashMap<>();
+        PartitionRangeFilter rangeFilter = PartitionRangeFilter.fromQuery(
+                whereClause.query(), tableInfo.partitionedByColumns());
 
-        for (PartitionName partitionName : tableInfo.partitions()) {
+        for (PartitionName partitionName : rangeFilter.candidates(tableInfo.partitionIndex())) {
+            if (!rangeFilter.canMatch(partitionName)) {
+                // bounds on the partitioned by columns already rule out this partition
+                continue;
+            }
             for (PartitionExpression partitionExpression : partitionReferenceResolver.expressions()) {
                 partitionExpression.setNextRow(partitionName);
             }
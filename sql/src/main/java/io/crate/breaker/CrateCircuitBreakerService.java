@@ -25,20 +25,27 @@ import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
 import org.elasticsearch.indices.breaker.BreakerSettings;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.breaker.CircuitBreakerStats;
 import org.elasticsearch.node.settings.NodeSettingsService;
 
+import javax.annotation.Nullable;
 import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CrateCircuitBreakerService extends CircuitBreakerService {
 
     public static final String QUERY_CIRCUIT_BREAKER_LIMIT_SETTING = "indices.breaker.query.limit";
     public static final String QUERY_CIRCUIT_BREAKER_OVERHEAD_SETTING = "indices.breaker.query.overhead";
     public static final String QUERY_CIRCUIT_BREAKER_TYPE_SETTING = "indices.breaker.query.type";
+    public static final String QUERY_CIRCUIT_BREAKER_JOB_LIMIT_SETTING = "indices.breaker.query.job_limit";
     public static final String DEFAULT_QUERY_CIRCUIT_BREAKER_LIMIT = "60%";
+    public static final String DEFAULT_QUERY_CIRCUIT_BREAKER_JOB_LIMIT = "-1";
     public static final double DEFAULT_QUERY_CIRCUIT_BREAKER_OVERHEAD_CONSTANT = 1.09;
     public static final String DEFAULT_QUERY_CIRCUIT_BREAKER_TYPE = "memory";
 
@@ -46,9 +53,16 @@ public class CrateCircuitBreakerService extends CircuitBreakerService {
 
     public static final String BREAKING_EXCEPTION_MESSAGE =
             "[query] Data too large, data for [%s] would be larger than limit of [%d/%s]";
+    public static final String JOB_BREAKING_EXCEPTION_MESSAGE =
+            "[query] Data too large, data of job [%s] for [%s] would be larger than %s of [%d/%s]";
 
     private final CircuitBreakerService esCircuitBreakerService;
     private BreakerSettings queryBreakerSettings;
+    private volatile long jobLimit;
+
+    private final ConcurrentMap<UUID, JobRamAccounting> jobRamAccountings =
+            ConcurrentCollections.newConcurrentMap();
+    final AtomicInteger consumingJobs = new AtomicInteger(0);
 
     @Inject
     public CrateCircuitBreakerService(Settings settings,
@@ -70,6 +84,9 @@ public class CrateCircuitBreakerService extends CircuitBreakerService {
                         DEFAULT_QUERY_CIRCUIT_BREAKER_TYPE)));
 
         registerBreaker(queryBreakerSettings);
+        jobLimit = settings.getAsMemory(
+                QUERY_CIRCUIT_BREAKER_JOB_LIMIT_SETTING,
+                DEFAULT_QUERY_CIRCUIT_BREAKER_JOB_LIMIT).bytes();
         nodeSettingsService.addListener(new ApplySettings());
     }
 
@@ -98,6 +115,59 @@ public class CrateCircuitBreakerService extends CircuitBreakerService {
                 limit, new ByteSizeValue(limit));
     }
 
+    public static String jobBreakingExceptionMessage(UUID jobId, String label, String limitName, long limit) {
+        return String.format(Locale.ENGLISH, JOB_BREAKING_EXCEPTION_MESSAGE, jobId, label,
+                limitName, limit, new ByteSizeValue(limit));
+    }
+
+    /**
+     * the maximum number of bytes a single job may use on this node, -1 if unlimited
+     */
+    public long jobLimit() {
+        return jobLimit;
+    }
+
+    /**
+     * @return the number of jobs which currently have memory accounted on this node
+     */
+    public int consumingJobs() {
+        return consumingJobs.get();
+    }
+
+    /**
+     * returns the accounting of the given job, creating it if necessary.
+     * The returned accounting must be released using {@link JobRamAccounting#release()}
+     */
+    public JobRamAccounting acquireJobRamAccounting(UUID jobId) {
+        while (true) {
+            JobRamAccounting jobRamAccounting = jobRamAccountings.get(jobId);
+            if (jobRamAccounting == null) {
+                jobRamAccounting = new JobRamAccounting(jobId, this);
+                JobRamAccounting existing = jobRamAccountings.putIfAbsent(jobId, jobRamAccounting);
+                if (existing != null) {
+                    jobRamAccounting = existing;
+                }
+            }
+            if (jobRamAccounting.acquire()) {
+                return jobRamAccounting;
+            }
+            // released concurrently, it will be removed from the map
+            jobRamAccountings.remove(jobId, jobRamAccounting);
+        }
+    }
+
+    /**
+     * @return the accounting of the given job or null if no memory of the job is tracked on this node
+     */
+    @Nullable
+    public JobRamAccounting jobRamAccounting(UUID jobId) {
+        return jobRamAccountings.get(jobId);
+    }
+
+    void removeJobRamAccounting(JobRamAccounting jobRamAccounting) {
+        jobRamAccountings.remove(jobRamAccounting.jobId(), jobRamAccounting);
+    }
+
     public class ApplySettings implements NodeSettingsService.Listener {
 
         @Override
@@ -124,6 +194,12 @@ public class CrateCircuitBreakerService extends CircuitBreakerService {
                         CrateCircuitBreakerService.this.queryBreakerSettings.getType());
                 registerBreaker(newQuerySettings);
             }
+
+            jobLimit = settings.getAsMemory(
+                    QUERY_CIRCUIT_BREAKER_JOB_LIMIT_SETTING,
+                    CrateCircuitBreakerService.this.settings.get(
+                            QUERY_CIRCUIT_BREAKER_JOB_LIMIT_SETTING,
+                            DEFAULT_QUERY_CIRCUIT_BREAKER_JOB_LIMIT)).bytes();
         }
     }
 
@@ -0,0 +1,144 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.breaker;
+
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+
+import java.util.UUID;
+
+/**
+ * Accounts the memory used by all {@link RamAccountingContext}s of a job on this node.
+ *
+ * Besides the node wide query breaker a job is limited by
+ * <ul>
+ *     <li>the per job limit ({@link CrateCircuitBreakerService#QUERY_CIRCUIT_BREAKER_JOB_LIMIT_SETTING})</li>
+ *     <li>its fair share of the query breaker: if more than one job is consuming memory, a job
+ *     which uses more than <code>limit / number of consuming jobs</code> is stopped once the breaker
+ *     is filled up to {@link #FAIR_SHARE_BREAKER_RATIO}, so that the remaining memory is left
+ *     to the jobs within their share</li>
+ * </ul>
+ *
+ * Instances are reference counted and obtained using {@link CrateCircuitBreakerService#acquireJobRamAccounting(UUID)}.
+ */
+public class JobRamAccounting {
+
+    public static final double FAIR_SHARE_BREAKER_RATIO = 0.9;
+
+    private final UUID jobId;
+    private final CrateCircuitBreakerService breakerService;
+
+    private volatile long usedBytes = 0;
+    private int refCount = 0;
+    private boolean released = false;
+
+    JobRamAccounting(UUID jobId, CrateCircuitBreakerService breakerService) {
+        this.jobId = jobId;
+        this.breakerService = breakerService;
+    }
+
+    public UUID jobId() {
+        return jobId;
+    }
+
+    /**
+     * @return the bytes currently accounted for the job on this node
+     */
+    public long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Add bytes to the job and break if the job exceeds its limit or its fair share.
+     * The bytes are accounted even if the job breaks and must be released using {@link #releaseBytes(long)}.
+     *
+     * @param label the label of the context the bytes are added by
+     * @throws CircuitBreakingException
+     */
+    public synchronized void addBytes(long bytes, String label) throws CircuitBreakingException {
+        long before = usedBytes;
+        usedBytes = before + bytes;
+        if (before <= 0 && usedBytes > 0) {
+            breakerService.consumingJobs.incrementAndGet();
+        }
+        checkLimits(bytes, label);
+    }
+
+    public synchronized void releaseBytes(long bytes) {
+        long before = usedBytes;
+        usedBytes = before - bytes;
+        if (before > 0 && usedBytes <= 0) {
+            breakerService.consumingJobs.decrementAndGet();
+        }
+    }
+
+    private void checkLimits(long bytes, String label) throws CircuitBreakingException {
+        long jobLimit = breakerService.jobLimit();
+        if (jobLimit > 0 && usedBytes > jobLimit) {
+            throw new CircuitBreakingException(
+                    CrateCircuitBreakerService.jobBreakingExceptionMessage(jobId, label, "job limit", jobLimit));
+        }
+        int numJobs = breakerService.consumingJobs.get();
+        if (numJobs <= 1) {
+            return;
+        }
+        CircuitBreaker breaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER);
+        long breakerLimit = breaker.getLimit();
+        if (breakerLimit <= 0) {
+            return;
+        }
+        long fairShare = breakerLimit / numJobs;
+        if (usedBytes > fairShare && breaker.getUsed() + bytes > breakerLimit * FAIR_SHARE_BREAKER_RATIO) {
+            throw new CircuitBreakingException(
+                    CrateCircuitBreakerService.jobBreakingExceptionMessage(jobId, label, "fair share", fairShare));
+        }
+    }
+
+    /**
+     * @return false if the accounting has already been released completely and must not be used anymore
+     */
+    synchronized boolean acquire() {
+        if (released) {
+            return false;
+        }
+        refCount++;
+        return true;
+    }
+
+    /**
+     * Release one reference, the accounting is removed once the last reference is released.
+     */
+    public void release() {
+        synchronized (this) {
+            refCount--;
+            if (refCount > 0) {
+                return;
+            }
+            released = true;
+            if (usedBytes > 0) {
+                releaseBytes(usedBytes);
+            }
+        }
+        breakerService.removeJobRamAccounting(this);
+    }
+}
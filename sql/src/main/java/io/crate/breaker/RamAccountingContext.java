@@ -25,7 +25,9 @@ import io.crate.planner.node.ExecutionNode;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 
+import javax.annotation.Nullable;
 import java.util.Locale;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class RamAccountingContext {
@@ -35,6 +37,7 @@ public class RamAccountingContext {
 
     private final String contextId;
     private final CircuitBreaker breaker;
+    private final JobRamAccounting jobRamAccounting;
 
     private final AtomicLong totalBytes = new AtomicLong(0);
     private final AtomicLong flushBuffer = new AtomicLong(0);
@@ -47,9 +50,31 @@ public class RamAccountingContext {
         return new RamAccountingContext(ramAccountingContextId, breaker);
     }
 
+    /**
+     * create a context whose bytes are also accounted to the job the execution node belongs to,
+     * so that the job limits of the {@link CrateCircuitBreakerService} apply.
+     */
+    public static RamAccountingContext forExecutionNode(CrateCircuitBreakerService breakerService,
+                                                        CircuitBreaker breaker,
+                                                        ExecutionNode executionNode) {
+        String ramAccountingContextId = String.format(Locale.ENGLISH, "%s: %d",
+                executionNode.name(), executionNode.executionNodeId());
+        UUID jobId = executionNode.jobId();
+        return new RamAccountingContext(ramAccountingContextId, breaker,
+                jobId == null ? null : breakerService.acquireJobRamAccounting(jobId));
+    }
+
     public RamAccountingContext(String contextId, CircuitBreaker breaker) {
+        this(contextId, breaker, null);
+    }
+
+    /**
+     * @param jobRamAccounting an acquired job accounting, it is released once this context is closed
+     */
+    public RamAccountingContext(String contextId, CircuitBreaker breaker, @Nullable JobRamAccounting jobRamAccounting) {
         this.contextId = contextId;
         this.breaker = breaker;
+        this.jobRamAccounting = jobRamAccounting;
     }
 
     /**
@@ -83,6 +108,9 @@ public class RamAccountingContext {
             return;
         }
         try {
+            if (jobRamAccounting != null) {
+                jobRamAccounting.addBytes(bytes, contextId);
+            }
             breaker.addEstimateBytesAndMaybeBreak(bytes, contextId);
         } catch (CircuitBreakingException e) {
             // since we've already created the data, we need to
@@ -117,6 +145,10 @@ public class RamAccountingContext {
         if (totalBytes.get() != 0) {
             breaker.addWithoutBreaking(-totalBytes.get());
         }
+        if (jobRamAccounting != null) {
+            jobRamAccounting.releaseBytes(totalBytes.get());
+            jobRamAccounting.release();
+        }
         totalBytes.addAndGet(flushBuffer.getAndSet(0));
     }
 
@@ -134,6 +166,13 @@ public class RamAccountingContext {
         return breaker.getLimit();
     }
 
+    /**
+     * Returns the bytes currently used by the breaker, including the ones of all other contexts
+     */
+    public long breakerUsed() {
+        return breaker.getUsed();
+    }
+
     /**
      * Returns the context id string.
      */
@@ -29,6 +29,7 @@ import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
 
+import javax.annotation.Nullable;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Set;
@@ -69,38 +70,69 @@ public class BytesRefUtils {
             for (IntCursor stringCollectionColumn : stringCollectionColumns) {
                 Object value = rows[r][stringCollectionColumn.value];
                 if (value != null) {
-                    Iterator<BytesRef> iter = null;
-                    int size;
-                    if (value instanceof Set) {
-                        @SuppressWarnings("unchecked")
-                        Set<BytesRef> bytesRefSet = ((Set<BytesRef>) value);
-                        iter = bytesRefSet.iterator();
-                        size = bytesRefSet.size();
-                    } else if (value instanceof BytesRef[]) {
-                        BytesRef[] bytesRefArray = (BytesRef[])value;
-                        iter = Arrays.asList(bytesRefArray).iterator();
-                        size = bytesRefArray.length;
-                    } else if (value instanceof Object[]) {
-                        try {
-                            Object[] objectArray = (Object[]) value;
-                            BytesRef[] bytesRefArray = Arrays.copyOf(objectArray, objectArray.length, BytesRef[].class);
-                            iter = Arrays.asList(bytesRefArray).iterator();
-                            size = bytesRefArray.length;
-                        } catch (ArrayStoreException e) {
-                            continue;
-                        }
-                    } else {
-                        continue;
+                    String[] valuesString = toStringArray(value);
+                    if (valuesString != null) {
+                        rows[r][stringCollectionColumn.value] = valuesString;
                     }
-
-                    String[] valuesString = new String[size];
-                    for (int i = 0; i < size; i++) {
-                        BytesRef bytesRef = iter.next();
-                        valuesString[i] = bytesRef == null ? null : bytesRef.utf8ToString();
-                    }
-                    rows[r][stringCollectionColumn.value] = valuesString;
                 }
             }
         }
     }
+
+    /**
+     * converts a single value the same way {@link #ensureStringTypesAreStrings(DataType[], Object[][])} converts
+     * the values of a column of the given type.
+     * Used to convert rows one by one while they are written without materializing them first.
+     */
+    public static Object ensureStringType(@Nullable DataType dataType, @Nullable Object value) {
+        if (value == null || dataType == null) {
+            return value;
+        }
+        if (BYTES_REF_TYPES.contains(dataType)) {
+            if (value instanceof BytesRef) {
+                return ((BytesRef) value).utf8ToString();
+            }
+        } else if (DataTypes.isCollectionType(dataType)
+                   && BYTES_REF_TYPES.contains(((CollectionType) dataType).innerType())) {
+            String[] valuesString = toStringArray(value);
+            if (valuesString != null) {
+                return valuesString;
+            }
+        }
+        return value;
+    }
+
+    @Nullable
+    private static String[] toStringArray(Object value) {
+        Iterator<BytesRef> iter;
+        int size;
+        if (value instanceof Set) {
+            @SuppressWarnings("unchecked")
+            Set<BytesRef> bytesRefSet = ((Set<BytesRef>) value);
+            iter = bytesRefSet.iterator();
+            size = bytesRefSet.size();
+        } else if (value instanceof BytesRef[]) {
+            BytesRef[] bytesRefArray = (BytesRef[])value;
+            iter = Arrays.asList(bytesRefArray).iterator();
+            size = bytesRefArray.length;
+        } else if (value instanceof Object[]) {
+            try {
+                Object[] objectArray = (Object[]) value;
+                BytesRef[] bytesRefArray = Arrays.copyOf(objectArray, objectArray.length, BytesRef[].class);
+                iter = Arrays.asList(bytesRefArray).iterator();
+                size = bytesRefArray.length;
+            } catch (ArrayStoreException e) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+
+        String[] valuesString = new String[size];
+        for (int i = 0; i < size; i++) {
+            BytesRef bytesRef = iter.next();
+            valuesString[i] = bytesRef == null ? null : bytesRef.utf8ToString();
+        }
+        return valuesString;
+    }
 }
@@ -31,6 +31,7 @@ import io.crate.action.job.ContextPreparer;
 import io.crate.action.job.JobRequest;
 import io.crate.action.job.JobResponse;
 import io.crate.action.job.TransportJobAction;
+import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Bucket;
 import io.crate.executor.JobTask;
@@ -69,6 +70,7 @@ public class ExecutionNodesTask extends JobTask {
     private final PageDownstreamFactory pageDownstreamFactory;
     private final ThreadPool threadPool;
     private TransportCloseContextNodeAction transportCloseContextNodeAction;
+    private final CrateCircuitBreakerService breakerService;
     private final CircuitBreaker circuitBreaker;
 
     private final List<List<ExecutionNode>> groupedExecutionNodes = new ArrayList<>();
@@ -85,6 +87,7 @@ public class ExecutionNodesTask extends JobTask {
                                  ThreadPool threadPool,
                                  TransportJobAction transportJobAction,
                                  TransportCloseContextNodeAction transportCloseContextNodeAction,
+                                 CrateCircuitBreakerService breakerService,
                                  CircuitBreaker circuitBreaker) {
         super(jobId);
         this.clusterService = clusterService;
@@ -93,6 +96,7 @@ public class ExecutionNodesTask extends JobTask {
         this.pageDownstreamFactory = pageDownstreamFactory;
         this.threadPool = threadPool;
         this.transportCloseContextNodeAction = transportCloseContextNodeAction;
+        this.breakerService = breakerService;
         this.circuitBreaker = circuitBreaker;
         this.transportJobAction = transportJobAction;
     }
@@ -139,7 +143,7 @@ public class ExecutionNodesTask extends JobTask {
 
         for (int i = 0; i < groupedExecutionNodes.size(); i++) {
             RamAccountingContext ramAccountingContext = RamAccountingContext.forExecutionNode(
-                    circuitBreaker, finalMergeNodes.get(i));
+                    breakerService, circuitBreaker, finalMergeNodes.get(i));
 
             PageDownstreamContext pageDownstreamContext = createPageDownstreamContext(ramAccountingContext, streamers,
                     finalMergeNodes.get(i), groupedExecutionNodes.get(i), rowDownstream);
@@ -75,6 +75,7 @@ public class TransportExecutor implements Executor, TaskExecutor {
     private final ProjectionToProjectorVisitor globalProjectionToProjectionVisitor;
 
     // operation for handler side collecting
+    private final CrateCircuitBreakerService breakerService;
     private final CircuitBreaker circuitBreaker;
 
     private final PageDownstreamFactory pageDownstreamFactory;
@@ -105,6 +106,7 @@ public class TransportExecutor implements Executor, TaskExecutor {
         this.bulkRetryCoordinatorPool = bulkRetryCoordinatorPool;
         nodeVisitor = new NodeVisitor();
         planVisitor = new TaskCollectingVisitor();
+        this.breakerService = breakerService;
         circuitBreaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER);
         ImplementationSymbolVisitor globalImplementationSymbolVisitor = new ImplementationSymbolVisitor(
                 referenceResolver, functions, RowGranularity.CLUSTER);
@@ -329,6 +331,7 @@ public class TransportExecutor implements Executor, TaskExecutor {
                     threadPool,
                     transportActionProvider.transportJobInitAction(),
                     transportActionProvider.transportCloseContextNodeAction(),
+                    breakerService,
                     circuitBreaker);
             Context context = new Context(executionNodesTask);
             process(plan, context);
@@ -31,6 +31,7 @@ import io.crate.exceptions.Exceptions;
 import io.crate.executor.transport.distributed.SingleBucketBuilder;
 import io.crate.jobs.JobContextService;
 import io.crate.metadata.Functions;
+import io.crate.operation.CrateThreadPools;
 import io.crate.operation.collect.StatsTables;
 import io.crate.operation.fetch.NodeFetchOperation;
 import io.crate.planner.symbol.Reference;
@@ -38,7 +39,6 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
-import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 
@@ -55,24 +55,26 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
 
     private Transports transports;
     private final StatsTables statsTables;
+    private final CrateCircuitBreakerService breakerService;
     private final CircuitBreaker circuitBreaker;
     private final JobContextService jobContextService;
-    private final ThreadPool threadPool;
+    private final CrateThreadPools crateThreadPools;
     private final Functions functions;
 
     @Inject
     public TransportFetchNodeAction(TransportService transportService,
                                     Transports transports,
-                                    ThreadPool threadPool,
+                                    CrateThreadPools crateThreadPools,
                                     StatsTables statsTables,
                                     Functions functions,
-                                    CircuitBreakerService breakerService,
+                                    CrateCircuitBreakerService breakerService,
                                     JobContextService jobContextService) {
         this.transports = transports;
         this.statsTables = statsTables;
+        this.breakerService = breakerService;
         this.circuitBreaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER);
         this.jobContextService = jobContextService;
-        this.threadPool = threadPool;
+        this.crateThreadPools = crateThreadPools;
         this.functions = functions;
 
         transportService.registerHandler(TRANSPORT_ACTION,
@@ -112,7 +114,8 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
                                final ActionListener<NodeFetchResponse> fetchResponse) {
         statsTables.operationStarted(request.executionNodeId(), request.jobId(), "fetch");
         String ramAccountingContextId = String.format(Locale.ENGLISH, "%s: %d", request.jobId(), request.executionNodeId());
-        final RamAccountingContext ramAccountingContext = new RamAccountingContext(ramAccountingContextId, circuitBreaker);
+        final RamAccountingContext ramAccountingContext = new RamAccountingContext(
+                ramAccountingContextId, circuitBreaker, breakerService.acquireJobRamAccounting(request.jobId()));
 
         NodeFetchOperation fetchOperation = new NodeFetchOperation(
                 request.jobId(),
@@ -121,7 +124,7 @@ public class TransportFetchNodeAction implements NodeAction<NodeFetchRequest, No
                 request.toFetchReferences(),
                 request.closeContext(),
                 jobContextService,
-                threadPool,
+                crateThreadPools,
                 functions,
                 ramAccountingContext);
 
@@ -29,17 +29,18 @@ import io.crate.executor.TaskResult;
 import io.crate.jobs.ESJobContext;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobExecutionContext;
+import io.crate.operation.operator.EqOperator;
 import io.crate.planner.node.dml.ESDeleteByQueryNode;
+import io.crate.planner.symbol.*;
+import io.crate.types.DataTypes;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.deletebyquery.DeleteByQueryRequest;
 import org.elasticsearch.action.deletebyquery.DeleteByQueryResponse;
 import org.elasticsearch.action.deletebyquery.TransportDeleteByQueryAction;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Locale;
-import java.util.UUID;
+import java.util.*;
 
 public class ESDeleteByQueryTask extends JobTask {
 
@@ -54,27 +55,36 @@ public class ESDeleteByQueryTask extends JobTask {
                                JobContextService jobContextService) {
         super(jobId);
         resultList = new ArrayList<>(node.whereClauses().size());
-        List<DeleteByQueryRequest> requests = new ArrayList<>(node.whereClauses().size());
-        List<ActionListener> listeners = new ArrayList<>(node.whereClauses().size());
-
         for (int i = 0; i < node.whereClauses().size(); i++) {
+            resultList.add(SettableFuture.<TaskResult>create());
+        }
+
+        List<Batch> batches = batches(node);
+        List<DeleteByQueryRequest> requests = new ArrayList<>(batches.size());
+        List<ActionListener> listeners = new ArrayList<>(batches.size());
+        for (Batch batch : batches) {
+            List<SettableFuture<TaskResult>> results = new ArrayList<>(batch.positions.size());
+            for (Integer position : batch.positions) {
+                results.add((SettableFuture<TaskResult>) resultList.get(position));
+            }
             DeleteByQueryRequest request = new DeleteByQueryRequest();
-            SettableFuture<TaskResult> result = SettableFuture.create();
-            String[] indices = node.indices().get(i);
-            WhereClause whereClause = node.whereClauses().get(i);
-            String routing = node.routings().get(i);
             try {
-                request.source(QUERY_BUILDER.convert(whereClause), false);
-                request.indices(indices);
-                if (whereClause.clusteredBy().isPresent()){
-                    request.routing(routing);
+                if (batch.positions.size() > 1) {
+                    request.source(QUERY_BUILDER.convertTermsFilter(batch.reference, batch.values), false);
+                } else {
+                    request.source(QUERY_BUILDER.convert(batch.whereClause), false);
+                }
+                request.indices(batch.indices);
+                if (batch.whereClause.clusteredBy().isPresent()){
+                    request.routing(batch.routing);
                 }
             } catch (IOException e) {
-                result.setException(e);
+                for (SettableFuture<TaskResult> result : results) {
+                    result.setException(e);
+                }
             }
-            resultList.add(result);
             requests.add(request);
-            listeners.add(new Listener(result));
+            listeners.add(new Listener(results));
         }
 
         JobExecutionContext.Builder contextBuilder = jobContextService.newBuilder(jobId());
@@ -83,6 +93,95 @@ public class ESDeleteByQueryTask extends JobTask {
         context = jobContextService.createContext(contextBuilder);
     }
 
+    /**
+     * Groups the where clauses of a (bulk) delete into the delete-by-query requests which are executed.
+     *
+     * Where clauses of the form <code>column = literal</code> on the same indices are merged into a single
+     * request using a terms filter. Each delete-by-query request has to run on every shard of the indices,
+     * so merging avoids running one request per bulk argument.
+     * The row count of a delete-by-query is always unknown, so there is no per argument result that gets lost.
+     */
+    static List<Batch> batches(ESDeleteByQueryNode node) {
+        List<Batch> batches = new ArrayList<>(node.whereClauses().size());
+        Map<List<Object>, Batch> mergeableBatches = new HashMap<>();
+        for (int i = 0; i < node.whereClauses().size(); i++) {
+            WhereClause whereClause = node.whereClauses().get(i);
+            String[] indices = node.indices().get(i);
+            Function eq = mergeableEq(whereClause);
+            if (eq == null) {
+                batches.add(new Batch(indices, node.routings().get(i), whereClause, null, i));
+                continue;
+            }
+            Reference reference = (Reference) eq.arguments().get(0);
+            Object value = ((Literal) eq.arguments().get(1)).value();
+            List<Object> key = Arrays.<Object>asList(Arrays.asList(indices), reference.info());
+            Batch batch = mergeableBatches.get(key);
+            if (batch == null) {
+                batch = new Batch(indices, null, whereClause, reference, i);
+                mergeableBatches.put(key, batch);
+                batches.add(batch);
+            } else {
+                batch.positions.add(i);
+            }
+            batch.values.add(value);
+        }
+        return batches;
+    }
+
+    @Nullable
+    private static Function mergeableEq(WhereClause whereClause) {
+        if (!whereClause.hasQuery() || whereClause.clusteredBy().isPresent()
+            || whereClause.query().symbolType() != SymbolType.FUNCTION) {
+            return null;
+        }
+        Function function = (Function) whereClause.query();
+        if (!function.info().ident().name().equals(EqOperator.NAME) || function.arguments().size() != 2) {
+            return null;
+        }
+        Symbol left = function.arguments().get(0);
+        Symbol right = function.arguments().get(1);
+        if (left.symbolType() != SymbolType.REFERENCE || right.symbolType() != SymbolType.LITERAL) {
+            return null;
+        }
+        Reference reference = (Reference) left;
+        if (reference.info().ident().columnIdent().name().startsWith("_")
+            || !DataTypes.PRIMITIVE_TYPES.contains(reference.valueType())
+            || reference.valueType().equals(DataTypes.IP)
+            || ((Literal) right).value() == null) {
+            return null;
+        }
+        return function;
+    }
+
+    static class Batch {
+
+        private final String[] indices;
+        private final String routing;
+        private final WhereClause whereClause;
+        private final Reference reference;
+        private final List<Integer> positions = new ArrayList<>(1);
+        private final Set<Object> values = new LinkedHashSet<>();
+
+        Batch(String[] indices,
+              @Nullable String routing,
+              WhereClause whereClause,
+              @Nullable Reference reference,
+              int position) {
+            this.indices = indices;
+            this.routing = routing;
+            this.whereClause = whereClause;
+            this.reference = reference;
+            positions.add(position);
+        }
+
+        /**
+         * positions of the where clauses inside the node which are deleted by this batch
+         */
+        List<Integer> positions() {
+            return positions;
+        }
+    }
+
     @Override
     public void start() {
         context.start();
@@ -102,20 +201,24 @@ public class ESDeleteByQueryTask extends JobTask {
 
     static class Listener implements ActionListener<DeleteByQueryResponse> {
 
-        protected final SettableFuture<TaskResult> result;
+        protected final List<SettableFuture<TaskResult>> results;
 
-        public Listener(SettableFuture<TaskResult> result) {
-            this.result = result;
+        public Listener(List<SettableFuture<TaskResult>> results) {
+            this.results = results;
         }
 
         @Override
         public void onResponse(DeleteByQueryResponse indexDeleteByQueryResponses) {
-            result.set(TaskResult.ROW_COUNT_UNKNOWN);
+            for (SettableFuture<TaskResult> result : results) {
+                result.set(TaskResult.ROW_COUNT_UNKNOWN);
+            }
         }
 
         @Override
         public void onFailure(Throwable e) {
-            result.setException(e);
+            for (SettableFuture<TaskResult> result : results) {
+                result.setException(e);
+            }
         }
     }
 }
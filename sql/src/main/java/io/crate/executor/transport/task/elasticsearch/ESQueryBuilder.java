@@ -137,6 +137,36 @@ public class ESQueryBuilder {
         return context.builder.bytes();
     }
 
+    /**
+     * use to generate the "query" xcontent of a query which matches all documents
+     * where the value of the given column is one of the given values.
+     *
+     * The values are matched using a terms filter, so unlike <code>col in (...)</code>
+     * the number of values isn't limited by the max clause count of a boolean query.
+     */
+    public BytesReference convertTermsFilter(Reference reference, Collection<?> values) throws IOException {
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+        builder.startObject(Fields.QUERY)
+                .startObject(Fields.FILTERED)
+                .startObject(Fields.FILTER)
+                .startObject("terms")
+                .startArray(reference.info().ident().columnIdent().fqn());
+        for (Object value : values) {
+            if (value instanceof BytesRef) {
+                builder.value(((BytesRef) value).utf8ToString());
+            } else {
+                builder.value(value);
+            }
+        }
+        builder.endArray()
+                .endObject() // terms
+                .endObject() // filter
+                .endObject() // filtered
+                .endObject(); // query
+        builder.endObject();
+        return builder.bytes();
+    }
+
     static class Context {
         XContentBuilder builder;
         final Map<String, Object> ignoredFields = new HashMap<>();
@@ -55,7 +55,7 @@ public class JobExecutionContext {
         private final UUID jobId;
         private final ThreadPool threadPool;
         private final StatsTables statsTables;
-        private final long keepAlive = JobContextService.DEFAULT_KEEP_ALIVE;
+        private long keepAlive = JobContextService.DEFAULT_KEEP_ALIVE;
         private final LinkedHashMap<Integer, ExecutionSubContext> subContexts = new LinkedHashMap<>();
 
         Builder(UUID jobId, ThreadPool threadPool, StatsTables statsTables) {
@@ -72,6 +72,13 @@ public class JobExecutionContext {
             }
         }
 
+        /**
+         * time in ms after which the context is closed by the reaper if none of its sub contexts has been accessed
+         */
+        public void keepAlive(long keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
         boolean isEmpty() {
             return subContexts.isEmpty();
         }
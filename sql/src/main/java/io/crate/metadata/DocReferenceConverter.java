@@ -24,6 +24,7 @@ package io.crate.metadata;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import io.crate.metadata.doc.DocSysColumns;
+import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.TableInfo;
 import io.crate.planner.symbol.*;
 
@@ -76,6 +77,29 @@ public class DocReferenceConverter {
         return convertIf(symbol, predicate);
     }
 
+    /**
+     * like {@link #convertIfPossible(Symbol, TableInfo)} but references to columns which are stored
+     * as doc values are kept, so they can be read from the doc values instead of the source.
+     *
+     * If none of the references is converted, no source lookup is necessary at all.
+     */
+    public static Symbol convertIfPossibleKeepDocValues(Symbol symbol, TableInfo tableInfo) {
+        if (!(tableInfo instanceof DocTableInfo)) {
+            return convertIfPossible(symbol, tableInfo);
+        }
+        final DocTableInfo docTableInfo = (DocTableInfo) tableInfo;
+        final List<ReferenceInfo> partitionedByColumns = tableInfo.partitionedByColumns();
+        Predicate<Reference> predicate = new Predicate<Reference>() {
+            @Override
+            public boolean apply(@Nullable Reference input) {
+                assert input != null;
+                return !partitionedByColumns.contains(input.info())
+                       && !docTableInfo.hasDocValues(input.info().ident().columnIdent());
+            }
+        };
+        return convertIf(symbol, predicate);
+    }
+
     /**
      * will convert any references that are analyzed or not indexed to doc-references
      */
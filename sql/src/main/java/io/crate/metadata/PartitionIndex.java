@@ -0,0 +1,254 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Immutable list of the partitions of a partitioned table,
+ * sorted by the decoded value of the first partitioned by column (null values first).
+ *
+ * Partition idents are only decoded once; changes are applied using
+ * {@link #withChanges(Collection, Collection, long)} which returns a new index
+ * without decoding the already known partitions again.
+ *
+ * The sort order allows to look up the partitions within a range of the
+ * first partitioned by column using a binary search.
+ */
+public class PartitionIndex {
+
+    public static final PartitionIndex EMPTY = new PartitionIndex(
+            DataTypes.UNDEFINED, new PartitionName[0], new Object[0], -1L);
+
+    private final DataType type;
+    private final PartitionName[] partitions;
+    private final Object[] keys;
+    private final long version;
+    private final List<PartitionName> partitionList;
+
+    private PartitionIndex(DataType type, PartitionName[] partitions, Object[] keys, long version) {
+        assert partitions.length == keys.length : "every partition must have a key";
+        this.type = type;
+        this.partitions = partitions;
+        this.keys = keys;
+        this.version = version;
+        this.partitionList = Collections.unmodifiableList(Arrays.asList(partitions));
+    }
+
+    /**
+     * build a new index
+     *
+     * @param partitionColumns the partitioned by columns of the table, only the type of the first one is used
+     * @param partitions the partitions in any order
+     * @param version the version of the cluster meta data the partitions were taken from
+     */
+    public static PartitionIndex of(List<ReferenceInfo> partitionColumns,
+                                    Collection<PartitionName> partitions,
+                                    long version) {
+        if (partitionColumns.isEmpty()) {
+            return EMPTY;
+        }
+        return build(partitionColumns.get(0).type(), partitions, version);
+    }
+
+    private static PartitionIndex build(DataType type, Collection<PartitionName> partitions, long version) {
+        Entry[] entries = new Entry[partitions.size()];
+        int i = 0;
+        for (PartitionName partitionName : partitions) {
+            entries[i++] = new Entry(partitionName, decodeKey(type, partitionName));
+        }
+        return fromEntries(type, entries, entries.length, version);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PartitionIndex fromEntries(final DataType type, Entry[] entries, int size, long version) {
+        Arrays.sort(entries, 0, size, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry o1, Entry o2) {
+                return compareKeys(type, o1.key, o2.key);
+            }
+        });
+        PartitionName[] partitions = new PartitionName[size];
+        Object[] keys = new Object[size];
+        for (int i = 0; i < size; i++) {
+            partitions[i] = entries[i].partitionName;
+            keys[i] = entries[i].key;
+        }
+        return new PartitionIndex(type, partitions, keys, version);
+    }
+
+    @Nullable
+    private static Object decodeKey(DataType type, PartitionName partitionName) {
+        if (partitionName.values().isEmpty()) {
+            return null;
+        }
+        BytesRef value = partitionName.values().get(0);
+        return value == null ? null : type.value(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareKeys(DataType type, @Nullable Object key1, @Nullable Object key2) {
+        if (key1 == null) {
+            return key2 == null ? 0 : -1;
+        }
+        if (key2 == null) {
+            return 1;
+        }
+        return type.compareValueTo(key1, key2);
+    }
+
+    /**
+     * returns a new index with the given partitions added and the partitions with the given
+     * index names removed. Only the added partitions are decoded.
+     */
+    public PartitionIndex withChanges(Collection<PartitionName> added,
+                                      Collection<String> removedIndexNames,
+                                      long version) {
+        Set<String> removed = removedIndexNames.isEmpty()
+                ? Collections.<String>emptySet() : new HashSet<>(removedIndexNames);
+        Entry[] entries = new Entry[partitions.length + added.size()];
+        int size = 0;
+        for (int i = 0; i < partitions.length; i++) {
+            if (!removed.contains(partitions[i].stringValue())) {
+                entries[size++] = new Entry(partitions[i], keys[i]);
+            }
+        }
+        for (PartitionName partitionName : added) {
+            entries[size++] = new Entry(partitionName, decodeKey(type, partitionName));
+        }
+        return fromEntries(type, entries, size, version);
+    }
+
+    /**
+     * all partitions, sorted by the value of the first partitioned by column
+     */
+    public List<PartitionName> partitions() {
+        return partitionList;
+    }
+
+    public int size() {
+        return partitions.length;
+    }
+
+    public boolean isEmpty() {
+        return partitions.length == 0;
+    }
+
+    /**
+     * the version of the cluster meta data this index reflects
+     */
+    public long version() {
+        return version;
+    }
+
+    public DataType type() {
+        return type;
+    }
+
+    /**
+     * returns the partitions whose first partitioned by value is inside the given range.
+     * Partitions with a null value are excluded if any bound is given.
+     *
+     * @param lower lower bound or null if unbounded
+     * @param upper upper bound or null if unbounded
+     */
+    public List<PartitionName> range(@Nullable Object lower, boolean lowerInclusive,
+                                     @Nullable Object upper, boolean upperInclusive) {
+        if (lower == null && upper == null) {
+            return partitionList;
+        }
+        int from;
+        if (lower == null) {
+            from = firstNonNull();
+        } else {
+            from = lowerInclusive ? firstGreaterOrEqual(lower) : firstGreater(lower);
+        }
+        int to;
+        if (upper == null) {
+            to = partitions.length;
+        } else {
+            to = upperInclusive ? firstGreater(upper) : firstGreaterOrEqual(upper);
+        }
+        if (from >= to) {
+            return ImmutableList.of();
+        }
+        return partitionList.subList(from, to);
+    }
+
+    private int firstNonNull() {
+        int i = 0;
+        while (i < keys.length && keys[i] == null) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * index of the first key &gt;= value
+     */
+    private int firstGreaterOrEqual(Object value) {
+        int low = firstNonNull();
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKeys(type, keys[mid], value) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * index of the first key &gt; value
+     */
+    private int firstGreater(Object value) {
+        int low = firstNonNull();
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKeys(type, keys[mid], value) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static class Entry {
+        private final PartitionName partitionName;
+        private final Object key;
+
+        Entry(PartitionName partitionName, @Nullable Object key) {
+            this.partitionName = partitionName;
+            this.key = key;
+        }
+    }
+}
@@ -70,6 +70,7 @@ public class DocIndexMetaData {
     // columns should be ordered
     private final ImmutableMap.Builder<ColumnIdent, ReferenceInfo> referencesBuilder = ImmutableSortedMap.naturalOrder();
     private final ImmutableList.Builder<ReferenceInfo> partitionedByColumnsBuilder = ImmutableList.builder();
+    private final ImmutableSet.Builder<ColumnIdent> docValuesColumnsBuilder = ImmutableSet.builder();
 
     private final TableIdent ident;
     private final int numberOfShards;
@@ -86,6 +87,7 @@ public class DocIndexMetaData {
     private ImmutableList<ColumnIdent> primaryKey;
     private ColumnIdent routingCol;
     private ImmutableList<ColumnIdent> partitionedBy;
+    private ImmutableSet<ColumnIdent> docValuesColumns;
     private final boolean isAlias;
     private final Set<String> aliases;
     private boolean hasAutoGeneratedPrimaryKey = false;
@@ -299,11 +301,25 @@ public class DocIndexMetaData {
                             .ident(new ReferenceIdent(ident, newIdent));
                 } else {
                     add(newIdent, columnDataType, columnIndexType);
+                    if (hasDocValues(newIdent, columnDataType, columnProperties)) {
+                        docValuesColumnsBuilder.add(newIdent);
+                    }
                 }
             }
         }
     }
 
+    /**
+     * only top-level primitive columns are considered, children of object arrays
+     * might contain multiple values even if their type isn't an array.
+     */
+    private boolean hasDocValues(ColumnIdent column, DataType type, Map<String, Object> columnProperties) {
+        return column.isColumn()
+               && DataTypes.PRIMITIVE_TYPES.contains(type)
+               && !partitionedBy.contains(column)
+               && Booleans.isExplicitTrue(String.valueOf(columnProperties.get("doc_values")));
+    }
+
     /**
      * get the real column properties from a possible array mapping,
      * keeping most of this stuff inside "inner"
@@ -417,6 +433,7 @@ public class DocIndexMetaData {
         indices = createIndexDefinitions();
         columns = ImmutableList.copyOf(columnsBuilder.build());
         partitionedByColumns = partitionedByColumnsBuilder.build();
+        docValuesColumns = docValuesColumnsBuilder.build();
 
         for (Tuple<ColumnIdent, ReferenceInfo> sysColumn : DocSysColumns.forTable(ident)) {
             referencesBuilder.put(sysColumn.v1(), sysColumn.v2());
@@ -451,6 +468,13 @@ public class DocIndexMetaData {
         return routingCol;
     }
 
+    /**
+     * @return the columns whose values are stored as doc values and can be read without loading the source
+     */
+    public ImmutableSet<ColumnIdent> docValuesColumns() {
+        return docValuesColumns;
+    }
+
     /**
      * Returns true if the schema of this and <code>other</code> is the same,
      * this includes the table name, as this is reflected in the ReferenceIdents of
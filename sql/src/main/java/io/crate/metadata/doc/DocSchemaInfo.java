@@ -25,6 +25,7 @@ import com.carrotsearch.hppc.ObjectLookupContainer;
 import com.carrotsearch.hppc.cursors.ObjectCursor;
 import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 import com.google.common.base.Function;
+import com.google.common.base.MoreObjects;
 import com.google.common.base.Predicate;
 import com.google.common.base.Throwables;
 import com.google.common.cache.CacheBuilder;
@@ -37,6 +38,7 @@ import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.crate.blob.v2.BlobIndices;
 import io.crate.exceptions.TableUnknownException;
 import io.crate.exceptions.UnhandledServerException;
+import io.crate.metadata.PartitionIndex;
 import io.crate.metadata.PartitionName;
 import io.crate.metadata.ReferenceInfos;
 import io.crate.metadata.TableIdent;
@@ -57,6 +59,8 @@ import org.elasticsearch.threadpool.ThreadPool;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.regex.Matcher;
@@ -90,6 +94,13 @@ public class DocSchemaInfo implements SchemaInfo, ClusterStateListener {
                     }
             );
 
+    /**
+     * sorted partitions of the partitioned tables of this schema,
+     * maintained incrementally from the created and deleted indices of cluster state changes.
+     * The indices are keyed on the meta data version, which doesn't change on routing only changes.
+     */
+    private final ConcurrentMap<String, PartitionIndex> partitionIndices = new ConcurrentHashMap<>();
+
     private final Function<String, TableInfo> tableInfoFunction;
     private final String schemaName;
     private final ExecutorService executorService;
@@ -227,9 +238,122 @@ public class DocSchemaInfo implements SchemaInfo, ClusterStateListener {
         cache.invalidate(tableName);
     }
 
+    /**
+     * @return the partition index of the given table if it reflects the given meta data version, otherwise null
+     */
+    @Nullable
+    PartitionIndex partitionIndex(String tableName, long metaDataVersion) {
+        PartitionIndex partitionIndex = partitionIndices.get(tableName);
+        if (partitionIndex != null && partitionIndex.version() == metaDataVersion) {
+            return partitionIndex;
+        }
+        return null;
+    }
+
+    void cachePartitionIndex(String tableName, PartitionIndex partitionIndex) {
+        PartitionIndex existing = partitionIndices.putIfAbsent(tableName, partitionIndex);
+        if (existing != null && existing.version() < partitionIndex.version()) {
+            partitionIndices.replace(tableName, existing, partitionIndex);
+        }
+    }
+
+    @Nullable
+    private PartitionName partitionOfSchema(String index) {
+        if (!PartitionName.isPartition(index)) {
+            return null;
+        }
+        try {
+            PartitionName partitionName = PartitionName.fromStringSafe(index);
+            String partitionSchema = MoreObjects.firstNonNull(partitionName.schemaName(), ReferenceInfos.DEFAULT_SCHEMA_NAME);
+            return partitionSchema.equals(name()) ? partitionName : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * applies the created and deleted partitions of the cluster state change to the partition indices
+     * and returns the names of all tables of this schema with created, deleted or changed partitions.
+     *
+     * A partition index which missed a meta data change is dropped and will be rebuilt on demand.
+     */
+    private Set<String> updatePartitionIndices(ClusterChangedEvent event) {
+        Set<String> changedTables = new HashSet<>();
+        Map<String, List<PartitionName>> added = new HashMap<>();
+        Map<String, List<String>> removed = new HashMap<>();
+        for (String index : event.indicesCreated()) {
+            PartitionName partitionName = partitionOfSchema(index);
+            if (partitionName != null) {
+                changedTables.add(partitionName.tableName());
+                List<PartitionName> partitions = added.get(partitionName.tableName());
+                if (partitions == null) {
+                    partitions = new ArrayList<>();
+                    added.put(partitionName.tableName(), partitions);
+                }
+                partitions.add(partitionName);
+            }
+        }
+        for (String index : event.indicesDeleted()) {
+            PartitionName partitionName = partitionOfSchema(index);
+            if (partitionName != null) {
+                changedTables.add(partitionName.tableName());
+                List<String> partitions = removed.get(partitionName.tableName());
+                if (partitions == null) {
+                    partitions = new ArrayList<>();
+                    removed.put(partitionName.tableName(), partitions);
+                }
+                partitions.add(index);
+            }
+        }
+        for (ObjectObjectCursor<String, IndexMetaData> cursor : event.state().metaData().indices()) {
+            if (event.indexMetaDataChanged(cursor.value) && PartitionName.isPartition(cursor.key)) {
+                PartitionName partitionName = partitionOfSchema(cursor.key);
+                if (partitionName == null) {
+                    continue;
+                }
+                changedTables.add(partitionName.tableName());
+                IndexMetaData previous = event.previousState().metaData().index(cursor.key);
+                if (previous != null && previous.state() != cursor.value.state()) {
+                    // opened or closed partitions are not tracked incrementally
+                    partitionIndices.remove(partitionName.tableName());
+                }
+            }
+        }
+
+        long previousVersion = event.previousState().metaData().version();
+        long version = event.state().metaData().version();
+        for (Map.Entry<String, PartitionIndex> entry : partitionIndices.entrySet()) {
+            String tableName = entry.getKey();
+            PartitionIndex partitionIndex = entry.getValue();
+            if (partitionIndex.version() == version) {
+                // already built from the new meta data
+                continue;
+            }
+            if (partitionIndex.version() != previousVersion) {
+                partitionIndices.remove(tableName, partitionIndex);
+                continue;
+            }
+            List<PartitionName> addedPartitions = MoreObjects.firstNonNull(
+                    added.get(tableName), Collections.<PartitionName>emptyList());
+            List<String> removedPartitions = MoreObjects.firstNonNull(
+                    removed.get(tableName), Collections.<String>emptyList());
+            PartitionIndex newPartitionIndex = partitionIndex.withChanges(addedPartitions, removedPartitions, version);
+            if (newPartitionIndex.isEmpty()) {
+                partitionIndices.remove(tableName, partitionIndex);
+            } else {
+                partitionIndices.replace(tableName, partitionIndex, newPartitionIndex);
+            }
+        }
+        return changedTables;
+    }
+
     @Override
     public void clusterChanged(ClusterChangedEvent event) {
-        if (event.metaDataChanged() && cache.size() > 0) {
+        if (!event.metaDataChanged()) {
+            return;
+        }
+        Set<String> tablesWithChangedPartitions = updatePartitionIndices(event);
+        if (cache.size() > 0) {
             cache.invalidateAll(event.indicesDeleted());
 
             // search for aliases of deleted and created indices, they must be invalidated also
@@ -263,7 +387,6 @@ public class DocSchemaInfo implements SchemaInfo, ClusterStateListener {
             Iterator<String> it = cache.asMap().keySet().iterator();
             MetaData metaData = event.state().getMetaData();
             ObjectLookupContainer<String> templates = metaData.templates().keys();
-            ImmutableOpenMap<String, IndexMetaData> indices = metaData.indices();
             while (it.hasNext()) {
                 String tableName = it.next();
 
@@ -280,13 +403,8 @@ public class DocSchemaInfo implements SchemaInfo, ClusterStateListener {
                 } else {
                     // this is the case if a single partition has been modified using alter table <t> partition (...)
                     String possibleTemplateName = PartitionName.templateName(name(), tableName);
-                    if (templates.contains(possibleTemplateName)) {
-                        for (ObjectObjectCursor<String, IndexMetaData> indexEntry : indices) {
-                            if (PartitionName.isPartition(indexEntry.key)) {
-                                cache.invalidate(tableName);
-                                break;
-                            }
-                        }
+                    if (templates.contains(possibleTemplateName) && tablesWithChangedPartitions.contains(tableName)) {
+                        cache.invalidate(tableName);
                     }
                 }
             }
@@ -73,13 +73,14 @@ public class DocTableInfo extends AbstractDynamicTableInfo {
     private static final ESLogger logger = Loggers.getLogger(DocTableInfo.class);
 
     private final String[] indices;
-    private final List<PartitionName> partitions;
+    private final PartitionIndex partitionIndex;
 
     private final boolean isAlias;
     private final boolean hasAutoGeneratedPrimaryKey;
     private final boolean isPartitioned;
 
     private final ColumnPolicy columnPolicy;
+    private final Set<ColumnIdent> docValuesColumns;
 
     public DocTableInfo(DocSchemaInfo schemaInfo,
                         TableIdent ident,
@@ -97,8 +98,9 @@ public class DocTableInfo extends AbstractDynamicTableInfo {
                         BytesRef numberOfReplicas,
                         ImmutableMap<String, Object> tableParameters,
                         List<ColumnIdent> partitionedBy,
-                        List<PartitionName> partitions,
+                        PartitionIndex partitionIndex,
                         ColumnPolicy columnPolicy,
+                        Set<ColumnIdent> docValuesColumns,
                         ExecutorService executorService) {
         super(schemaInfo);
         this.clusterService = clusterService;
@@ -119,8 +121,9 @@ public class DocTableInfo extends AbstractDynamicTableInfo {
         this.hasAutoGeneratedPrimaryKey = hasAutoGeneratedPrimaryKey;
         isPartitioned = !partitionedByColumns.isEmpty();
         this.partitionedBy = partitionedBy;
-        this.partitions = partitions;
+        this.partitionIndex = partitionIndex;
         this.columnPolicy = columnPolicy;
+        this.docValuesColumns = docValuesColumns;
         if (isPartitioned) {
             tableParameterInfo = new AlterPartitionedTableParameterInfo();
         } else {
@@ -333,7 +336,12 @@ public class DocTableInfo extends AbstractDynamicTableInfo {
 
     @Override
     public List<PartitionName> partitions() {
-        return partitions;
+        return partitionIndex.partitions();
+    }
+
+    @Override
+    public PartitionIndex partitionIndex() {
+        return partitionIndex;
     }
 
     @Override
@@ -356,6 +364,14 @@ public class DocTableInfo extends AbstractDynamicTableInfo {
         return columnPolicy;
     }
 
+    /**
+     * @return true if the values of the column are stored as doc values
+     *         and can be read without loading the source
+     */
+    public boolean hasDocValues(ColumnIdent column) {
+        return docValuesColumns.contains(column);
+    }
+
     @Override
     public TableParameterInfo tableParameterInfo () {
         return tableParameterInfo;
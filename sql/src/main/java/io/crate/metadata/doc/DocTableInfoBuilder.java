@@ -24,6 +24,7 @@ package io.crate.metadata.doc;
 import io.crate.Constants;
 import io.crate.exceptions.TableUnknownException;
 import io.crate.exceptions.UnhandledServerException;
+import io.crate.metadata.PartitionIndex;
 import io.crate.metadata.PartitionName;
 import io.crate.metadata.TableIdent;
 import org.elasticsearch.action.admin.indices.template.put.TransportPutIndexTemplateAction;
@@ -55,6 +56,7 @@ public class DocTableInfoBuilder {
     private final ClusterService clusterService;
     private final TransportPutIndexTemplateAction transportPutIndexTemplateAction;
     private final MetaData metaData;
+    private final long metaDataVersion;
     private String[] concreteIndices;
     private static final ESLogger logger = Loggers.getLogger(DocTableInfoBuilder.class);
 
@@ -70,6 +72,7 @@ public class DocTableInfoBuilder {
         this.ident = ident;
         this.executorService = executorService;
         this.metaData = clusterService.state().metaData();
+        this.metaDataVersion = metaData.version();
         this.checkAliasSchema = checkAliasSchema;
     }
 
@@ -138,21 +141,31 @@ public class DocTableInfoBuilder {
         return docIndexMetaData.build();
     }
 
+    private List<PartitionName> buildPartitions() {
+        List<PartitionName> partitions = new ArrayList<>();
+        for(String index : concreteIndices) {
+            if (PartitionName.isPartition(index, ident.schema(), ident.name())) {
+                try {
+                    PartitionName partitionName = PartitionName.fromString(index, ident.schema(), ident.name());
+                    partitions.add(partitionName);
+                } catch (IllegalArgumentException e) {
+                    // ignore
+                    logger.warn(String.format(Locale.ENGLISH, "Cannot build partition %s of index %s", index, ident.esName()));
+                }
+            }
+        }
+        return partitions;
+    }
+
     public DocTableInfo build() {
         DocIndexMetaData md = docIndexMetaData();
 
-        List<PartitionName> partitions = new ArrayList<>();
+        PartitionIndex partitionIndex = PartitionIndex.EMPTY;
         if (md.partitionedBy().size() > 0) {
-            for(String index : concreteIndices) {
-                if (PartitionName.isPartition(index, ident.schema(), ident.name())) {
-                    try {
-                        PartitionName partitionName = PartitionName.fromString(index, ident.schema(), ident.name());
-                        partitions.add(partitionName);
-                    } catch (IllegalArgumentException e) {
-                        // ignore
-                        logger.warn(String.format(Locale.ENGLISH, "Cannot build partition %s of index %s", index, ident.esName()));
-                    }
-                }
+            partitionIndex = docSchemaInfo.partitionIndex(ident.name(), metaDataVersion);
+            if (partitionIndex == null) {
+                partitionIndex = PartitionIndex.of(md.partitionedByColumns(), buildPartitions(), metaDataVersion);
+                docSchemaInfo.cachePartitionIndex(ident.name(), partitionIndex);
             }
         }
 
@@ -168,8 +181,9 @@ public class DocTableInfoBuilder {
                 md.numberOfShards(), md.numberOfReplicas(),
                 md.tableParameters(),
                 md.partitionedBy(),
-                partitions,
+                partitionIndex,
                 md.columnPolicy(),
+                md.docValuesColumns(),
                 executorService);
     }
 
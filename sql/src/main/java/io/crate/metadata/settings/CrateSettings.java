@@ -47,7 +47,8 @@ public class CrateSettings {
 
         @Override
         public List<Setting> children() {
-            return ImmutableList.<Setting>of(STATS_ENABLED, STATS_JOBS_LOG_SIZE, STATS_OPERATIONS_LOG_SIZE);
+            return ImmutableList.<Setting>of(STATS_ENABLED, STATS_JOBS_LOG_SIZE, STATS_OPERATIONS_LOG_SIZE,
+                    STATS_SYS_CACHE_TTL, STATS_LATENCY_WINDOW);
         }
     };
 
@@ -112,6 +113,40 @@ public class CrateSettings {
         }
     };
 
+    public static final TimeSetting STATS_SYS_CACHE_TTL = new TimeSetting() {
+        @Override
+        public String name() {
+            return "sys_cache_ttl";
+        }
+
+        @Override
+        public TimeValue defaultValue() {
+            return new TimeValue(1, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public Setting parent() {
+            return STATS;
+        }
+    };
+
+    public static final TimeSetting STATS_LATENCY_WINDOW = new TimeSetting() {
+        @Override
+        public String name() {
+            return "latency_window";
+        }
+
+        @Override
+        public TimeValue defaultValue() {
+            return new TimeValue(1, TimeUnit.MINUTES);
+        }
+
+        @Override
+        public Setting parent() {
+            return STATS;
+        }
+    };
+
     public static final NestedSetting CLUSTER = new NestedSetting() {
         @Override
         public String name() {
@@ -1026,7 +1061,8 @@ public class CrateSettings {
         public List<Setting> children() {
             return ImmutableList.<Setting>of(
                     INDICES_BREAKER_QUERY_LIMIT,
-                    INDICES_BREAKER_QUERY_OVERHEAD
+                    INDICES_BREAKER_QUERY_OVERHEAD,
+                    INDICES_BREAKER_QUERY_JOB_LIMIT
             );
         }
 
@@ -1062,6 +1098,19 @@ public class CrateSettings {
         }
     };
 
+    public static final StringSetting INDICES_BREAKER_QUERY_JOB_LIMIT = new StringSetting() {
+        @Override
+        public String name() { return "job_limit"; }
+
+        @Override
+        public String defaultValue() { return CrateCircuitBreakerService.DEFAULT_QUERY_CIRCUIT_BREAKER_JOB_LIMIT; }
+
+        @Override
+        public Setting parent() {
+            return INDICES_BREAKER_QUERY;
+        }
+    };
+
     public static final NestedSetting INDICES_BREAKER_REQUEST = new NestedSetting() {
         @Override
         public String name() { return "request"; }
@@ -1214,6 +1263,10 @@ public class CrateSettings {
                     new SettingsAppliers.IntSettingsApplier(CrateSettings.STATS_OPERATIONS_LOG_SIZE))
             .put(CrateSettings.STATS_ENABLED.settingName(),
                     new SettingsAppliers.BooleanSettingsApplier(CrateSettings.STATS_ENABLED))
+            .put(CrateSettings.STATS_SYS_CACHE_TTL.settingName(),
+                    new SettingsAppliers.TimeSettingsApplier(CrateSettings.STATS_SYS_CACHE_TTL))
+            .put(CrateSettings.STATS_LATENCY_WINDOW.settingName(),
+                    new SettingsAppliers.TimeSettingsApplier(CrateSettings.STATS_LATENCY_WINDOW))
             .put(CrateSettings.CLUSTER.settingName(),
                     new SettingsAppliers.ObjectSettingsApplier(CrateSettings.CLUSTER))
             .put(CrateSettings.GRACEFUL_STOP.settingName(),
@@ -1346,6 +1399,8 @@ public class CrateSettings {
                     new SettingsAppliers.MemoryValueSettingsApplier(CrateSettings.INDICES_BREAKER_QUERY_LIMIT))
             .put(CrateSettings.INDICES_BREAKER_QUERY_OVERHEAD.settingName(),
                     new SettingsAppliers.DoubleSettingsApplier(CrateSettings.INDICES_BREAKER_QUERY_OVERHEAD))
+            .put(CrateSettings.INDICES_BREAKER_QUERY_JOB_LIMIT.settingName(),
+                    new SettingsAppliers.MemoryValueSettingsApplier(CrateSettings.INDICES_BREAKER_QUERY_JOB_LIMIT))
             .put(CrateSettings.CLUSTER_INFO.settingName(),
                     new SettingsAppliers.ObjectSettingsApplier(CrateSettings.CLUSTER_INFO))
             .put(CrateSettings.CLUSTER_INFO_UPDATE.settingName(),
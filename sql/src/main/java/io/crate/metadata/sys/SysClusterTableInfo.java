@@ -63,6 +63,10 @@ public class SysClusterTableInfo extends SysTableInfo {
                 CrateSettings.STATS_OPERATIONS_LOG_SIZE.name()));
         register(ClusterSettingsExpression.NAME, DataTypes.BOOLEAN, ImmutableList.of(CrateSettings.STATS.name(),
                 CrateSettings.STATS_ENABLED.name()));
+        register(ClusterSettingsExpression.NAME, DataTypes.STRING, ImmutableList.of(CrateSettings.STATS.name(),
+                CrateSettings.STATS_SYS_CACHE_TTL.name()));
+        register(ClusterSettingsExpression.NAME, DataTypes.STRING, ImmutableList.of(CrateSettings.STATS.name(),
+                CrateSettings.STATS_LATENCY_WINDOW.name()));
 
         register(ClusterSettingsExpression.NAME, DataTypes.OBJECT, ImmutableList.of(CrateSettings.DISCOVERY.name()));
         register(ClusterSettingsExpression.NAME, DataTypes.OBJECT, ImmutableList.of(CrateSettings.DISCOVERY.name(),
@@ -322,6 +326,10 @@ public class SysClusterTableInfo extends SysTableInfo {
                 CrateSettings.INDICES_BREAKER.name(),
                 CrateSettings.INDICES_BREAKER_QUERY.name(),
                 CrateSettings.INDICES_BREAKER_QUERY_OVERHEAD.name()));
+        register(ClusterSettingsExpression.NAME, DataTypes.STRING, ImmutableList.of(CrateSettings.INDICES.name(),
+                CrateSettings.INDICES_BREAKER.name(),
+                CrateSettings.INDICES_BREAKER_QUERY.name(),
+                CrateSettings.INDICES_BREAKER_QUERY_JOB_LIMIT.name()));
         register(ClusterSettingsExpression.NAME, DataTypes.OBJECT, ImmutableList.of(CrateSettings.INDICES.name(),
                 CrateSettings.INDICES_BREAKER.name(),
                 CrateSettings.INDICES_BREAKER_REQUEST.name()));
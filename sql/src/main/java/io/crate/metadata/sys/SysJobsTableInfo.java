@@ -47,6 +47,7 @@ public class SysJobsTableInfo extends SysTableInfo {
         register("id", DataTypes.STRING, null);
         register("stmt", DataTypes.STRING, null);
         register("started", DataTypes.TIMESTAMP, null);
+        register("used_bytes", DataTypes.LONG, null);
     }
 
     @Inject
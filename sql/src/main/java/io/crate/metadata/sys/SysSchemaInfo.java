@@ -50,6 +50,7 @@ public class SysSchemaInfo implements SchemaInfo {
             .put(SysJobsLogTableInfo.IDENT.name(), new SysJobsLogTableInfo(clusterService, this))
             .put(SysOperationsTableInfo.IDENT.name(), new SysOperationsTableInfo(clusterService, this, sysNodesTableInfo))
             .put(SysOperationsLogTableInfo.IDENT.name(), new SysOperationsLogTableInfo(clusterService, this))
+            .put(SysQueryLatenciesTableInfo.IDENT.name(), new SysQueryLatenciesTableInfo(clusterService, this))
         .build();
     }
 
@@ -90,6 +90,14 @@ public abstract class AbstractTableInfo implements TableInfo {
         return new ArrayList<>(0);
     }
 
+    @Override
+    public PartitionIndex partitionIndex() {
+        if (!isPartitioned()) {
+            return PartitionIndex.EMPTY;
+        }
+        return PartitionIndex.of(partitionedByColumns(), partitions(), -1L);
+    }
+
     @Override
     public List<ColumnIdent> partitionedBy() {
         return ImmutableList.of();
@@ -92,6 +92,12 @@ public interface TableInfo extends Iterable<ReferenceInfo> {
 
     public List<PartitionName> partitions();
 
+    /**
+     * the partitions of this table sorted by the value of the first partitioned by column,
+     * used to look up the partitions within a value range without iterating all of them.
+     */
+    public PartitionIndex partitionIndex();
+
     /**
      * column idents of columns this table is partitioned by.
      *
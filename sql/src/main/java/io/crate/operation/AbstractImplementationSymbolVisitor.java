@@ -98,6 +98,10 @@ public abstract class AbstractImplementationSymbolVisitor<C extends AbstractImpl
             for (Symbol argument : function.arguments()) {
                 argumentInputs[i++] = process(argument, context);
             }
+            Input<?> compiled = ExpressionCompiler.compile(function, argumentInputs);
+            if (compiled != null) {
+                return compiled;
+            }
             return new FunctionExpression<>(scalarImpl, argumentInputs);
         } else {
             throw new IllegalArgumentException(
@@ -0,0 +1,231 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.planner.node.dql.CollectNode;
+import io.crate.planner.projection.Projection;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.XRejectedExecutionHandler;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedicated executors for the shard level operations of crate (collect, count and fetch).
+ *
+ * Statements are separated into {@link Pool classes}, each of them runs on its own executor,
+ * so a heavy <code>GROUP BY</code> or <code>COPY TO</code> can't starve interactive lookups.
+ *
+ * Before a statement is started on a node it has to pass {@link #admit(Pool, RamAccountingContext)},
+ * which rejects it if the queue of its pool is nearly full or, for analytical and ingest statements,
+ * if there is not enough headroom left in the query circuit breaker.
+ */
+@Singleton
+public class CrateThreadPools extends AbstractLifecycleComponent<CrateThreadPools> {
+
+    public static final String SETTING_PREFIX = "crate.thread_pool.";
+    public static final String ADMISSION_MAX_QUEUE_RATIO = SETTING_PREFIX + "admission.max_queue_ratio";
+    public static final String ADMISSION_MAX_BREAKER_RATIO = SETTING_PREFIX + "admission.max_breaker_ratio";
+
+    public static final double DEFAULT_MAX_QUEUE_RATIO = 0.8;
+    public static final double DEFAULT_MAX_BREAKER_RATIO = 0.9;
+
+    public enum Pool {
+        INTERACTIVE("crate_interactive"),
+        ANALYTICAL("crate_analytical"),
+        INGEST("crate_ingest");
+
+        private final String poolName;
+
+        Pool(String poolName) {
+            this.poolName = poolName;
+        }
+
+        public String poolName() {
+            return poolName;
+        }
+
+        /**
+         * chooses the pool of a collect operation from the projections of its plan node:
+         * writing projections (INSERT FROM SUBQUERY, COPY FROM, UPDATE) are ingest,
+         * aggregations and COPY TO are analytical and everything else is interactive.
+         */
+        public static Pool of(CollectNode collectNode) {
+            Pool pool = INTERACTIVE;
+            for (Projection projection : collectNode.projections()) {
+                switch (projection.projectionType()) {
+                    case INDEX_WRITER:
+                    case COLUMN_INDEX_WRITER:
+                    case UPDATE:
+                        return INGEST;
+                    case GROUP:
+                    case AGGREGATION:
+                    case WRITER:
+                        pool = ANALYTICAL;
+                        break;
+                }
+            }
+            return pool;
+        }
+    }
+
+    private final Map<Pool, ThreadPoolExecutor> executors = new EnumMap<>(Pool.class);
+    private final Map<Pool, Integer> queueSizes = new EnumMap<>(Pool.class);
+    private final Map<Pool, CountingAbortPolicy> rejectionPolicies = new EnumMap<>(Pool.class);
+    private final double maxQueueRatio;
+    private final double maxBreakerRatio;
+
+    @Inject
+    public CrateThreadPools(Settings settings) {
+        super(settings);
+        int processors = EsExecutors.boundedNumberOfProcessors(settings);
+        maxQueueRatio = settings.getAsDouble(ADMISSION_MAX_QUEUE_RATIO, DEFAULT_MAX_QUEUE_RATIO);
+        maxBreakerRatio = settings.getAsDouble(ADMISSION_MAX_BREAKER_RATIO, DEFAULT_MAX_BREAKER_RATIO);
+
+        addPool(Pool.INTERACTIVE, ((processors * 3) / 2) + 1, 1000);
+        addPool(Pool.ANALYTICAL, processors, 500);
+        addPool(Pool.INGEST, Math.max(1, processors / 2), 500);
+    }
+
+    private void addPool(Pool pool, int defaultSize, int defaultQueueSize) {
+        String prefix = SETTING_PREFIX + pool.name().toLowerCase(Locale.ENGLISH);
+        int size = settings.getAsInt(prefix + ".size", defaultSize);
+        int queueSize = settings.getAsInt(prefix + ".queue_size", defaultQueueSize);
+        CountingAbortPolicy rejectionPolicy = new CountingAbortPolicy(pool.poolName());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                size, size, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(queueSize),
+                EsExecutors.daemonThreadFactory(settings, pool.poolName()),
+                rejectionPolicy);
+        executors.put(pool, executor);
+        queueSizes.put(pool, queueSize);
+        rejectionPolicies.put(pool, rejectionPolicy);
+    }
+
+    public ThreadPoolExecutor executor(Pool pool) {
+        return executors.get(pool);
+    }
+
+    /**
+     * checks if a new statement of the given class can be started on this node.
+     *
+     * @param ramAccountingContext the context of the statement, used to check the headroom of the query breaker
+     * @throws RejectedExecutionException if the statement is rejected
+     */
+    public void admit(Pool pool, RamAccountingContext ramAccountingContext) throws RejectedExecutionException {
+        admit(pool);
+        if (pool != Pool.INTERACTIVE) {
+            long limit = ramAccountingContext.limit();
+            long used = ramAccountingContext.breakerUsed();
+            if (limit > 0 && used >= limit * maxBreakerRatio) {
+                throw rejectionPolicies.get(pool).reject(String.format(Locale.ENGLISH,
+                        "query circuit breaker has not enough headroom for [%s] statements (%d/%d bytes used)",
+                        pool.poolName(), used, limit));
+            }
+        }
+    }
+
+    /**
+     * like {@link #admit(Pool, RamAccountingContext)} but only checks the queue of the pool
+     */
+    public void admit(Pool pool) throws RejectedExecutionException {
+        int queued = executors.get(pool).getQueue().size();
+        int queueSize = queueSizes.get(pool);
+        if (queued >= queueSize * maxQueueRatio) {
+            throw rejectionPolicies.get(pool).reject(String.format(Locale.ENGLISH,
+                    "queue of thread pool [%s] is full (%d/%d)", pool.poolName(), queued, queueSize));
+        }
+    }
+
+    /**
+     * @return the name and executor of every pool, used for the stats in sys.nodes
+     */
+    public Map<String, ThreadPoolExecutor> executorsByName() {
+        Map<String, ThreadPoolExecutor> executorsByName = new LinkedHashMap<>(executors.size());
+        for (Map.Entry<Pool, ThreadPoolExecutor> entry : executors.entrySet()) {
+            executorsByName.put(entry.getKey().poolName(), entry.getValue());
+        }
+        return executorsByName;
+    }
+
+    @Override
+    protected void doStart() throws ElasticsearchException {
+    }
+
+    @Override
+    protected void doStop() throws ElasticsearchException {
+        for (ThreadPoolExecutor executor : executors.values()) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    protected void doClose() throws ElasticsearchException {
+        for (ThreadPoolExecutor executor : executors.values()) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * rejects tasks if the queue is full and counts the rejections, including the ones of the admission control
+     */
+    static class CountingAbortPolicy implements XRejectedExecutionHandler {
+
+        private final String poolName;
+        private final CounterMetric rejected = new CounterMetric();
+
+        CountingAbortPolicy(String poolName) {
+            this.poolName = poolName;
+        }
+
+        RejectedExecutionException reject(String reason) {
+            rejected.inc();
+            return new RejectedExecutionException(String.format(Locale.ENGLISH, "rejected statement: %s", reason));
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            rejected.inc();
+            throw new RejectedExecutionException(String.format(Locale.ENGLISH,
+                    "rejected execution on thread pool [%s], queue is full", poolName));
+        }
+
+        @Override
+        public long rejected() {
+            return rejected.count();
+        }
+    }
+}
@@ -0,0 +1,606 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation;
+
+import com.google.common.collect.ImmutableSet;
+import io.crate.operation.aggregation.FunctionExpression;
+import io.crate.operation.operator.*;
+import io.crate.operation.scalar.arithmetic.*;
+import io.crate.operation.scalar.cast.ToDoubleFunction;
+import io.crate.operation.scalar.cast.ToLongFunction;
+import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.Literal;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiles numeric scalar functions into fused evaluators.
+ *
+ * A {@link FunctionExpression} passes the boxed values of its arguments to the scalar implementation,
+ * so every intermediate result of an expression like <code>(a + 1) * 2 &gt; b</code> is boxed and
+ * unboxed again (and the arithmetic functions evaluate their arguments twice).
+ * The evaluators created here pass primitive values between each other: referenced values are unboxed
+ * once and only the result of the root is boxed. Sub trees consisting only of constants are folded.
+ *
+ * Supported are the arithmetic functions, the casts toLong and toDouble and the comparison operators
+ * on numeric arguments. The evaluators implement the same semantics as the scalar implementations
+ * including the handling of nulls; for every other function a {@link FunctionExpression} is used.
+ */
+public class ExpressionCompiler {
+
+    private static final Set<DataType> NUMERIC_TYPES = ImmutableSet.<DataType>builder()
+            .addAll(DataTypes.NUMERIC_PRIMITIVE_TYPES)
+            .add(DataTypes.TIMESTAMP)
+            .build();
+    private static final Set<DataType> DECIMAL_TYPES = ImmutableSet.<DataType>of(DataTypes.DOUBLE, DataTypes.FLOAT);
+
+    private ExpressionCompiler() {}
+
+    /**
+     * @param arguments the inputs of the function arguments, possibly compiled themselves
+     * @return the compiled function or null if the function can't be compiled
+     */
+    @Nullable
+    public static Input<?> compile(Function function, Input<?>[] arguments) {
+        for (Input<?> argument : arguments) {
+            if (argument instanceof Literal && argument.value() == null) {
+                return null;
+            }
+        }
+        String name = function.info().ident().name();
+        DataType returnType = function.info().returnType();
+        List<DataType> argumentTypes = function.info().ident().argumentTypes();
+        switch (name) {
+            case AddFunction.NAME:
+            case SubtractFunction.NAME:
+            case MultiplyFunction.NAME:
+            case DivideFunction.NAME:
+            case ModulusFunction.NAME:
+                if (arguments.length != 2) {
+                    return null;
+                }
+                if (returnType.equals(DataTypes.LONG)) {
+                    return fold(longArithmetic(name, asLong(arguments[0]), asLong(arguments[1])));
+                }
+                if (returnType.equals(DataTypes.DOUBLE)) {
+                    return fold(doubleArithmetic(name, asDouble(arguments[0]), asDouble(arguments[1])));
+                }
+                return null;
+            case ToLongFunction.NAME:
+                if (arguments.length != 1) {
+                    return null;
+                }
+                // casting a referenced value doesn't gain anything, the cast would have to box again
+                if (!isNumericEvaluator(arguments[0], argumentTypes.get(0))) {
+                    return null;
+                }
+                return fold(asLong(arguments[0]));
+            case ToDoubleFunction.NAME:
+                if (arguments.length != 1 || !isNumericEvaluator(arguments[0], argumentTypes.get(0))) {
+                    return null;
+                }
+                return fold(asDouble(arguments[0]));
+            case EqOperator.NAME:
+            case GtOperator.NAME:
+            case GteOperator.NAME:
+            case LtOperator.NAME:
+            case LteOperator.NAME:
+                if (arguments.length != 2
+                    || !argumentTypes.get(0).equals(argumentTypes.get(1))
+                    || !NUMERIC_TYPES.contains(argumentTypes.get(0))
+                    || !(isEvaluator(arguments[0]) || isEvaluator(arguments[1]))) {
+                    // comparing referenced values directly doesn't box anything
+                    return null;
+                }
+                if (DECIMAL_TYPES.contains(argumentTypes.get(0))) {
+                    return fold(new CompareDoubles(name, asDouble(arguments[0]), asDouble(arguments[1])));
+                }
+                return fold(new CompareLongs(name, asLong(arguments[0]), asLong(arguments[1])));
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isEvaluator(Input<?> input) {
+        return input instanceof LongEvaluator || input instanceof DoubleEvaluator;
+    }
+
+    private static boolean isNumericEvaluator(Input<?> input, DataType type) {
+        return isEvaluator(input) && NUMERIC_TYPES.contains(type);
+    }
+
+    private static LongEvaluator asLong(Input<?> input) {
+        if (input instanceof LongEvaluator) {
+            return (LongEvaluator) input;
+        }
+        if (input instanceof DoubleEvaluator) {
+            return new DoubleToLong((DoubleEvaluator) input);
+        }
+        if (input instanceof Literal) {
+            return new LongConstant(((Number) input.value()).longValue());
+        }
+        return new LongInput(input);
+    }
+
+    private static DoubleEvaluator asDouble(Input<?> input) {
+        if (input instanceof DoubleEvaluator) {
+            return (DoubleEvaluator) input;
+        }
+        if (input instanceof LongEvaluator) {
+            return new LongToDouble((LongEvaluator) input);
+        }
+        if (input instanceof Literal) {
+            return new DoubleConstant(((Number) input.value()).doubleValue());
+        }
+        return new DoubleInput(input);
+    }
+
+    private static LongEvaluator longArithmetic(String name, LongEvaluator left, LongEvaluator right) {
+        switch (name) {
+            case AddFunction.NAME:
+                return new LongBinary(left, right) {
+                    @Override
+                    long apply(long left, long right) {
+                        return left + right;
+                    }
+                };
+            case SubtractFunction.NAME:
+                return new LongBinary(left, right) {
+                    @Override
+                    long apply(long left, long right) {
+                        return left - right;
+                    }
+                };
+            case MultiplyFunction.NAME:
+                return new LongBinary(left, right) {
+                    @Override
+                    long apply(long left, long right) {
+                        return left * right;
+                    }
+                };
+            case DivideFunction.NAME:
+                return new LongBinary(left, right) {
+                    @Override
+                    long apply(long left, long right) {
+                        return left / right;
+                    }
+                };
+            case ModulusFunction.NAME:
+                return new LongBinary(left, right) {
+                    @Override
+                    long apply(long left, long right) {
+                        return left % right;
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("unknown arithmetic function " + name);
+        }
+    }
+
+    private static DoubleEvaluator doubleArithmetic(String name, DoubleEvaluator left, DoubleEvaluator right) {
+        switch (name) {
+            case AddFunction.NAME:
+                return new DoubleBinary(left, right) {
+                    @Override
+                    double apply(double left, double right) {
+                        return left + right;
+                    }
+                };
+            case SubtractFunction.NAME:
+                return new DoubleBinary(left, right) {
+                    @Override
+                    double apply(double left, double right) {
+                        return left - right;
+                    }
+                };
+            case MultiplyFunction.NAME:
+                return new DoubleBinary(left, right) {
+                    @Override
+                    double apply(double left, double right) {
+                        return left * right;
+                    }
+                };
+            case DivideFunction.NAME:
+                return new DoubleBinary(left, right) {
+                    @Override
+                    double apply(double left, double right) {
+                        return left / right;
+                    }
+                };
+            case ModulusFunction.NAME:
+                return new DoubleBinary(left, right) {
+                    @Override
+                    double apply(double left, double right) {
+                        return left % right;
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("unknown arithmetic function " + name);
+        }
+    }
+
+    private static Input<?> fold(LongEvaluator evaluator) {
+        if (evaluator.isConstant()) {
+            try {
+                return new LongConstant(evaluator.evaluate());
+            } catch (ArithmeticException e) {
+                // division by zero, fail when the expression is evaluated like the scalar does
+            }
+        }
+        return evaluator;
+    }
+
+    private static Input<?> fold(DoubleEvaluator evaluator) {
+        if (evaluator.isConstant()) {
+            return new DoubleConstant(evaluator.evaluate());
+        }
+        return evaluator;
+    }
+
+    private static Input<?> fold(BooleanEvaluator evaluator) {
+        if (evaluator.isConstant()) {
+            try {
+                return Literal.newLiteral(evaluator.evaluate());
+            } catch (ArithmeticException e) {
+                // division by zero, fail when the expression is evaluated like the scalar does
+            }
+        }
+        return evaluator;
+    }
+
+    /**
+     * an evaluator returning a primitive long, {@link #isNull} is set by every evaluation
+     */
+    abstract static class LongEvaluator implements Input<Long> {
+
+        boolean isNull = false;
+
+        abstract long evaluate();
+
+        boolean isConstant() {
+            return false;
+        }
+
+        @Override
+        public Long value() {
+            long value = evaluate();
+            return isNull ? null : value;
+        }
+    }
+
+    abstract static class DoubleEvaluator implements Input<Double> {
+
+        boolean isNull = false;
+
+        abstract double evaluate();
+
+        boolean isConstant() {
+            return false;
+        }
+
+        @Override
+        public Double value() {
+            double value = evaluate();
+            return isNull ? null : value;
+        }
+    }
+
+    abstract static class BooleanEvaluator implements Input<Boolean> {
+
+        boolean isNull = false;
+
+        abstract boolean evaluate();
+
+        abstract boolean isConstant();
+
+        @Override
+        public Boolean value() {
+            boolean value = evaluate();
+            return isNull ? null : value;
+        }
+    }
+
+    static class LongConstant extends LongEvaluator {
+
+        private final long value;
+
+        LongConstant(long value) {
+            this.value = value;
+        }
+
+        @Override
+        long evaluate() {
+            return value;
+        }
+
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+    }
+
+    static class DoubleConstant extends DoubleEvaluator {
+
+        private final double value;
+
+        DoubleConstant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        double evaluate() {
+            return value;
+        }
+
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+    }
+
+    /**
+     * unboxes the value of an input which hasn't been compiled, e.g. a reference
+     */
+    static class LongInput extends LongEvaluator {
+
+        private final Input<?> input;
+
+        LongInput(Input<?> input) {
+            this.input = input;
+        }
+
+        @Override
+        long evaluate() {
+            Object value = input.value();
+            if (value == null) {
+                isNull = true;
+                return 0L;
+            }
+            isNull = false;
+            return ((Number) value).longValue();
+        }
+    }
+
+    static class DoubleInput extends DoubleEvaluator {
+
+        private final Input<?> input;
+
+        DoubleInput(Input<?> input) {
+            this.input = input;
+        }
+
+        @Override
+        double evaluate() {
+            Object value = input.value();
+            if (value == null) {
+                isNull = true;
+                return 0.0d;
+            }
+            isNull = false;
+            return ((Number) value).doubleValue();
+        }
+    }
+
+    static class LongToDouble extends DoubleEvaluator {
+
+        private final LongEvaluator input;
+
+        LongToDouble(LongEvaluator input) {
+            this.input = input;
+        }
+
+        @Override
+        double evaluate() {
+            long value = input.evaluate();
+            isNull = input.isNull;
+            return (double) value;
+        }
+
+        @Override
+        boolean isConstant() {
+            return input.isConstant();
+        }
+    }
+
+    static class DoubleToLong extends LongEvaluator {
+
+        private final DoubleEvaluator input;
+
+        DoubleToLong(DoubleEvaluator input) {
+            this.input = input;
+        }
+
+        @Override
+        long evaluate() {
+            double value = input.evaluate();
+            isNull = input.isNull;
+            return (long) value;
+        }
+
+        @Override
+        boolean isConstant() {
+            return input.isConstant();
+        }
+    }
+
+    abstract static class LongBinary extends LongEvaluator {
+
+        private final LongEvaluator left;
+        private final LongEvaluator right;
+
+        LongBinary(LongEvaluator left, LongEvaluator right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        abstract long apply(long left, long right);
+
+        @Override
+        long evaluate() {
+            long leftValue = left.evaluate();
+            if (left.isNull) {
+                isNull = true;
+                return 0L;
+            }
+            long rightValue = right.evaluate();
+            if (right.isNull) {
+                isNull = true;
+                return 0L;
+            }
+            isNull = false;
+            return apply(leftValue, rightValue);
+        }
+
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+    }
+
+    abstract static class DoubleBinary extends DoubleEvaluator {
+
+        private final DoubleEvaluator left;
+        private final DoubleEvaluator right;
+
+        DoubleBinary(DoubleEvaluator left, DoubleEvaluator right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        abstract double apply(double left, double right);
+
+        @Override
+        double evaluate() {
+            double leftValue = left.evaluate();
+            if (left.isNull) {
+                isNull = true;
+                return 0.0d;
+            }
+            double rightValue = right.evaluate();
+            if (right.isNull) {
+                isNull = true;
+                return 0.0d;
+            }
+            isNull = false;
+            return apply(leftValue, rightValue);
+        }
+
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+    }
+
+    /**
+     * evaluates the result of a comparison like {@link CmpOperator} and {@link EqOperator} do
+     */
+    private static boolean compare(String operator, int comparisonResult) {
+        switch (operator) {
+            case EqOperator.NAME:
+                return comparisonResult == 0;
+            case GtOperator.NAME:
+                return comparisonResult > 0;
+            case GteOperator.NAME:
+                return comparisonResult >= 0;
+            case LtOperator.NAME:
+                return comparisonResult < 0;
+            case LteOperator.NAME:
+                return comparisonResult <= 0;
+            default:
+                throw new IllegalArgumentException("unknown comparison operator " + operator);
+        }
+    }
+
+    static class CompareLongs extends BooleanEvaluator {
+
+        private final String operator;
+        private final LongEvaluator left;
+        private final LongEvaluator right;
+
+        CompareLongs(String operator, LongEvaluator left, LongEvaluator right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean evaluate() {
+            long leftValue = left.evaluate();
+            if (left.isNull) {
+                isNull = true;
+                return false;
+            }
+            long rightValue = right.evaluate();
+            if (right.isNull) {
+                isNull = true;
+                return false;
+            }
+            isNull = false;
+            return compare(operator, Long.compare(leftValue, rightValue));
+        }
+
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+    }
+
+    static class CompareDoubles extends BooleanEvaluator {
+
+        private final String operator;
+        private final DoubleEvaluator left;
+        private final DoubleEvaluator right;
+
+        CompareDoubles(String operator, DoubleEvaluator left, DoubleEvaluator right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean evaluate() {
+            double leftValue = left.evaluate();
+            if (left.isNull) {
+                isNull = true;
+                return false;
+            }
+            double rightValue = right.evaluate();
+            if (right.isNull) {
+                isNull = true;
+                return false;
+            }
+            isNull = false;
+            // Double.compare matches Double.equals and Double.compareTo used by the operators
+            return compare(operator, Double.compare(leftValue, rightValue));
+        }
+
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+    }
+}
@@ -75,6 +75,15 @@ public abstract class AggregationFunction<TPartial, TFinal> implements FunctionI
      */
     public abstract TFinal terminatePartial(RamAccountingContext ramAccountingContext, TPartial state);
 
+    /**
+     * Called to emit a partial state, e.g. to stream it to the node doing the final reduce step.
+     * Aggregations which mutate their state in place must return a value that isn't modified afterwards,
+     * the default returns the state itself.
+     */
+    public TPartial partialResult(RamAccountingContext ramAccountingContext, TPartial state) {
+        return state;
+    }
+
     public abstract DataType partialType();
 
     @Override
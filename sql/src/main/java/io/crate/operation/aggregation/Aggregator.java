@@ -148,7 +148,8 @@ public class Aggregator {
 
         @Override
         public Object finishCollect(Object state) {
-            return state;
+            //noinspection unchecked
+            return aggregationFunction.partialResult(ramAccountingContext, state);
         }
     }
 
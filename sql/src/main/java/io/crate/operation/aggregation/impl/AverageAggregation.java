@@ -21,21 +21,21 @@
 
 package io.crate.operation.aggregation.impl;
 
-import com.google.common.collect.ImmutableList;
 import io.crate.Streamer;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.metadata.DynamicFunctionResolver;
 import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionImplementation;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
-import io.crate.types.DataType;
-import io.crate.types.DataTypeFactory;
-import io.crate.types.DataTypes;
-import io.crate.types.FixedWidthType;
+import io.crate.planner.symbol.Function;
+import io.crate.types.*;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
 import java.io.IOException;
+import java.util.List;
 
 public class AverageAggregation extends AggregationFunction<AverageAggregation.AverageState, Double> {
 
@@ -52,14 +52,95 @@ public class AverageAggregation extends AggregationFunction<AverageAggregation.A
      */
     public static void register(AggregationImplModule mod) {
         for (String name :NAMES) {
-            for (DataType<?> t : DataTypes.NUMERIC_PRIMITIVE_TYPES) {
-                mod.register(new AverageAggregation(new FunctionInfo(
-                        new FunctionIdent(name, ImmutableList.<DataType>of(t)), DataTypes.DOUBLE,
-                        FunctionInfo.Type.AGGREGATE)));
+            mod.register(name, new AverageResolver(name));
+        }
+    }
+
+    /**
+     * integral values and timestamps are summed up using a long, floating point values using a double
+     */
+    static class AverageResolver implements DynamicFunctionResolver {
+
+        private final String name;
+
+        AverageResolver(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public FunctionImplementation<Function> getForTypes(List<DataType> dataTypes) throws IllegalArgumentException {
+            if (dataTypes.size() != 1) {
+                return null;
             }
-            mod.register(new AverageAggregation(new FunctionInfo(
-                    new FunctionIdent(name, ImmutableList.<DataType>of(DataTypes.TIMESTAMP)), DataTypes.DOUBLE,
-                    FunctionInfo.Type.AGGREGATE)));
+            FunctionInfo info = new FunctionInfo(
+                    new FunctionIdent(name, dataTypes), DataTypes.DOUBLE, FunctionInfo.Type.AGGREGATE);
+            switch (dataTypes.get(0).id()) {
+                case LongType.ID:
+                case TimestampType.ID:
+                case IntegerType.ID:
+                case ShortType.ID:
+                case ByteType.ID:
+                    return new LongAverageAggregation(info);
+                case DoubleType.ID:
+                case FloatType.ID:
+                    return new AverageAggregation(info);
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * averages integral values using an exact sum, see {@link LongSumState}
+     */
+    static class LongAverageAggregation extends AggregationFunction<LongSumState, Double> {
+
+        private final FunctionInfo info;
+
+        LongAverageAggregation(FunctionInfo info) {
+            this.info = info;
+        }
+
+        @Override
+        public LongSumState newState(RamAccountingContext ramAccountingContext) {
+            ramAccountingContext.addBytes(LongSumState.LongSumStateType.INSTANCE.fixedSize());
+            return new LongSumState();
+        }
+
+        @Override
+        public LongSumState iterate(RamAccountingContext ramAccountingContext, LongSumState state, Input... args) {
+            Number value = (Number) args[0].value();
+            if (value != null) {
+                state.add(value.longValue());
+            }
+            return state;
+        }
+
+        @Override
+        public LongSumState reduce(RamAccountingContext ramAccountingContext, LongSumState state1, LongSumState state2) {
+            if (state1 == null) {
+                return state2;
+            }
+            if (state2 == null) {
+                return state1;
+            }
+            state1.merge(state2);
+            return state1;
+        }
+
+        @Override
+        public Double terminatePartial(RamAccountingContext ramAccountingContext, LongSumState state) {
+            return state.average();
+        }
+
+        @Override
+        public DataType partialType() {
+            return LongSumState.LongSumStateType.INSTANCE;
+        }
+
+        @Override
+        public FunctionInfo info() {
+            return info;
         }
     }
 
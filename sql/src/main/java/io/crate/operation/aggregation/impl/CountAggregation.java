@@ -37,7 +37,7 @@ import io.crate.types.DataTypes;
 import java.util.Collections;
 import java.util.List;
 
-public class CountAggregation extends AggregationFunction<Long, Long> {
+public class CountAggregation extends AggregationFunction<Number, Long> {
 
     public static final String NAME = "count";
     private final FunctionInfo info;
@@ -78,17 +78,20 @@ public class CountAggregation extends AggregationFunction<Long, Long> {
     }
 
     @Override
-    public Long iterate(RamAccountingContext ramAccountingContext, Long state, Input... args) {
+    public Number iterate(RamAccountingContext ramAccountingContext, Number state, Input... args) {
         if (!hasArgs || args[0].value() != null){
-            return state + 1;
+            ((LongState) state).add(1L);
         }
         return state;
     }
 
+    /**
+     * @return a {@link LongState}, partial counts are emitted as long, see {@link #partialResult}
+     */
     @Override
-    public Long newState(RamAccountingContext ramAccountingContext) {
+    public Number newState(RamAccountingContext ramAccountingContext) {
         ramAccountingContext.addBytes(DataTypes.LONG.fixedSize());
-        return 0L;
+        return new LongState(0L);
     }
 
     @Override
@@ -117,13 +120,26 @@ public class CountAggregation extends AggregationFunction<Long, Long> {
         return DataTypes.LONG;
     }
 
+    /**
+     * @param state1 the state created by {@link #newState(RamAccountingContext)}
+     * @param state2 a partial count, e.g. the result of a count operation or a streamed partial state
+     */
     @Override
-    public Long reduce(RamAccountingContext ramAccountingContext, Long state1, Long state2) {
-        return state1 + state2;
+    public Number reduce(RamAccountingContext ramAccountingContext, Number state1, Number state2) {
+        ((LongState) state1).add(state2.longValue());
+        return state1;
     }
 
     @Override
-    public Long terminatePartial(RamAccountingContext ramAccountingContext, Long state) {
-        return state;
+    public Long terminatePartial(RamAccountingContext ramAccountingContext, Number state) {
+        return state.longValue();
+    }
+
+    /**
+     * @return the count as {@link Long}, the {@link LongState} is only mutated by this aggregation
+     */
+    @Override
+    public Number partialResult(RamAccountingContext ramAccountingContext, Number state) {
+        return terminatePartial(ramAccountingContext, state);
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+/**
+ * Mutable double used as the state of numeric aggregations,
+ * so that aggregating a row doesn't allocate a new {@link Double}.
+ *
+ * A state must only be mutated by the aggregation which created it, partial results
+ * are emitted as boxed values of the partial type, see
+ * {@link io.crate.operation.aggregation.AggregationFunction#partialResult}.
+ */
+public class DoubleState extends Number {
+
+    private double value;
+
+    public DoubleState(double value) {
+        this.value = value;
+    }
+
+    public double value() {
+        return value;
+    }
+
+    public void value(double value) {
+        this.value = value;
+    }
+
+    public void add(double value) {
+        this.value += value;
+    }
+
+    @Override
+    public int intValue() {
+        return (int) value;
+    }
+
+    @Override
+    public long longValue() {
+        return (long) value;
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) value;
+    }
+
+    @Override
+    public double doubleValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.aggregation.impl;
+
+import io.crate.Streamer;
+import io.crate.types.DataType;
+import io.crate.types.DataTypeFactory;
+import io.crate.types.DataTypes;
+import io.crate.types.FixedWidthType;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * State of sum and avg on integral values (long, integer, short, byte and timestamp).
+ *
+ * The values are summed up exactly using a long; if the sum overflows it continues as double
+ * like the sum of floating point values does.
+ */
+public class LongSumState implements Comparable<LongSumState> {
+
+    private long count = 0;
+    private long longSum = 0;
+    private double doubleSum = 0;
+    private boolean overflowed = false;
+
+    public void add(long value) {
+        count++;
+        addToSum(value);
+    }
+
+    public void merge(LongSumState other) {
+        count += other.count;
+        if (other.overflowed) {
+            switchToDouble();
+            doubleSum += other.doubleSum;
+        } else {
+            addToSum(other.longSum);
+        }
+    }
+
+    private void addToSum(long value) {
+        if (overflowed) {
+            doubleSum += value;
+            return;
+        }
+        long sum = longSum + value;
+        // the sum overflowed if both operands have the same sign which differs from the sign of the result
+        if (((longSum ^ sum) & (value ^ sum)) < 0) {
+            switchToDouble();
+            doubleSum += value;
+        } else {
+            longSum = sum;
+        }
+    }
+
+    private void switchToDouble() {
+        if (!overflowed) {
+            overflowed = true;
+            doubleSum = longSum;
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return true if the sum exceeded the range of long and is continued as double
+     */
+    public boolean overflowed() {
+        return overflowed;
+    }
+
+    /**
+     * @return the sum or null if no value has been added
+     */
+    @Nullable
+    public Double sum() {
+        if (count == 0) {
+            return null;
+        }
+        return overflowed ? doubleSum : (double) longSum;
+    }
+
+    /**
+     * @return the average or null if no value has been added
+     */
+    @Nullable
+    public Double average() {
+        if (count == 0) {
+            return null;
+        }
+        if (overflowed) {
+            return doubleSum / count;
+        }
+        // divide the integral part first, converting a large sum to double would round it
+        return (longSum / count) + ((double) (longSum % count) / count);
+    }
+
+    @Override
+    public int compareTo(LongSumState o) {
+        if (o == null) {
+            return 1;
+        }
+        int compare = Double.compare(overflowed ? doubleSum : longSum, o.overflowed ? o.doubleSum : o.longSum);
+        if (compare == 0) {
+            return Long.compare(count, o.count);
+        }
+        return compare;
+    }
+
+    @Override
+    public String toString() {
+        return "sum: " + (overflowed ? doubleSum : longSum) + " count: " + count;
+    }
+
+    public static class LongSumStateType extends DataType<LongSumState>
+            implements FixedWidthType, Streamer<LongSumState>, DataTypeFactory {
+
+        public static final int ID = 16384;
+        public static final LongSumStateType INSTANCE = new LongSumStateType();
+
+        @Override
+        public int id() {
+            return ID;
+        }
+
+        @Override
+        public String getName() {
+            return "long_sum_state";
+        }
+
+        @Override
+        public Streamer<?> streamer() {
+            return this;
+        }
+
+        @Override
+        public LongSumState value(Object value) throws IllegalArgumentException, ClassCastException {
+            return (LongSumState) value;
+        }
+
+        @Override
+        public int compareValueTo(LongSumState val1, LongSumState val2) {
+            if (val1 == null) return -1;
+            return val1.compareTo(val2);
+        }
+
+        @Override
+        public LongSumState readValueFrom(StreamInput in) throws IOException {
+            LongSumState state = new LongSumState();
+            state.count = in.readVLong();
+            state.overflowed = in.readBoolean();
+            if (state.overflowed) {
+                state.doubleSum = in.readDouble();
+            } else {
+                state.longSum = in.readLong();
+            }
+            return state;
+        }
+
+        @Override
+        public void writeValueTo(StreamOutput out, Object v) throws IOException {
+            LongSumState state = (LongSumState) v;
+            out.writeVLong(state.count);
+            out.writeBoolean(state.overflowed);
+            if (state.overflowed) {
+                out.writeDouble(state.doubleSum);
+            } else {
+                out.writeLong(state.longSum);
+            }
+        }
+
+        @Override
+        public DataType<?> create() {
+            return INSTANCE;
+        }
+
+        @Override
+        public int fixedSize() {
+            return 2 * DataTypes.LONG.fixedSize() + DataTypes.DOUBLE.fixedSize();
+        }
+    }
+}
@@ -29,9 +29,7 @@ import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
-import io.crate.types.DataType;
-import io.crate.types.DataTypes;
-import io.crate.types.FixedWidthType;
+import io.crate.types.*;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 
 public abstract class MaximumAggregation extends AggregationFunction<Comparable, Comparable> {
@@ -45,10 +43,24 @@ public abstract class MaximumAggregation extends AggregationFunction<Comparable,
             FunctionInfo functionInfo = new FunctionInfo(
                     new FunctionIdent(NAME, ImmutableList.of(dataType)), dataType, FunctionInfo.Type.AGGREGATE);
 
-            if (dataType instanceof FixedWidthType) {
-                mod.register(new FixedMaximumAggregation(functionInfo));
-            } else {
-                mod.register(new VariableMaximumAggregation(functionInfo));
+            switch (dataType.id()) {
+                case DoubleType.ID:
+                case FloatType.ID:
+                    mod.register(new DoubleMaximumAggregation(functionInfo));
+                    break;
+                case LongType.ID:
+                case TimestampType.ID:
+                case IntegerType.ID:
+                case ShortType.ID:
+                case ByteType.ID:
+                    mod.register(new LongMaximumAggregation(functionInfo));
+                    break;
+                default:
+                    if (dataType instanceof FixedWidthType) {
+                        mod.register(new FixedMaximumAggregation(functionInfo));
+                    } else {
+                        mod.register(new VariableMaximumAggregation(functionInfo));
+                    }
             }
         }
     }
@@ -116,6 +128,125 @@ public abstract class MaximumAggregation extends AggregationFunction<Comparable,
         }
     }
 
+    /**
+     * keeps the greatest value of integral types and timestamps inside a {@link LongState}
+     */
+    private static class LongMaximumAggregation extends AggregationFunction<Number, Number> {
+
+        private final FunctionInfo info;
+
+        LongMaximumAggregation(FunctionInfo info) {
+            this.info = info;
+        }
+
+        @Override
+        public FunctionInfo info() {
+            return info;
+        }
+
+        @Override
+        public DataType partialType() {
+            return info.returnType();
+        }
+
+        @Override
+        public Number newState(RamAccountingContext ramAccountingContext) {
+            ramAccountingContext.addBytes(((FixedWidthType) partialType()).fixedSize());
+            return null;
+        }
+
+        @Override
+        public Number iterate(RamAccountingContext ramAccountingContext, Number state, Input... args) {
+            return reduce(ramAccountingContext, state, (Number) args[0].value());
+        }
+
+        @Override
+        public Number reduce(RamAccountingContext ramAccountingContext, Number state1, Number state2) {
+            if (state2 == null) {
+                return state1;
+            }
+            long value = state2.longValue();
+            if (state1 == null) {
+                return new LongState(value);
+            }
+            LongState state = (LongState) state1;
+            if (value > state.value()) {
+                state.value(value);
+            }
+            return state;
+        }
+
+        @Override
+        public Number terminatePartial(RamAccountingContext ramAccountingContext, Number state) {
+            return (Number) info.returnType().value(state);
+        }
+
+        @Override
+        public Number partialResult(RamAccountingContext ramAccountingContext, Number state) {
+            return terminatePartial(ramAccountingContext, state);
+        }
+    }
+
+    /**
+     * keeps the greatest value of doubles and floats inside a {@link DoubleState},
+     * compared like {@link Double#compareTo(Double)} does
+     */
+    private static class DoubleMaximumAggregation extends AggregationFunction<Number, Number> {
+
+        private final FunctionInfo info;
+
+        DoubleMaximumAggregation(FunctionInfo info) {
+            this.info = info;
+        }
+
+        @Override
+        public FunctionInfo info() {
+            return info;
+        }
+
+        @Override
+        public DataType partialType() {
+            return info.returnType();
+        }
+
+        @Override
+        public Number newState(RamAccountingContext ramAccountingContext) {
+            ramAccountingContext.addBytes(((FixedWidthType) partialType()).fixedSize());
+            return null;
+        }
+
+        @Override
+        public Number iterate(RamAccountingContext ramAccountingContext, Number state, Input... args) {
+            return reduce(ramAccountingContext, state, (Number) args[0].value());
+        }
+
+        @Override
+        public Number reduce(RamAccountingContext ramAccountingContext, Number state1, Number state2) {
+            if (state2 == null) {
+                return state1;
+            }
+            double value = state2.doubleValue();
+            if (state1 == null) {
+                return new DoubleState(value);
+            }
+            DoubleState state = (DoubleState) state1;
+            if (Double.compare(value, state.value()) > 0) {
+                state.value(value);
+            }
+            return state;
+        }
+
+        @Override
+        public Number terminatePartial(RamAccountingContext ramAccountingContext, Number state) {
+            return (Number) info.returnType().value(state);
+        }
+
+        @Override
+        public Number partialResult(RamAccountingContext ramAccountingContext, Number state) {
+            return terminatePartial(ramAccountingContext, state);
+        }
+    }
+
     MaximumAggregation(FunctionInfo info) {
         this.info = info;
     }
@@ -21,28 +21,112 @@
 
 package io.crate.operation.aggregation.impl;
 
-import com.google.common.collect.ImmutableList;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.metadata.DynamicFunctionResolver;
 import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionImplementation;
 import io.crate.metadata.FunctionInfo;
 import io.crate.operation.Input;
 import io.crate.operation.aggregation.AggregationFunction;
-import io.crate.types.DataType;
-import io.crate.types.DataTypes;
+import io.crate.planner.symbol.Function;
+import io.crate.types.*;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 
-public class SumAggregation extends AggregationFunction<Double, Double> {
+import java.util.List;
+
+public class SumAggregation extends AggregationFunction<Number, Double> {
 
     public static final String NAME = "sum";
 
     private final FunctionInfo info;
 
+    static {
+        DataTypes.register(LongSumState.LongSumStateType.ID, LongSumState.LongSumStateType.INSTANCE);
+    }
+
     public static void register(AggregationImplModule mod) {
-        for (DataType t : DataTypes.NUMERIC_PRIMITIVE_TYPES) {
-            mod.register(new SumAggregation(new FunctionInfo(new FunctionIdent(NAME, ImmutableList.of(t)),
-                            DataTypes.DOUBLE, FunctionInfo.Type.AGGREGATE)));
+        mod.register(NAME, new SumResolver());
+    }
+
+    /**
+     * integral values are summed up using a long, floating point values using a double
+     */
+    static class SumResolver implements DynamicFunctionResolver {
+
+        @Override
+        public FunctionImplementation<Function> getForTypes(List<DataType> dataTypes) throws IllegalArgumentException {
+            if (dataTypes.size() != 1) {
+                return null;
+            }
+            FunctionInfo info = new FunctionInfo(
+                    new FunctionIdent(NAME, dataTypes), DataTypes.DOUBLE, FunctionInfo.Type.AGGREGATE);
+            switch (dataTypes.get(0).id()) {
+                case LongType.ID:
+                case IntegerType.ID:
+                case ShortType.ID:
+                case ByteType.ID:
+                    return new LongSumAggregation(info);
+                case DoubleType.ID:
+                case FloatType.ID:
+                    return new SumAggregation(info);
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * sums up integral values exactly, see {@link LongSumState}
+     */
+    static class LongSumAggregation extends AggregationFunction<LongSumState, Double> {
+
+        private final FunctionInfo info;
+
+        LongSumAggregation(FunctionInfo info) {
+            this.info = info;
+        }
+
+        @Override
+        public LongSumState newState(RamAccountingContext ramAccountingContext) {
+            ramAccountingContext.addBytes(LongSumState.LongSumStateType.INSTANCE.fixedSize());
+            return new LongSumState();
+        }
+
+        @Override
+        public LongSumState iterate(RamAccountingContext ramAccountingContext, LongSumState state, Input... args) {
+            Number value = (Number) args[0].value();
+            if (value != null) {
+                state.add(value.longValue());
+            }
+            return state;
         }
 
+        @Override
+        public LongSumState reduce(RamAccountingContext ramAccountingContext, LongSumState state1, LongSumState state2) {
+            if (state1 == null) {
+                return state2;
+            }
+            if (state2 == null) {
+                return state1;
+            }
+            state1.merge(state2);
+            return state1;
+        }
+
+        @Override
+        public Double terminatePartial(RamAccountingContext ramAccountingContext, LongSumState state) {
+            return state.sum();
+        }
+
+        @Override
+        public DataType partialType() {
+            return LongSumState.LongSumStateType.INSTANCE;
+        }
+
+        @Override
+        public FunctionInfo info() {
+            return info;
+        }
     }
 
     SumAggregation(FunctionInfo info) {
@@ -50,28 +134,38 @@ public class SumAggregation extends AggregationFunction<Double, Double> {
     }
 
     @Override
-    public Double iterate(RamAccountingContext ramAccountingContext, Double state, Input... args) throws CircuitBreakingException {
-        return reduce(ramAccountingContext, state, DataTypes.DOUBLE.value(args[0].value()));
+    public Number iterate(RamAccountingContext ramAccountingContext, Number state, Input... args) throws CircuitBreakingException {
+        return reduce(ramAccountingContext, state, (Number) args[0].value());
     }
 
+    /**
+     * the state is null until the first non-null value is added, it is then a {@link DoubleState}
+     * owned by this aggregation. The second state may be any number, e.g. a streamed partial value.
+     */
     @Override
-    public Double reduce(RamAccountingContext ramAccountingContext, Double state1, Double state2) {
-        if (state1 == null) {
-            return state2;
-        }
+    public Number reduce(RamAccountingContext ramAccountingContext, Number state1, Number state2) {
         if (state2 == null) {
             return state1;
         }
-        return state1 + state2;
+        if (state1 == null) {
+            return new DoubleState(state2.doubleValue());
+        }
+        ((DoubleState) state1).add(state2.doubleValue());
+        return state1;
+    }
+
+    @Override
+    public Double terminatePartial(RamAccountingContext ramAccountingContext, Number state) {
+        return state == null ? null : state.doubleValue();
     }
 
     @Override
-    public Double terminatePartial(RamAccountingContext ramAccountingContext, Double state) {
-        return state;
+    public Number partialResult(RamAccountingContext ramAccountingContext, Number state) {
+        return terminatePartial(ramAccountingContext, state);
     }
 
     @Override
-    public Double newState(RamAccountingContext ramAccountingContext) {
+    public Number newState(RamAccountingContext ramAccountingContext) {
         ramAccountingContext.addBytes(DataTypes.DOUBLE.fixedSize());
         return null;
     }
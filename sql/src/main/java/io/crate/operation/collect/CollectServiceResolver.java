@@ -26,6 +26,7 @@ import io.crate.metadata.sys.SysJobsLogTableInfo;
 import io.crate.metadata.sys.SysJobsTableInfo;
 import io.crate.metadata.sys.SysOperationsLogTableInfo;
 import io.crate.metadata.sys.SysOperationsTableInfo;
+import io.crate.metadata.sys.SysQueryLatenciesTableInfo;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.discovery.DiscoveryService;
 
@@ -47,6 +48,7 @@ public class CollectServiceResolver {
         services.put(SysJobsLogTableInfo.IDENT.fqn(), systemCollectService);
         services.put(SysOperationsTableInfo.IDENT.fqn(), systemCollectService);
         services.put(SysOperationsLogTableInfo.IDENT.fqn(), systemCollectService);
+        services.put(SysQueryLatenciesTableInfo.IDENT.fqn(), systemCollectService);
     }
 
     public CollectService getService(Routing routing) {
@@ -91,9 +91,7 @@ public class MapSideDataCollectOperation implements CollectOperation, RowUpstrea
     private final FileCollectInputSymbolVisitor fileInputSymbolVisitor;
     private final CollectServiceResolver collectServiceResolver;
     private final ProjectionToProjectorVisitor projectorVisitor;
-    private final ThreadPoolExecutor executor;
-    private final ListeningExecutorService listeningExecutorService;
-    private final int poolSize;
+    private final CrateThreadPools crateThreadPools;
     private final ResultProviderFactory resultProviderFactory;
 
     private final InformationSchemaCollectService informationSchemaCollectService;
@@ -119,6 +117,7 @@ public class MapSideDataCollectOperation implements CollectOperation, RowUpstrea
                                        NodeSysExpression nodeSysExpression,
                                        IndicesService indicesService,
                                        ThreadPool threadPool,
+                                       CrateThreadPools crateThreadPools,
                                        CollectServiceResolver collectServiceResolver,
                                        ResultProviderFactory resultProviderFactory,
                                        InformationSchemaCollectService informationSchemaCollectService,
@@ -126,9 +125,7 @@ public class MapSideDataCollectOperation implements CollectOperation, RowUpstrea
         this.resultProviderFactory = resultProviderFactory;
         this.informationSchemaCollectService = informationSchemaCollectService;
         this.unassignedShardsCollectService = unassignedShardsCollectService;
-        this.executor = (ThreadPoolExecutor)threadPool.executor(ThreadPool.Names.SEARCH);
-        this.poolSize = executor.getCorePoolSize();
-        this.listeningExecutorService = MoreExecutors.listeningDecorator(executor);
+        this.crateThreadPools = crateThreadPools;
 
         this.clusterService = clusterService;
         this.indicesService = indicesService;
@@ -269,6 +266,8 @@ public class MapSideDataCollectOperation implements CollectOperation, RowUpstrea
                                                            final CollectNode node,
                                                            final RowDownstream rowDownstream,
                                                            final JobCollectContext jobCollectContext) {
+        ListeningExecutorService listeningExecutorService = MoreExecutors.listeningDecorator(
+                crateThreadPools.executor(CrateThreadPools.Pool.of(node)));
         return listeningExecutorService.submit(new Callable<List<Void>>() {
             @Override
             public List<Void> call() throws Exception {
@@ -477,8 +476,10 @@ public class MapSideDataCollectOperation implements CollectOperation, RowUpstrea
         // start the projection
         projectorChain.startProjections(jobCollectContext);
         try {
+            CrateThreadPools.Pool pool = CrateThreadPools.Pool.of(collectNode);
+            crateThreadPools.admit(pool, jobCollectContext.ramAccountingContext());
             LOGGER.trace("starting {} shardCollectors...", numShards);
-            return runCollectThreaded(collectNode, shardCollectors);
+            return runCollectThreaded(collectNode, shardCollectors, crateThreadPools.executor(pool));
         } catch (RejectedExecutionException e) {
             // on distributing collects the merge nodes need to be informed about the failure
             // so they can clean up their context
@@ -490,11 +491,12 @@ public class MapSideDataCollectOperation implements CollectOperation, RowUpstrea
     }
 
     private ListenableFuture<List<Void>> runCollectThreaded(CollectNode collectNode,
-                                                            final List<CrateCollector> shardCollectors) throws RejectedExecutionException {
+                                                            final List<CrateCollector> shardCollectors,
+                                                            ThreadPoolExecutor executor) throws RejectedExecutionException {
         if (collectNode.maxRowGranularity() == RowGranularity.SHARD) {
             // run sequential to prevent sys.shards queries from using too many threads
             // and overflowing the threadpool queues
-            return listeningExecutorService.submit(new Callable<List<Void>>() {
+            return MoreExecutors.listeningDecorator(executor).submit(new Callable<List<Void>>() {
                 @Override
                 public List<Void> call() throws Exception {
                     for (CrateCollector collector : shardCollectors) {
@@ -506,7 +508,7 @@ public class MapSideDataCollectOperation implements CollectOperation, RowUpstrea
         } else {
             return ThreadPools.runWithAvailableThreads(
                     executor,
-                    poolSize,
+                    executor.getCorePoolSize(),
                     collectors2Callables(shardCollectors),
                     new VoidFunction<List<Void>>());
         }
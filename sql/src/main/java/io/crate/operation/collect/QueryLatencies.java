@@ -0,0 +1,210 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect;
+
+import io.crate.core.LatencyHistogram;
+import io.crate.operation.reference.sys.latency.QueryLatency;
+import io.crate.sql.tree.CopyFromStatement;
+import io.crate.sql.tree.CopyTo;
+import io.crate.sql.tree.Delete;
+import io.crate.sql.tree.Insert;
+import io.crate.sql.tree.Query;
+import io.crate.sql.tree.Statement;
+import io.crate.sql.tree.Update;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latency histograms per statement type and execution phase.
+ *
+ * The histograms are collected in windows of a configurable size. Once the current window
+ * is older than the window size it becomes the previous window and a new one is started,
+ * so there is always a complete window and the window in progress.
+ * A window size of 0 keeps a single window that is only reset if the window size changes.
+ */
+@ThreadSafe
+public class QueryLatencies {
+
+    public enum StatementType {
+        SELECT,
+        INSERT,
+        UPDATE,
+        DELETE,
+        COPY,
+        OTHER;
+
+        private final String displayName = name().toLowerCase(Locale.ENGLISH);
+
+        public String displayName() {
+            return displayName;
+        }
+
+        public static StatementType of(Statement statement) {
+            if (statement instanceof Query) {
+                return SELECT;
+            } else if (statement instanceof Insert) {
+                return INSERT;
+            } else if (statement instanceof Update) {
+                return UPDATE;
+            } else if (statement instanceof Delete) {
+                return DELETE;
+            } else if (statement instanceof CopyFromStatement || statement instanceof CopyTo) {
+                return COPY;
+            }
+            return OTHER;
+        }
+    }
+
+    public enum Phase {
+        PARSE,
+        ANALYZE,
+        PLAN,
+        EXECUTE,
+        TOTAL;
+
+        private final String displayName = name().toLowerCase(Locale.ENGLISH);
+
+        public String displayName() {
+            return displayName;
+        }
+    }
+
+    private static final StatementType[] TYPES = StatementType.values();
+    private static final Phase[] PHASES = Phase.values();
+
+    private volatile long windowSize;
+    private volatile Window current;
+    @Nullable
+    private volatile Window previous;
+
+    /**
+     * @param windowSize the size of a window in milliseconds
+     */
+    public QueryLatencies(long windowSize) {
+        this.windowSize = windowSize;
+        this.current = new Window(System.currentTimeMillis());
+    }
+
+    public void record(StatementType type, Phase phase, long durationNanos) {
+        Window window = currentWindow(System.currentTimeMillis());
+        window.histogram(type, phase).record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+
+    /**
+     * change the window size, this discards all collected latencies
+     */
+    public synchronized void windowSize(long windowSize) {
+        this.windowSize = windowSize;
+        previous = null;
+        current = new Window(System.currentTimeMillis());
+    }
+
+    public long windowSize() {
+        return windowSize;
+    }
+
+    /**
+     * @return a snapshot of the non-empty histograms of the previous and the current window
+     */
+    public List<QueryLatency> snapshot() {
+        Window window = currentWindow(System.currentTimeMillis());
+        Window previousWindow = previous;
+        List<QueryLatency> rows = new ArrayList<>();
+        if (previousWindow != null) {
+            previousWindow.addRows(rows);
+        }
+        window.addRows(rows);
+        return rows;
+    }
+
+    private Window currentWindow(long now) {
+        Window window = current;
+        long size = windowSize;
+        if (size > 0 && now - window.started >= size) {
+            return rotate(now);
+        }
+        return window;
+    }
+
+    private synchronized Window rotate(long now) {
+        Window window = current;
+        long size = windowSize;
+        if (size <= 0 || now - window.started < size) {
+            // rotated concurrently
+            return window;
+        }
+        long end = window.started + size;
+        if (now - end < size) {
+            window.ended = end;
+            previous = window;
+        } else {
+            // no recordings for more than a whole window, the previous window would be empty
+            previous = null;
+        }
+        current = new Window(now);
+        return current;
+    }
+
+    private static class Window {
+
+        private final long started;
+        private volatile Long ended = null;
+        private final AtomicReferenceArray<LatencyHistogram> histograms =
+                new AtomicReferenceArray<>(TYPES.length * PHASES.length);
+
+        Window(long started) {
+            this.started = started;
+        }
+
+        /**
+         * histograms are created lazily as most combinations (like the parse phase of copy statements)
+         * are rarely used
+         */
+        LatencyHistogram histogram(StatementType type, Phase phase) {
+            int idx = type.ordinal() * PHASES.length + phase.ordinal();
+            LatencyHistogram histogram = histograms.get(idx);
+            if (histogram == null) {
+                histograms.compareAndSet(idx, null, new LatencyHistogram());
+                histogram = histograms.get(idx);
+            }
+            return histogram;
+        }
+
+        void addRows(List<QueryLatency> rows) {
+            for (StatementType type : TYPES) {
+                for (Phase phase : PHASES) {
+                    LatencyHistogram histogram = histograms.get(type.ordinal() * PHASES.length + phase.ordinal());
+                    if (histogram != null && histogram.count() > 0) {
+                        rows.add(new QueryLatency(type.displayName(), phase.displayName(), started, ended, histogram));
+                    }
+                }
+            }
+        }
+    }
+}
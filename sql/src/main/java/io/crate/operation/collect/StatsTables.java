@@ -21,8 +21,9 @@
 
 package io.crate.operation.collect;
 
-import io.crate.core.collections.NonBlockingArrayQueue;
-import io.crate.core.collections.NoopQueue;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.breaker.JobRamAccounting;
+import io.crate.core.collections.RingBuffer;
 import io.crate.metadata.settings.CrateSettings;
 import io.crate.operation.reference.sys.job.JobContext;
 import io.crate.operation.reference.sys.job.JobContextLog;
@@ -37,7 +38,6 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -53,15 +53,17 @@ public class StatsTables {
 
     protected final Map<UUID, JobContext> jobsTable = new ConcurrentHashMap<>();
     protected final Map<Integer, OperationContext> operationsTable = new ConcurrentHashMap<>();
-    protected final AtomicReference<BlockingQueue<JobContextLog>> jobsLog = new AtomicReference<>();
-    protected final AtomicReference<BlockingQueue<OperationContextLog>> operationsLog = new AtomicReference<>();
-    private final static NoopQueue<OperationContextLog> NOOP_OPERATIONS_LOG = NoopQueue.instance();
-    private final static NoopQueue<JobContextLog> NOOP_JOBS_LOG = NoopQueue.instance();
+    protected final AtomicReference<RingBuffer<JobContextLog>> jobsLog = new AtomicReference<>();
+    protected final AtomicReference<RingBuffer<OperationContextLog>> operationsLog = new AtomicReference<>();
+    private final static RingBuffer<OperationContextLog> NOOP_OPERATIONS_LOG = new RingBuffer<>(0);
+    private final static RingBuffer<JobContextLog> NOOP_JOBS_LOG = new RingBuffer<>(0);
 
     private final JobsLogIterableGetter jobsLogIterableGetter;
     private final JobsIterableGetter jobsIterableGetter;
     private final OperationsIterableGetter operationsIterableGetter;
     private final OperationsLogIterableGetter operationsLogIterableGetter;
+    private final QueryLatenciesIterableGetter queryLatenciesIterableGetter;
+    protected final QueryLatencies queryLatencies;
 
     protected final NodeSettingsService.Listener listener = new NodeSettingListener();
     protected volatile int lastOperationsLogSize;
@@ -69,6 +71,7 @@ public class StatsTables {
     protected volatile boolean lastIsEnabled;
 
     private final LongAdder activeRequests = new LongAdder();
+    private final CrateCircuitBreakerService breakerService;
 
     public void activeRequestsInc() {
         activeRequests.increment();
@@ -87,10 +90,14 @@ public class StatsTables {
     }
 
     @Inject
-    public StatsTables(Settings settings, NodeSettingsService nodeSettingsService) {
+    public StatsTables(Settings settings,
+                       NodeSettingsService nodeSettingsService,
+                       CrateCircuitBreakerService breakerService) {
+        this.breakerService = breakerService;
         int operationsLogSize = CrateSettings.STATS_OPERATIONS_LOG_SIZE.extract(settings);
         int jobsLogSize = CrateSettings.STATS_JOBS_LOG_SIZE.extract(settings);
         boolean isEnabled = CrateSettings.STATS_ENABLED.extract(settings);
+        queryLatencies = new QueryLatencies(CrateSettings.STATS_LATENCY_WINDOW.extractMillis(settings));
 
         if (isEnabled) {
             setJobsLog(jobsLogSize);
@@ -109,6 +116,7 @@ public class StatsTables {
         jobsIterableGetter = new JobsIterableGetter();
         operationsIterableGetter = new OperationsIterableGetter();
         operationsLogIterableGetter = new OperationsLogIterableGetter();
+        queryLatenciesIterableGetter = new QueryLatenciesIterableGetter();
     }
 
     /**
@@ -123,30 +131,37 @@ public class StatsTables {
      * Track a job. If the job has finished {@link #jobFinished(java.util.UUID, String)}
      * must be called.
      *
+     * The memory accounting of the job is held until the job has finished so
+     * that the bytes used by the job on this node can be exposed while it is running.
+     *
      * If {@link #isEnabled()} is false this method won't do anything.
      */
     public void jobStarted(UUID jobId, String statement) {
         if (!isEnabled()) {
             return;
         }
-        jobsTable.put(jobId, new JobContext(jobId, statement, System.currentTimeMillis()));
+        JobRamAccounting ramAccounting = breakerService.acquireJobRamAccounting(jobId);
+        jobsTable.put(jobId, new JobContext(jobId, statement, System.currentTimeMillis(), ramAccounting));
     }
 
     /**
      * mark a job as finished.
      *
-     * If {@link #isEnabled()} is false this method won't do anything.
+     * If {@link #isEnabled()} is false the job won't be added to the jobs log.
      */
     public void jobFinished(UUID jobId, @Nullable String errorMessage) {
-        if (!isEnabled()) {
-            return;
-        }
+        // always remove the job, the stats might have been disabled while it was running
         JobContext jobContext = jobsTable.remove(jobId);
         if (jobContext == null) {
             return;
         }
-        BlockingQueue<JobContextLog> jobContextLogs = jobsLog.get();
-        jobContextLogs.offer(new JobContextLog(jobContext, errorMessage));
+        if (jobContext.ramAccounting != null) {
+            jobContext.ramAccounting.release();
+        }
+        if (!isEnabled()) {
+            return;
+        }
+        jobsLog.get().add(new JobContextLog(jobContext, errorMessage));
     }
 
     public void operationStarted(int operationId, UUID jobId, String name) {
@@ -168,11 +183,18 @@ public class StatsTables {
             return;
         }
         operationContext.usedBytes = usedBytes;
-        BlockingQueue<OperationContextLog> operationContextLogs = operationsLog.get();
-        operationContextLogs.offer(new OperationContextLog(operationContext, errorMessage));
+        operationsLog.get().add(new OperationContextLog(operationContext, errorMessage));
     }
 
 
+    /**
+     * record the duration of a phase of a statement.
+     * Latencies are always recorded, regardless of {@link #isEnabled()}.
+     */
+    public void recordLatency(QueryLatencies.StatementType type, QueryLatencies.Phase phase, long durationNanos) {
+        queryLatencies.record(type, phase, durationNanos);
+    }
+
     public IterableGetter jobsGetter() {
         return jobsIterableGetter;
     }
@@ -189,6 +211,10 @@ public class StatsTables {
         return operationsLogIterableGetter;
     }
 
+    public IterableGetter queryLatenciesGetter() {
+        return queryLatenciesIterableGetter;
+    }
+
     private class JobsLogIterableGetter implements IterableGetter {
 
         @Override
@@ -221,16 +247,20 @@ public class StatsTables {
         }
     }
 
+    private class QueryLatenciesIterableGetter implements IterableGetter {
+
+        @Override
+        public Iterable<?> getIterable() {
+            return queryLatencies.snapshot();
+        }
+    }
+
     private void setOperationsLog(int size) {
         if (size == 0) {
             operationsLog.set(NOOP_OPERATIONS_LOG);
         } else {
-            BlockingQueue<OperationContextLog> oldQ = operationsLog.get();
-            NonBlockingArrayQueue<OperationContextLog> newQ = new NonBlockingArrayQueue<>(size);
-            if (oldQ != null && oldQ.size() > 0) {
-                oldQ.drainTo(newQ, size);
-            }
-            operationsLog.set(newQ);
+            RingBuffer<OperationContextLog> oldLog = operationsLog.get();
+            operationsLog.set(oldLog == null ? new RingBuffer<OperationContextLog>(size) : oldLog.resize(size));
         }
     }
 
@@ -238,12 +268,8 @@ public class StatsTables {
         if (size == 0) {
             jobsLog.set(NOOP_JOBS_LOG);
         } else {
-            BlockingQueue<JobContextLog> oldQ = jobsLog.get();
-            NonBlockingArrayQueue<JobContextLog> newQ = new NonBlockingArrayQueue<>(size);
-            if (oldQ != null && oldQ.size() > 0) {
-                oldQ.drainTo(newQ, size);
-            }
-            jobsLog.set(newQ);
+            RingBuffer<JobContextLog> oldLog = jobsLog.get();
+            jobsLog.set(oldLog == null ? new RingBuffer<JobContextLog>(size) : oldLog.resize(size));
         }
     }
 
@@ -251,6 +277,11 @@ public class StatsTables {
 
         @Override
         public void onRefreshSettings(Settings settings) {
+            long latencyWindow = CrateSettings.STATS_LATENCY_WINDOW.extractMillis(settings);
+            if (latencyWindow != queryLatencies.windowSize()) {
+                queryLatencies.windowSize(latencyWindow);
+            }
+
             boolean wasEnabled = lastIsEnabled;
             boolean becomesEnabled = CrateSettings.STATS_ENABLED.extract(settings);
 
@@ -28,6 +28,7 @@ import io.crate.metadata.sys.SysJobsLogTableInfo;
 import io.crate.metadata.sys.SysJobsTableInfo;
 import io.crate.metadata.sys.SysOperationsLogTableInfo;
 import io.crate.metadata.sys.SysOperationsTableInfo;
+import io.crate.metadata.sys.SysQueryLatenciesTableInfo;
 import io.crate.operation.Input;
 import io.crate.operation.InputRow;
 import io.crate.operation.RowDownstream;
@@ -61,7 +62,8 @@ public class SystemCollectService implements CollectService {
                 SysJobsTableInfo.IDENT.fqn(), statsTables.jobsGetter(),
                 SysJobsLogTableInfo.IDENT.fqn(), statsTables.jobsLogGetter(),
                 SysOperationsTableInfo.IDENT.fqn(), statsTables.operationsGetter(),
-                SysOperationsLogTableInfo.IDENT.fqn(), statsTables.operationsLogGetter()
+                SysOperationsLogTableInfo.IDENT.fqn(), statsTables.operationsLogGetter(),
+                SysQueryLatenciesTableInfo.IDENT.fqn(), statsTables.queryLatenciesGetter()
         );
         this.discoveryService = discoveryService;
     }
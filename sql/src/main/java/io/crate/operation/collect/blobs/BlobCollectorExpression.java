@@ -21,15 +21,14 @@
 
 package io.crate.operation.collect.blobs;
 
+import io.crate.blob.BlobDigestIndex;
 import io.crate.operation.Input;
 
-import java.io.File;
-
 public abstract class BlobCollectorExpression<T> implements Input<T> {
 
-    protected File blob;
+    protected BlobDigestIndex.Entry blob;
 
-    public void setNextBlob(File blob) {
+    public void setNextBlob(BlobDigestIndex.Entry blob) {
         this.blob = blob;
     };
 
@@ -21,7 +21,7 @@
 
 package io.crate.operation.collect.blobs;
 
-import io.crate.blob.BlobContainer;
+import io.crate.blob.BlobDigestIndex;
 import io.crate.blob.v2.BlobShard;
 import io.crate.operation.Input;
 import io.crate.operation.InputRow;
@@ -30,7 +30,6 @@ import io.crate.operation.RowDownstreamHandle;
 import io.crate.operation.collect.CrateCollector;
 import io.crate.operation.collect.JobCollectContext;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CancellationException;
@@ -60,9 +59,9 @@ public class BlobDocCollector implements CrateCollector {
 
     @Override
     public void doCollect() {
-        BlobContainer.FileVisitor fileVisitor = new FileListingsFileVisitor();
+        BlobDigestIndex.EntryVisitor entryVisitor = new BlobEntryVisitor();
         try {
-            blobShard.blobContainer().walkFiles(null, fileVisitor);
+            blobShard.blobContainer().digestIndex().walk(entryVisitor);
             downstream.finish();
         } catch (Throwable t) {
             downstream.fail(t);
@@ -74,17 +73,17 @@ public class BlobDocCollector implements CrateCollector {
         killed = true;
     }
 
-    private class FileListingsFileVisitor implements BlobContainer.FileVisitor {
+    private class BlobEntryVisitor implements BlobDigestIndex.EntryVisitor {
 
         private final InputRow row = new InputRow(inputs);
 
         @Override
-        public boolean visit(File file) throws IOException {
+        public boolean visit(BlobDigestIndex.Entry entry) throws IOException {
             if (killed) {
                 throw new CancellationException();
             }
             for (BlobCollectorExpression expression : expressions) {
-                expression.setNextBlob(file);
+                expression.setNextBlob(entry);
             }
             if (condition.value()) {
                 return downstream.setNextRow(row);
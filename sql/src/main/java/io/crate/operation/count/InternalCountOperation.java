@@ -26,6 +26,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.crate.analyze.WhereClause;
 import io.crate.lucene.LuceneQueryBuilder;
+import io.crate.operation.CrateThreadPools;
 import io.crate.operation.ThreadPools;
 import io.crate.operation.collect.EngineSearcher;
 import org.elasticsearch.cache.recycler.CacheRecycler;
@@ -65,8 +66,7 @@ public class InternalCountOperation implements CountOperation {
     private final LuceneQueryBuilder queryBuilder;
     private final BigArrays bigArrays;
     private final IndicesService indicesService;
-    private final ThreadPoolExecutor executor;
-    private final int corePoolSize;
+    private final CrateThreadPools crateThreadPools;
     private final ThreadPool threadPool;
 
     @Inject
@@ -77,6 +77,7 @@ public class InternalCountOperation implements CountOperation {
                                   LuceneQueryBuilder queryBuilder,
                                   BigArrays bigArrays,
                                   ThreadPool threadPool,
+                                  CrateThreadPools crateThreadPools,
                                   IndicesService indicesService) {
         this.clusterService = clusterService;
         this.scriptService = scriptService;
@@ -85,8 +86,7 @@ public class InternalCountOperation implements CountOperation {
         this.queryBuilder = queryBuilder;
         this.bigArrays = bigArrays;
         this.threadPool = threadPool;
-        executor = (ThreadPoolExecutor) threadPool.executor(ThreadPool.Names.SEARCH);
-        corePoolSize = executor.getCorePoolSize();
+        this.crateThreadPools = crateThreadPools;
         this.indicesService = indicesService;
     }
 
@@ -106,8 +106,10 @@ public class InternalCountOperation implements CountOperation {
                 });
             }
         }
+        crateThreadPools.admit(CrateThreadPools.Pool.INTERACTIVE);
+        ThreadPoolExecutor executor = crateThreadPools.executor(CrateThreadPools.Pool.INTERACTIVE);
         ListenableFuture<List<Long>> listListenableFuture = ThreadPools.runWithAvailableThreads(
-                executor, corePoolSize, callableList, new MergePartialCountFunction());
+                executor, executor.getCorePoolSize(), callableList, new MergePartialCountFunction());
 
         return Futures.transform(listListenableFuture, new MergePartialCountFunction());
     }
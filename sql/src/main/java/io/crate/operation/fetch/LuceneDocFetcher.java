@@ -24,6 +24,7 @@ package io.crate.operation.fetch;
 import io.crate.action.sql.query.CrateSearchContext;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.Row;
 import io.crate.operation.*;
 import io.crate.operation.collect.JobFetchShardContext;
 import io.crate.operation.collect.LuceneDocCollector;
@@ -74,7 +75,7 @@ public class LuceneDocFetcher implements RowUpstream {
         }
     }
 
-    private boolean fetch(int position, int doc) throws Exception {
+    private Row fetch(int position, int doc) throws Exception {
         if (ramAccountingContext != null && ramAccountingContext.trippedBreaker()) {
             // stop fetching because breaker limit was reached
             throw new UnexpectedFetchTerminatedException(
@@ -88,7 +89,7 @@ public class LuceneDocFetcher implements RowUpstream {
         for (LuceneCollectorExpression e : collectorExpressions) {
             e.setNextDocId(doc);
         }
-        return downstream.setNextRow(new PositionalRowDelegate(inputRow, position));
+        return new PositionalRowDelegate(inputRow, position);
     }
 
     public void doFetch(RamAccountingContext ramAccountingContext) {
@@ -105,16 +106,25 @@ public class LuceneDocFetcher implements RowUpstream {
         visitorEnabled = fieldsVisitor.required();
 
         try {
-            for (int index = 0; index < shardDocIdsBucket.size(); index++) {
+            // read the documents ordered by doc id (segment by segment, sequential stored field access)
+            // but emit them in the requested order
+            Row[] rows = new Row[shardDocIdsBucket.size()];
+            List<AtomicReaderContext> leaves = searchContext.searcher().getIndexReader().leaves();
+            AtomicReaderContext subReaderContext = null;
+            int subReaderEnd = -1;
+            for (int index : shardDocIdsBucket.docIdOrder()) {
                 shardContext.interruptIfKilled();
 
                 int docId = shardDocIdsBucket.docId(index);
-                int readerIndex = ReaderUtil.subIndex(docId, searchContext.searcher().getIndexReader().leaves());
-                AtomicReaderContext subReaderContext = searchContext.searcher().getIndexReader().leaves().get(readerIndex);
-                int subDoc = docId - subReaderContext.docBase;
-                setNextReader(subReaderContext);
-                boolean needMoreRows = fetch(shardDocIdsBucket.position(index), subDoc);
-                if (!needMoreRows) {
+                if (docId >= subReaderEnd) {
+                    subReaderContext = leaves.get(ReaderUtil.subIndex(docId, leaves));
+                    subReaderEnd = subReaderContext.docBase + subReaderContext.reader().maxDoc();
+                    setNextReader(subReaderContext);
+                }
+                rows[index] = fetch(shardDocIdsBucket.position(index), docId - subReaderContext.docBase);
+            }
+            for (Row row : rows) {
+                if (!downstream.setNextRow(row)) {
                     break;
                 }
             }
@@ -32,6 +32,7 @@ import io.crate.breaker.RamAccountingContext;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobExecutionContext;
 import io.crate.metadata.Functions;
+import io.crate.operation.CrateThreadPools;
 import io.crate.operation.Input;
 import io.crate.operation.RowDownstream;
 import io.crate.operation.RowUpstream;
@@ -44,10 +45,10 @@ import io.crate.operation.reference.doc.lucene.LuceneDocLevelReferenceResolver;
 import io.crate.planner.symbol.Reference;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
-import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
@@ -64,9 +65,8 @@ public class NodeFetchOperation implements RowUpstream {
 
     private final JobContextService jobContextService;
     private final RamAccountingContext ramAccountingContext;
-    private final CollectInputSymbolVisitor<?> docInputSymbolVisitor;
+    private final Functions functions;
     private final ThreadPoolExecutor executor;
-    private final int poolSize;
 
     private int inputCursor = 0;
 
@@ -78,7 +78,7 @@ public class NodeFetchOperation implements RowUpstream {
                               List<Reference> toFetchReferences,
                               boolean closeContext,
                               JobContextService jobContextService,
-                              ThreadPool threadPool,
+                              CrateThreadPools crateThreadPools,
                               Functions functions,
                               RamAccountingContext ramAccountingContext) {
         this.jobId = jobId;
@@ -87,14 +87,10 @@ public class NodeFetchOperation implements RowUpstream {
         this.closeContext = closeContext;
         this.jobContextService = jobContextService;
         this.ramAccountingContext = ramAccountingContext;
-        executor = (ThreadPoolExecutor) threadPool.executor(ThreadPool.Names.SEARCH);
-        poolSize = executor.getCorePoolSize();
+        // fetching is part of a select statement which already passed the admission control
+        executor = crateThreadPools.executor(CrateThreadPools.Pool.INTERACTIVE);
 
-        DocLevelReferenceResolver<? extends Input<?>> resolver = new LuceneDocLevelReferenceResolver(null);
-        this.docInputSymbolVisitor = new CollectInputSymbolVisitor<>(
-                functions,
-                resolver
-        );
+        this.functions = functions;
 
         createShardBuckets(jobSearchContextDocIds);
     }
@@ -132,6 +128,10 @@ public class NodeFetchOperation implements RowUpstream {
                 throw new IllegalArgumentException(errorMsg);
             }
             // create new collect expression for every shard (collect expressions are not thread-safe)
+            // the resolver needs the mapping of the shard to read columns which are stored as doc values
+            DocLevelReferenceResolver<? extends Input<?>> resolver =
+                    new LuceneDocLevelReferenceResolver(shardContext.searchContext().mapperService());
+            CollectInputSymbolVisitor<?> docInputSymbolVisitor = new CollectInputSymbolVisitor<>(functions, resolver);
             CollectInputSymbolVisitor.Context docCtx = docInputSymbolVisitor.extractImplementations(toFetchReferences);
             shardFetchers.add(
                     new LuceneDocFetcher(
@@ -159,7 +159,7 @@ public class NodeFetchOperation implements RowUpstream {
 
         ThreadPools.runWithAvailableThreads(
                 executor,
-                poolSize,
+                executor.getCorePoolSize(),
                 Lists.transform(shardFetchers, new Function<LuceneDocFetcher, Runnable>() {
 
                     @Nullable
@@ -197,6 +197,25 @@ public class NodeFetchOperation implements RowUpstream {
         public int position(int idx) {
             return positions.get(idx);
         }
+
+        /**
+         * @return the indices of this bucket ordered by doc id, so documents can be read
+         *         segment by segment and in the order they are stored
+         */
+        public int[] docIdOrder() {
+            int size = docIds.size();
+            long[] docIdsAndIndices = new long[size];
+            for (int i = 0; i < size; i++) {
+                // doc ids are never negative, so sorting the packed longs sorts by doc id
+                docIdsAndIndices[i] = ((long) docIds.get(i) << 32) | i;
+            }
+            Arrays.sort(docIdsAndIndices);
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = (int) docIdsAndIndices[i];
+            }
+            return order;
+        }
     }
 
 }
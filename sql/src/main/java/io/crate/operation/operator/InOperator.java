@@ -23,14 +23,18 @@ package io.crate.operation.operator;
 import com.google.common.collect.ImmutableList;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Scalar;
 import io.crate.operation.Input;
 import io.crate.planner.symbol.Function;
 import io.crate.planner.symbol.Literal;
 import io.crate.planner.symbol.Symbol;
+import io.crate.planner.symbol.SymbolType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.SetType;
 
+import javax.annotation.Nullable;
+import java.util.List;
 import java.util.Set;
 
 public class InOperator extends Operator<Object> {
@@ -38,9 +42,15 @@ public class InOperator extends Operator<Object> {
     public static final String NAME = "op_in";
 
     private final FunctionInfo info;
+    private final MembershipSet membershipSet;
 
     public InOperator(FunctionInfo info) {
+        this(info, null);
+    }
+
+    private InOperator(FunctionInfo info, @Nullable MembershipSet membershipSet) {
         this.info = info;
+        this.membershipSet = membershipSet;
     }
 
     public static void register(OperatorModule module) {
@@ -77,6 +87,23 @@ public class InOperator extends Operator<Object> {
         return Literal.newLiteral(true);
     }
 
+    @Override
+    public Scalar<Boolean, Object> compile(List<Symbol> arguments) {
+        assert arguments.size() == 2;
+        if (arguments.get(1).symbolType() != SymbolType.LITERAL) {
+            return this;
+        }
+        Set<?> values = (Set<?>) ((Literal) arguments.get(1)).value();
+        if (values == null) {
+            return this;
+        }
+        MembershipSet membershipSet = MembershipSet.of(info.ident().argumentTypes().get(0), values);
+        if (membershipSet == null) {
+            return this;
+        }
+        return new InOperator(info, membershipSet);
+    }
+
     @Override
     public Boolean evaluate(Input<Object>... args) {
         assert (args != null);
@@ -84,6 +111,12 @@ public class InOperator extends Operator<Object> {
         assert (args[0] != null && args[1] != null);
 
         Object inValue = args[0].value();
+        if (membershipSet != null) {
+            if (inValue == null || membershipSet.containsNull()) {
+                return null;
+            }
+            return membershipSet.contains(inValue);
+        }
         Set<?> inList = (Set<?>)args[1].value();
 
         if (inValue == null || inList == null || inList.contains(null)) {
@@ -0,0 +1,289 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.operator;
+
+import com.carrotsearch.hppc.IntOpenHashSet;
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongOpenHashSet;
+import io.crate.types.*;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefHash;
+import org.apache.lucene.util.FixedBitSet;
+
+import javax.annotation.Nullable;
+
+/**
+ * Set of literal values used to evaluate membership checks like <code>x IN (1, 2, 3)</code>
+ * and <code>x = ANY([1, 2, 3])</code>.
+ *
+ * Built once when the operator is compiled. Compared to a <code>Set&lt;Object&gt;</code>
+ * the values are stored unboxed:
+ * <ul>
+ *     <li>integral numbers and timestamps in a bitset if they form a dense range,
+ *     otherwise in an int or long hash set</li>
+ *     <li>doubles and floats by their bits, which matches {@link Double#equals(Object)}
+ *     and {@link Float#equals(Object)}</li>
+ *     <li>strings in a {@link BytesRefHash} which doesn't need an object per value</li>
+ * </ul>
+ * Null values are not stored, whether the values contained null is available using {@link #containsNull()}.
+ */
+public abstract class MembershipSet {
+
+    /**
+     * integral values are stored in a bitset if the range of the values
+     * is at most this many times as large as the number of values
+     */
+    static final int MAX_BITSET_SPARSENESS = 8;
+
+    private final boolean containsNull;
+
+    protected MembershipSet(boolean containsNull) {
+        this.containsNull = containsNull;
+    }
+
+    /**
+     * @param type the type of the values
+     * @return the set or null if there is no specialized set for the type
+     */
+    @Nullable
+    public static MembershipSet of(DataType type, Iterable<?> values) {
+        switch (type.id()) {
+            case LongType.ID:
+            case TimestampType.ID:
+            case IntegerType.ID:
+            case ShortType.ID:
+            case ByteType.ID:
+                return integral(values);
+            case DoubleType.ID:
+                return doubles(values);
+            case FloatType.ID:
+                return floats(values);
+            case StringType.ID:
+            case IpType.ID:
+                return bytesRefs(values);
+            default:
+                return null;
+        }
+    }
+
+    private static MembershipSet integral(Iterable<?> values) {
+        boolean containsNull = false;
+        LongArrayList longs = new LongArrayList();
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (Object value : values) {
+            if (value == null) {
+                containsNull = true;
+                continue;
+            }
+            long longValue = ((Number) value).longValue();
+            min = Math.min(min, longValue);
+            max = Math.max(max, longValue);
+            longs.add(longValue);
+        }
+        if (longs.isEmpty()) {
+            return new Empty(containsNull);
+        }
+        // max - min may overflow, which results in a negative range
+        long range = max - min + 1;
+        if (range > 0 && range <= Integer.MAX_VALUE && range <= (long) longs.size() * MAX_BITSET_SPARSENESS) {
+            FixedBitSet bits = new FixedBitSet((int) range);
+            for (int i = 0; i < longs.size(); i++) {
+                bits.set((int) (longs.get(i) - min));
+            }
+            return new DenseRange(containsNull, bits, min, max);
+        }
+        if (min >= Integer.MIN_VALUE && max <= Integer.MAX_VALUE) {
+            IntOpenHashSet ints = new IntOpenHashSet(longs.size());
+            for (int i = 0; i < longs.size(); i++) {
+                ints.add((int) longs.get(i));
+            }
+            return new Ints(containsNull, ints);
+        }
+        LongOpenHashSet set = new LongOpenHashSet(longs.size());
+        for (int i = 0; i < longs.size(); i++) {
+            set.add(longs.get(i));
+        }
+        return new Longs(containsNull, set);
+    }
+
+    private static MembershipSet doubles(Iterable<?> values) {
+        boolean containsNull = false;
+        LongOpenHashSet set = new LongOpenHashSet();
+        for (Object value : values) {
+            if (value == null) {
+                containsNull = true;
+            } else {
+                set.add(Double.doubleToLongBits(((Number) value).doubleValue()));
+            }
+        }
+        return new Doubles(containsNull, set);
+    }
+
+    private static MembershipSet floats(Iterable<?> values) {
+        boolean containsNull = false;
+        IntOpenHashSet set = new IntOpenHashSet();
+        for (Object value : values) {
+            if (value == null) {
+                containsNull = true;
+            } else {
+                set.add(Float.floatToIntBits(((Number) value).floatValue()));
+            }
+        }
+        return new Floats(containsNull, set);
+    }
+
+    private static MembershipSet bytesRefs(Iterable<?> values) {
+        boolean containsNull = false;
+        BytesRefHash hash = new BytesRefHash();
+        for (Object value : values) {
+            if (value == null) {
+                containsNull = true;
+            } else {
+                hash.add((BytesRef) value);
+            }
+        }
+        return new BytesRefs(containsNull, hash);
+    }
+
+    /**
+     * @return true if the values the set was built from contained null
+     */
+    public boolean containsNull() {
+        return containsNull;
+    }
+
+    /**
+     * @param value a value of the type the set was built for, must not be null
+     */
+    public abstract boolean contains(Object value);
+
+    static class Empty extends MembershipSet {
+
+        Empty(boolean containsNull) {
+            super(containsNull);
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return false;
+        }
+    }
+
+    static class DenseRange extends MembershipSet {
+
+        private final FixedBitSet bits;
+        private final long min;
+        private final long max;
+
+        DenseRange(boolean containsNull, FixedBitSet bits, long min, long max) {
+            super(containsNull);
+            this.bits = bits;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            long longValue = ((Number) value).longValue();
+            return longValue >= min && longValue <= max && bits.get((int) (longValue - min));
+        }
+    }
+
+    static class Ints extends MembershipSet {
+
+        private final IntOpenHashSet set;
+
+        Ints(boolean containsNull, IntOpenHashSet set) {
+            super(containsNull);
+            this.set = set;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            long longValue = ((Number) value).longValue();
+            return longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE
+                   && set.contains((int) longValue);
+        }
+    }
+
+    static class Longs extends MembershipSet {
+
+        private final LongOpenHashSet set;
+
+        Longs(boolean containsNull, LongOpenHashSet set) {
+            super(containsNull);
+            this.set = set;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return set.contains(((Number) value).longValue());
+        }
+    }
+
+    static class Doubles extends MembershipSet {
+
+        private final LongOpenHashSet set;
+
+        Doubles(boolean containsNull, LongOpenHashSet set) {
+            super(containsNull);
+            this.set = set;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return set.contains(Double.doubleToLongBits(((Number) value).doubleValue()));
+        }
+    }
+
+    static class Floats extends MembershipSet {
+
+        private final IntOpenHashSet set;
+
+        Floats(boolean containsNull, IntOpenHashSet set) {
+            super(containsNull);
+            this.set = set;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return set.contains(Float.floatToIntBits(((Number) value).floatValue()));
+        }
+    }
+
+    static class BytesRefs extends MembershipSet {
+
+        private final BytesRefHash hash;
+
+        BytesRefs(boolean containsNull, BytesRefHash hash) {
+            super(containsNull);
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            return hash.find((BytesRef) value) >= 0;
+        }
+    }
+}
@@ -23,10 +23,19 @@ package io.crate.operation.operator.any;
 
 import io.crate.metadata.FunctionImplementation;
 import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Scalar;
+import io.crate.operation.Input;
+import io.crate.operation.operator.MembershipSet;
 import io.crate.operation.operator.OperatorModule;
 import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Symbol;
+import io.crate.planner.symbol.SymbolType;
 import io.crate.sql.tree.ComparisonExpression;
 
+import javax.annotation.Nullable;
+import java.util.List;
+
 public class AnyEqOperator extends AnyOperator<AnyEqOperator> {
 
     public static final String NAME = OPERATOR_PREFIX + ComparisonExpression.Type.EQUAL.getValue();
@@ -48,8 +57,52 @@ public class AnyEqOperator extends AnyOperator<AnyEqOperator> {
         module.registerDynamicOperatorFunction(NAME, new AnyEqResolver());
     }
 
+    private final MembershipSet membershipSet;
+
     protected AnyEqOperator(FunctionInfo functionInfo) {
+        this(functionInfo, null);
+    }
+
+    private AnyEqOperator(FunctionInfo functionInfo, @Nullable MembershipSet membershipSet) {
         super(functionInfo);
+        this.membershipSet = membershipSet;
+    }
+
+    @Override
+    public Scalar<Boolean, Object> compile(List<Symbol> arguments) {
+        assert arguments.size() == 2;
+        if (arguments.get(1).symbolType() != SymbolType.LITERAL) {
+            return this;
+        }
+        Object collection = ((Literal) arguments.get(1)).value();
+        if (collection == null) {
+            return this;
+        }
+        Iterable<?> values;
+        try {
+            values = collectionValueToIterable(collection);
+        } catch (IllegalArgumentException e) {
+            return this;
+        }
+        MembershipSet membershipSet = MembershipSet.of(functionInfo.ident().argumentTypes().get(0), values);
+        if (membershipSet == null) {
+            return this;
+        }
+        return new AnyEqOperator(functionInfo, membershipSet);
+    }
+
+    @Override
+    public Boolean evaluate(Input<Object>... args) {
+        if (membershipSet == null) {
+            return super.evaluate(args);
+        }
+        assert args.length == 2;
+        Object value = args[0].value();
+        if (value == null) {
+            return null;
+        }
+        // null elements are ignored, see doEvaluate
+        return membershipSet.contains(value);
     }
 
     @Override
@@ -67,11 +67,10 @@ public class FetchProjector implements Projector, RowDownstreamHandle {
     private final IntObjectOpenHashMap<ShardId> jobSearchContextIdToShard;
     private final int bulkSize;
     private final boolean closeContexts;
-    private final RowDelegate collectRowDelegate = new RowDelegate();
-    private final RowDelegate fetchRowDelegate = new RowDelegate();
-    private final RowDelegate partitionRowDelegate = new RowDelegate();
-    private final Object rowDelegateLock = new Object();
-    private final Row outputRow;
+    private final RowInputSymbolVisitor rowInputSymbolVisitor;
+    private final List<Symbol> inputSymbols;
+    private final List<Symbol> outputSymbols;
+    private final int numOutputs;
     private final Map<Integer, NodeBucket> nodeBuckets = new HashMap<>();
     private final AtomicInteger remainingUpstreams = new AtomicInteger(0);
     private final AtomicBoolean consumingRows = new AtomicBoolean(true);
@@ -83,7 +82,6 @@ public class FetchProjector implements Projector, RowDownstreamHandle {
 
     private int inputCursor = 0;
     private boolean consumedRows = false;
-    private boolean needInputRow = false;
 
     private static final ESLogger LOGGER = Loggers.getLogger(FetchProjector.class);
 
@@ -114,37 +112,13 @@ public class FetchProjector implements Projector, RowDownstreamHandle {
         numNodes = executionNodes.size();
         this.executionNodes = new ArrayList<>(executionNodes);
 
-        RowInputSymbolVisitor rowInputSymbolVisitor = new RowInputSymbolVisitor(functions);
+        this.inputSymbols = inputSymbols;
+        this.outputSymbols = outputSymbols;
+        this.rowInputSymbolVisitor = new RowInputSymbolVisitor(functions);
 
-        RowInputSymbolVisitor.Context collectRowContext = new RowInputSymbolVisitor.Context();
-        collectRowContext.row(collectRowDelegate);
-        collectRowContext.partitionedBy(partitionedBy);
-        collectRowContext.partitionByRow(partitionRowDelegate);
-
-        RowInputSymbolVisitor.Context fetchRowContext = new RowInputSymbolVisitor.Context();
-        fetchRowContext.row(fetchRowDelegate);
-        fetchRowContext.partitionedBy(partitionedBy);
-        fetchRowContext.partitionByRow(partitionRowDelegate);
-
-        // process input symbols (increase input index for every reference)
-        for (Symbol symbol : inputSymbols) {
-            rowInputSymbolVisitor.process(symbol, collectRowContext);
-        }
-
-        // process output symbols, use different contexts (and so different row delegates)
-        // for collect(inputSymbols) & fetch
-        List<Input<?>> inputs = new ArrayList<>(outputSymbols.size());
-        for (Symbol symbol : outputSymbols) {
-            if (inputSymbols.contains(symbol)) {
-                needInputRow = true;
-                inputs.add(rowInputSymbolVisitor.process(symbol, collectRowContext));
-            } else {
-                inputs.add(rowInputSymbolVisitor.process(symbol, fetchRowContext));
-            }
-        }
-        toFetchReferences = fetchRowContext.references();
-
-        outputRow = new InputRow(inputs);
+        ResponseRow responseRow = new ResponseRow();
+        toFetchReferences = responseRow.fetchReferences;
+        numOutputs = responseRow.outputRow.size();
     }
 
     @Override
@@ -192,7 +166,7 @@ public class FetchProjector implements Projector, RowDownstreamHandle {
 
     @Override
     public void downstream(RowDownstream downstream) {
-        this.downstream = new PositionalBucketMerger(downstream, numNodes, outputRow.size());
+        this.downstream = new PositionalBucketMerger(downstream, numNodes, numOutputs);
     }
 
     @Override
@@ -268,25 +242,25 @@ public class FetchProjector implements Projector, RowDownstreamHandle {
             @Override
             public void onResponse(NodeFetchResponse response) {
                 List<Row> rows = new ArrayList<>(response.rows().size());
+                // responses of different nodes are processed concurrently, each one with its own row
+                ResponseRow responseRow = new ResponseRow();
                 int idx = 0;
-                synchronized (rowDelegateLock) {
-                    for (Row row : response.rows()) {
-                        fetchRowDelegate.delegate(row);
-                        if (needInputRow) {
-                            collectRowDelegate.delegate(nodeBucket.inputRow(idx));
-                        }
-                        Row partitionRow = nodeBucket.partitionRow(idx);
-                        if (partitionRow != null) {
-                            partitionRowDelegate.delegate(partitionRow);
-                        }
-                        try {
-                            rows.add(new PositionalRowDelegate(outputRow, nodeBucket.cursor(idx)));
-                        } catch (Throwable e) {
-                            onFailure(e);
-                            return;
-                        }
-                        idx++;
+                for (Row row : response.rows()) {
+                    responseRow.fetchRowDelegate.delegate(row);
+                    if (responseRow.needInputRow) {
+                        responseRow.collectRowDelegate.delegate(nodeBucket.inputRow(idx));
+                    }
+                    Row partitionRow = nodeBucket.partitionRow(idx);
+                    if (partitionRow != null) {
+                        responseRow.partitionRowDelegate.delegate(partitionRow);
+                    }
+                    try {
+                        rows.add(new PositionalRowDelegate(responseRow.outputRow, nodeBucket.cursor(idx)));
+                    } catch (Throwable e) {
+                        onFailure(e);
+                        return;
                     }
+                    idx++;
                 }
                 if (!downstream.setNextBucket(rows, nodeBucket.nodeIdx)) {
                     consumingRows.set(false);
@@ -329,6 +303,51 @@ public class FetchProjector implements Projector, RowDownstreamHandle {
         }
     }
 
+    /**
+     * Output row of the projector. The fetched row, the collected input row and the partition values
+     * are combined using delegates which are set for every row of a fetch response.
+     */
+    private class ResponseRow {
+
+        private final RowDelegate collectRowDelegate = new RowDelegate();
+        private final RowDelegate fetchRowDelegate = new RowDelegate();
+        private final RowDelegate partitionRowDelegate = new RowDelegate();
+        private final Row outputRow;
+        private final List<Reference> fetchReferences;
+        private boolean needInputRow = false;
+
+        ResponseRow() {
+            RowInputSymbolVisitor.Context collectRowContext = new RowInputSymbolVisitor.Context();
+            collectRowContext.row(collectRowDelegate);
+            collectRowContext.partitionedBy(partitionedBy);
+            collectRowContext.partitionByRow(partitionRowDelegate);
+
+            RowInputSymbolVisitor.Context fetchRowContext = new RowInputSymbolVisitor.Context();
+            fetchRowContext.row(fetchRowDelegate);
+            fetchRowContext.partitionedBy(partitionedBy);
+            fetchRowContext.partitionByRow(partitionRowDelegate);
+
+            // process input symbols (increase input index for every reference)
+            for (Symbol symbol : inputSymbols) {
+                rowInputSymbolVisitor.process(symbol, collectRowContext);
+            }
+
+            // process output symbols, use different contexts (and so different row delegates)
+            // for collect(inputSymbols) & fetch
+            List<Input<?>> inputs = new ArrayList<>(outputSymbols.size());
+            for (Symbol symbol : outputSymbols) {
+                if (inputSymbols.contains(symbol)) {
+                    needInputRow = true;
+                    inputs.add(rowInputSymbolVisitor.process(symbol, collectRowContext));
+                } else {
+                    inputs.add(rowInputSymbolVisitor.process(symbol, fetchRowContext));
+                }
+            }
+            fetchReferences = fetchRowContext.references();
+            outputRow = new InputRow(inputs);
+        }
+    }
+
     private static class NodeBucket {
 
         private final int nodeIdx;
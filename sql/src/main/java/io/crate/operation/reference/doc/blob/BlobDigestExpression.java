@@ -30,7 +30,7 @@ public class BlobDigestExpression extends BlobCollectorExpression<BytesRef> {
 
     @Override
     public BytesRef value() {
-        return new BytesRef(blob.getName());
+        return new BytesRef(blob.digest());
     }
 
 }
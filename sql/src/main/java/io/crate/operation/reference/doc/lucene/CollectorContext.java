@@ -31,6 +31,7 @@ public class CollectorContext {
     private SearchLookup searchLookup;
     private LuceneDocCollector.CollectorFieldsVisitor fieldsVisitor;
     private int jobSearchContextId;
+    private SourcePathExtractor sourcePathExtractor;
 
     public CollectorContext() {
     }
@@ -63,6 +64,17 @@ public class CollectorContext {
         return jobSearchContextId;
     }
 
+    /**
+     * the extractor shared by all expressions of this context which read values from the source,
+     * the visitor must be set before it is requested the first time
+     */
+    public SourcePathExtractor sourcePathExtractor() {
+        if (sourcePathExtractor == null) {
+            sourcePathExtractor = new SourcePathExtractor(fieldsVisitor);
+        }
+        return sourcePathExtractor;
+    }
+
     public CollectorContext searchLookup(SearchLookup searchLookup) {
         this.searchLookup = searchLookup;
         return this;
@@ -28,7 +28,6 @@ import io.crate.operation.collect.LuceneDocCollector;
 import io.crate.operation.reference.doc.ColumnReferenceExpression;
 import org.apache.lucene.index.AtomicReaderContext;
 import org.elasticsearch.common.xcontent.XContentHelper;
-import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.util.Map;
 
@@ -58,12 +57,7 @@ public class DocCollectorExpression extends
 
         assert referenceInfo.ident().columnIdent().path().size() > 0;
         final String fqn = Joiner.on(".").join(referenceInfo.ident().columnIdent().path());
-        return new ChildDocCollectorExpression() {
-
-            @Override
-            public void startCollect(CollectorContext context) {
-                super.startCollect(context);
-            }
+        return new ChildDocCollectorExpression(fqn) {
 
             @Override
             public Object value() {
@@ -71,7 +65,7 @@ public class DocCollectorExpression extends
                 // for example:
                 //      sourceExtractor might read byte as int and
                 //      then eq(byte, byte) would get eq(byte, int) and fail
-                return referenceInfo.type().value(sourceLookup.extractValue(fqn));
+                return referenceInfo.type().value(sourceValue());
             }
         };
     }
@@ -79,21 +73,32 @@ public class DocCollectorExpression extends
     public abstract static class ChildDocCollectorExpression<ReturnType> extends
             LuceneCollectorExpression<ReturnType> implements ColumnReferenceExpression {
 
-        protected SourceLookup sourceLookup;
+        private final String path;
+        private SourcePathExtractor sourcePathExtractor;
+        private int slot;
+
+        protected ChildDocCollectorExpression(String path) {
+            this.path = path;
+        }
 
         @Override
         public void setNextDocId(int doc) {
-            sourceLookup.setNextDocId(doc);
+            sourcePathExtractor.setNextDocId(doc);
         }
 
         @Override
         public void setNextReader(AtomicReaderContext context) {
-            sourceLookup.setNextReader(context);
+            sourcePathExtractor.setNextReader(context);
         }
 
         @Override
         public void startCollect(CollectorContext context) {
-            sourceLookup = context.searchLookup().source();
+            sourcePathExtractor = context.sourcePathExtractor();
+            slot = sourcePathExtractor.register(path);
+        }
+
+        protected Object sourceValue() {
+            return sourcePathExtractor.value(slot);
         }
     }
 }
@@ -23,13 +23,13 @@ package io.crate.operation.reference.doc.lucene;
 
 
 import org.apache.lucene.index.AtomicReaderContext;
-import org.elasticsearch.search.lookup.SourceLookup;
 
 import java.util.Map;
 
 public class ObjectColumnReference extends ColumnReferenceCollectorExpression<Map<String, Object>> {
 
-    protected SourceLookup sourceLookup;
+    private SourcePathExtractor sourcePathExtractor;
+    private int slot;
 
     public ObjectColumnReference(String columnName) {
         super(columnName);
@@ -37,22 +37,23 @@ public class ObjectColumnReference extends ColumnReferenceCollectorExpression<Ma
 
     @Override
     public void setNextDocId(int doc) {
-        sourceLookup.setNextDocId(doc);
+        sourcePathExtractor.setNextDocId(doc);
     }
 
     @Override
     public void setNextReader(AtomicReaderContext context) {
-        sourceLookup.setNextReader(context);
+        sourcePathExtractor.setNextReader(context);
     }
 
     @Override
     public void startCollect(CollectorContext context) {
-        sourceLookup = context.searchContext().lookup().source();
+        sourcePathExtractor = context.sourcePathExtractor();
+        slot = sourcePathExtractor.register(columnName);
     }
 
-
+    @SuppressWarnings("unchecked")
     @Override
     public Map<String, Object> value() {
-        return (Map<String, Object>)sourceLookup.extractValue(columnName);
+        return (Map<String, Object>) sourcePathExtractor.value(slot);
     }
 }
@@ -0,0 +1,266 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.doc.lucene;
+
+import io.crate.operation.collect.LuceneDocCollector;
+import org.apache.lucene.index.AtomicReader;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Extracts the values of the registered paths (e.g. <code>o.a.b</code>) from the source of a document.
+ *
+ * One extractor is shared by all expressions of a {@link CollectorContext},
+ * so the source of a document is parsed at most once, no matter how many columns are read from it.
+ * Parsing is done using a streaming parser which skips all fields that aren't part of a registered
+ * path and stops as soon as the values of all paths have been found.
+ * Only the values of the registered paths are materialized, the source is never converted into a map as a whole.
+ */
+public class SourcePathExtractor {
+
+    private final Node root = new Node(0);
+    private final List<String> paths = new ArrayList<>();
+    private final LuceneDocCollector.CollectorFieldsVisitor fieldsVisitor;
+    private final boolean ownsFieldsVisitor;
+
+    private Object[] values = new Object[0];
+    private int remaining;
+    private boolean extracted = false;
+
+    private AtomicReader reader;
+    private int docId = -1;
+
+    /**
+     * @param fieldsVisitor the visitor used by the collector to load the documents,
+     *                      if null the extractor loads the source itself
+     */
+    public SourcePathExtractor(@Nullable LuceneDocCollector.CollectorFieldsVisitor fieldsVisitor) {
+        if (fieldsVisitor == null) {
+            this.fieldsVisitor = new LuceneDocCollector.CollectorFieldsVisitor(0);
+            this.ownsFieldsVisitor = true;
+        } else {
+            this.fieldsVisitor = fieldsVisitor;
+            this.ownsFieldsVisitor = false;
+        }
+    }
+
+    /**
+     * register a path, paths are registered once, before any document is processed
+     *
+     * @param path the dotted path of the value inside the source
+     * @return the slot which is used to retrieve the value using {@link #value(int)}
+     */
+    public int register(String path) {
+        fieldsVisitor.required(true);
+        String[] elements = path.split("\\.");
+        Node node = root;
+        List<Node> nodesOnPath = new ArrayList<>(elements.length);
+        for (String element : elements) {
+            Node child = node.children.get(element);
+            if (child == null) {
+                child = new Node(node.depth + 1);
+                node.children.put(element, child);
+            }
+            node = child;
+            nodesOnPath.add(node);
+        }
+        if (node.slot < 0) {
+            node.slot = paths.size();
+            node.elements = elements;
+            paths.add(path);
+            values = new Object[paths.size()];
+            for (Node nodeOnPath : nodesOnPath) {
+                nodeOnPath.slotNodes.add(node);
+            }
+        }
+        return node.slot;
+    }
+
+    public void setNextReader(AtomicReaderContext context) {
+        reader = context.reader();
+        docId = -1;
+        extracted = false;
+    }
+
+    public void setNextDocId(int doc) {
+        if (doc != docId) {
+            docId = doc;
+            extracted = false;
+        }
+    }
+
+    /**
+     * @return the value of the path registered under the given slot for the current document
+     */
+    @Nullable
+    public Object value(int slot) {
+        if (!extracted) {
+            try {
+                extract(loadSource());
+            } catch (IOException e) {
+                throw new ElasticsearchParseException("failed to parse source", e);
+            }
+        }
+        return values[slot];
+    }
+
+    private BytesReference loadSource() throws IOException {
+        if (ownsFieldsVisitor) {
+            fieldsVisitor.reset();
+            reader.document(docId, fieldsVisitor);
+        }
+        return fieldsVisitor.source();
+    }
+
+    void extract(@Nullable BytesReference source) throws IOException {
+        extracted = true;
+        Arrays.fill(values, null);
+        remaining = values.length;
+        if (source == null || remaining == 0) {
+            return;
+        }
+        XContentParser parser = XContentHelper.createParser(source);
+        try {
+            if (parser.nextToken() == XContentParser.Token.START_OBJECT) {
+                parseObject(parser, root);
+            }
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * @return true if all values have been found and parsing can be stopped
+     */
+    private boolean parseObject(XContentParser parser, Node node) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) == XContentParser.Token.FIELD_NAME) {
+            Node child = node.children.get(parser.currentName());
+            token = parser.nextToken();
+            if (child == null) {
+                parser.skipChildren();
+            } else if (child.slot >= 0 || token == XContentParser.Token.START_ARRAY) {
+                // arrays are read as a whole, the values of the paths below are extracted
+                // from every element the same way as they would be extracted from a source map
+                if (fill(child, readValue(parser, token))) {
+                    return true;
+                }
+            } else if (token == XContentParser.Token.START_OBJECT) {
+                if (parseObject(parser, child)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean fill(Node node, @Nullable Object value) {
+        for (Node slotNode : node.slotNodes) {
+            values[slotNode.slot] = extractValue(slotNode.elements, node.depth, value);
+            remaining--;
+        }
+        return remaining == 0;
+    }
+
+    @Nullable
+    private static Object readValue(XContentParser parser, XContentParser.Token token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                return parser.map();
+            case START_ARRAY:
+                return parser.list();
+            case VALUE_STRING:
+                return parser.text();
+            case VALUE_NUMBER:
+                return parser.numberValue();
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.binaryValue();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * same semantic as {@link org.elasticsearch.common.xcontent.support.XContentMapValues#extractValue(String, Map)}
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static Object extractValue(String[] elements, int index, @Nullable Object value) {
+        if (index == elements.length) {
+            return value;
+        }
+        if (value instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) value;
+            String key = elements[index];
+            Object mapValue = map.get(key);
+            int nextIndex = index + 1;
+            while (mapValue == null && nextIndex != elements.length) {
+                key += "." + elements[nextIndex];
+                mapValue = map.get(key);
+                nextIndex++;
+            }
+            return extractValue(elements, nextIndex, mapValue);
+        }
+        if (value instanceof List) {
+            List<Object> valueList = new ArrayList<>();
+            for (Object o : (List) value) {
+                Object elementValue = extractValue(elements, index, o);
+                if (elementValue != null) {
+                    if (elementValue instanceof List) {
+                        valueList.addAll((List) elementValue);
+                    } else {
+                        valueList.add(elementValue);
+                    }
+                }
+            }
+            return valueList;
+        }
+        return null;
+    }
+
+    private static class Node {
+
+        private final int depth;
+        private final Map<String, Node> children = new HashMap<>();
+
+        /**
+         * this node and all nodes below it which have a slot
+         */
+        private final List<Node> slotNodes = new ArrayList<>();
+        private int slot = -1;
+        private String[] elements;
+
+        Node(int depth) {
+            this.depth = depth;
+        }
+    }
+}
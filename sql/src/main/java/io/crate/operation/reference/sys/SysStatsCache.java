@@ -0,0 +1,150 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.sys;
+
+import com.google.common.base.Supplier;
+import io.crate.core.AsyncCachedRef;
+import io.crate.metadata.settings.CrateSettings;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.monitor.jvm.JvmService;
+import org.elasticsearch.monitor.jvm.JvmStats;
+import org.elasticsearch.monitor.network.NetworkService;
+import org.elasticsearch.monitor.network.NetworkStats;
+import org.elasticsearch.monitor.os.OsService;
+import org.elasticsearch.monitor.os.OsStats;
+import org.elasticsearch.monitor.process.ProcessInfo;
+import org.elasticsearch.monitor.process.ProcessStats;
+import org.elasticsearch.node.service.NodeService;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Node wide snapshots of the statistics used by the sys.nodes expressions.
+ *
+ * Every snapshot is kept for <code>stats.sys_cache_ttl</code> and refreshed in the background
+ * afterwards, so that concurrent queries on the sys tables share the (partly expensive) stats
+ * calls instead of doing them on every request.
+ */
+public class SysStatsCache {
+
+    private final Executor executor;
+    private volatile long cacheTime;
+
+    private final AsyncCachedRef<OsStats> osStats;
+    private final AsyncCachedRef<ProcessInfo> processInfo;
+    private final AsyncCachedRef<ProcessStats> processStats;
+    private final AsyncCachedRef<JvmStats> jvmStats;
+    private final AsyncCachedRef<NetworkStats> networkStats;
+
+    @Inject
+    public SysStatsCache(final Settings settings,
+                         NodeSettingsService nodeSettingsService,
+                         ThreadPool threadPool,
+                         final OsService osService,
+                         final NodeService nodeService,
+                         final JvmService jvmService,
+                         final NetworkService networkService) {
+        this.executor = threadPool.executor(ThreadPool.Names.MANAGEMENT);
+        this.cacheTime = CrateSettings.STATS_SYS_CACHE_TTL.extractMillis(settings);
+
+        osStats = newRef(new Supplier<OsStats>() {
+            @Override
+            public OsStats get() {
+                return osService.stats();
+            }
+        });
+        processInfo = newRef(new Supplier<ProcessInfo>() {
+            @Override
+            public ProcessInfo get() {
+                return nodeService.info().getProcess();
+            }
+        });
+        processStats = newRef(new Supplier<ProcessStats>() {
+            @Override
+            public ProcessStats get() {
+                return nodeService.stats().getProcess();
+            }
+        });
+        jvmStats = newRef(new Supplier<JvmStats>() {
+            @Override
+            public JvmStats get() {
+                return jvmService.stats();
+            }
+        });
+        networkStats = newRef(new Supplier<NetworkStats>() {
+            @Override
+            public NetworkStats get() {
+                return networkService.stats();
+            }
+        });
+
+        nodeSettingsService.addListener(new NodeSettingsService.Listener() {
+            @Override
+            public void onRefreshSettings(Settings newSettings) {
+                cacheTime = CrateSettings.STATS_SYS_CACHE_TTL.extractMillis(
+                        ImmutableSettings.builder().put(settings).put(newSettings).build());
+            }
+        });
+    }
+
+    /**
+     * create a new reference that is cached and refreshed according to the <code>stats.sys_cache_ttl</code> setting
+     */
+    private <T> AsyncCachedRef<T> newRef(final Supplier<T> supplier) {
+        return new AsyncCachedRef<T>(executor) {
+            @Override
+            protected long cacheTime() {
+                return cacheTime;
+            }
+
+            @Override
+            protected T refresh() {
+                return supplier.get();
+            }
+        };
+    }
+
+    public OsStats osStats() {
+        return osStats.get();
+    }
+
+    public ProcessInfo processInfo() {
+        return processInfo.get();
+    }
+
+    public ProcessStats processStats() {
+        return processStats.get();
+    }
+
+    public JvmStats jvmStats() {
+        return jvmStats.get();
+    }
+
+    public NetworkStats networkStats() {
+        return networkStats.get();
+    }
+}
@@ -21,16 +21,33 @@
 
 package io.crate.operation.reference.sys.job;
 
+import io.crate.breaker.JobRamAccounting;
+
+import javax.annotation.Nullable;
 import java.util.UUID;
 
 public class JobContext {
     public UUID id;
     public String stmt;
     public long started;
+    @Nullable
+    public final JobRamAccounting ramAccounting;
 
     public JobContext(UUID id, String stmt, long started) {
+        this(id, stmt, started, null);
+    }
+
+    public JobContext(UUID id, String stmt, long started, @Nullable JobRamAccounting ramAccounting) {
         this.id = id;
         this.stmt = stmt;
         this.started = started;
+        this.ramAccounting = ramAccounting;
+    }
+
+    /**
+     * @return the bytes currently used by the job on this node
+     */
+    public long usedBytes() {
+        return ramAccounting == null ? 0L : ramAccounting.usedBytes();
     }
 }
@@ -25,6 +25,7 @@ import io.crate.metadata.RowContextCollectorExpression;
 import io.crate.metadata.ReferenceIdent;
 import io.crate.metadata.ReferenceInfo;
 import io.crate.operation.reference.DocLevelReferenceResolver;
+import io.crate.operation.reference.sys.latency.SysQueryLatencyExpression;
 import io.crate.operation.reference.sys.operation.SysOperationExpression;
 import io.crate.operation.reference.sys.operation.SysOperationLogExpression;
 import org.elasticsearch.common.inject.Singleton;
@@ -52,6 +53,9 @@ public class RowContextDocLevelReferenceResolver implements DocLevelReferenceRes
         for (SysOperationLogExpression<?> implementation : SysOperationLogExpression.IMPLEMENTATIONS) {
             implementations.put(implementation.info().ident(), implementation);
         }
+        for (SysQueryLatencyExpression<?> implementation : SysQueryLatencyExpression.IMPLEMENTATIONS) {
+            implementations.put(implementation.info().ident(), implementation);
+        }
     }
 
     /**
@@ -33,6 +33,7 @@ public abstract class SysJobExpression<T>
     private static final String ID = "id";
     private static final String STMT = "stmt";
     private static final String STARTED = "started";
+    private static final String USED_BYTES = "used_bytes";
 
     public static final ImmutableList<SysJobExpression<?>> IMPLEMENTATIONS
             = ImmutableList.<SysJobExpression<?>>builder()
@@ -54,6 +55,12 @@ public abstract class SysJobExpression<T>
                     return row.started;
                 }
             })
+            .add(new SysJobExpression<Long>(USED_BYTES) {
+                @Override
+                public Long value() {
+                    return row.usedBytes();
+                }
+            })
             .build();
 
 
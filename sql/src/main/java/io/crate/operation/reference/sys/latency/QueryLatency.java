@@ -0,0 +1,139 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.sys.latency;
+
+import io.crate.core.LatencyHistogram;
+
+import javax.annotation.Nullable;
+
+/**
+ * A snapshot of the latencies of one statement type and phase within a window,
+ * a row of the sys.query_latencies table.
+ *
+ * All latencies are in milliseconds.
+ */
+public class QueryLatency {
+
+    private final String type;
+    private final String phase;
+    private final long windowStarted;
+    private final Long windowEnded;
+    private final long count;
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final double p50;
+    private final double p75;
+    private final double p90;
+    private final double p95;
+    private final double p99;
+    private final double p999;
+
+    /**
+     * @param histogram histogram of the latencies in microseconds
+     */
+    public QueryLatency(String type,
+                        String phase,
+                        long windowStarted,
+                        @Nullable Long windowEnded,
+                        LatencyHistogram histogram) {
+        this.type = type;
+        this.phase = phase;
+        this.windowStarted = windowStarted;
+        this.windowEnded = windowEnded;
+        this.count = histogram.count();
+        this.min = toMillis(histogram.min());
+        this.max = toMillis(histogram.max());
+        this.mean = histogram.mean() / 1000.0d;
+        this.p50 = toMillis(histogram.valueAtPercentile(50.0d));
+        this.p75 = toMillis(histogram.valueAtPercentile(75.0d));
+        this.p90 = toMillis(histogram.valueAtPercentile(90.0d));
+        this.p95 = toMillis(histogram.valueAtPercentile(95.0d));
+        this.p99 = toMillis(histogram.valueAtPercentile(99.0d));
+        this.p999 = toMillis(histogram.valueAtPercentile(99.9d));
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0d;
+    }
+
+    public String type() {
+        return type;
+    }
+
+    public String phase() {
+        return phase;
+    }
+
+    public long windowStarted() {
+        return windowStarted;
+    }
+
+    /**
+     * @return the end of the window or null if it is the current one
+     */
+    @Nullable
+    public Long windowEnded() {
+        return windowEnded;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    public double p50() {
+        return p50;
+    }
+
+    public double p75() {
+        return p75;
+    }
+
+    public double p90() {
+        return p90;
+    }
+
+    public double p95() {
+        return p95;
+    }
+
+    public double p99() {
+        return p99;
+    }
+
+    public double p999() {
+        return p999;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.sys.latency;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.RowContextCollectorExpression;
+import io.crate.metadata.sys.SysQueryLatenciesTableInfo;
+import org.apache.lucene.util.BytesRef;
+
+public abstract class SysQueryLatencyExpression<T> extends RowContextCollectorExpression<QueryLatency, T> {
+
+    public static final ImmutableList<SysQueryLatencyExpression<?>> IMPLEMENTATIONS =
+            ImmutableList.<SysQueryLatencyExpression<?>>builder()
+            .add(new SysQueryLatencyExpression<BytesRef>(SysQueryLatenciesTableInfo.ColumnNames.TYPE) {
+                @Override
+                public BytesRef value() {
+                    return new BytesRef(row.type());
+                }
+            })
+            .add(new SysQueryLatencyExpression<BytesRef>(SysQueryLatenciesTableInfo.ColumnNames.PHASE) {
+                @Override
+                public BytesRef value() {
+                    return new BytesRef(row.phase());
+                }
+            })
+            .add(new SysQueryLatencyExpression<Long>(SysQueryLatenciesTableInfo.ColumnNames.WINDOW_STARTED) {
+                @Override
+                public Long value() {
+                    return row.windowStarted();
+                }
+            })
+            .add(new SysQueryLatencyExpression<Long>(SysQueryLatenciesTableInfo.ColumnNames.WINDOW_ENDED) {
+                @Override
+                public Long value() {
+                    return row.windowEnded();
+                }
+            })
+            .add(new SysQueryLatencyExpression<Long>(SysQueryLatenciesTableInfo.ColumnNames.COUNT) {
+                @Override
+                public Long value() {
+                    return row.count();
+                }
+            })
+            .add(new SysQueryLatencyExpression<Double>(SysQueryLatenciesTableInfo.ColumnNames.MIN) {
+                @Override
+                public Double value() {
+                    return row.min();
+                }
+            })
+            .add(new SysQueryLatencyExpression<Double>(SysQueryLatenciesTableInfo.ColumnNames.MAX) {
+                @Override
+                public Double value() {
+                    return row.max();
+                }
+            })
+            .add(new SysQueryLatencyExpression<Double>(SysQueryLatenciesTableInfo.ColumnNames.MEAN) {
+                @Override
+                public Double value() {
+                    return row.mean();
+                }
+            })
+            .add(new SysQueryLatencyExpression<Double>(SysQueryLatenciesTableInfo.ColumnNames.P50) {
+                @Override
+                public Double value() {
+                    return row.p50();
+                }
+            })
+            .add(new SysQueryLatencyExpression<Double>(SysQueryLatenciesTableInfo.ColumnNames.P75) {
+                @Override
+                public Double value() {
+                    return row.p75();
+                }
+            })
+            .add(new SysQueryLatencyExpression<Double>(SysQueryLatenciesTableInfo.ColumnNames.P90) {
+                @Override
+                public Double value() {
+                    return row.p90();
+                }
+            })
+            .add(new SysQueryLatencyExpression<Double>(SysQueryLatenciesTableInfo.ColumnNames.P95) {
+                @Override
+                public Double value() {
+                    return row.p95();
+                }
+            })
+            .add(new SysQueryLatencyExpression<Double>(SysQueryLatenciesTableInfo.ColumnNames.P99) {
+                @Override
+                public Double value() {
+                    return row.p99();
+                }
+            })
+            .add(new SysQueryLatencyExpression<Double>(SysQueryLatenciesTableInfo.ColumnNames.P999) {
+                @Override
+                public Double value() {
+                    return row.p999();
+                }
+            })
+            .build();
+
+    protected SysQueryLatencyExpression(String name) {
+        super(SysQueryLatenciesTableInfo.columnInfo(new ColumnIdent(name)));
+    }
+}
@@ -22,15 +22,14 @@
 package io.crate.operation.reference.sys.node;
 
 import io.crate.metadata.*;
+import io.crate.operation.CrateThreadPools;
 import io.crate.operation.reference.NestedObjectExpression;
+import io.crate.operation.reference.sys.SysStatsCache;
 import io.crate.operation.reference.sys.node.fs.NodeFsExpression;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.discovery.Discovery;
 import org.elasticsearch.env.NodeEnvironment;
-import org.elasticsearch.monitor.jvm.JvmService;
-import org.elasticsearch.monitor.network.NetworkService;
-import org.elasticsearch.monitor.os.OsService;
 import org.elasticsearch.monitor.os.OsStats;
 import org.elasticsearch.monitor.sigar.SigarService;
 import org.elasticsearch.node.service.NodeService;
@@ -41,10 +40,7 @@ import java.util.Collection;
 
 public class NodeSysExpression extends NestedObjectExpression {
 
-    private final NodeService nodeService;
-    private final OsService osService;
-    private final JvmService jvmService;
-    private final NetworkService networkService;
+    private final SysStatsCache statsCache;
 
     private static final Collection EXPRESSIONS_WITH_OS_STATS = Arrays.asList(
             NodeMemoryExpression.NAME,
@@ -55,17 +51,13 @@ public class NodeSysExpression extends NestedObjectExpression {
     @Inject
     public NodeSysExpression(ClusterService clusterService,
                              SigarService sigarService,
-                             OsService osService,
+                             SysStatsCache statsCache,
                              NodeService nodeService,
-                             JvmService jvmService,
-                             NetworkService networkService,
                              NodeEnvironment nodeEnvironment,
                              Discovery discovery,
-                             ThreadPool threadPool) {
-        this.nodeService = nodeService;
-        this.osService = osService;
-        this.jvmService = jvmService;
-        this.networkService = networkService;
+                             ThreadPool threadPool,
+                             CrateThreadPools crateThreadPools) {
+        this.statsCache = statsCache;
         childImplementations.put(NodeFsExpression.NAME,
                 new NodeFsExpression(sigarService, nodeEnvironment));
         childImplementations.put(NodeHostnameExpression.NAME,
@@ -81,13 +73,13 @@ public class NodeSysExpression extends NestedObjectExpression {
         childImplementations.put(NodeVersionExpression.NAME,
                 new NodeVersionExpression());
         childImplementations.put(NodeThreadPoolsExpression.NAME,
-                new NodeThreadPoolsExpression(threadPool));
+                new NodeThreadPoolsExpression(threadPool, crateThreadPools));
     }
 
     @Override
     public ReferenceImplementation getChildImplementation(String name) {
         if (EXPRESSIONS_WITH_OS_STATS.contains(name)) {
-            OsStats osStats = osService.stats();
+            OsStats osStats = statsCache.osStats();
             if (NodeMemoryExpression.NAME.equals(name)) {
                 return new NodeMemoryExpression(osStats);
             } else if (NodeLoadExpression.NAME.equals(name)) {
@@ -96,12 +88,11 @@ public class NodeSysExpression extends NestedObjectExpression {
                 return new NodeOsExpression(osStats);
             }
         } else if (NodeProcessExpression.NAME.equals(name)) {
-            return new NodeProcessExpression(nodeService.info().getProcess(),
-                    nodeService.stats().getProcess());
+            return new NodeProcessExpression(statsCache.processInfo(), statsCache.processStats());
         } else if (NodeHeapExpression.NAME.equals(name)) {
-            return new NodeHeapExpression(jvmService.stats());
+            return new NodeHeapExpression(statsCache.jvmStats());
         } else if (NodeNetworkExpression.NAME.equals(name)) {
-            return new NodeNetworkExpression(networkService.stats());
+            return new NodeNetworkExpression(statsCache.networkStats());
         }
         return super.getChildImplementation(name);
     }
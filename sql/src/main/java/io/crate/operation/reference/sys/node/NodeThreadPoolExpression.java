@@ -46,7 +46,11 @@ public class NodeThreadPoolExpression extends SysNodeObjectReference {
     private final BytesRef name;
 
     public NodeThreadPoolExpression(ThreadPool threadPool, String name) {
-        this.threadPoolExecutor = (ThreadPoolExecutor) threadPool.executor(name);
+        this(name, (ThreadPoolExecutor) threadPool.executor(name));
+    }
+
+    public NodeThreadPoolExpression(String name, ThreadPoolExecutor threadPoolExecutor) {
+        this.threadPoolExecutor = threadPoolExecutor;
         this.name = new BytesRef(name);
         addChildImplementations();
     }
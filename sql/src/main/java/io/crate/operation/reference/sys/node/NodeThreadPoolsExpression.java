@@ -21,18 +21,24 @@
 
 package io.crate.operation.reference.sys.node;
 
+import io.crate.operation.CrateThreadPools;
 import io.crate.operation.reference.sys.SysNodeStaticObjectArrayReference;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
 public class NodeThreadPoolsExpression extends SysNodeStaticObjectArrayReference {
 
     public static final String NAME = "thread_pools";
 
     private final ThreadPool threadPool;
+    private final CrateThreadPools crateThreadPools;
 
-    protected NodeThreadPoolsExpression(ThreadPool threadPool) {
+    protected NodeThreadPoolsExpression(ThreadPool threadPool, CrateThreadPools crateThreadPools) {
         super(NAME);
         this.threadPool = threadPool;
+        this.crateThreadPools = crateThreadPools;
         addChildImplementations();
     }
 
@@ -40,6 +46,9 @@ public class NodeThreadPoolsExpression extends SysNodeStaticObjectArrayReference
         for (ThreadPool.Info info : threadPool.info()) {
             childImplementations.add(new NodeThreadPoolExpression(threadPool, info.getName()));
         }
+        for (Map.Entry<String, ThreadPoolExecutor> entry : crateThreadPools.executorsByName().entrySet()) {
+            childImplementations.add(new NodeThreadPoolExpression(entry.getKey(), entry.getValue()));
+        }
     }
 
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ package io.crate.operation.reference.sys.node;
 
 import io.crate.metadata.ReferenceIdent;
 import io.crate.metadata.ReferenceImplementation;
+import io.crate.operation.reference.sys.SysStatsCache;
 import org.elasticsearch.common.inject.AbstractModule;
 import org.elasticsearch.common.inject.multibindings.MapBinder;
 
@@ -33,6 +34,7 @@ public class SysNodeExpressionModule extends AbstractModule {
     @Override
     protected void configure() {
         refBinder = MapBinder.newMapBinder(binder(), ReferenceIdent.class, ReferenceImplementation.class);
+        bind(SysStatsCache.class).asEagerSingleton();
         bind(NodeSysExpression.class).asEagerSingleton();
     }
 }
@@ -196,6 +196,10 @@ public class PlanPrinter extends PlanVisitor<PlanPrinter.PrintContext, Void> {
                 symbolPrinter.process(symbol, context);
             }
             context.print("whereClause %s", node.whereClause().toString());
+            if (!node.whereClause().partitions().isEmpty()) {
+                context.print("partitions (%d): %s",
+                        node.whereClause().partitions().size(), node.whereClause().partitions());
+            }
 
             processProjections(node, context);
             context.dedent();
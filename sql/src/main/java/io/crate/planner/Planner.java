@@ -494,13 +494,15 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
                                            Context context) {
 
         List<String[]> indicesList = new ArrayList<>(whereClauses.size());
+        List<WhereClause> queryWhereClauses = new ArrayList<>(whereClauses.size());
         for (WhereClause whereClause : whereClauses) {
-            String[] indices = indices(tableInfo, whereClauses.get(0));
+            String[] indices = indices(tableInfo, whereClause);
             if (indices.length > 0) {
                 if (!whereClause.hasQuery() && tableInfo.isPartitioned()) {
                     plan.add(new ESDeletePartitionNode(indices));
                 } else {
                     indicesList.add(indices);
+                    queryWhereClauses.add(whereClause);
                 }
             }
         }
@@ -508,7 +510,7 @@ public class Planner extends AnalyzedStatementVisitor<Planner.Context, Plan> {
         // forbidden through analysis, we must issue deleteByQuery request in addition
         // to above deleteIndex request(s)
         if (!indicesList.isEmpty()) {
-            plan.add(new ESDeleteByQueryNode(context.nextExecutionNodeId(), indicesList, whereClauses));
+            plan.add(new ESDeleteByQueryNode(context.nextExecutionNodeId(), indicesList, queryWhereClauses));
         }
     }
 
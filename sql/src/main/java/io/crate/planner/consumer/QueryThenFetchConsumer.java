@@ -145,7 +145,8 @@ public class QueryThenFetchConsumer implements Consumer {
                     if (SCORE_REFERENCE_DETECTOR.detect(symbol) && !collectSymbols.contains(symbol)) {
                         collectSymbols.add(symbol);
                     }
-                    outputSymbols.add(DocReferenceConverter.convertIfPossible(symbol, tableInfo));
+                    // columns with doc values are read from them, the source is only loaded for the other ones
+                    outputSymbols.add(DocReferenceConverter.convertIfPossibleKeepDocValues(symbol, tableInfo));
                 }
             } else {
                 // no fetch projection needed, resolve all symbols during collect
@@ -39,6 +39,7 @@ import io.crate.metadata.settings.CrateSettings;
 import io.crate.metadata.settings.Setting;
 import io.crate.metadata.shard.MetaDataShardModule;
 import io.crate.metadata.sys.MetaDataSysModule;
+import io.crate.operation.CrateThreadPools;
 import io.crate.operation.aggregation.impl.AggregationImplModule;
 import io.crate.jobs.JobContextService;
 import io.crate.operation.collect.CollectOperationModule;
@@ -104,7 +105,8 @@ public class SQLPlugin extends AbstractPlugin {
         return ImmutableList.<Class<? extends LifecycleComponent>>of(
                 SQLService.class,
                 BulkRetryCoordinatorPool.class,
-                JobContextService.class);
+                JobContextService.class,
+                CrateThreadPools.class);
     }
 
     @Override
@@ -162,6 +164,7 @@ public class SQLPlugin extends AbstractPlugin {
         clusterDynamicSettingsModule.addDynamicSettings(Constants.CUSTOM_ANALYSIS_SETTINGS_PREFIX + "*");
         clusterDynamicSettingsModule.addDynamicSettings(CrateCircuitBreakerService.QUERY_CIRCUIT_BREAKER_LIMIT_SETTING);
         clusterDynamicSettingsModule.addDynamicSettings(CrateCircuitBreakerService.QUERY_CIRCUIT_BREAKER_OVERHEAD_SETTING);
+        clusterDynamicSettingsModule.addDynamicSettings(CrateCircuitBreakerService.QUERY_CIRCUIT_BREAKER_JOB_LIMIT_SETTING);
         registerSettings(clusterDynamicSettingsModule, CrateSettings.CRATE_SETTINGS);
     }
 
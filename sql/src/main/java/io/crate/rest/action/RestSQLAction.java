@@ -24,30 +24,68 @@ package io.crate.rest.action;
 import io.crate.action.sql.*;
 import io.crate.action.sql.parser.SQLXContentSourceContext;
 import io.crate.action.sql.parser.SQLXContentSourceParser;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.breaker.RamAccountingContext;
 import io.crate.exceptions.SQLParseException;
+import io.crate.jobs.ContextCallback;
+import io.crate.jobs.ExecutionSubContext;
+import io.crate.jobs.JobContextService;
+import io.crate.jobs.JobExecutionContext;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.rest.*;
 
+import javax.annotation.Nullable;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RestSQLAction extends BaseRestHandler {
 
+    static final String FETCH_SIZE = "fetch_size";
+    static final String KEEP_ALIVE = "keep_alive";
+    private static final int UNKNOWN_CURSOR_ERROR_CODE = 4047;
+    private static final int TOO_MANY_CURSORS_ERROR_CODE = 5031;
+
+    public static final String MAX_OPEN_CURSORS = "crate.cursor.max_open";
+    public static final int DEFAULT_MAX_OPEN_CURSORS = 100;
+
+    private final JobContextService jobContextService;
+    private final CrateCircuitBreakerService breakerService;
+    private final int maxOpenCursors;
+    private final AtomicInteger openCursors = new AtomicInteger(0);
+
     @Inject
-    public RestSQLAction(Settings settings, Client client, RestController controller) {
+    public RestSQLAction(Settings settings,
+                         Client client,
+                         RestController controller,
+                         JobContextService jobContextService,
+                         CrateCircuitBreakerService breakerService) {
         super(settings, controller, client);
+        this.jobContextService = jobContextService;
+        this.breakerService = breakerService;
+        this.maxOpenCursors = settings.getAsInt(MAX_OPEN_CURSORS, DEFAULT_MAX_OPEN_CURSORS);
 
         controller.registerHandler(RestRequest.Method.POST, "/_sql", this);
+        controller.registerHandler(RestRequest.Method.POST, "/_sql/cursor/{cursor}", this);
+        controller.registerHandler(RestRequest.Method.DELETE, "/_sql/cursor/{cursor}", this);
     }
 
     @Override
     public void handleRequest(final RestRequest request, final RestChannel channel, Client client) throws Exception {
+        String cursor = request.param("cursor");
+        if (cursor != null) {
+            handleCursorRequest(cursor, request, channel);
+            return;
+        }
         if (!request.hasContent()) {
             channel.sendResponse(new CrateThrowableRestResponse(channel,
                     new SQLActionException("missing request body", 4000, RestStatus.BAD_REQUEST, null)));
@@ -74,19 +112,165 @@ public class RestSQLAction extends BaseRestHandler {
                             4000, RestStatus.BAD_REQUEST, null)));
             return;
         }
+        int fetchSize = request.paramAsInt(FETCH_SIZE, -1);
+        if (request.hasParam(FETCH_SIZE) && fetchSize < 1) {
+            channel.sendResponse(new CrateThrowableRestResponse(channel,
+                    new SQLActionException("fetch_size must be greater than 0", 4000, RestStatus.BAD_REQUEST, null)));
+            return;
+        }
         if (bulkArgs != null && bulkArgs.length > 0) {
+            if (fetchSize > 0) {
+                channel.sendResponse(new CrateThrowableRestResponse(channel,
+                        new SQLActionException("fetch_size can't be used with bulk_args",
+                                4000, RestStatus.BAD_REQUEST, null)));
+                return;
+            }
             executeBulkRequest(context, request, channel, client);
         } else {
-            executeSimpleRequest(context, request, channel, client);
+            executeSimpleRequest(context, request, channel, client, fetchSize);
         }
     }
 
-    private void executeSimpleRequest(SQLXContentSourceContext context, final RestRequest request, final RestChannel channel, Client client) {
+    private void executeSimpleRequest(SQLXContentSourceContext context,
+                                      final RestRequest request,
+                                      final RestChannel channel,
+                                      Client client,
+                                      int fetchSize) {
         final SQLRequestBuilder requestBuilder = new SQLRequestBuilder(client);
         requestBuilder.stmt(context.stmt());
         requestBuilder.args(context.args());
         requestBuilder.includeTypesOnResponse(request.paramAsBoolean("types", false));
-        requestBuilder.execute(RestSQLAction.<SQLResponse>newListener(request, channel));
+        if (fetchSize > 0) {
+            // a slot is reserved before the statement is executed, it is released once the cursor is closed
+            if (!reserveCursor()) {
+                channel.sendResponse(new CrateThrowableRestResponse(channel,
+                        new SQLActionException(String.format(Locale.ENGLISH,
+                                "Too many open cursors, the limit of %d is reached", maxOpenCursors),
+                                TOO_MANY_CURSORS_ERROR_CODE, RestStatus.SERVICE_UNAVAILABLE, null)));
+                return;
+            }
+            TimeValue keepAlive = request.paramAsTime(KEEP_ALIVE,
+                    TimeValue.timeValueMillis(JobContextService.DEFAULT_KEEP_ALIVE));
+            requestBuilder.execute(new CursorResponseListener(request, channel, fetchSize, keepAlive.millis()));
+        } else {
+            requestBuilder.execute(RestSQLAction.<SQLResponse>newListener(request, channel));
+        }
+    }
+
+    /**
+     * fetches the next rows of a cursor or closes it
+     */
+    private void handleCursorRequest(String cursorId, RestRequest request, RestChannel channel) {
+        long requestStartedTime = System.currentTimeMillis();
+        JobExecutionContext jobExecutionContext = cursorContextOrNull(cursorId);
+        CursorContext cursorContext = null;
+        if (jobExecutionContext != null) {
+            ExecutionSubContext subContext = jobExecutionContext.getSubContextOrNull(CursorContext.SUB_CONTEXT_ID);
+            if (subContext instanceof CursorContext) {
+                cursorContext = (CursorContext) subContext;
+            }
+        }
+        if (cursorContext == null) {
+            channel.sendResponse(new CrateThrowableRestResponse(channel,
+                    new SQLActionException(String.format(Locale.ENGLISH, "Cursor '%s' unknown", cursorId),
+                            UNKNOWN_CURSOR_ERROR_CODE, RestStatus.NOT_FOUND, null)));
+            return;
+        }
+
+        ActionListener<SQLResponse> listener = newListener(request, channel);
+        if (request.method() == RestRequest.Method.DELETE) {
+            jobExecutionContext.close();
+            listener.onResponse(new SQLResponse(
+                    new String[0], new Object[0][], SQLBaseResponse.EMPTY_TYPES, 1L, requestStartedTime, false));
+            return;
+        }
+        int fetchSize = request.paramAsInt(FETCH_SIZE, cursorContext.fetchSize());
+        if (fetchSize < 1) {
+            channel.sendResponse(new CrateThrowableRestResponse(channel,
+                    new SQLActionException("fetch_size must be greater than 0", 4000, RestStatus.BAD_REQUEST, null)));
+            return;
+        }
+        SQLResponse response;
+        try {
+            response = cursorContext.nextPage(fetchSize, requestStartedTime);
+        } catch (Throwable t) {
+            listener.onFailure(t);
+            return;
+        }
+        listener.onResponse(response);
+    }
+
+    @Nullable
+    private JobExecutionContext cursorContextOrNull(String cursorId) {
+        UUID id;
+        try {
+            id = UUID.fromString(cursorId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return jobContextService.getContextOrNull(id);
+    }
+
+    /**
+     * keeps the rows of the response in a {@link CursorContext} and returns its first page.
+     * The reserved cursor slot is released once the cursor is closed or if it couldn't be opened.
+     */
+    SQLResponse openCursor(SQLResponse response,
+                           boolean includeTypes,
+                           int fetchSize,
+                           long keepAlive,
+                           long requestStartedTime) {
+        CursorContext cursorContext = null;
+        try {
+            UUID cursorId = UUID.randomUUID();
+            JobExecutionContext.Builder builder = jobContextService.newBuilder(cursorId);
+            builder.keepAlive(keepAlive);
+            cursorContext = new CursorContext(
+                    cursorId,
+                    response.cols(),
+                    response.columnTypes(),
+                    includeTypes,
+                    fetchSize,
+                    new RamAccountingContext("cursor: " + cursorId,
+                            breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER),
+                            breakerService.acquireJobRamAccounting(cursorId)),
+                    response.bucket()
+            );
+            cursorContext.addCallback(new ContextCallback() {
+                @Override
+                public void onClose(@Nullable Throwable error, long bytesUsed) {
+                    openCursors.decrementAndGet();
+                }
+            });
+            builder.addSubContext(CursorContext.SUB_CONTEXT_ID, cursorContext);
+            JobExecutionContext context = jobContextService.createContext(builder);
+            context.start();
+            // the reaper ignores contexts which were never accessed, the first access starts the keep alive
+            context.getSubContextOrNull(CursorContext.SUB_CONTEXT_ID);
+            return cursorContext.nextPage(fetchSize, requestStartedTime);
+        } catch (Throwable t) {
+            if (cursorContext == null) {
+                openCursors.decrementAndGet();
+            } else {
+                cursorContext.kill();
+            }
+            throw t;
+        }
+    }
+
+    /**
+     * reserves a cursor slot, returns false if the limit of open cursors is reached
+     */
+    boolean reserveCursor() {
+        if (openCursors.incrementAndGet() > maxOpenCursors) {
+            openCursors.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    int openCursors() {
+        return openCursors.get();
     }
 
     private void executeBulkRequest(SQLXContentSourceContext context, RestRequest request, RestChannel channel, Client client) {
@@ -102,6 +286,51 @@ public class RestSQLAction extends BaseRestHandler {
         return new SQLResponseListener<>(request, channel);
     }
 
+    /**
+     * sends the first <code>fetchSize</code> rows of the response and keeps the remaining ones in a
+     * {@link CursorContext} which is closed if it hasn't been accessed within <code>keepAlive</code>.
+     * The reserved cursor slot is released if no cursor is needed or once the cursor is closed.
+     */
+    private class CursorResponseListener implements ActionListener<SQLResponse> {
+
+        private final long requestStartedTime = System.currentTimeMillis();
+        private final RestRequest request;
+        private final int fetchSize;
+        private final long keepAlive;
+        private final ActionListener<SQLResponse> delegate;
+
+        public CursorResponseListener(RestRequest request, RestChannel channel, int fetchSize, long keepAlive) {
+            this.request = request;
+            this.fetchSize = fetchSize;
+            this.keepAlive = keepAlive;
+            this.delegate = newListener(request, channel);
+        }
+
+        @Override
+        public void onResponse(SQLResponse response) {
+            if (response.bucket().size() <= fetchSize) {
+                openCursors.decrementAndGet();
+                delegate.onResponse(response);
+                return;
+            }
+            SQLResponse firstPage;
+            try {
+                firstPage = openCursor(response, request.paramAsBoolean("types", false),
+                        fetchSize, keepAlive, requestStartedTime);
+            } catch (Throwable t) {
+                delegate.onFailure(t);
+                return;
+            }
+            delegate.onResponse(firstPage);
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            openCursors.decrementAndGet();
+            delegate.onFailure(e);
+        }
+    }
+
     private static class SQLResponseListener<TResponse extends SQLBaseResponse> implements ActionListener<TResponse> {
 
         private static final ESLogger logger = Loggers.getLogger(SQLResponseListener.class);
@@ -0,0 +1,181 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.action.sql;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.ArrayBucket;
+import io.crate.jobs.ContextCallback;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CursorContextTest extends CrateUnitTest {
+
+    private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
+            new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.Name.FIELDDATA));
+
+    private long flushBufferSize;
+
+    @Before
+    public void saveFlushBufferSize() throws Exception {
+        flushBufferSize = RamAccountingContext.FLUSH_BUFFER_SIZE;
+    }
+
+    @After
+    public void restoreFlushBufferSize() throws Exception {
+        RamAccountingContext.FLUSH_BUFFER_SIZE = flushBufferSize;
+    }
+
+    @Test
+    public void testFetchPages() throws Exception {
+        UUID cursorId = UUID.randomUUID();
+        CursorContext context = new CursorContext(
+                cursorId,
+                new String[]{"name"},
+                new DataType[]{DataTypes.STRING},
+                false,
+                2,
+                RAM_ACCOUNTING_CONTEXT,
+                new ArrayBucket(new Object[][]{
+                        new Object[]{new BytesRef("a")},
+                        new Object[]{new BytesRef("b")},
+                        new Object[]{new BytesRef("c")}
+                }));
+        final AtomicInteger closed = new AtomicInteger(0);
+        context.addCallback(new ContextCallback() {
+            @Override
+            public void onClose(@Nullable Throwable error, long bytesUsed) {
+                closed.incrementAndGet();
+            }
+        });
+
+        SQLResponse page = context.nextPage(context.fetchSize(), 0L);
+        assertThat(page.rows(), is(new Object[][]{new Object[]{"a"}, new Object[]{"b"}}));
+        assertThat(page.rowCount(), is(2L));
+        assertThat(page.cursor(), is(cursorId.toString()));
+        assertThat(closed.get(), is(0));
+
+        page = context.nextPage(5, 0L);
+        assertThat(page.rows(), is(new Object[][]{new Object[]{"c"}}));
+        assertThat(page.cursor(), nullValue());
+        assertThat(closed.get(), is(1));
+    }
+
+    @Test
+    public void testFetchAfterClose() throws Exception {
+        CursorContext context = new CursorContext(
+                UUID.randomUUID(),
+                new String[]{"x"},
+                new DataType[]{DataTypes.INTEGER},
+                false,
+                1,
+                RAM_ACCOUNTING_CONTEXT,
+                new ArrayBucket(new Object[][]{new Object[]{1}, new Object[]{2}}));
+        context.close();
+
+        expectedException.expect(IllegalStateException.class);
+        context.nextPage(1, 0L);
+    }
+
+    @Test
+    public void testEstimateSize() throws Exception {
+        ArrayBucket rows = new ArrayBucket(new Object[][]{
+                new Object[]{new BytesRef("abc"), 1L, null},
+                new Object[]{null, 2L, new HashMap<String, Object>()}
+        });
+        long size = CursorContext.estimateSize(
+                new DataType[]{DataTypes.STRING, DataTypes.LONG, DataTypes.OBJECT}, 3, rows);
+        // row overhead + string + long + null, null + long + object
+        assertThat(size, is(2 * 40L + (3 + 64) + 16 + 8 + 8 + 16 + 64));
+    }
+
+    @Test
+    public void testRowsAreAccountedAndReleasedOnClose() throws Exception {
+        RamAccountingContext.FLUSH_BUFFER_SIZE = 1;
+        CircuitBreaker breaker = new MemoryCircuitBreaker(
+                new ByteSizeValue(1, ByteSizeUnit.MB), 1.0, Loggers.getLogger(CursorContextTest.class));
+        CursorContext context = new CursorContext(
+                UUID.randomUUID(),
+                new String[]{"x"},
+                new DataType[]{DataTypes.INTEGER},
+                false,
+                1,
+                new RamAccountingContext("cursor", breaker),
+                new ArrayBucket(new Object[][]{new Object[]{1}, new Object[]{2}}));
+
+        context.start();
+        assertThat(breaker.getUsed(), is(2 * (24L + 16L)));
+        context.close();
+        assertThat(breaker.getUsed(), is(0L));
+    }
+
+    @Test
+    public void testContextIsClosedIfBreakerTrips() throws Exception {
+        RamAccountingContext.FLUSH_BUFFER_SIZE = 1;
+        CircuitBreaker breaker = new MemoryCircuitBreaker(
+                new ByteSizeValue(10, ByteSizeUnit.BYTES), 1.0, Loggers.getLogger(CursorContextTest.class));
+        CursorContext context = new CursorContext(
+                UUID.randomUUID(),
+                new String[]{"x"},
+                new DataType[]{DataTypes.INTEGER},
+                false,
+                1,
+                new RamAccountingContext("cursor", breaker),
+                new ArrayBucket(new Object[][]{new Object[]{1}, new Object[]{2}}));
+        final AtomicInteger closed = new AtomicInteger(0);
+        context.addCallback(new ContextCallback() {
+            @Override
+            public void onClose(@Nullable Throwable error, long bytesUsed) {
+                closed.incrementAndGet();
+            }
+        });
+
+        try {
+            context.start();
+            fail("start should have tripped the breaker");
+        } catch (CircuitBreakingException e) {
+            // expected
+        }
+        assertThat(closed.get(), is(1));
+        assertThat(breaker.getUsed(), is(0L));
+    }
+}
@@ -80,4 +80,18 @@ public class SQLRequestTest extends CrateUnitTest {
         assertThat(inRequest.stmt(), is("select * from users"));
         assertThat(inRequest.getDefaultSchema(), is("foo"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testColumnarResultIsSerialized() throws Exception {
+        SQLRequest request = new SQLRequest("select * from users");
+        assertThat(request.columnarResult(), is(false));
+        request.columnarResult(true);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        request.writeTo(out);
+
+        SQLRequest inRequest = new SQLRequest();
+        inRequest.readFrom(new BytesStreamInput(out.bytes()));
+        assertThat(inRequest.columnarResult(), is(true));
+    }
+}
@@ -36,6 +36,8 @@ import io.crate.operation.scalar.arithmetic.AddFunction;
 import io.crate.planner.RowGranularity;
 import io.crate.planner.symbol.Function;
 import io.crate.planner.symbol.Symbol;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Statement;
 import io.crate.testing.MockedClusterServiceModule;
 import io.crate.types.DataTypes;
 import org.apache.lucene.util.BytesRef;
@@ -934,5 +936,65 @@ public class InsertFromValuesAnalyzerTest extends BaseAnalyzerTest {
         expectedException.expectMessage("Updating a clustered-by column is not supported");
         analyze("insert into users (id) values (1) on duplicate key update id = 10");
     }
-}
 
+    private InsertFromValuesAnalyzedStatement analyzeParsed(Statement statement, Object[] params) {
+        return (InsertFromValuesAnalyzedStatement) analyzer.analyze(statement,
+                new ParameterContext(params, new Object[0][], ReferenceInfos.DEFAULT_SCHEMA_NAME)).analyzedStatement();
+    }
+
+    @Test
+    public void testPreparedInsertIsReusedWithNewArguments() throws Exception {
+        Statement statement = SqlParser.createStatement(
+                "insert into users (id, name) values (?, ?) on duplicate key update name = values(name)");
+        InsertFromValuesAnalyzedStatement first = analyzeParsed(statement, new Object[]{1, "Arthur"});
+        InsertFromValuesAnalyzedStatement second = analyzeParsed(statement, new Object[]{2, "Trillian"});
+
+        // the column layout is analyzed only once
+        assertThat(second.columns(), sameInstance(first.columns()));
+
+        assertThat(first.ids(), contains("1"));
+        assertThat(first.routingValues(), contains("1"));
+        assertThat((BytesRef) first.sourceMaps().get(0)[1], is(new BytesRef("Arthur")));
+        assertLiteralSymbol(first.onDuplicateKeyAssignments().get(0)[0], "Arthur");
+
+        assertThat(second.ids(), contains("2"));
+        assertThat(second.routingValues(), contains("2"));
+        assertThat((Long) second.sourceMaps().get(0)[0], is(2L));
+        assertThat((BytesRef) second.sourceMaps().get(0)[1], is(new BytesRef("Trillian")));
+        assertLiteralSymbol(second.onDuplicateKeyAssignments().get(0)[0], "Trillian");
+        assertThat(second.onDuplicateKeyAssignmentsColumns().get(0), is(new String[]{"name"}));
+    }
+
+    @Test
+    public void testPreparedInsertIntoPartitionedTable() throws Exception {
+        Statement statement = SqlParser.createStatement("insert into parted (id, name, date) values (?, ?, ?)");
+        InsertFromValuesAnalyzedStatement first = analyzeParsed(statement, new Object[]{1, "Trillian", 0L});
+        InsertFromValuesAnalyzedStatement second = analyzeParsed(statement, new Object[]{2, "Ford", 13963670051500L});
+
+        assertThat(first.generatePartitions(), contains(
+                new PartitionName("parted", Arrays.asList(new BytesRef("0"))).stringValue()));
+        assertThat(second.generatePartitions(), contains(
+                new PartitionName("parted", Arrays.asList(new BytesRef("13963670051500"))).stringValue()));
+        assertThat(second.sourceMaps().get(0)[2], nullValue());
+    }
+
+    @Test
+    public void testPreparedInsertValidatesArgumentsOnEveryExecution() throws Exception {
+        Statement statement = SqlParser.createStatement("insert into users (id, name) values (?, ?)");
+        analyzeParsed(statement, new Object[]{1, "Arthur"});
+
+        expectedException.expect(ColumnValidationException.class);
+        expectedException.expectMessage("Validation failed for id");
+        analyzeParsed(statement, new Object[]{"foo", "Trillian"});
+    }
+
+    @Test
+    public void testPreparedInsertRequiresPrimaryKeyValue() throws Exception {
+        Statement statement = SqlParser.createStatement("insert into users (id, name) values (?, ?)");
+        analyzeParsed(statement, new Object[]{1, "Arthur"});
+
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Primary key value must not be NULL");
+        analyzeParsed(statement, new Object[]{null, "Trillian"});
+    }
+}
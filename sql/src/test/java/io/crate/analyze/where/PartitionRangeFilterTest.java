@@ -0,0 +1,135 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.analyze.where;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.metadata.*;
+import io.crate.operation.operator.*;
+import io.crate.planner.RowGranularity;
+import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Reference;
+import io.crate.planner.symbol.Symbol;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+
+public class PartitionRangeFilterTest extends CrateUnitTest {
+
+    private static final TableIdent TABLE_IDENT = new TableIdent(null, "parted");
+    private static final ReferenceInfo DAY = new ReferenceInfo(
+            new ReferenceIdent(TABLE_IDENT, "day"), RowGranularity.PARTITION, DataTypes.LONG);
+    private static final List<ReferenceInfo> PARTITION_COLUMNS = ImmutableList.of(DAY);
+
+    private static Function cmp(String name, Symbol left, Symbol right) {
+        return new Function(new FunctionInfo(
+                new FunctionIdent(name, ImmutableList.of(left.valueType(), right.valueType())), DataTypes.BOOLEAN),
+                Arrays.asList(left, right));
+    }
+
+    private static Function and(Symbol left, Symbol right) {
+        return new Function(AndOperator.INFO, Arrays.asList(left, right));
+    }
+
+    private static Function or(Symbol left, Symbol right) {
+        return new Function(OrOperator.INFO, Arrays.asList(left, right));
+    }
+
+    private static PartitionName partition(Long value) {
+        List<BytesRef> values = new ArrayList<>(1);
+        values.add(value == null ? null : new BytesRef(value.toString()));
+        return new PartitionName("parted", values);
+    }
+
+    @Test
+    public void testRangeWithinConjunction() throws Exception {
+        Reference day = new Reference(DAY);
+        Symbol query = and(
+                cmp(GteOperator.NAME, day, Literal.newLiteral(10L)),
+                cmp(LtOperator.NAME, day, Literal.newLiteral(20L)));
+        PartitionRangeFilter filter = PartitionRangeFilter.fromQuery(query, PARTITION_COLUMNS);
+
+        assertThat(filter.hasBounds(), is(true));
+        assertThat(filter.canMatch(partition(9L)), is(false));
+        assertThat(filter.canMatch(partition(10L)), is(true));
+        assertThat(filter.canMatch(partition(19L)), is(true));
+        assertThat(filter.canMatch(partition(20L)), is(false));
+        assertThat(filter.canMatch(partition(null)), is(false));
+    }
+
+    @Test
+    public void testLiteralOnLeftSide() throws Exception {
+        Reference day = new Reference(DAY);
+        Symbol query = and(
+                cmp(LtOperator.NAME, Literal.newLiteral(10L), day),
+                cmp(GteOperator.NAME, Literal.newLiteral(20L), day));
+        PartitionRangeFilter filter = PartitionRangeFilter.fromQuery(query, PARTITION_COLUMNS);
+
+        assertThat(filter.canMatch(partition(10L)), is(false));
+        assertThat(filter.canMatch(partition(11L)), is(true));
+        assertThat(filter.canMatch(partition(20L)), is(true));
+        assertThat(filter.canMatch(partition(21L)), is(false));
+    }
+
+    @Test
+    public void testTightestBoundWins() throws Exception {
+        Reference day = new Reference(DAY);
+        Symbol query = and(
+                and(cmp(GtOperator.NAME, day, Literal.newLiteral(10L)),
+                    cmp(GteOperator.NAME, day, Literal.newLiteral(15L))),
+                cmp(EqOperator.NAME, day, Literal.newLiteral(15L)));
+        PartitionRangeFilter filter = PartitionRangeFilter.fromQuery(query, PARTITION_COLUMNS);
+
+        assertThat(filter.canMatch(partition(14L)), is(false));
+        assertThat(filter.canMatch(partition(15L)), is(true));
+        assertThat(filter.canMatch(partition(16L)), is(false));
+    }
+
+    @Test
+    public void testDisjunctionIsIgnored() throws Exception {
+        Reference day = new Reference(DAY);
+        Symbol query = or(
+                cmp(LtOperator.NAME, day, Literal.newLiteral(10L)),
+                cmp(GtOperator.NAME, day, Literal.newLiteral(20L)));
+        PartitionRangeFilter filter = PartitionRangeFilter.fromQuery(query, PARTITION_COLUMNS);
+
+        assertThat(filter.hasBounds(), is(false));
+        assertThat(filter.canMatch(partition(15L)), is(true));
+        assertThat(filter.canMatch(partition(null)), is(true));
+    }
+
+    @Test
+    public void testNonPartitionColumnIsIgnored() throws Exception {
+        Reference id = new Reference(new ReferenceInfo(
+                new ReferenceIdent(TABLE_IDENT, "id"), RowGranularity.DOC, DataTypes.LONG));
+        PartitionRangeFilter filter = PartitionRangeFilter.fromQuery(
+                cmp(GtOperator.NAME, id, Literal.newLiteral(10L)), PARTITION_COLUMNS);
+        assertThat(filter.hasBounds(), is(false));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.breaker;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.*;
+
+public class JobRamAccountingTest extends CrateUnitTest {
+
+    private CrateCircuitBreakerService breakerService(Settings settings) {
+        NodeSettingsService settingsService = new NodeSettingsService(settings);
+        return new CrateCircuitBreakerService(settings, settingsService,
+                new HierarchyCircuitBreakerService(settings, settingsService));
+    }
+
+    @Test
+    public void testJobLimit() throws Exception {
+        CrateCircuitBreakerService breakerService = breakerService(ImmutableSettings.builder()
+                .put(CrateCircuitBreakerService.QUERY_CIRCUIT_BREAKER_JOB_LIMIT_SETTING, "1kb").build());
+        assertThat(breakerService.jobLimit(), is(1024L));
+
+        JobRamAccounting jobRamAccounting = breakerService.acquireJobRamAccounting(UUID.randomUUID());
+        jobRamAccounting.addBytes(512, "dummy");
+        assertThat(jobRamAccounting.usedBytes(), is(512L));
+
+        expectedException.expect(CircuitBreakingException.class);
+        expectedException.expectMessage("would be larger than job limit of [1024/1kb]");
+        jobRamAccounting.addBytes(1024, "dummy");
+    }
+
+    @Test
+    public void testFairShare() throws Exception {
+        CrateCircuitBreakerService breakerService = breakerService(ImmutableSettings.builder()
+                .put(CrateCircuitBreakerService.QUERY_CIRCUIT_BREAKER_LIMIT_SETTING, "1000b").build());
+        CircuitBreaker breaker = breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER);
+
+        JobRamAccounting smallJob = breakerService.acquireJobRamAccounting(UUID.randomUUID());
+        JobRamAccounting bigJob = breakerService.acquireJobRamAccounting(UUID.randomUUID());
+        smallJob.addBytes(10, "small");
+        breaker.addWithoutBreaking(850);
+        assertThat(breakerService.consumingJobs(), is(1));
+
+        // the small job is within its share of 500 bytes
+        smallJob.addBytes(20, "small");
+
+        expectedException.expect(CircuitBreakingException.class);
+        expectedException.expectMessage("would be larger than fair share of [500/500b]");
+        bigJob.addBytes(600, "big");
+    }
+
+    @Test
+    public void testFairShareIsIgnoredIfBreakerHasEnoughMemory() throws Exception {
+        CrateCircuitBreakerService breakerService = breakerService(ImmutableSettings.builder()
+                .put(CrateCircuitBreakerService.QUERY_CIRCUIT_BREAKER_LIMIT_SETTING, "1000b").build());
+
+        JobRamAccounting smallJob = breakerService.acquireJobRamAccounting(UUID.randomUUID());
+        JobRamAccounting bigJob = breakerService.acquireJobRamAccounting(UUID.randomUUID());
+        smallJob.addBytes(10, "small");
+        bigJob.addBytes(600, "big");
+        assertThat(breakerService.consumingJobs(), is(2));
+        assertThat(bigJob.usedBytes(), is(600L));
+    }
+
+    @Test
+    public void testAccountingIsSharedAndRemovedAfterRelease() throws Exception {
+        CrateCircuitBreakerService breakerService = breakerService(ImmutableSettings.EMPTY);
+        UUID jobId = UUID.randomUUID();
+
+        JobRamAccounting first = breakerService.acquireJobRamAccounting(jobId);
+        JobRamAccounting second = breakerService.acquireJobRamAccounting(jobId);
+        assertThat(first, sameInstance(second));
+
+        first.addBytes(100, "first");
+        second.addBytes(50, "second");
+        assertThat(first.usedBytes(), is(150L));
+        assertThat(breakerService.consumingJobs(), is(1));
+
+        first.releaseBytes(100);
+        first.release();
+        assertThat(breakerService.jobRamAccounting(jobId), sameInstance(first));
+
+        second.release();
+        assertThat(breakerService.jobRamAccounting(jobId), nullValue());
+        assertThat(breakerService.consumingJobs(), is(0));
+
+        assertThat(breakerService.acquireJobRamAccounting(jobId), not(sameInstance(first)));
+    }
+}
@@ -28,15 +28,21 @@ import io.crate.jobs.ExecutionSubContext;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobExecutionContext;
 import io.crate.operation.collect.StatsTables;
+import io.crate.operation.operator.EqOperator;
 import io.crate.planner.node.dml.ESDeleteByQueryNode;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Reference;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.TestingHelpers;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.action.deletebyquery.TransportDeleteByQueryAction;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.After;
 import org.junit.Test;
 
+import java.util.List;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.*;
@@ -90,4 +96,54 @@ public class ESDeleteByQueryTaskTest extends CrateUnitTest {
         assertThat(task.result().get(0).isCancelled(), is(true));
         assertNull(jobExecutionContext.getSubContextOrNull(node.executionNodeId()));
     }
+
+    private static WhereClause eq(Reference reference, Object value) {
+        return new WhereClause(TestingHelpers.createFunction(EqOperator.NAME, DataTypes.BOOLEAN,
+                reference, Literal.newLiteral(reference.valueType(), value)));
+    }
+
+    @Test
+    public void testEqWhereClausesAreMerged() throws Exception {
+        Reference name = TestingHelpers.createReference("name", DataTypes.STRING);
+        Reference age = TestingHelpers.createReference("age", DataTypes.INTEGER);
+        String[] indices = new String[]{"users"};
+        ESDeleteByQueryNode bulkNode = new ESDeleteByQueryNode(
+                1,
+                ImmutableList.of(indices, indices, indices, indices, new String[]{"other"}),
+                ImmutableList.of(
+                        eq(name, new BytesRef("foo")),
+                        eq(age, 10),
+                        eq(name, new BytesRef("bar")),
+                        WhereClause.MATCH_ALL,
+                        eq(name, new BytesRef("foo"))
+                ));
+
+        List<ESDeleteByQueryTask.Batch> batches = ESDeleteByQueryTask.batches(bulkNode);
+        assertThat(batches.size(), is(4));
+        assertThat(batches.get(0).positions(), contains(0, 2));
+        assertThat(batches.get(1).positions(), contains(1));
+        assertThat(batches.get(2).positions(), contains(3));
+        assertThat(batches.get(3).positions(), contains(4));
+    }
+
+    @Test
+    public void testMergedResultsAreSetForEveryWhereClause() throws Exception {
+        Reference name = TestingHelpers.createReference("name", DataTypes.STRING);
+        String[] indices = new String[]{"users"};
+        ESDeleteByQueryNode bulkNode = new ESDeleteByQueryNode(
+                1,
+                ImmutableList.of(indices, indices),
+                ImmutableList.of(eq(name, new BytesRef("foo")), eq(name, new BytesRef("bar"))));
+        UUID jobId = UUID.randomUUID();
+        ESDeleteByQueryTask task = new ESDeleteByQueryTask(
+                jobId,
+                bulkNode,
+                mock(TransportDeleteByQueryAction.class),
+                jobContextService);
+
+        assertThat(task.result().size(), is(2));
+        jobContextService.getContext(jobId).getSubContext(bulkNode.executionNodeId()).kill();
+        assertThat(task.result().get(0).isCancelled(), is(true));
+        assertThat(task.result().get(1).isCancelled(), is(true));
+    }
 }
@@ -65,7 +65,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
     @Test
     public void testDefaultTables() throws Exception {
         execute("select * from information_schema.tables order by schema_name, table_name");
-        assertEquals(13L, response.rowCount());
+        assertEquals(14L, response.rowCount());
 
         assertArrayEquals(response.rows()[0], new Object[]{"information_schema", "columns", 1, "0", null, null, null, null});
         assertArrayEquals(response.rows()[1], new Object[]{"information_schema", "routines", 1, "0", null, null, null, null});
@@ -79,7 +79,8 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         assertArrayEquals(response.rows()[9], new Object[]{"sys", "nodes", 1, "0", null, null, null, null});
         assertArrayEquals(response.rows()[10], new Object[]{"sys", "operations", 1, "0", null, null, null, null});
         assertArrayEquals(response.rows()[11], new Object[]{"sys", "operations_log", 1, "0", null, null, null, null});
-        assertArrayEquals(response.rows()[12], new Object[]{"sys", "shards", 1, "0", null, null, null, null});
+        assertArrayEquals(response.rows()[12], new Object[]{"sys", "query_latencies", 1, "0", null, null, null, null});
+        assertArrayEquals(response.rows()[13], new Object[]{"sys", "shards", 1, "0", null, null, null, null});
     }
 
     @Test
@@ -119,7 +120,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         serviceSetup();
 
         execute("select * from information_schema.tables");
-        assertEquals(16L, response.rowCount());
+        assertEquals(17L, response.rowCount());
 
         client().execute(SQLAction.INSTANCE,
             new SQLRequest("create table t4 (col1 integer, col2 string)")).actionGet();
@@ -129,7 +130,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         Thread.sleep(10);
 
         execute("select * from information_schema.tables");
-        assertEquals(17L, response.rowCount());
+        assertEquals(18L, response.rowCount());
     }
 
     @Test
@@ -435,7 +436,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
     @Test
     public void testDefaultColumns() throws Exception {
         execute("select * from information_schema.columns order by schema_name, table_name");
-        assertEquals(275L, response.rowCount());
+        assertEquals(293L, response.rowCount());
     }
 
     @Test
@@ -620,7 +621,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
         ensureYellow();
         execute("select count(*) from information_schema.tables");
         assertEquals(1, response.rowCount());
-        assertEquals(16L, response.rows()[0][0]);
+        assertEquals(17L, response.rows()[0][0]);
     }
 
     @Test
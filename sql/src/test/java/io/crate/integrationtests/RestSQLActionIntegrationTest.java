@@ -24,10 +24,17 @@ package io.crate.integrationtests;
 
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.util.EntityUtils;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.StringStartsWith.startsWith;
 
 public class RestSQLActionIntegrationTest extends SQLHttpIntegrationTest {
@@ -58,6 +65,61 @@ public class RestSQLActionIntegrationTest extends SQLHttpIntegrationTest {
         assertEquals("{\"error\":{\"message\":\"SQLActionException[request body contains args and bulk_args. It's forbidden to provide both]\",\"code\":4000},\"error_trace\":null}", bodyAsString);
     }
 
+    @Test
+    public void testFetchRowsUsingCursor() throws Exception {
+        execute("create table t (x int) with (number_of_replicas=0)");
+        ensureYellow();
+        execute("insert into t (x) values (1), (2), (3), (4), (5)");
+        execute("refresh table t");
+
+        Map<String, Object> page = responseAsMap(
+                httpRequest("POST", "/_sql?fetch_size=2", "{\"stmt\": \"select x from t order by x\"}"), 200);
+        assertThat((List<?>) page.get("rows"), is((List<?>) Arrays.asList(Arrays.asList(1), Arrays.asList(2))));
+        assertThat(page.get("rowcount"), is((Object) 2));
+        String cursor = (String) page.get("cursor");
+
+        page = responseAsMap(httpRequest("POST", "/_sql/cursor/" + cursor, null), 200);
+        assertThat((List<?>) page.get("rows"), is((List<?>) Arrays.asList(Arrays.asList(3), Arrays.asList(4))));
+        assertThat((String) page.get("cursor"), is(cursor));
+
+        page = responseAsMap(httpRequest("POST", "/_sql/cursor/" + cursor + "?fetch_size=10", null), 200);
+        assertThat((List<?>) page.get("rows"), is((List<?>) Arrays.asList(Arrays.asList(5))));
+        assertThat(page.get("cursor"), nullValue());
+
+        // the cursor is closed after the last row has been fetched
+        Map<String, Object> error = responseAsMap(httpRequest("POST", "/_sql/cursor/" + cursor, null), 404);
+        assertThat(((Map) error.get("error")).get("code"), is((Object) 4047));
+    }
+
+    @Test
+    public void testCloseCursor() throws Exception {
+        execute("create table t (x int) with (number_of_replicas=0)");
+        ensureYellow();
+        execute("insert into t (x) values (1), (2), (3)");
+        execute("refresh table t");
+
+        Map<String, Object> page = responseAsMap(
+                httpRequest("POST", "/_sql?fetch_size=1", "{\"stmt\": \"select x from t\"}"), 200);
+        String cursor = (String) page.get("cursor");
+
+        responseAsMap(httpRequest("DELETE", "/_sql/cursor/" + cursor, null), 200);
+        responseAsMap(httpRequest("POST", "/_sql/cursor/" + cursor, null), 404);
+    }
+
+    @Test
+    public void testNoCursorIfAllRowsFit() throws Exception {
+        Map<String, Object> page = responseAsMap(
+                httpRequest("POST", "/_sql?fetch_size=10", "{\"stmt\": \"select name from sys.cluster\"}"), 200);
+        assertThat(page.get("cursor"), nullValue());
+        assertThat(page.get("rowcount"), is((Object) 1));
+    }
+
+    private Map<String, Object> responseAsMap(CloseableHttpResponse response, int expectedStatus) throws IOException {
+        String body = EntityUtils.toString(response.getEntity());
+        assertEquals(body, expectedStatus, response.getStatusLine().getStatusCode());
+        return XContentFactory.xContent(XContentType.JSON).createParser(body).map();
+    }
+
     private String resolveEscapedNL(){
         String LN = System.getProperty("line.separator");
         // http://en.wikipedia.org/wiki/Newline#Representations
@@ -23,7 +23,9 @@ package io.crate.integrationtests;
 
 
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
@@ -34,12 +36,14 @@ import org.elasticsearch.http.HttpServerTransport;
 import org.elasticsearch.search.suggest.CustomSuggesterPlugin;
 import org.junit.Before;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 
 public abstract class SQLHttpIntegrationTest extends SQLTransportIntegrationTest {
 
     private HttpPost httpPost;
+    private InetSocketAddress address;
 
     @Override
     protected Settings nodeSettings(int nodeOrdinal) {
@@ -51,7 +55,7 @@ public abstract class SQLHttpIntegrationTest extends SQLTransportIntegrationTest
     @Before
     public void setup() {
         HttpServerTransport httpServerTransport = internalCluster().getInstance(HttpServerTransport.class);
-        InetSocketAddress address = ((InetSocketTransportAddress) httpServerTransport.boundAddress().publishAddress())
+        address = ((InetSocketTransportAddress) httpServerTransport.boundAddress().publishAddress())
                 .address();
         httpPost = new HttpPost(String.format("http://%s:%s/_sql?error_trace", address.getHostName(), address.getPort()));
     }
@@ -71,4 +75,26 @@ public abstract class SQLHttpIntegrationTest extends SQLTransportIntegrationTest
         return post(null);
     }
 
+    /**
+     * executes the request on the node the other requests are sent to
+     *
+     * @param path the path including query parameters, e.g. <code>/_sql?types</code>
+     */
+    protected CloseableHttpResponse httpRequest(String method, String path, @Nullable String body) throws IOException {
+        String uri = String.format("http://%s:%s%s", address.getHostName(), address.getPort(), path);
+        HttpUriRequest request;
+        switch (method) {
+            case "DELETE":
+                request = new HttpDelete(uri);
+                break;
+            default:
+                HttpPost post = new HttpPost(uri);
+                if (body != null) {
+                    post.setEntity(new StringEntity(body));
+                }
+                request = post;
+        }
+        return httpClient.execute(request);
+    }
+
 }
@@ -0,0 +1,89 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.metadata;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.planner.RowGranularity;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+
+public class PartitionIndexTest extends CrateUnitTest {
+
+    private static final List<ReferenceInfo> PARTITION_COLUMNS = ImmutableList.of(new ReferenceInfo(
+            new ReferenceIdent(new TableIdent(null, "parted"), "day"), RowGranularity.PARTITION, DataTypes.LONG));
+
+    private static PartitionName partition(Long value) {
+        List<BytesRef> values = new ArrayList<>(1);
+        values.add(value == null ? null : new BytesRef(value.toString()));
+        return new PartitionName("parted", values);
+    }
+
+    private static PartitionIndex index(Long... values) {
+        List<PartitionName> partitions = new ArrayList<>(values.length);
+        for (Long value : values) {
+            partitions.add(partition(value));
+        }
+        return PartitionIndex.of(PARTITION_COLUMNS, partitions, 1L);
+    }
+
+    @Test
+    public void testPartitionsAreSortedByValue() throws Exception {
+        PartitionIndex index = index(30L, 10L, null, 20L);
+        assertThat(index.partitions(), contains(partition(null), partition(10L), partition(20L), partition(30L)));
+        assertThat(index.version(), is(1L));
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        PartitionIndex index = index(30L, 10L, null, 20L, 40L);
+
+        assertThat(index.range(10L, true, 30L, false), contains(partition(10L), partition(20L)));
+        assertThat(index.range(10L, false, 30L, true), contains(partition(20L), partition(30L)));
+        assertThat(index.range(null, false, 20L, true), contains(partition(10L), partition(20L)));
+        assertThat(index.range(35L, true, null, false), contains(partition(40L)));
+        assertThat(index.range(15L, true, 16L, true), empty());
+        assertThat(index.range(30L, false, 20L, false), empty());
+        assertThat(index.range(null, false, null, false).size(), is(5));
+    }
+
+    @Test
+    public void testWithChanges() throws Exception {
+        PartitionIndex index = index(10L, 30L);
+        PartitionIndex changed = index.withChanges(
+                Arrays.asList(partition(20L), partition(40L)),
+                Arrays.asList(partition(10L).stringValue()),
+                2L);
+
+        assertThat(changed.partitions(), contains(partition(20L), partition(30L), partition(40L)));
+        assertThat(changed.version(), is(2L));
+        // the original index is not modified
+        assertThat(index.partitions(), contains(partition(10L), partition(30L)));
+    }
+}
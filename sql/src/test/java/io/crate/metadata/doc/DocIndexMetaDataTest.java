@@ -452,6 +452,50 @@ public class DocIndexMetaDataTest extends CrateUnitTest {
         assertThat(md.columns(), hasSize(0));
     }
 
+    @Test
+    public void testExtractDocValuesColumns() throws Exception {
+        XContentBuilder builder = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject(Constants.DEFAULT_MAPPING_TYPE)
+                    .startObject("properties")
+                        .startObject("id")
+                            .field("type", "integer")
+                            .field("index", "not_analyzed")
+                            .field("doc_values", true)
+                        .endObject()
+                        .startObject("name")
+                            .field("type", "string")
+                            .field("index", "not_analyzed")
+                            .field("doc_values", "true")
+                        .endObject()
+                        .startObject("content")
+                            .field("type", "string")
+                            .field("index", "analyzed")
+                        .endObject()
+                        .startObject("tags")
+                            .field("type", "array")
+                            .startObject("inner")
+                                .field("type", "string")
+                                .field("index", "not_analyzed")
+                                .field("doc_values", true)
+                            .endObject()
+                        .endObject()
+                        .startObject("o")
+                            .field("type", "object")
+                            .startObject("properties")
+                                .startObject("x")
+                                    .field("type", "long")
+                                    .field("doc_values", true)
+                                .endObject()
+                            .endObject()
+                        .endObject()
+                    .endObject()
+                .endObject()
+                .endObject();
+        DocIndexMetaData md = newMeta(getIndexMetaData("test", builder), "test");
+        assertThat(md.docValuesColumns(), containsInAnyOrder(new ColumnIdent("id"), new ColumnIdent("name")));
+    }
+
     @Test
     public void testDocSysColumnReferences() throws Exception {
         XContentBuilder builder = XContentFactory.jsonBuilder()
@@ -0,0 +1,120 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.doc;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.metadata.*;
+import io.crate.planner.RowGranularity;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.admin.indices.template.put.TransportPutIndexTemplateAction;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DocSchemaInfoTest extends CrateUnitTest {
+
+    private static final List<ReferenceInfo> PARTITION_COLUMNS = ImmutableList.of(new ReferenceInfo(
+            new ReferenceIdent(new TableIdent(null, "parted"), "day"), RowGranularity.PARTITION, DataTypes.LONG));
+
+    private DocSchemaInfo docSchemaInfo;
+
+    private static PartitionName partition(long value) {
+        List<BytesRef> values = new ArrayList<>(1);
+        values.add(new BytesRef(Long.toString(value)));
+        return new PartitionName("parted", values);
+    }
+
+    private static ClusterState state(long version, long metaDataVersion) {
+        ClusterState state = mock(ClusterState.class);
+        when(state.version()).thenReturn(version);
+        when(state.metaData()).thenReturn(MetaData.builder().version(metaDataVersion).build());
+        return state;
+    }
+
+    private static ClusterChangedEvent event(ClusterState previousState,
+                                             ClusterState state,
+                                             List<String> indicesCreated) {
+        ClusterChangedEvent event = mock(ClusterChangedEvent.class);
+        when(event.previousState()).thenReturn(previousState);
+        when(event.state()).thenReturn(state);
+        when(event.metaDataChanged()).thenReturn(previousState.metaData().version() != state.metaData().version());
+        when(event.indicesCreated()).thenReturn(indicesCreated);
+        when(event.indicesDeleted()).thenReturn(Collections.<String>emptyList());
+        return event;
+    }
+
+    @Before
+    public void prepare() throws Exception {
+        docSchemaInfo = new DocSchemaInfo(
+                ReferenceInfos.DEFAULT_SCHEMA_NAME,
+                mock(ExecutorService.class),
+                mock(ClusterService.class),
+                mock(TransportPutIndexTemplateAction.class));
+    }
+
+    @Test
+    public void testPartitionIndexIsUpdatedAcrossRoutingOnlyChanges() throws Exception {
+        docSchemaInfo.cachePartitionIndex("parted",
+                PartitionIndex.of(PARTITION_COLUMNS, ImmutableList.of(partition(10L)), 1L));
+
+        ClusterState state1 = state(10L, 1L);
+        ClusterState state2 = state(11L, 2L);
+        // routing only change, e.g. a started shard
+        ClusterState state3 = state(12L, 2L);
+        ClusterState state4 = state(13L, 3L);
+
+        docSchemaInfo.clusterChanged(event(state1, state2, ImmutableList.of(partition(20L).stringValue())));
+        docSchemaInfo.clusterChanged(event(state2, state3, Collections.<String>emptyList()));
+        docSchemaInfo.clusterChanged(event(state3, state4, ImmutableList.of(partition(30L).stringValue())));
+
+        PartitionIndex partitionIndex = docSchemaInfo.partitionIndex("parted", 3L);
+        assertNotNull(partitionIndex);
+        assertThat(partitionIndex.partitions(), contains(partition(10L), partition(20L), partition(30L)));
+    }
+
+    @Test
+    public void testPartitionIndexWhichMissedAChangeIsDropped() throws Exception {
+        docSchemaInfo.cachePartitionIndex("parted",
+                PartitionIndex.of(PARTITION_COLUMNS, ImmutableList.of(partition(10L)), 1L));
+
+        docSchemaInfo.clusterChanged(event(state(11L, 2L), state(12L, 3L),
+                ImmutableList.of(partition(20L).stringValue())));
+
+        assertThat(docSchemaInfo.partitionIndex("parted", 3L), nullValue());
+    }
+}
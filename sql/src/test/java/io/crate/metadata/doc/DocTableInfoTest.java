@@ -2,6 +2,7 @@ package io.crate.metadata.doc;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.crate.metadata.*;
 import io.crate.metadata.table.ColumnPolicy;
 import io.crate.planner.RowGranularity;
@@ -58,8 +59,9 @@ public class DocTableInfoTest extends CrateUnitTest {
                 new BytesRef("0"),
                 ImmutableMap.<String,Object>of(),
                 ImmutableList.<ColumnIdent>of(),
-                ImmutableList.<PartitionName>of(),
+                PartitionIndex.EMPTY,
                 ColumnPolicy.DYNAMIC,
+                ImmutableSet.<ColumnIdent>of(),
                 executorService
         );
 
@@ -106,8 +108,9 @@ public class DocTableInfoTest extends CrateUnitTest {
                 new BytesRef("0"),
                 ImmutableMap.<String, Object>of(),
                 ImmutableList.<ColumnIdent>of(),
-                ImmutableList.<PartitionName>of(),
+                PartitionIndex.EMPTY,
                 ColumnPolicy.DYNAMIC,
+                ImmutableSet.<ColumnIdent>of(),
                 executorService
         );
 
@@ -22,8 +22,11 @@
 package io.crate.module.sql.test;
 
 import io.crate.action.sql.SQLResponse;
+import io.crate.core.collections.ArrayBucket;
+import io.crate.core.collections.Bucket;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.types.*;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.xcontent.ToXContent;
@@ -34,7 +37,9 @@ import org.junit.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 
 import static org.hamcrest.core.Is.is;
 
@@ -215,4 +220,160 @@ public class SQLResponseTest extends CrateUnitTest {
         assertThat(resp.rowCount(), is(2L));
         assertThat(resp.duration(), is(-1L));
     }
+
+    @Test
+    public void testBucketBackedSerializationWriteTo() throws Exception {
+        SQLResponse resp = new SQLResponse(
+                new String[] {"col1", "col2"},
+                new ArrayBucket(new Object[][] {
+                        new Object[] {new BytesRef("row1_col1"), new BytesRef("row1_col2")},
+                        new Object[] {new BytesRef("row2_col1"), new BytesRef("row2_col2")}
+                }),
+                new DataType[] { DataTypes.STRING, DataTypes.STRING },
+                2L,
+                0,
+                true
+        );
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        resp.writeTo(out);
+
+        // must be the same as if the rows had been materialized
+        byte[] expectedBytes = new byte[]
+                { 0,0,2,2,4,99,111,108,49,4,99,111,108,50,0,0,0,2,0,9,114,111,119,49,95,99,111,108,49,0,9,114,111,119,49,95,99,111,108,50,0,9,114,111,119,50,95,99,111,108,49,0,9,114,111,119,50,95,99,111,108,50,0,1,0,0,0,2,4,4};
+        byte[] bytes = out.bytes().toBytes();
+        assertThat(bytes, is(expectedBytes));
+    }
+
+    @Test
+    public void testBucketBackedXContent() throws Exception {
+        SQLResponse r = new SQLResponse(
+                new String[]{"name", "tags"},
+                new ArrayBucket(new Object[][]{
+                        new Object[]{new BytesRef("foo"), new BytesRef[]{new BytesRef("a"), null}},
+                        new Object[]{null, null}
+                }),
+                new DataType[]{DataTypes.STRING, new ArrayType(DataTypes.STRING)},
+                2L,
+                -1L,
+                false
+        );
+        JSONAssert.assertEquals(
+                "{\"cols\":[\"name\",\"tags\"],\"rows\":[[\"foo\",[\"a\",null]],[null,null]],\"rowcount\":2,\"duration\":-1}",
+                json(r), true);
+        assertThat(r.rows(), is(new Object[][]{
+                new Object[]{"foo", new String[]{"a", null}},
+                new Object[]{null, null}
+        }));
+    }
+
+    @Test
+    public void testColumnarEncodingStreamable() throws Exception {
+        Map<String, Object> obj = new HashMap<>();
+        obj.put("x", 1);
+        SQLResponse r1 = new SQLResponse(
+                new String[]{"i", "l", "d", "b", "s", "o", "mixed"},
+                new ArrayBucket(new Object[][]{
+                        new Object[]{1, 10L, 1.5d, true, new BytesRef("foo"), obj, 1},
+                        new Object[]{null, null, null, null, null, null, "two"},
+                        new Object[]{3, Long.MAX_VALUE, -0.5d, false, new BytesRef("bar"), null, null}
+                }),
+                new DataType[]{DataTypes.INTEGER, DataTypes.LONG, DataTypes.DOUBLE,
+                        DataTypes.BOOLEAN, DataTypes.STRING, DataTypes.OBJECT, DataTypes.INTEGER},
+                3L,
+                0L,
+                true
+        );
+        r1.columnarEncoding(true);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        r1.writeTo(out);
+        SQLResponse r2 = new SQLResponse();
+        r2.readFrom(new BytesStreamInput(out.bytes()));
+
+        assertArrayEquals(r1.cols(), r2.cols());
+        assertArrayEquals(r1.columnTypes(), r2.columnTypes());
+        assertThat(r2.rowCount(), is(3L));
+        assertThat(r2.rows(), is(new Object[][]{
+                new Object[]{1, 10L, 1.5d, true, "foo", obj, 1},
+                new Object[]{null, null, null, null, null, null, "two"},
+                new Object[]{3, Long.MAX_VALUE, -0.5d, false, "bar", null, null}
+        }));
+    }
+
+    @Test
+    public void testColumnarEncodingWritesBucketWithoutMaterializingRows() throws Exception {
+        Bucket bucket = new ArrayBucket(new Object[][]{
+                new Object[]{new BytesRef("foo"), 1L},
+                new Object[]{null, 2L}
+        });
+        SQLResponse r1 = new SQLResponse(new String[]{"s", "l"}, bucket,
+                new DataType[]{DataTypes.STRING, DataTypes.LONG}, 2L, 0L, false);
+        r1.columnarEncoding(true);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        r1.writeTo(out);
+        assertSame(bucket, r1.bucket());
+
+        SQLResponse r2 = new SQLResponse();
+        r2.readFrom(new BytesStreamInput(out.bytes()));
+        assertThat(r2.rows(), is(new Object[][]{
+                new Object[]{"foo", 1L},
+                new Object[]{null, 2L}
+        }));
+    }
+
+    @Test
+    public void testColumnarEncodingOfStringRows() throws Exception {
+        Object[][] rows = new Object[][]{new Object[]{"foo"}, new Object[]{"bar"}};
+        SQLResponse resp = new SQLResponse(new String[]{"s"}, rows,
+                new DataType[]{DataTypes.STRING}, 2L, 0L, true);
+        resp.columnarEncoding(true);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        resp.writeTo(out);
+        SQLResponse read = new SQLResponse();
+        read.readFrom(new BytesStreamInput(out.bytes()));
+        assertThat(read.rows(), is(rows));
+    }
+
+    @Test
+    public void testColumnarEncodingIsSmallerForNumericColumns() throws Exception {
+        Object[][] rows = new Object[100][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[]{(long) i, (double) i};
+        }
+        SQLResponse resp = new SQLResponse(new String[]{"a", "b"}, rows,
+                new DataType[]{DataTypes.LONG, DataTypes.DOUBLE}, 100L, 0L, false);
+
+        BytesStreamOutput rowOut = new BytesStreamOutput();
+        resp.writeTo(rowOut);
+        resp.columnarEncoding(true);
+        BytesStreamOutput columnarOut = new BytesStreamOutput();
+        resp.writeTo(columnarOut);
+
+        assertThat(columnarOut.size() < rowOut.size(), is(true));
+
+        SQLResponse read = new SQLResponse();
+        read.readFrom(new BytesStreamInput(columnarOut.bytes()));
+        assertThat(read.rows(), is(rows));
+        assertThat(read.columnTypes(), is(SQLResponse.EMPTY_TYPES));
+    }
+
+    @Test
+    public void testColumnarEncodingOfMismatchedNumericValues() throws Exception {
+        Object[][] rows = new Object[][]{
+                new Object[]{1, 1L, 1.5f},
+                new Object[]{Long.MAX_VALUE, 2.5d, 2.5d}
+        };
+        SQLResponse resp = new SQLResponse(new String[]{"i", "l", "f"}, rows,
+                new DataType[]{DataTypes.INTEGER, DataTypes.LONG, DataTypes.FLOAT}, 2L, 0L, false);
+        resp.columnarEncoding(true);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        resp.writeTo(out);
+        SQLResponse read = new SQLResponse();
+        read.readFrom(new BytesStreamInput(out.bytes()));
+        assertThat(read.rows(), is(rows));
+    }
 }
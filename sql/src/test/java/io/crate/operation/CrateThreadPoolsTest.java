@@ -0,0 +1,133 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.planner.node.dql.CollectNode;
+import io.crate.planner.projection.Projection;
+import io.crate.planner.projection.ProjectionType;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.util.concurrent.XRejectedExecutionHandler;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CrateThreadPoolsTest extends CrateUnitTest {
+
+    private CrateThreadPools crateThreadPools;
+
+    @After
+    public void closePools() throws Exception {
+        if (crateThreadPools != null) {
+            crateThreadPools.close();
+        }
+    }
+
+    private static CollectNode collectNode(ProjectionType... projectionTypes) {
+        ImmutableList.Builder<Projection> projections = ImmutableList.builder();
+        for (ProjectionType projectionType : projectionTypes) {
+            Projection projection = mock(Projection.class);
+            when(projection.projectionType()).thenReturn(projectionType);
+            projections.add(projection);
+        }
+        CollectNode collectNode = mock(CollectNode.class);
+        when(collectNode.projections()).thenReturn(projections.build());
+        return collectNode;
+    }
+
+    private static RamAccountingContext ramAccountingContext(long used, long limit) {
+        CircuitBreaker breaker = mock(CircuitBreaker.class);
+        when(breaker.getUsed()).thenReturn(used);
+        when(breaker.getLimit()).thenReturn(limit);
+        return new RamAccountingContext("test", breaker);
+    }
+
+    @Test
+    public void testPoolOfCollectNode() throws Exception {
+        assertThat(CrateThreadPools.Pool.of(collectNode()), is(CrateThreadPools.Pool.INTERACTIVE));
+        assertThat(CrateThreadPools.Pool.of(collectNode(ProjectionType.TOPN)), is(CrateThreadPools.Pool.INTERACTIVE));
+        assertThat(CrateThreadPools.Pool.of(collectNode(ProjectionType.GROUP, ProjectionType.TOPN)),
+                is(CrateThreadPools.Pool.ANALYTICAL));
+        assertThat(CrateThreadPools.Pool.of(collectNode(ProjectionType.WRITER)), is(CrateThreadPools.Pool.ANALYTICAL));
+        assertThat(CrateThreadPools.Pool.of(collectNode(ProjectionType.AGGREGATION, ProjectionType.COLUMN_INDEX_WRITER)),
+                is(CrateThreadPools.Pool.INGEST));
+    }
+
+    @Test
+    public void testAdmissionRejectedOnBreakerUsage() throws Exception {
+        crateThreadPools = new CrateThreadPools(ImmutableSettings.EMPTY);
+        RamAccountingContext ramAccountingContext = ramAccountingContext(95, 100);
+
+        // interactive statements are only limited by the queue
+        crateThreadPools.admit(CrateThreadPools.Pool.INTERACTIVE, ramAccountingContext);
+
+        expectedException.expect(RejectedExecutionException.class);
+        expectedException.expectMessage("query circuit breaker has not enough headroom for [crate_analytical] statements");
+        crateThreadPools.admit(CrateThreadPools.Pool.ANALYTICAL, ramAccountingContext);
+    }
+
+    @Test
+    public void testAdmissionRejectedOnQueueDepth() throws Exception {
+        crateThreadPools = new CrateThreadPools(ImmutableSettings.builder()
+                .put("crate.thread_pool.ingest.size", 1)
+                .put("crate.thread_pool.ingest.queue_size", 2)
+                .build());
+        ThreadPoolExecutor executor = crateThreadPools.executor(CrateThreadPools.Pool.INGEST);
+        final CountDownLatch latch = new CountDownLatch(1);
+        Runnable blocking = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        try {
+            crateThreadPools.admit(CrateThreadPools.Pool.INGEST, ramAccountingContext(0, 100));
+            executor.execute(blocking);
+            executor.execute(blocking);
+            executor.execute(blocking);
+            try {
+                crateThreadPools.admit(CrateThreadPools.Pool.INGEST, ramAccountingContext(0, 100));
+                fail("statement must be rejected if the queue is full");
+            } catch (RejectedExecutionException e) {
+                assertThat(e.getMessage(), is("rejected statement: queue of thread pool [crate_ingest] is full (2/2)"));
+            }
+            assertThat(((XRejectedExecutionHandler) executor.getRejectedExecutionHandler()).rejected(), is(1L));
+        } finally {
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.operation.operator.EqOperator;
+import io.crate.operation.operator.GtOperator;
+import io.crate.operation.scalar.arithmetic.AddFunction;
+import io.crate.operation.scalar.arithmetic.DivideFunction;
+import io.crate.operation.scalar.arithmetic.MultiplyFunction;
+import io.crate.operation.scalar.cast.ToLongFunction;
+import io.crate.planner.symbol.Function;
+import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Symbol;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+public class ExpressionCompilerTest extends CrateUnitTest {
+
+    static class ValueInput implements Input<Object> {
+
+        Object value;
+        int evaluations = 0;
+
+        ValueInput(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object value() {
+            evaluations++;
+            return value;
+        }
+    }
+
+    private static Function function(String name, DataType returnType, DataType... argumentTypes) {
+        return new Function(
+                new FunctionInfo(new FunctionIdent(name, Arrays.asList(argumentTypes)), returnType),
+                ImmutableList.<Symbol>of());
+    }
+
+    private static Input<?> compile(String name, DataType returnType, DataType argumentType, Input<?>... arguments) {
+        DataType[] argumentTypes = new DataType[arguments.length];
+        Arrays.fill(argumentTypes, argumentType);
+        return ExpressionCompiler.compile(function(name, returnType, argumentTypes), arguments);
+    }
+
+    @Test
+    public void testLongArithmetic() throws Exception {
+        ValueInput x = new ValueInput(3);
+        // (x + 1) * 2
+        Input<?> add = compile(AddFunction.NAME, DataTypes.LONG, DataTypes.INTEGER, x, Literal.newLiteral(1));
+        Input<?> multiply = compile(MultiplyFunction.NAME, DataTypes.LONG, DataTypes.LONG, add, Literal.newLiteral(2L));
+
+        assertThat(multiply, instanceOf(ExpressionCompiler.LongEvaluator.class));
+        assertThat((Long) multiply.value(), is(8L));
+        assertThat(x.evaluations, is(1));
+
+        x.value = null;
+        assertThat(multiply.value(), nullValue());
+        x.value = 10;
+        assertThat((Long) multiply.value(), is(22L));
+    }
+
+    @Test
+    public void testDoubleArithmeticWithLongArgument() throws Exception {
+        ValueInput x = new ValueInput(5L);
+        Input<?> divide = compile(DivideFunction.NAME, DataTypes.DOUBLE, DataTypes.DOUBLE,
+                x, Literal.newLiteral(2.0d));
+        assertThat((Double) divide.value(), is(2.5d));
+    }
+
+    @Test
+    public void testNullArgumentIsNotEvaluated() throws Exception {
+        ValueInput left = new ValueInput(null);
+        ValueInput right = new ValueInput(1L);
+        Input<?> add = compile(AddFunction.NAME, DataTypes.LONG, DataTypes.LONG, left, right);
+        assertThat(add.value(), nullValue());
+        assertThat(right.evaluations, is(0));
+    }
+
+    @Test
+    public void testConstantFolding() throws Exception {
+        Input<?> add = compile(AddFunction.NAME, DataTypes.LONG, DataTypes.LONG,
+                Literal.newLiteral(1L), Literal.newLiteral(2L));
+        assertThat(add, instanceOf(ExpressionCompiler.LongConstant.class));
+        assertThat((Long) add.value(), is(3L));
+    }
+
+    @Test
+    public void testDivisionByZeroIsNotFolded() throws Exception {
+        Input<?> divide = compile(DivideFunction.NAME, DataTypes.LONG, DataTypes.LONG,
+                Literal.newLiteral(1L), Literal.newLiteral(0L));
+        assertThat(divide, instanceOf(ExpressionCompiler.LongEvaluator.class));
+
+        expectedException.expect(ArithmeticException.class);
+        divide.value();
+    }
+
+    @Test
+    public void testComparison() throws Exception {
+        ValueInput x = new ValueInput(4L);
+        Input<?> add = compile(AddFunction.NAME, DataTypes.LONG, DataTypes.LONG, x, Literal.newLiteral(1L));
+        Input<?> gt = compile(GtOperator.NAME, DataTypes.BOOLEAN, DataTypes.LONG, add, Literal.newLiteral(5L));
+
+        assertThat(gt, instanceOf(ExpressionCompiler.BooleanEvaluator.class));
+        assertThat((Boolean) gt.value(), is(false));
+        x.value = 5L;
+        assertThat((Boolean) gt.value(), is(true));
+        x.value = null;
+        assertThat(gt.value(), nullValue());
+    }
+
+    @Test
+    public void testDoubleEqualityMatchesEquals() throws Exception {
+        ValueInput x = new ValueInput(Double.NaN);
+        Input<?> add = compile(AddFunction.NAME, DataTypes.DOUBLE, DataTypes.DOUBLE, x, Literal.newLiteral(0.0d));
+        Input<?> eq = compile(EqOperator.NAME, DataTypes.BOOLEAN, DataTypes.DOUBLE, add, Literal.newLiteral(Double.NaN));
+        assertThat((Boolean) eq.value(), is(Double.valueOf(Double.NaN).equals(Double.NaN)));
+    }
+
+    @Test
+    public void testNotCompiled() throws Exception {
+        ValueInput x = new ValueInput(1L);
+        // comparing a plain input wouldn't save anything
+        assertThat(compile(GtOperator.NAME, DataTypes.BOOLEAN, DataTypes.LONG, x, Literal.newLiteral(1L)),
+                nullValue());
+        // casting a plain input neither
+        assertThat(compile(ToLongFunction.NAME, DataTypes.LONG, DataTypes.INTEGER, x), nullValue());
+        // null literals are left to the scalar
+        assertThat(compile(AddFunction.NAME, DataTypes.LONG, DataTypes.LONG, x, Literal.newLiteral(DataTypes.LONG, null)),
+                nullValue());
+        // as are strings
+        assertThat(compile(EqOperator.NAME, DataTypes.BOOLEAN, DataTypes.STRING, x, Literal.newLiteral("a")),
+                nullValue());
+    }
+}
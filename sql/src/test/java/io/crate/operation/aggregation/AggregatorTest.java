@@ -43,6 +43,7 @@ import org.junit.Test;
 import java.util.Arrays;
 import java.util.Collections;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
 
 public class AggregatorTest extends CrateUnitTest {
@@ -111,4 +112,34 @@ public class AggregatorTest extends CrateUnitTest {
         long result = (Long)collector.finishCollect(state);
         assertThat(result, is(5L));
     }
+
+    @Test
+    public void testAggregationFromIterToPartialEmitsBoxedValue() {
+        Aggregation aggregation = Aggregation.partialAggregation(
+                countImpl.info(),
+                countImpl.partialType(),
+                Collections.<Symbol>singletonList(new InputColumn(0))
+        );
+
+        Input dummyInput = new Input() {
+
+            @Override
+            public Object value() {
+                return "foo";
+            }
+        };
+
+        Aggregator collector = new Aggregator(RAM_ACCOUNTING_CONTEXT, aggregation, countImpl, dummyInput);
+        Object state = collector.prepareState();
+        for (int i = 0; i < 3; i++) {
+            state = collector.processRow(state);
+        }
+        Object partial = collector.finishCollect(state);
+        assertThat(partial, instanceOf(Long.class));
+
+        // further rows mutate the state but not the emitted partial value
+        collector.processRow(state);
+        assertThat((Long) partial, is(3L));
+        assertThat((Long) collector.finishCollect(state), is(4L));
+    }
 }
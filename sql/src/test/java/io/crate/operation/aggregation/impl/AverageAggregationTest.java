@@ -83,4 +83,29 @@ public class AverageAggregationTest extends AggregationTest {
     public void testUnsupportedType() throws Exception {
         Object[][] result = executeAggregation(DataTypes.STRING, new Object[][]{{"Youri"}, {"Ruben"}});
     }
+
+    @Test
+    public void testLongIsExact() throws Exception {
+        // summing up 2^53 + 1 + 1 using doubles would result in 2^53
+        Object[][] result = executeAggregation(DataTypes.LONG,
+                new Object[][]{{9007199254740992L}, {1L}, {1L}, {0L}});
+
+        assertEquals(2251799813685248.5d, result[0][0]);
+    }
+
+    @Test
+    public void testTimestamp() throws Exception {
+        Object[][] result = executeAggregation(DataTypes.TIMESTAMP,
+                new Object[][]{{1430000000000L}, {null}, {1430000000001L}});
+
+        assertEquals(1430000000000.5d, result[0][0]);
+    }
+
+    @Test
+    public void testLongOverflow() throws Exception {
+        Object[][] result = executeAggregation(DataTypes.LONG,
+                new Object[][]{{Long.MAX_VALUE}, {Long.MAX_VALUE}});
+
+        assertEquals((double) Long.MAX_VALUE, result[0][0]);
+    }
 }
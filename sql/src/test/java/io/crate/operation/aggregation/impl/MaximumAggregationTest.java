@@ -90,4 +90,19 @@ public class MaximumAggregationTest extends AggregationTest {
     public void testUnsupportedType() throws Exception {
         Object[][] result = executeAggregation(DataTypes.OBJECT, new Object[][]{{new Object()}});
     }
+
+    @Test
+    public void testTimestamp() throws Exception {
+        Object[][] result = executeAggregation(DataTypes.TIMESTAMP,
+                new Object[][]{{1430000000000L}, {null}, {1440000000000L}});
+
+        assertEquals(1440000000000L, result[0][0]);
+    }
+
+    @Test
+    public void testNull() throws Exception {
+        Object[][] result = executeAggregation(DataTypes.INTEGER, new Object[][]{{null}, {null}});
+
+        assertNull(result[0][0]);
+    }
 }
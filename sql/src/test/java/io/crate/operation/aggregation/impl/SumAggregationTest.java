@@ -23,9 +23,12 @@ package io.crate.operation.aggregation.impl;
 
 import com.google.common.collect.ImmutableList;
 import io.crate.metadata.FunctionIdent;
+import io.crate.operation.aggregation.AggregationFunction;
 import io.crate.operation.aggregation.AggregationTest;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -82,4 +85,68 @@ public class SumAggregationTest extends AggregationTest {
     public void testUnsupportedType() throws Exception {
         Object[][] result = executeAggregation(DataTypes.STRING, new Object[][]{{"Youri"}, {"Ruben"}});
     }
+
+    @Test
+    public void testNullValues() throws Exception {
+        Object[][] result = executeAggregation(DataTypes.LONG, new Object[][]{{null}, {null}});
+        assertNull(result[0][0]);
+
+        result = executeAggregation(DataTypes.LONG, new Object[][]{{null}, {7L}, {null}, {3L}});
+        assertEquals(10d, result[0][0]);
+    }
+
+    @Test
+    public void testReducePartialStates() throws Exception {
+        AggregationFunction impl = (AggregationFunction) functions.get(
+                new FunctionIdent("sum", ImmutableList.<DataType>of(DataTypes.DOUBLE)));
+        Object state = impl.newState(ramAccountingContext);
+        // streamed partial states are doubles, local ones are the mutable states
+        state = impl.reduce(ramAccountingContext, state, 1.5d);
+        state = impl.reduce(ramAccountingContext, state, new DoubleState(2.0d));
+        state = impl.reduce(ramAccountingContext, state, null);
+        assertEquals(3.5d, impl.terminatePartial(ramAccountingContext, state));
+    }
+
+    @Test
+    public void testLongSumIsExact() throws Exception {
+        // 2^53 + 1 can't be represented as double, adding it up using doubles would drop the 1s
+        Object[][] result = executeAggregation(DataTypes.LONG,
+                new Object[][]{{9007199254740992L}, {1L}, {1L}});
+
+        assertEquals(9007199254740994d, result[0][0]);
+    }
+
+    @Test
+    public void testLongSumOverflowContinuesAsDouble() throws Exception {
+        Object[][] result = executeAggregation(DataTypes.LONG,
+                new Object[][]{{Long.MAX_VALUE}, {Long.MAX_VALUE}, {-1L}});
+
+        assertEquals(2.0d * Long.MAX_VALUE - 1, result[0][0]);
+    }
+
+    @Test
+    public void testStreamLongSumState() throws Exception {
+        LongSumState state = new LongSumState();
+        state.add(Long.MAX_VALUE);
+        LongSumState overflowed = new LongSumState();
+        overflowed.add(Long.MAX_VALUE);
+        overflowed.add(10L);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        LongSumState.LongSumStateType.INSTANCE.writeValueTo(out, state);
+        LongSumState.LongSumStateType.INSTANCE.writeValueTo(out, overflowed);
+        BytesStreamInput in = new BytesStreamInput(out.bytes());
+        LongSumState streamed = LongSumState.LongSumStateType.INSTANCE.readValueFrom(in);
+        LongSumState streamedOverflowed = LongSumState.LongSumStateType.INSTANCE.readValueFrom(in);
+
+        assertEquals(0, state.compareTo(streamed));
+        assertFalse(streamed.overflowed());
+        assertEquals(0, overflowed.compareTo(streamedOverflowed));
+        assertTrue(streamedOverflowed.overflowed());
+
+        // merging partial states keeps the count and continues the sum as double
+        streamed.merge(streamedOverflowed);
+        assertEquals(3L, streamed.count());
+        assertEquals(2.0d * Long.MAX_VALUE + 10, streamed.sum(), 0.0d);
+    }
 }
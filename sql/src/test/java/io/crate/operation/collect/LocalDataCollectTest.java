@@ -26,6 +26,7 @@ import io.crate.analyze.WhereClause;
 import io.crate.blob.BlobEnvironment;
 import io.crate.blob.v2.BlobIndices;
 import io.crate.breaker.CircuitBreakerModule;
+import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.core.collections.Bucket;
 import io.crate.core.collections.TreeMapBuilder;
@@ -39,6 +40,7 @@ import io.crate.metadata.shard.ShardReferenceResolver;
 import io.crate.metadata.shard.blob.BlobShardReferenceImplementation;
 import io.crate.metadata.sys.SysNodesTableInfo;
 import io.crate.metadata.sys.SysShardsTableInfo;
+import io.crate.operation.CrateThreadPools;
 import io.crate.operation.Input;
 import io.crate.operation.operator.AndOperator;
 import io.crate.operation.operator.EqOperator;
@@ -183,6 +185,7 @@ public class LocalDataCollectTest extends CrateUnitTest {
     );
 
     private JobContextService jobContextService;
+    private CrateThreadPools crateThreadPools;
 
     private final ThreadPool testThreadPool = new ThreadPool(getClass().getSimpleName());
     private final static String TEST_NODE_ID = "test_node";
@@ -341,6 +344,7 @@ public class LocalDataCollectTest extends CrateUnitTest {
                 new TestShardModule(1)
         );
         functions = injector.getInstance(Functions.class);
+        crateThreadPools = injector.getInstance(CrateThreadPools.class);
 
         IndicesService indicesService = injector.getInstance(IndicesService.class);
         indexService = injector.getInstance(IndexService.class);
@@ -365,11 +369,13 @@ public class LocalDataCollectTest extends CrateUnitTest {
                 injector.getInstance(NodeSysExpression.class),
                 indicesService,
                 testThreadPool,
+                crateThreadPools,
                 new CollectServiceResolver(discoveryService,
                         new SystemCollectService(
                                 discoveryService,
                                 functions,
-                                new StatsTables(ImmutableSettings.EMPTY, nodeSettingsService))
+                                new StatsTables(ImmutableSettings.EMPTY, nodeSettingsService,
+                                        injector.getInstance(CrateCircuitBreakerService.class)))
                 ),
                 new ResultProviderFactory() {
                     @Override
@@ -385,6 +391,7 @@ public class LocalDataCollectTest extends CrateUnitTest {
     @After
     public void cleanUp() throws Exception {
         testThreadPool.shutdownNow();
+        crateThreadPools.close();
     }
 
     private Routing shardRouting(final Integer... shardIds) {
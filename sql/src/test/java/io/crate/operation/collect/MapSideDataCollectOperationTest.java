@@ -22,10 +22,12 @@
 package io.crate.operation.collect;
 
 import com.google.common.collect.ImmutableMap;
+import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.core.collections.TreeMapBuilder;
 import io.crate.executor.transport.TransportActionProvider;
 import io.crate.jobs.ExecutionState;
 import io.crate.metadata.*;
+import io.crate.operation.CrateThreadPools;
 import io.crate.operation.projectors.ResultProvider;
 import io.crate.operation.projectors.ResultProviderFactory;
 import io.crate.operation.reference.sys.node.NodeSysExpression;
@@ -46,6 +48,7 @@ import org.elasticsearch.discovery.DiscoveryService;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.node.settings.NodeSettingsService;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -68,6 +71,13 @@ public class MapSideDataCollectOperationTest {
     @Rule
     public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
+    private final CrateThreadPools crateThreadPools = new CrateThreadPools(ImmutableSettings.EMPTY);
+
+    @After
+    public void cleanUp() throws Exception {
+        crateThreadPools.close();
+    }
+
     @Test
     public void testFileUriCollect() throws Exception {
         ClusterService clusterService = mock(ClusterService.class);
@@ -103,11 +113,12 @@ public class MapSideDataCollectOperationTest {
                 mock(NodeSysExpression.class),
                 indicesService,
                 new ThreadPool(ImmutableSettings.builder().put("name", getClass().getName()).build(), null),
+                crateThreadPools,
                 new CollectServiceResolver(discoveryService,
                         new SystemCollectService(
                                 discoveryService,
                                 functions,
-                                new StatsTables(ImmutableSettings.EMPTY, nodeSettingsService)
+                                new StatsTables(ImmutableSettings.EMPTY, nodeSettingsService, mock(CrateCircuitBreakerService.class))
                         )
                 ),
                 new ResultProviderFactory() {
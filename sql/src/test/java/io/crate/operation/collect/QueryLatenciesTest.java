@@ -0,0 +1,109 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.collect;
+
+import io.crate.operation.reference.sys.latency.QueryLatency;
+import io.crate.sql.parser.SqlParser;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+
+public class QueryLatenciesTest extends CrateUnitTest {
+
+    @Test
+    public void testStatementType() throws Exception {
+        assertThat(type("select * from t"), is(QueryLatencies.StatementType.SELECT));
+        assertThat(type("insert into t (x) values (1)"), is(QueryLatencies.StatementType.INSERT));
+        assertThat(type("insert into t (x) (select x from t2)"), is(QueryLatencies.StatementType.INSERT));
+        assertThat(type("update t set x = 1"), is(QueryLatencies.StatementType.UPDATE));
+        assertThat(type("delete from t"), is(QueryLatencies.StatementType.DELETE));
+        assertThat(type("copy t from '/tmp/foo.json'"), is(QueryLatencies.StatementType.COPY));
+        assertThat(type("copy t to directory '/tmp'"), is(QueryLatencies.StatementType.COPY));
+        assertThat(type("create table t (x int)"), is(QueryLatencies.StatementType.OTHER));
+    }
+
+    private static QueryLatencies.StatementType type(String stmt) {
+        return QueryLatencies.StatementType.of(SqlParser.createStatement(stmt));
+    }
+
+    @Test
+    public void testSnapshotContainsRecordedHistograms() throws Exception {
+        QueryLatencies latencies = new QueryLatencies(0L);
+        assertThat(latencies.snapshot().size(), is(0));
+
+        latencies.record(QueryLatencies.StatementType.SELECT, QueryLatencies.Phase.TOTAL,
+                TimeUnit.MILLISECONDS.toNanos(10));
+        latencies.record(QueryLatencies.StatementType.SELECT, QueryLatencies.Phase.TOTAL,
+                TimeUnit.MILLISECONDS.toNanos(20));
+        latencies.record(QueryLatencies.StatementType.INSERT, QueryLatencies.Phase.PLAN,
+                TimeUnit.MICROSECONDS.toNanos(500));
+
+        List<QueryLatency> rows = latencies.snapshot();
+        assertThat(rows.size(), is(2));
+
+        QueryLatency select = rows.get(0);
+        assertThat(select.type(), is("select"));
+        assertThat(select.phase(), is("total"));
+        assertThat(select.windowEnded(), nullValue());
+        assertThat(select.count(), is(2L));
+        assertThat(select.min(), is(10.0d));
+        assertThat(select.max(), is(20.0d));
+        assertThat(select.mean(), is(15.0d));
+        assertThat(select.p50(), allOf(greaterThanOrEqualTo(10.0d), lessThan(10.5d)));
+        assertThat(select.p99(), is(20.0d));
+
+        QueryLatency insert = rows.get(1);
+        assertThat(insert.type(), is("insert"));
+        assertThat(insert.phase(), is("plan"));
+        assertThat(insert.max(), is(0.5d));
+    }
+
+    @Test
+    public void testWindowRotation() throws Exception {
+        QueryLatencies latencies = new QueryLatencies(50L);
+        latencies.record(QueryLatencies.StatementType.SELECT, QueryLatencies.Phase.TOTAL, 1000L);
+        Thread.sleep(60);
+        latencies.record(QueryLatencies.StatementType.DELETE, QueryLatencies.Phase.TOTAL, 1000L);
+
+        List<QueryLatency> rows = latencies.snapshot();
+        assertThat(rows.size(), is(2));
+        // previous window first
+        assertThat(rows.get(0).type(), is("select"));
+        assertThat(rows.get(0).windowEnded(), is(rows.get(0).windowStarted() + 50L));
+        assertThat(rows.get(1).type(), is("delete"));
+        assertThat(rows.get(1).windowEnded(), nullValue());
+    }
+
+    @Test
+    public void testWindowSizeChangeResets() throws Exception {
+        QueryLatencies latencies = new QueryLatencies(0L);
+        latencies.record(QueryLatencies.StatementType.SELECT, QueryLatencies.Phase.TOTAL, 1000L);
+        latencies.windowSize(TimeUnit.MINUTES.toMillis(1));
+        assertThat(latencies.windowSize(), is(60_000L));
+        assertThat(latencies.snapshot().size(), is(0));
+    }
+}
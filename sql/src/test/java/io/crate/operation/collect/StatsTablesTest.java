@@ -21,8 +21,7 @@
 
 package io.crate.operation.collect;
 
-import io.crate.core.collections.NonBlockingArrayQueue;
-import io.crate.core.collections.NoopQueue;
+import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.metadata.settings.CrateSettings;
 import io.crate.operation.reference.sys.job.JobContext;
 import io.crate.operation.reference.sys.job.JobContextLog;
@@ -32,12 +31,12 @@ import io.crate.test.integration.CrateUnitTest;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.node.settings.NodeSettingsService;
-import org.hamcrest.Matchers;
 import org.junit.Test;
 
 import java.util.UUID;
 
 import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
 
 public class StatsTablesTest extends CrateUnitTest {
 
@@ -45,14 +44,14 @@ public class StatsTablesTest extends CrateUnitTest {
     @Test
     public void testSettingsChanges() {
         NodeSettingsService nodeSettingsService = new NodeSettingsService(ImmutableSettings.EMPTY);
-        StatsTables stats = new StatsTables(ImmutableSettings.EMPTY, nodeSettingsService);
+        StatsTables stats = new StatsTables(ImmutableSettings.EMPTY, nodeSettingsService, mock(CrateCircuitBreakerService.class));
 
         assertThat(stats.isEnabled(), is(false));
         assertThat(stats.lastJobsLogSize, is(CrateSettings.STATS_JOBS_LOG_SIZE.defaultValue()));
         assertThat(stats.lastOperationsLogSize, is(CrateSettings.STATS_OPERATIONS_LOG_SIZE.defaultValue()));
 
-        // even though logSizes are > 0 it must be a NoopQueue because the stats are disabled
-        assertThat(stats.jobsLog.get(), Matchers.instanceOf(NoopQueue.class));
+        // even though logSizes are > 0 it must be a noop log because the stats are disabled
+        assertThat(stats.jobsLog.get().capacity(), is(0));
 
         stats.listener.onRefreshSettings(ImmutableSettings.builder()
                 .put(CrateSettings.STATS_ENABLED.settingName(), true)
@@ -62,14 +61,15 @@ public class StatsTablesTest extends CrateUnitTest {
         assertThat(stats.lastJobsLogSize, is(CrateSettings.STATS_JOBS_LOG_SIZE.defaultValue()));
         assertThat(stats.lastOperationsLogSize, is(200));
 
-        assertThat(stats.jobsLog.get(), Matchers.instanceOf(NonBlockingArrayQueue.class));
+        assertThat(stats.jobsLog.get().capacity(), is(CrateSettings.STATS_JOBS_LOG_SIZE.defaultValue()));
+        assertThat(stats.operationsLog.get().capacity(), is(200));
 
 
         stats.listener.onRefreshSettings(ImmutableSettings.builder()
                 .put(CrateSettings.STATS_ENABLED.settingName(), false).build());
 
         // logs got wiped:
-        assertThat(stats.jobsLog.get(), Matchers.instanceOf(NoopQueue.class));
+        assertThat(stats.jobsLog.get().capacity(), is(0));
         assertThat(stats.isEnabled(), is(false));
     }
 
@@ -78,7 +78,7 @@ public class StatsTablesTest extends CrateUnitTest {
         NodeSettingsService nodeSettingsService = new NodeSettingsService(ImmutableSettings.EMPTY);
         Settings settings = ImmutableSettings.builder()
                 .put(CrateSettings.STATS_ENABLED.settingName(), true).build();
-        StatsTables stats = new StatsTables(settings, nodeSettingsService);
+        StatsTables stats = new StatsTables(settings, nodeSettingsService, mock(CrateCircuitBreakerService.class));
 
         stats.jobsLog.get().add(new JobContextLog(new JobContext(UUID.randomUUID(), "select 1", 1L), null));
 
@@ -99,5 +99,7 @@ public class StatsTablesTest extends CrateUnitTest {
                 .put(CrateSettings.STATS_OPERATIONS_LOG_SIZE.settingName(), 1).build());
 
         assertThat(stats.operationsLog.get().size(), is(1));
+        // the newest entry is kept
+        assertThat(stats.operationsLog.get().iterator().next().started(), is(3L));
     }
 }
\ No newline at end of file
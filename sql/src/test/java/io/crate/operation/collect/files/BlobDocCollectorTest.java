@@ -73,6 +73,7 @@ public class BlobDocCollectorTest extends CrateUnitTest {
 
         File blob = new File(container.getVarDirectory().getAbsolutePath() + "/01/" + digest);
         blob.createNewFile();
+        container.digestIndex().added(blob);
         long mtime = blob.lastModified();
 
         BlobDigestExpression digestExpression = new BlobDigestExpression();
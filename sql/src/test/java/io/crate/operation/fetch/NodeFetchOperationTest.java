@@ -28,6 +28,7 @@ import io.crate.executor.transport.distributed.SingleBucketBuilder;
 import io.crate.jobs.JobContextService;
 import io.crate.jobs.JobExecutionContext;
 import io.crate.metadata.Functions;
+import io.crate.operation.CrateThreadPools;
 import io.crate.operation.collect.CollectOperation;
 import io.crate.operation.collect.JobCollectContext;
 import io.crate.operation.collect.StatsTables;
@@ -47,6 +48,7 @@ import java.util.Locale;
 import java.util.UUID;
 import java.util.concurrent.ThreadPoolExecutor;
 
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -54,6 +56,7 @@ import static org.mockito.Mockito.when;
 public class NodeFetchOperationTest extends CrateUnitTest {
 
     static ThreadPool threadPool;
+    static CrateThreadPools crateThreadPools;
     static JobContextService jobContextService;
 
     private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
@@ -65,12 +68,15 @@ public class NodeFetchOperationTest extends CrateUnitTest {
         when(threadPoolExecutor.getPoolSize()).thenReturn(2);
         threadPool = mock(ThreadPool.class);
         when(threadPool.executor(any(String.class))).thenReturn(threadPoolExecutor);
+        crateThreadPools = mock(CrateThreadPools.class);
+        when(crateThreadPools.executor(any(CrateThreadPools.Pool.class))).thenReturn(threadPoolExecutor);
         jobContextService = new JobContextService(ImmutableSettings.EMPTY, threadPool, mock(StatsTables.class));
     }
 
     @AfterClass
     public static void afterClass() {
         threadPool = null;
+        crateThreadPools = null;
         jobContextService = null;
     }
 
@@ -84,7 +90,7 @@ public class NodeFetchOperationTest extends CrateUnitTest {
                 ImmutableList.<Reference>of(),
                 true,
                 jobContextService,
-                threadPool,
+                crateThreadPools,
                 mock(Functions.class),
                 mock(RamAccountingContext.class));
 
@@ -109,7 +115,7 @@ public class NodeFetchOperationTest extends CrateUnitTest {
                 ImmutableList.<Reference>of(),
                 true,
                 jobContextService,
-                threadPool,
+                crateThreadPools,
                 mock(Functions.class),
                 mock(RamAccountingContext.class));
 
@@ -117,4 +123,19 @@ public class NodeFetchOperationTest extends CrateUnitTest {
         expectedException.expectMessage(String.format(Locale.ENGLISH, "No shard collect context found for job search context id '%s'", 0));
         nodeFetchOperation.fetch(mock(SingleBucketBuilder.class));
     }
+
+    @Test
+    public void testShardDocIdsBucketOrderedByDocId() throws Exception {
+        NodeFetchOperation.ShardDocIdsBucket bucket = new NodeFetchOperation.ShardDocIdsBucket();
+        bucket.add(0, 42);
+        bucket.add(1, 3);
+        bucket.add(2, Integer.MAX_VALUE);
+        bucket.add(3, 0);
+        bucket.add(4, 17);
+
+        int[] order = bucket.docIdOrder();
+        assertThat(order, is(new int[]{3, 1, 4, 0, 2}));
+        assertThat(bucket.position(order[0]), is(3));
+        assertThat(bucket.docId(order[4]), is(Integer.MAX_VALUE));
+    }
 }
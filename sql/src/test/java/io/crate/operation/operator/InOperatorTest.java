@@ -21,6 +21,7 @@
 package io.crate.operation.operator;
 
 import com.google.common.collect.Sets;
+import io.crate.metadata.Scalar;
 import io.crate.operation.operator.input.ObjectInput;
 import io.crate.planner.symbol.Function;
 import io.crate.planner.symbol.Literal;
@@ -34,6 +35,7 @@ import org.apache.lucene.util.BytesRef;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -187,4 +189,19 @@ public class InOperatorTest extends CrateUnitTest{
         assertNull(op.evaluate(new ObjectInput("something"), new ObjectInput(null)));
     }
 
+    @Test
+    public void testEvaluateCompiledInOperator() {
+        InOperator op = new InOperator(Operator.generateInfo(InOperator.NAME, DataTypes.INTEGER));
+        Literal inListValues = Literal.newLiteral(INTEGER_SET_TYPE, Sets.newHashSet(1, 2, 4, 8));
+        Scalar<Boolean, Object> compiled = op.compile(Arrays.<Symbol>asList(new Reference(), inListValues));
+        assertNotSame(op, compiled);
+
+        assertTrue(compiled.evaluate(new ObjectInput(4), inListValues));
+        assertFalse(compiled.evaluate(new ObjectInput(5), inListValues));
+        assertNull(compiled.evaluate(new ObjectInput(null), inListValues));
+
+        Literal withNull = Literal.newLiteral(INTEGER_SET_TYPE, Sets.newHashSet(1, null));
+        compiled = op.compile(Arrays.<Symbol>asList(new Reference(), withNull));
+        assertNull(compiled.evaluate(new ObjectInput(1), withNull));
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MembershipSetTest extends CrateUnitTest {
+
+    @Test
+    public void testDenseIntegers() throws Exception {
+        MembershipSet set = MembershipSet.of(DataTypes.INTEGER, Arrays.asList(10, 12, 13, 17));
+        assertThat(set, instanceOf(MembershipSet.DenseRange.class));
+        assertTrue(set.contains(10));
+        assertTrue(set.contains(17));
+        assertFalse(set.contains(11));
+        assertFalse(set.contains(9));
+        assertFalse(set.contains(18));
+        assertFalse(set.contains(Integer.MIN_VALUE));
+        assertFalse(set.containsNull());
+    }
+
+    @Test
+    public void testSparseIntegers() throws Exception {
+        MembershipSet set = MembershipSet.of(DataTypes.INTEGER, Arrays.asList(-100000, 1, 100000, null));
+        assertThat(set, instanceOf(MembershipSet.Ints.class));
+        assertTrue(set.contains(-100000));
+        assertTrue(set.contains(100000));
+        assertFalse(set.contains(2));
+        assertTrue(set.containsNull());
+    }
+
+    @Test
+    public void testLongs() throws Exception {
+        MembershipSet set = MembershipSet.of(DataTypes.LONG, Arrays.asList(Long.MIN_VALUE, 0L, Long.MAX_VALUE));
+        assertThat(set, instanceOf(MembershipSet.Longs.class));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertTrue(set.contains(Long.MAX_VALUE));
+        assertFalse(set.contains(1L));
+    }
+
+    @Test
+    public void testDoublesMatchEquals() throws Exception {
+        MembershipSet set = MembershipSet.of(DataTypes.DOUBLE, Arrays.asList(Double.NaN, 0.0d, 1.5d));
+        assertTrue(set.contains(Double.NaN));
+        assertTrue(set.contains(1.5d));
+        assertTrue(set.contains(0.0d));
+        assertFalse(set.contains(-0.0d));
+        assertFalse(set.contains(2.0d));
+    }
+
+    @Test
+    public void testFloats() throws Exception {
+        MembershipSet set = MembershipSet.of(DataTypes.FLOAT, Arrays.asList(1.5f, 2.5f));
+        assertTrue(set.contains(2.5f));
+        assertFalse(set.contains(3.5f));
+    }
+
+    @Test
+    public void testStrings() throws Exception {
+        MembershipSet set = MembershipSet.of(DataTypes.STRING,
+                Arrays.asList(new BytesRef("alpha"), new BytesRef("bravo"), null));
+        assertTrue(set.contains(new BytesRef("bravo")));
+        assertFalse(set.contains(new BytesRef("charlie")));
+        assertTrue(set.containsNull());
+    }
+
+    @Test
+    public void testOnlyNull() throws Exception {
+        MembershipSet set = MembershipSet.of(DataTypes.LONG, Arrays.asList((Object) null));
+        assertFalse(set.contains(1L));
+        assertTrue(set.containsNull());
+    }
+
+    @Test
+    public void testUnsupportedType() throws Exception {
+        assertThat(MembershipSet.of(DataTypes.BOOLEAN, ImmutableList.of(true)), nullValue());
+    }
+}
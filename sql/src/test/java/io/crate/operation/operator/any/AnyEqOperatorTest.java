@@ -24,9 +24,11 @@ package io.crate.operation.operator.any;
 import com.google.common.collect.ImmutableMap;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Scalar;
 import io.crate.operation.operator.input.ObjectInput;
 import io.crate.planner.symbol.Function;
 import io.crate.planner.symbol.Literal;
+import io.crate.planner.symbol.Reference;
 import io.crate.planner.symbol.Symbol;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.types.ArrayType;
@@ -116,4 +118,19 @@ public class AnyEqOperatorTest extends CrateUnitTest {
         assertFalse(anyEqNormalizeSymbol(42, new Object[]{41, 43, -42}));
     }
 
+    @Test
+    public void testEvaluateCompiled() throws Exception {
+        AnyEqOperator anyEqOperator = new AnyEqOperator(
+                new FunctionInfo(
+                        new FunctionIdent("any_=", Arrays.<DataType>asList(DataTypes.LONG, new ArrayType(DataTypes.LONG))),
+                        DataTypes.BOOLEAN)
+        );
+        Literal array = Literal.newLiteral(new ArrayType(DataTypes.LONG), new Object[]{1L, null, 3L});
+        Scalar<Boolean, Object> compiled = anyEqOperator.compile(Arrays.<Symbol>asList(new Reference(), array));
+        assertNotSame(anyEqOperator, compiled);
+
+        assertTrue(compiled.evaluate(new ObjectInput(3L), array));
+        assertFalse(compiled.evaluate(new ObjectInput(2L), array));
+        assertNull(compiled.evaluate(new ObjectInput(null), array));
+    }
 }
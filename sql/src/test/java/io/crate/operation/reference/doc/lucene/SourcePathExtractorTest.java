@@ -0,0 +1,107 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.operation.reference.doc.lucene;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+
+public class SourcePathExtractorTest extends CrateUnitTest {
+
+    private static BytesReference source() throws Exception {
+        return XContentFactory.jsonBuilder()
+                .startObject()
+                    .field("id", 1)
+                    .startObject("o")
+                        .field("a", "foo")
+                        .startObject("b")
+                            .field("c", 10L)
+                        .endObject()
+                    .endObject()
+                    .startArray("friends")
+                        .startObject().field("name", "Ford").endObject()
+                        .startObject().field("name", "Arthur").endObject()
+                    .endArray()
+                    .field("payload", "ignored")
+                .endObject()
+                .bytes();
+    }
+
+    @Test
+    public void testExtractNestedPaths() throws Exception {
+        SourcePathExtractor extractor = new SourcePathExtractor(null);
+        int aSlot = extractor.register("o.a");
+        int cSlot = extractor.register("o.b.c");
+        int idSlot = extractor.register("id");
+        extractor.extract(source());
+
+        assertThat((String) extractor.value(aSlot), is("foo"));
+        assertThat(((Number) extractor.value(cSlot)).longValue(), is(10L));
+        assertThat((Integer) extractor.value(idSlot), is(1));
+    }
+
+    @Test
+    public void testSamePathIsRegisteredOnce() throws Exception {
+        SourcePathExtractor extractor = new SourcePathExtractor(null);
+        assertThat(extractor.register("o.a"), is(extractor.register("o.a")));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testExtractObjectAndChildOfObject() throws Exception {
+        SourcePathExtractor extractor = new SourcePathExtractor(null);
+        int oSlot = extractor.register("o");
+        int cSlot = extractor.register("o.b.c");
+        extractor.extract(source());
+
+        Map<String, Object> o = (Map<String, Object>) extractor.value(oSlot);
+        assertThat((String) o.get("a"), is("foo"));
+        assertThat(((Number) extractor.value(cSlot)).longValue(), is(10L));
+    }
+
+    @Test
+    public void testExtractFromObjectArray() throws Exception {
+        SourcePathExtractor extractor = new SourcePathExtractor(null);
+        int slot = extractor.register("friends.name");
+        extractor.extract(source());
+
+        assertThat(extractor.value(slot), is((Object) Arrays.<Object>asList("Ford", "Arthur")));
+    }
+
+    @Test
+    public void testMissingPaths() throws Exception {
+        SourcePathExtractor extractor = new SourcePathExtractor(null);
+        int missingSlot = extractor.register("o.x");
+        int childOfPrimitiveSlot = extractor.register("id.x");
+        extractor.extract(source());
+
+        assertThat(extractor.value(missingSlot), nullValue());
+        assertThat(extractor.value(childOfPrimitiveSlot), nullValue());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.rest.action;
+
+import io.crate.action.sql.SQLResponse;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.core.collections.ArrayBucket;
+import io.crate.jobs.JobContextService;
+import io.crate.operation.collect.StatsTables;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.elasticsearch.common.unit.TimeValue.timeValueMillis;
+import static org.elasticsearch.test.ElasticsearchTestCase.assertBusy;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RestSQLActionTest extends CrateUnitTest {
+
+    private final ThreadPool testThreadPool = new ThreadPool(getClass().getSimpleName());
+    private final CircuitBreaker breaker = new MemoryCircuitBreaker(
+            new ByteSizeValue(1, ByteSizeUnit.MB), 1.0, Loggers.getLogger(RestSQLActionTest.class));
+
+    private long flushBufferSize;
+    private TimeValue keepAliveInterval;
+    private JobContextService jobContextService;
+    private RestSQLAction action;
+
+    @Before
+    public void setUpAction() throws Exception {
+        flushBufferSize = RamAccountingContext.FLUSH_BUFFER_SIZE;
+        RamAccountingContext.FLUSH_BUFFER_SIZE = 1;
+        keepAliveInterval = JobContextService.DEFAULT_KEEP_ALIVE_INTERVAL;
+        JobContextService.DEFAULT_KEEP_ALIVE_INTERVAL = timeValueMillis(10);
+        jobContextService = new JobContextService(ImmutableSettings.EMPTY, testThreadPool, mock(StatsTables.class));
+
+        CrateCircuitBreakerService breakerService = mock(CrateCircuitBreakerService.class);
+        when(breakerService.getBreaker(CrateCircuitBreakerService.QUERY_BREAKER)).thenReturn(breaker);
+        action = new RestSQLAction(
+                ImmutableSettings.builder().put(RestSQLAction.MAX_OPEN_CURSORS, 1).build(),
+                mock(Client.class),
+                mock(RestController.class),
+                jobContextService,
+                breakerService);
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        jobContextService.close();
+        testThreadPool.shutdown();
+        JobContextService.DEFAULT_KEEP_ALIVE_INTERVAL = keepAliveInterval;
+        RamAccountingContext.FLUSH_BUFFER_SIZE = flushBufferSize;
+    }
+
+    @Test
+    public void testUnfetchedCursorIsReapedAfterKeepAlive() throws Exception {
+        assertTrue(action.reserveCursor());
+        assertFalse(action.reserveCursor());
+
+        SQLResponse response = new SQLResponse(
+                new String[]{"x"},
+                new ArrayBucket(new Object[][]{new Object[]{1}, new Object[]{2}, new Object[]{3}}),
+                new DataType[]{DataTypes.INTEGER},
+                3L,
+                0L,
+                false);
+        SQLResponse firstPage = action.openCursor(response, false, 1, 0L, 0L);
+        assertThat(firstPage.cursor(), notNullValue());
+        assertThat(action.openCursors(), is(1));
+        assertThat(breaker.getUsed(), greaterThan(0L));
+
+        // the cursor is never fetched again
+        assertBusy(new Runnable() {
+            @Override
+            public void run() {
+                assertThat(action.openCursors(), is(0));
+                assertThat(breaker.getUsed(), is(0L));
+            }
+        });
+        assertTrue(action.reserveCursor());
+    }
+}